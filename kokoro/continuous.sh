@@ -7,3 +7,4 @@ cd github/minikube-build-tools-for-java
 
 (cd minikube-gradle-plugin; ./gradlew clean build)
 (cd minikube-maven-plugin; ./mvnw clean install)
+(cd minikube-testing; ./mvnw clean install)
@@ -0,0 +1,371 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube;
+
+import com.google.cloud.tools.minikube.util.CommandExecutorFactory;
+import com.google.cloud.tools.minikube.util.MinikubeDockerEnvParser;
+import com.google.cloud.tools.minikube.util.MinikubeStatus;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.plugins.ExtraPropertiesExtension;
+
+/**
+ * Holds what the build knows about its minikube clusters, shared by the tasks of all projects: the
+ * state of each profile after the commands the build ran, and values derived from a running cluster
+ * (its IP and docker environment). It is held by the root project, which lives as long as the
+ * build.
+ *
+ * <p>Concurrent identical requests run once, and the other callers wait for their result. Commands
+ * that change the state of a profile run one at a time, a command that already brought the profile
+ * to its state in this build is skipped, and the derived values of the profile are looked up again
+ * after its state changed.
+ */
+public class ClusterStateService {
+
+  /** A command that changes the state of a profile. */
+  public interface Transition {
+
+    void run() throws IOException, InterruptedException;
+  }
+
+  /** The profile minikube uses when none is selected. */
+  public static final String DEFAULT_PROFILE = "minikube";
+
+  private static final String EXTRA_PROPERTY_NAME = ClusterStateService.class.getName();
+
+  private static final String IP = "ip";
+  private static final String DOCKER_ENV = "docker-env";
+
+  /**
+   * Gets the service of the build {@code project} belongs to, creating it if necessary.
+   *
+   * @param project any project of the build
+   * @param commandExecutorFactory creates the executors the minikube commands run with
+   * @return the service
+   */
+  public static ClusterStateService get(
+      Project project, CommandExecutorFactory commandExecutorFactory) {
+    ExtraPropertiesExtension extraProperties =
+        project.getRootProject().getExtensions().getExtraProperties();
+    synchronized (ClusterStateService.class) {
+      if (extraProperties.has(EXTRA_PROPERTY_NAME)) {
+        Object service = extraProperties.get(EXTRA_PROPERTY_NAME);
+        // Projects that load the plugin with another class loader cannot share the service.
+        if (service instanceof ClusterStateService) {
+          return (ClusterStateService) service;
+        }
+        return new ClusterStateService(commandExecutorFactory);
+      }
+      ClusterStateService service = new ClusterStateService(commandExecutorFactory);
+      extraProperties.set(EXTRA_PROPERTY_NAME, service);
+      return service;
+    }
+  }
+
+  /**
+   * Finds the profile selected by minikube flags.
+   *
+   * @param flags minikube flags
+   * @return the profile, {@link #DEFAULT_PROFILE} if the flags do not select one
+   */
+  public static String getProfile(List<String> flags) {
+    List<String> profileFlags = MinikubeStatus.getProfileFlags(flags);
+    return profileFlags.isEmpty()
+        ? DEFAULT_PROFILE
+        : profileFlags.get(0).substring("--profile=".length());
+  }
+
+  /**
+   * Runs {@code minikube docker-env}.
+   *
+   * @param commandExecutorFactory creates the executor the command runs with
+   * @param minikube the minikube executable
+   * @param profile the minikube profile
+   * @return the docker environment variables and their values
+   */
+  static Map<String, String> queryDockerEnv(
+      CommandExecutorFactory commandExecutorFactory, String minikube, String profile)
+      throws IOException, InterruptedException {
+    List<String> minikubeDockerEnvCommand =
+        Arrays.asList(minikube, "docker-env", "--shell=none", "--profile=" + profile);
+
+    List<String> dockerEnv =
+        commandExecutorFactory.newCommandExecutor().run(minikubeDockerEnvCommand);
+
+    return MinikubeDockerEnvParser.parse(dockerEnv);
+  }
+
+  /** What the build knows about a profile, guarded by the service. */
+  private static class ProfileState {
+
+    /** The state after the last command, {@code null} if unknown. */
+    private MinikubeStatus.State state;
+    /** The command line that brought the profile to its state. */
+    private List<String> stateCommand;
+    /** The running command that changes the state, with its command line. */
+    private CompletableFuture<Void> transition;
+
+    private List<String> transitionCommand;
+    /** The derived values by name, looked up or being looked up. */
+    private final Map<String, CompletableFuture<Object>> values = new HashMap<>();
+  }
+
+  private final CommandExecutorFactory commandExecutorFactory;
+  private final Map<List<String>, ProfileState> profiles = new HashMap<>();
+
+  // @VisibleForTesting
+  ClusterStateService(CommandExecutorFactory commandExecutorFactory) {
+    this.commandExecutorFactory = commandExecutorFactory;
+  }
+
+  /**
+   * Runs a command that brings a profile to a state. The command is skipped if the same command
+   * line already brought the profile to that state in this build, including when another project is
+   * running it right now. Other commands of the profile wait for the running one.
+   *
+   * @param minikube the minikube executable
+   * @param commandLine the full command line, which identifies identical commands
+   * @param resultingState the state the command leaves the profile in
+   * @param logger for logging skipped commands
+   * @param transition runs the command
+   * @return {@code true} if the command ran, {@code false} if it was skipped
+   */
+  public boolean transition(
+      String minikube,
+      List<String> commandLine,
+      MinikubeStatus.State resultingState,
+      Logger logger,
+      Transition transition)
+      throws IOException, InterruptedException {
+    String profile = getProfile(commandLine);
+    ProfileState profileState;
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    while (true) {
+      CompletableFuture<Void> runningTransition;
+      synchronized (this) {
+        profileState = getProfileState(minikube, profile);
+        runningTransition = profileState.transition;
+        if (runningTransition == null) {
+          if (resultingState == profileState.state
+              && commandLine.equals(profileState.stateCommand)) {
+            logger.lifecycle(
+                "minikube profile " + profile + " is already " + format(resultingState));
+            return false;
+          }
+          profileState.transition = future;
+          profileState.transitionCommand = commandLine;
+          profileState.state = null;
+          profileState.values.clear();
+          break;
+        }
+        if (commandLine.equals(profileState.transitionCommand)) {
+          logger.lifecycle(
+              "Waiting for another project running minikube "
+                  + commandLine.get(1)
+                  + " of profile "
+                  + profile);
+        }
+      }
+      try {
+        runningTransition.get();
+      } catch (ExecutionException ignored) {
+        // The command that failed reports its failure, this one runs again.
+      }
+    }
+
+    // The transition ends before its future completes, so that woken waiters do not find it again.
+    try {
+      transition.run();
+    } catch (IOException | InterruptedException | RuntimeException ex) {
+      synchronized (this) {
+        profileState.transition = null;
+        profileState.transitionCommand = null;
+      }
+      future.completeExceptionally(ex);
+      throw ex;
+    }
+    synchronized (this) {
+      profileState.state = resultingState;
+      profileState.stateCommand = commandLine;
+      profileState.transition = null;
+      profileState.transitionCommand = null;
+    }
+    future.complete(null);
+    return true;
+  }
+
+  /**
+   * Gets the state of a profile, from the commands the build ran, or with {@code minikube status}
+   * the first time.
+   *
+   * @param minikube the minikube executable
+   * @param profile the minikube profile
+   * @return the state
+   */
+  public MinikubeStatus.State getState(String minikube, String profile)
+      throws IOException, InterruptedException {
+    synchronized (this) {
+      MinikubeStatus.State state = getProfileState(minikube, profile).state;
+      if (state != null) {
+        return state;
+      }
+    }
+    MinikubeStatus.State state =
+        (MinikubeStatus.State)
+            getValue(
+                minikube,
+                profile,
+                "state",
+                () ->
+                    // minikube status reports a stopped or missing cluster with a non-zero exit
+                    // code.
+                    MinikubeStatus.parse(
+                        commandExecutorFactory
+                            .newCommandExecutor()
+                            .setFailOnNonZeroExitCode(false)
+                            .run(
+                                Arrays.asList(
+                                    minikube, "status", "--output=json", "--profile=" + profile))));
+    synchronized (this) {
+      ProfileState profileState = getProfileState(minikube, profile);
+      if (profileState.state == null && profileState.transition == null) {
+        profileState.state = state;
+      }
+    }
+    return state;
+  }
+
+  /**
+   * Gets the IP of a profile's cluster, running {@code minikube ip} only once while the state of
+   * the profile does not change.
+   *
+   * @param minikube the minikube executable
+   * @param profile the minikube profile
+   * @return the IP
+   */
+  public String getIp(String minikube, String profile) throws IOException, InterruptedException {
+    return (String)
+        getValue(
+            minikube,
+            profile,
+            IP,
+            () -> {
+              for (String line :
+                  commandExecutorFactory
+                      .newCommandExecutor()
+                      .run(Arrays.asList(minikube, "ip", "--profile=" + profile))) {
+                if (!line.trim().isEmpty()) {
+                  return line.trim();
+                }
+              }
+              throw new GradleException("minikube ip did not report an IP");
+            });
+  }
+
+  /**
+   * Gets the docker environment of a profile, running {@code minikube docker-env} only once while
+   * the state of the profile does not change.
+   *
+   * @param minikube the minikube executable
+   * @param profile the minikube profile
+   * @return the docker environment variables and their values
+   */
+  public Map<String, String> getDockerEnv(String minikube, String profile)
+      throws IOException, InterruptedException {
+    @SuppressWarnings("unchecked")
+    Map<String, String> dockerEnv =
+        (Map<String, String>)
+            getValue(
+                minikube,
+                profile,
+                DOCKER_ENV,
+                () ->
+                    Collections.unmodifiableMap(
+                        queryDockerEnv(commandExecutorFactory, minikube, profile)));
+    return dockerEnv;
+  }
+
+  /** Looks up a derived value. */
+  private interface Lookup {
+
+    Object get() throws IOException, InterruptedException;
+  }
+
+  /**
+   * Gets a derived value of a profile. The first caller looks it up, and concurrent callers wait
+   * for its result. A failed lookup is not kept, so that the next caller tries again.
+   */
+  private Object getValue(String minikube, String profile, String name, Lookup lookup)
+      throws IOException, InterruptedException {
+    CompletableFuture<Object> future;
+    boolean lookUp = false;
+    synchronized (this) {
+      Map<String, CompletableFuture<Object>> values = getProfileState(minikube, profile).values;
+      future = values.get(name);
+      if (future == null) {
+        future = new CompletableFuture<>();
+        values.put(name, future);
+        lookUp = true;
+      }
+    }
+
+    if (lookUp) {
+      try {
+        future.complete(lookup.get());
+      } catch (IOException | InterruptedException | RuntimeException ex) {
+        synchronized (this) {
+          getProfileState(minikube, profile).values.remove(name, future);
+        }
+        future.completeExceptionally(ex);
+        throw ex;
+      }
+    }
+
+    try {
+      return future.get();
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof IOException) {
+        throw new IOException(cause.getMessage(), cause);
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new GradleException(cause.getMessage(), cause);
+    }
+  }
+
+  private ProfileState getProfileState(String minikube, String profile) {
+    return profiles.computeIfAbsent(
+        new ArrayList<>(Arrays.asList(minikube, profile)), key -> new ProfileState());
+  }
+
+  private static String format(MinikubeStatus.State state) {
+    return state.name().toLowerCase(Locale.ROOT);
+  }
+}
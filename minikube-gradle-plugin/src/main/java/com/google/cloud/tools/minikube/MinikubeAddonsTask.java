@@ -0,0 +1,165 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube;
+
+import com.google.cloud.tools.minikube.util.AddonEnabler;
+import com.google.cloud.tools.minikube.util.CommandExecutorFactory;
+import com.google.cloud.tools.minikube.util.ParallelCommandRunner;
+import com.google.cloud.tools.minikube.util.ReadinessWaiter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.provider.PropertyState;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.TaskAction;
+
+/** Enables minikube addons in parallel, skipping the addons already enabled. */
+public class MinikubeAddonsTask extends DefaultTask {
+
+  /** minikube executable : lazily evaluated from extension input */
+  private PropertyState<String> minikube;
+  /** kubectl executable */
+  private String kubectl = "kubectl";
+  /** The kubectl context, which minikube names after the profile */
+  private String context = "minikube";
+  /** The minikube profile */
+  private String profile = "minikube";
+  /** The addons to enable */
+  private List<String> addons = new ArrayList<>();
+  /** The resources to wait for by addon, as [namespace/]kind/name */
+  private Map<String, List<String>> readyTargets = new LinkedHashMap<>();
+  /** Maximum number of addons enabled at the same time */
+  private int parallelism = 2;
+  /** How long to wait for the resources of all addons to be ready */
+  private int timeoutSeconds = 300;
+
+  private CommandExecutorFactory commandExecutorFactory;
+
+  public MinikubeAddonsTask() {
+    minikube = getProject().property(String.class);
+  }
+
+  public MinikubeAddonsTask setCommandExecutorFactory(
+      CommandExecutorFactory commandExecutorFactory) {
+    this.commandExecutorFactory = commandExecutorFactory;
+    return this;
+  }
+
+  @Input
+  public String getMinikube() {
+    return minikube.get();
+  }
+
+  public void setMinikube(String minikube) {
+    this.minikube.set(minikube);
+  }
+
+  public void setMinikube(PropertyState<String> minikube) {
+    this.minikube = minikube;
+  }
+
+  @Input
+  public String getKubectl() {
+    return kubectl;
+  }
+
+  public void setKubectl(String kubectl) {
+    this.kubectl = kubectl;
+  }
+
+  @Input
+  public String getContext() {
+    return context;
+  }
+
+  public void setContext(String context) {
+    this.context = context;
+  }
+
+  @Input
+  public String getProfile() {
+    return profile;
+  }
+
+  public void setProfile(String profile) {
+    this.profile = profile;
+  }
+
+  @Input
+  public List<String> getAddons() {
+    return addons;
+  }
+
+  public void setAddons(List<String> addons) {
+    this.addons = addons;
+  }
+
+  @Input
+  public Map<String, List<String>> getReadyTargets() {
+    return readyTargets;
+  }
+
+  public void setReadyTargets(Map<String, List<String>> readyTargets) {
+    this.readyTargets = readyTargets;
+  }
+
+  @Input
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  @Input
+  public int getTimeoutSeconds() {
+    return timeoutSeconds;
+  }
+
+  public void setTimeoutSeconds(int timeoutSeconds) {
+    this.timeoutSeconds = timeoutSeconds;
+  }
+
+  @TaskAction
+  public void enableAddons() throws InterruptedException {
+    List<ParallelCommandRunner.Result> results =
+        new AddonEnabler(commandExecutorFactory, getMinikube(), profile, getLogger())
+            .setParallelism(parallelism)
+            .setReadinessWaiterFactory(
+                namespace ->
+                    new ReadinessWaiter(commandExecutorFactory, kubectl, context, getLogger())
+                        .setNamespace(namespace))
+            .enable(
+                addons, readyTargets, System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds));
+
+    for (ParallelCommandRunner.Result result : results) {
+      if (result.getStatus() != ParallelCommandRunner.Result.Status.SKIPPED) {
+        getLogger().lifecycle(ParallelCommandRunner.formatResult(result));
+      }
+    }
+
+    String failures = ParallelCommandRunner.describeFailures(results);
+    if (!failures.isEmpty()) {
+      throw new GradleException("Failed to enable minikube addons: " + failures);
+    }
+  }
+}
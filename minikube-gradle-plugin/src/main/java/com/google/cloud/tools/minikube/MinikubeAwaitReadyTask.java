@@ -0,0 +1,163 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube;
+
+import com.google.cloud.tools.minikube.util.CommandExecutorFactory;
+import com.google.cloud.tools.minikube.util.ReadinessWaiter;
+import com.google.cloud.tools.minikube.util.TimingHistory;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.provider.PropertyState;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+
+/** Waits for Kubernetes resources in the minikube cluster to become ready. */
+public class MinikubeAwaitReadyTask extends DefaultTask {
+
+  /** kubectl executable */
+  private String kubectl = "kubectl";
+  /** The kubectl context, which minikube names after the profile */
+  private String context = "minikube";
+  /** The namespace of the resources */
+  private String namespace = "default";
+  /** The resources to wait for, as kind/name */
+  private List<String> targets = new ArrayList<>();
+  /** How long to wait for all resources to be ready */
+  private int timeoutSeconds = 300;
+  /** File to record the time to ready to : lazily evaluated from extension input */
+  private PropertyState<File> timingsFile;
+
+  private CommandExecutorFactory commandExecutorFactory;
+
+  public MinikubeAwaitReadyTask() {
+    timingsFile = getProject().property(File.class);
+  }
+
+  public MinikubeAwaitReadyTask setCommandExecutorFactory(
+      CommandExecutorFactory commandExecutorFactory) {
+    this.commandExecutorFactory = commandExecutorFactory;
+    return this;
+  }
+
+  @Input
+  public String getKubectl() {
+    return kubectl;
+  }
+
+  public void setKubectl(String kubectl) {
+    this.kubectl = kubectl;
+  }
+
+  @Input
+  public String getContext() {
+    return context;
+  }
+
+  public void setContext(String context) {
+    this.context = context;
+  }
+
+  @Input
+  public String getNamespace() {
+    return namespace;
+  }
+
+  public void setNamespace(String namespace) {
+    this.namespace = namespace;
+  }
+
+  @Input
+  public List<String> getTargets() {
+    return targets;
+  }
+
+  public void setTargets(List<String> targets) {
+    this.targets = targets;
+  }
+
+  @Input
+  public int getTimeoutSeconds() {
+    return timeoutSeconds;
+  }
+
+  public void setTimeoutSeconds(int timeoutSeconds) {
+    this.timeoutSeconds = timeoutSeconds;
+  }
+
+  @Internal
+  public File getTimingsFile() {
+    return timingsFile.isPresent() ? timingsFile.get() : null;
+  }
+
+  public void setTimingsFile(File timingsFile) {
+    this.timingsFile.set(timingsFile);
+  }
+
+  public void setTimingsFile(PropertyState<File> timingsFile) {
+    this.timingsFile = timingsFile;
+  }
+
+  @TaskAction
+  public void awaitReady() throws InterruptedException {
+    ReadinessWaiter readinessWaiter =
+        new ReadinessWaiter(commandExecutorFactory, kubectl, context, getLogger())
+            .setNamespace(namespace);
+
+    long start = System.nanoTime();
+    long deadline = start + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+    long now = System.currentTimeMillis();
+    List<TimingHistory.Sample> samples = new ArrayList<>();
+    // Resources are awaited one after the other: the total is the time until the last one is ready.
+    for (String target : targets) {
+      readinessWaiter.await(target, deadline);
+      long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      getLogger()
+          .lifecycle(
+              String.format(Locale.ROOT, "%s ready after %.1fs", target, elapsedMillis / 1000.0));
+      samples.add(new TimingHistory.Sample(now, context, "await-ready", target, elapsedMillis));
+    }
+    samples.add(
+        0,
+        new TimingHistory.Sample(
+            now,
+            context,
+            "await-ready",
+            "",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+
+    recordTimings(samples);
+  }
+
+  private void recordTimings(List<TimingHistory.Sample> samples) {
+    File file = getTimingsFile();
+    if (file == null) {
+      return;
+    }
+    try {
+      new TimingHistory(file.toPath()).append(samples);
+    } catch (IOException ex) {
+      // Recording timings is best-effort and must not fail the build.
+      getLogger().warn("Could not record minikube timings to " + file + ": " + ex.getMessage());
+    }
+  }
+}
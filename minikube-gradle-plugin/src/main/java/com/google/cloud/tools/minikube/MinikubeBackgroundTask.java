@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube;
+
+import com.google.cloud.tools.minikube.util.BackgroundProcess;
+import com.google.cloud.tools.minikube.util.CommandExecutorFactory;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.provider.PropertyState;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Starts a long-running minikube command, such as {@code minikube mount} or {@code minikube
+ * tunnel}, in the background and waits until it is ready. The command keeps running while the tasks
+ * that depend on this task run, and is stopped with the processes it started when the build
+ * finishes, or before minikube is stopped or deleted.
+ */
+public class MinikubeBackgroundTask extends DefaultTask {
+
+  /** minikube executable : lazily evaluated from extension input */
+  private PropertyState<String> minikube;
+  /** The minikube command: mount, tunnel, etc. */
+  private String command;
+  /** Flag passthrough, including the arguments of the command */
+  private String[] flags = {};
+  /** The pattern of the output line that reports that the command is ready */
+  private String readyPattern;
+  /** How long the command may take to get ready */
+  private int readyTimeoutSeconds = 60;
+  /** How long the command may take to clean up when it is stopped, before it is killed */
+  private int gracePeriodSeconds = 10;
+
+  private CommandExecutorFactory commandExecutorFactory;
+  private BackgroundProcess backgroundProcess;
+
+  public MinikubeBackgroundTask() {
+    minikube = getProject().property(String.class);
+  }
+
+  public MinikubeBackgroundTask setCommandExecutorFactory(
+      CommandExecutorFactory commandExecutorFactory) {
+    this.commandExecutorFactory = commandExecutorFactory;
+    return this;
+  }
+
+  @Input
+  public String getMinikube() {
+    return minikube.get();
+  }
+
+  public void setMinikube(String minikube) {
+    this.minikube.set(minikube);
+  }
+
+  public void setMinikube(PropertyState<String> minikube) {
+    this.minikube = minikube;
+  }
+
+  @Input
+  public String getCommand() {
+    return command;
+  }
+
+  public void setCommand(String command) {
+    this.command = command;
+  }
+
+  @Input
+  public String[] getFlags() {
+    return flags;
+  }
+
+  public void setFlags(String[] flags) {
+    this.flags = flags;
+  }
+
+  @Input
+  public String getReadyPattern() {
+    return readyPattern;
+  }
+
+  public void setReadyPattern(String readyPattern) {
+    this.readyPattern = readyPattern;
+  }
+
+  @Input
+  public int getReadyTimeoutSeconds() {
+    return readyTimeoutSeconds;
+  }
+
+  public void setReadyTimeoutSeconds(int readyTimeoutSeconds) {
+    this.readyTimeoutSeconds = readyTimeoutSeconds;
+  }
+
+  @Input
+  public int getGracePeriodSeconds() {
+    return gracePeriodSeconds;
+  }
+
+  public void setGracePeriodSeconds(int gracePeriodSeconds) {
+    this.gracePeriodSeconds = gracePeriodSeconds;
+  }
+
+  /** @return {@code true} if the command was started and is still running */
+  @Internal
+  public boolean isProcessRunning() {
+    return backgroundProcess != null && backgroundProcess.isRunning();
+  }
+
+  @TaskAction
+  public void startProcess() throws IOException, InterruptedException {
+    List<String> minikubeCommand = new ArrayList<>();
+    minikubeCommand.add(getMinikube());
+    minikubeCommand.add(command);
+    minikubeCommand.addAll(Arrays.asList(flags));
+
+    backgroundProcess =
+        new BackgroundProcess(
+            "minikube " + command, minikubeCommand, Pattern.compile(readyPattern));
+    backgroundProcess.start(
+        commandExecutorFactory.newCommandExecutor(),
+        TimeUnit.SECONDS.toMillis(readyTimeoutSeconds));
+    getLogger().lifecycle("minikube " + command + " is running in the background");
+  }
+
+  /** Stops the command and the processes it started, if it is running. */
+  public void stopProcess() throws InterruptedException {
+    if (backgroundProcess == null) {
+      return;
+    }
+    if (backgroundProcess.isRunning()) {
+      getLogger().lifecycle("Stopping minikube " + command);
+    } else {
+      getLogger().warn("minikube " + command + " exited while the build was running");
+    }
+    backgroundProcess.stop(TimeUnit.SECONDS.toMillis(gracePeriodSeconds));
+    backgroundProcess = null;
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube;
+
+import com.google.cloud.tools.minikube.util.CommandExecutorFactory;
+import com.google.cloud.tools.minikube.util.ImageCache;
+import com.google.cloud.tools.minikube.util.ParallelCommandRunner;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.provider.PropertyState;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+
+/** Adds images to minikube's local image cache, skipping the images already cached. */
+public class MinikubeCacheTask extends DefaultTask {
+
+  /** minikube executable : lazily evaluated from extension input */
+  private PropertyState<String> minikube;
+  /** The images to cache */
+  private List<String> images = new ArrayList<>();
+  /** Maximum number of images cached at the same time */
+  private int parallelism = 4;
+  /** minikube's image cache directory */
+  private File cacheDirectory = ImageCache.getDefaultDirectory().toFile();
+
+  private CommandExecutorFactory commandExecutorFactory;
+
+  public MinikubeCacheTask() {
+    minikube = getProject().property(String.class);
+  }
+
+  public MinikubeCacheTask setCommandExecutorFactory(
+      CommandExecutorFactory commandExecutorFactory) {
+    this.commandExecutorFactory = commandExecutorFactory;
+    return this;
+  }
+
+  @Input
+  public String getMinikube() {
+    return minikube.get();
+  }
+
+  public void setMinikube(String minikube) {
+    this.minikube.set(minikube);
+  }
+
+  public void setMinikube(PropertyState<String> minikube) {
+    this.minikube = minikube;
+  }
+
+  @Input
+  public List<String> getImages() {
+    return images;
+  }
+
+  public void setImages(List<String> images) {
+    this.images = images;
+  }
+
+  @Input
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  @Internal
+  public File getCacheDirectory() {
+    return cacheDirectory;
+  }
+
+  public void setCacheDirectory(File cacheDirectory) {
+    this.cacheDirectory = cacheDirectory;
+  }
+
+  @TaskAction
+  public void cacheImages() throws InterruptedException {
+    List<String> missing = new ImageCache(cacheDirectory.toPath()).getMissing(images);
+    getLogger()
+        .lifecycle(
+            (images.size() - missing.size())
+                + " of "
+                + images.size()
+                + " image(s) already in the minikube cache");
+
+    Map<String, List<String>> commands = new LinkedHashMap<>();
+    for (String image : missing) {
+      commands.put(image, Arrays.asList(getMinikube(), "cache", "add", image));
+    }
+    List<ParallelCommandRunner.Result> results =
+        new ParallelCommandRunner(commandExecutorFactory, parallelism).run(commands);
+
+    for (ParallelCommandRunner.Result result : results) {
+      if (result.getStatus() != ParallelCommandRunner.Result.Status.SKIPPED) {
+        getLogger().lifecycle(ParallelCommandRunner.formatResult(result));
+      }
+    }
+
+    String failures = ParallelCommandRunner.describeFailures(results);
+    if (!failures.isEmpty()) {
+      throw new GradleException("Failed to add images to the minikube cache: " + failures);
+    }
+  }
+}
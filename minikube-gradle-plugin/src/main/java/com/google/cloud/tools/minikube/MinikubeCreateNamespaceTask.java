@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube;
+
+import com.google.cloud.tools.minikube.util.CommandExecutorFactory;
+import com.google.cloud.tools.minikube.util.NamespaceIsolation;
+import java.io.IOException;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Creates an isolated namespace for tests, so that they get a clean state without recreating the
+ * cluster. The name is chosen when the task is created, so that test tasks can be configured with
+ * it, for example {@code systemProperty 'minikube.namespace', minikubeCreateNamespace.namespace}.
+ */
+public class MinikubeCreateNamespaceTask extends DefaultTask {
+
+  /** kubectl executable */
+  private String kubectl = "kubectl";
+  /** The kubectl context, which minikube names after the profile */
+  private String context = "minikube";
+  /** The namespace to create */
+  private String namespace = NamespaceIsolation.newName(getProject().getName());
+  /** The run the namespace belongs to, which minikubeDeleteNamespaces deletes */
+  private String runId = NamespaceIsolation.newRunId();
+
+  private CommandExecutorFactory commandExecutorFactory;
+
+  public MinikubeCreateNamespaceTask setCommandExecutorFactory(
+      CommandExecutorFactory commandExecutorFactory) {
+    this.commandExecutorFactory = commandExecutorFactory;
+    return this;
+  }
+
+  @Input
+  public String getKubectl() {
+    return kubectl;
+  }
+
+  public void setKubectl(String kubectl) {
+    this.kubectl = kubectl;
+  }
+
+  @Input
+  public String getContext() {
+    return context;
+  }
+
+  public void setContext(String context) {
+    this.context = context;
+  }
+
+  @Input
+  public String getNamespace() {
+    return namespace;
+  }
+
+  public void setNamespace(String namespace) {
+    this.namespace = namespace;
+  }
+
+  @Internal
+  public String getRunId() {
+    return runId;
+  }
+
+  public void setRunId(String runId) {
+    this.runId = runId;
+  }
+
+  @TaskAction
+  public void createNamespace() throws IOException, InterruptedException {
+    new NamespaceIsolation(commandExecutorFactory, kubectl, context, getLogger())
+        .create(namespace, runId);
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube;
+
+import com.google.cloud.tools.minikube.util.CommandExecutorFactory;
+import com.google.cloud.tools.minikube.util.NamespaceIsolation;
+import java.io.IOException;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Deletes the isolated namespaces of a run, created by {@link MinikubeCreateNamespaceTask}, or all
+ * isolated namespaces. The command returns right away, and the cluster removes the namespaces in
+ * the background.
+ */
+public class MinikubeDeleteNamespacesTask extends DefaultTask {
+
+  /** kubectl executable */
+  private String kubectl = "kubectl";
+  /** The kubectl context, which minikube names after the profile */
+  private String context = "minikube";
+  /** The run to delete the namespaces of */
+  private String runId;
+  /** Whether to delete all isolated namespaces, including the ones of earlier runs */
+  private boolean all = false;
+
+  private CommandExecutorFactory commandExecutorFactory;
+
+  public MinikubeDeleteNamespacesTask setCommandExecutorFactory(
+      CommandExecutorFactory commandExecutorFactory) {
+    this.commandExecutorFactory = commandExecutorFactory;
+    return this;
+  }
+
+  @Input
+  public String getKubectl() {
+    return kubectl;
+  }
+
+  public void setKubectl(String kubectl) {
+    this.kubectl = kubectl;
+  }
+
+  @Input
+  public String getContext() {
+    return context;
+  }
+
+  public void setContext(String context) {
+    this.context = context;
+  }
+
+  @Input
+  public String getRunId() {
+    return runId;
+  }
+
+  public void setRunId(String runId) {
+    this.runId = runId;
+  }
+
+  @Input
+  public boolean getAll() {
+    return all;
+  }
+
+  public void setAll(boolean all) {
+    this.all = all;
+  }
+
+  @TaskAction
+  public void deleteNamespaces() throws IOException, InterruptedException {
+    NamespaceIsolation namespaceIsolation =
+        new NamespaceIsolation(commandExecutorFactory, kubectl, context, getLogger());
+    if (all) {
+      namespaceIsolation.deleteAll();
+    } else {
+      namespaceIsolation.deleteRun(runId);
+    }
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube;
+
+import com.google.cloud.tools.minikube.util.CommandExecutorFactory;
+import com.google.cloud.tools.minikube.util.DeployIndex;
+import com.google.cloud.tools.minikube.util.ManifestDeployer;
+import com.google.cloud.tools.minikube.util.ParallelCommandRunner;
+import com.google.cloud.tools.minikube.util.TimingHistory;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.provider.PropertyState;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Applies a directory of Kubernetes manifests to the minikube cluster in dependency waves. Only the
+ * changed manifests are applied, and the resources of removed manifests are pruned.
+ */
+public class MinikubeDeployTask extends DefaultTask {
+
+  /** kubectl executable */
+  private String kubectl = "kubectl";
+  /** The kubectl context, defaults to the profile's context, which minikube names after it */
+  private String context;
+  /** The minikube profile : lazily evaluated from extension input */
+  private PropertyState<String> profile;
+  /** The directory of the manifests to apply */
+  private File manifestDirectory;
+  /** Maximum number of manifests applied at the same time */
+  private int parallelism = 4;
+  /** Whether resources no manifest declares anymore are deleted */
+  private boolean prune = true;
+  /** The deploy index file, defaults to the context index in the build directory */
+  private File indexFile;
+  /** File to record the apply timings to : lazily evaluated from extension input */
+  private PropertyState<File> timingsFile;
+
+  private CommandExecutorFactory commandExecutorFactory;
+
+  public MinikubeDeployTask() {
+    timingsFile = getProject().property(File.class);
+    profile = getProject().property(String.class);
+    profile.set(ClusterStateService.DEFAULT_PROFILE);
+    manifestDirectory = getProject().file("src/main/k8s");
+    // Unchanged manifests are only up to date in the cluster the index was written for.
+    getOutputs().upToDateWhen(task -> isIndexForCurrentCluster());
+  }
+
+  public MinikubeDeployTask setCommandExecutorFactory(
+      CommandExecutorFactory commandExecutorFactory) {
+    this.commandExecutorFactory = commandExecutorFactory;
+    return this;
+  }
+
+  @Input
+  public String getKubectl() {
+    return kubectl;
+  }
+
+  public void setKubectl(String kubectl) {
+    this.kubectl = kubectl;
+  }
+
+  @Input
+  public String getContext() {
+    return context == null ? getProfile() : context;
+  }
+
+  public void setContext(String context) {
+    this.context = context;
+  }
+
+  @Input
+  public String getProfile() {
+    return profile.get();
+  }
+
+  public void setProfile(String profile) {
+    this.profile = getProject().property(String.class);
+    this.profile.set(profile);
+  }
+
+  public void setProfile(PropertyState<String> profile) {
+    this.profile = profile;
+  }
+
+  @InputDirectory
+  public File getManifestDirectory() {
+    return manifestDirectory;
+  }
+
+  public void setManifestDirectory(File manifestDirectory) {
+    this.manifestDirectory = manifestDirectory;
+  }
+
+  @Input
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  @Input
+  public boolean getPrune() {
+    return prune;
+  }
+
+  public void setPrune(boolean prune) {
+    this.prune = prune;
+  }
+
+  @OutputFile
+  public File getIndexFile() {
+    if (indexFile == null) {
+      return DeployIndex.getDefaultFile(getProject().getBuildDir().toPath(), getContext()).toFile();
+    }
+    return indexFile;
+  }
+
+  public void setIndexFile(File indexFile) {
+    this.indexFile = indexFile;
+  }
+
+  @Internal
+  public File getTimingsFile() {
+    return timingsFile.isPresent() ? timingsFile.get() : null;
+  }
+
+  public void setTimingsFile(File timingsFile) {
+    this.timingsFile.set(timingsFile);
+  }
+
+  public void setTimingsFile(PropertyState<File> timingsFile) {
+    this.timingsFile = timingsFile;
+  }
+
+  @TaskAction
+  public void deploy() throws IOException, InterruptedException {
+    long start = System.nanoTime();
+    long now = System.currentTimeMillis();
+    ManifestDeployer.Result result =
+        new ManifestDeployer(commandExecutorFactory, kubectl, getContext(), getLogger())
+            .setParallelism(parallelism)
+            .setIndexFile(getIndexFile().toPath())
+            .setPrune(prune)
+            .deploy(manifestDirectory.toPath());
+
+    String failures = result.describeFailures();
+    if (!failures.isEmpty()) {
+      throw new GradleException("Failed to apply manifests: " + failures);
+    }
+
+    List<TimingHistory.Sample> samples = new ArrayList<>();
+    samples.add(
+        new TimingHistory.Sample(
+            now,
+            getContext(),
+            "deploy",
+            "",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+    for (ParallelCommandRunner.Result applied : result.getApplied()) {
+      samples.add(
+          new TimingHistory.Sample(
+              now, getContext(), "deploy", applied.getName(), applied.getDurationMillis()));
+    }
+    recordTimings(samples);
+  }
+
+  /** @return {@code true} if the index was written for the cluster that currently runs */
+  // @VisibleForTesting
+  boolean isIndexForCurrentCluster() {
+    try {
+      String indexedClusterId = new DeployIndex(getIndexFile().toPath()).readClusterId();
+      return indexedClusterId != null
+          && indexedClusterId.equals(
+              new ManifestDeployer(commandExecutorFactory, kubectl, getContext(), getLogger())
+                  .getClusterId());
+    } catch (GradleException | IOException ex) {
+      return false;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private void recordTimings(List<TimingHistory.Sample> samples) {
+    File file = getTimingsFile();
+    if (file == null) {
+      return;
+    }
+    try {
+      new TimingHistory(file.toPath()).append(samples);
+    } catch (IOException ex) {
+      // Recording timings is best-effort and must not fail the build.
+      getLogger().warn("Could not record minikube timings to " + file + ": " + ex.getMessage());
+    }
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube;
+
+import com.google.cloud.tools.minikube.util.CommandExecutorFactory;
+import com.google.cloud.tools.minikube.util.DiagnosticsCollector;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.provider.PropertyState;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Collects minikube and pod diagnostics into an archive. Runs on its own, or before {@code
+ * minikubeStop} when a task of the build failed.
+ */
+public class MinikubeDiagnosticsTask extends DefaultTask {
+
+  /** minikube executable : lazily evaluated from extension input */
+  private PropertyState<String> minikube;
+  /** kubectl executable */
+  private String kubectl = "kubectl";
+  /** The minikube profile */
+  private String profile = "minikube";
+  /** The kubectl context, which minikube names after the profile */
+  private String context = "minikube";
+  /** The namespaces whose pods are collected, all namespaces if empty */
+  private List<String> namespaces = new ArrayList<>();
+  /** Maximum number of uncompressed bytes collected per command */
+  private long maxBytes = 10 * 1024 * 1024;
+  /** Maximum number of commands running at the same time */
+  private int parallelism = 4;
+  /** How the collected output is archived */
+  private DiagnosticsCollector.Format format = DiagnosticsCollector.Format.ZIP;
+  /** The directory the diagnostics are written to */
+  private File outputDirectory;
+  /** Whether minikubeStop collects diagnostics first when a task of the build failed */
+  private boolean collectOnFailure = true;
+
+  private CommandExecutorFactory commandExecutorFactory;
+
+  public MinikubeDiagnosticsTask() {
+    minikube = getProject().property(String.class);
+    outputDirectory = new File(getProject().getBuildDir(), "minikube/diagnostics");
+  }
+
+  public MinikubeDiagnosticsTask setCommandExecutorFactory(
+      CommandExecutorFactory commandExecutorFactory) {
+    this.commandExecutorFactory = commandExecutorFactory;
+    return this;
+  }
+
+  @Input
+  public String getMinikube() {
+    return minikube.get();
+  }
+
+  public void setMinikube(String minikube) {
+    this.minikube.set(minikube);
+  }
+
+  public void setMinikube(PropertyState<String> minikube) {
+    this.minikube = minikube;
+  }
+
+  @Input
+  public String getKubectl() {
+    return kubectl;
+  }
+
+  public void setKubectl(String kubectl) {
+    this.kubectl = kubectl;
+  }
+
+  @Input
+  public String getProfile() {
+    return profile;
+  }
+
+  public void setProfile(String profile) {
+    this.profile = profile;
+  }
+
+  @Input
+  public String getContext() {
+    return context;
+  }
+
+  public void setContext(String context) {
+    this.context = context;
+  }
+
+  @Input
+  public List<String> getNamespaces() {
+    return namespaces;
+  }
+
+  public void setNamespaces(List<String> namespaces) {
+    this.namespaces = namespaces;
+  }
+
+  @Input
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  public void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  @Input
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  @Input
+  public DiagnosticsCollector.Format getFormat() {
+    return format;
+  }
+
+  public void setFormat(DiagnosticsCollector.Format format) {
+    this.format = format;
+  }
+
+  @Internal
+  public File getOutputDirectory() {
+    return outputDirectory;
+  }
+
+  public void setOutputDirectory(File outputDirectory) {
+    this.outputDirectory = outputDirectory;
+  }
+
+  @Internal
+  public boolean getCollectOnFailure() {
+    return collectOnFailure;
+  }
+
+  public void setCollectOnFailure(boolean collectOnFailure) {
+    this.collectOnFailure = collectOnFailure;
+  }
+
+  @TaskAction
+  public void collect() throws IOException, InterruptedException {
+    new DiagnosticsCollector(
+            commandExecutorFactory, getMinikube(), kubectl, profile, context, getLogger())
+        .setParallelism(parallelism)
+        .setMaxBytes(maxBytes)
+        .setNamespaces(namespaces)
+        .setFormat(format)
+        .collect(outputDirectory.toPath());
+  }
+}
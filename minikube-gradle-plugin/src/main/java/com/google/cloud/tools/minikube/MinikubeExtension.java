@@ -17,24 +17,39 @@
 package com.google.cloud.tools.minikube;
 
 import com.google.cloud.tools.minikube.util.CommandExecutorFactory;
-import com.google.cloud.tools.minikube.util.MinikubeDockerEnvParser;
+import com.google.cloud.tools.minikube.util.MinikubeCapabilities;
+import com.google.cloud.tools.minikube.util.MinikubeHome;
+import com.google.cloud.tools.minikube.util.MinikubeVersionCache;
+import java.io.File;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
+import org.gradle.api.GradleException;
 import org.gradle.api.Project;
+import org.gradle.api.Task;
 import org.gradle.api.provider.PropertyState;
+import org.gradle.api.tasks.Exec;
+import org.gradle.api.tasks.JavaExec;
+import org.gradle.api.tasks.testing.Test;
+import org.gradle.process.ProcessForkOptions;
 
 /** Minikube configuration extension. */
 public class MinikubeExtension {
 
   private final PropertyState<String> minikube;
+  private final PropertyState<String> profile;
+  private final PropertyState<File> timingsFile;
 
+  private final Project project;
   private final CommandExecutorFactory commandExecutorFactory;
 
   public MinikubeExtension(Project project, CommandExecutorFactory commandExecutorFactory) {
+    this.project = project;
     minikube = project.property(String.class);
     setMinikube("minikube");
+    profile = project.property(String.class);
+    setProfile(ClusterStateService.DEFAULT_PROFILE);
+    timingsFile = project.property(File.class);
+    setTimingsFile(MinikubeHome.get().resolve("build-timings.tsv").toFile());
 
     this.commandExecutorFactory = commandExecutorFactory;
   }
@@ -51,19 +66,63 @@ public class MinikubeExtension {
     return minikube;
   }
 
+  /** @return the minikube profile the deploy, sync and watch tasks and the docker env default to */
+  public String getProfile() {
+    return profile.get();
+  }
+
+  public void setProfile(String profile) {
+    this.profile.set(profile);
+  }
+
+  public PropertyState<String> getProfileProvider() {
+    return profile;
+  }
+
+  /** @return the file minikube command timings are appended to */
+  public File getTimingsFile() {
+    return timingsFile.get();
+  }
+
+  public void setTimingsFile(File timingsFile) {
+    this.timingsFile.set(timingsFile);
+  }
+
+  public PropertyState<File> getTimingsFileProvider() {
+    return timingsFile;
+  }
+
   /**
-   * Gets the minikube docker environment variables by running the command 'minikube docker-env
-   * --shell=none'.
+   * Gets the capabilities of the configured minikube binary. Its version is queried once and cached
+   * in the minikube home, keyed by the binary's path, size and modification time.
+   *
+   * @return the capabilities, {@link MinikubeCapabilities#UNKNOWN} if the version could not be
+   *     determined
+   */
+  public MinikubeCapabilities getCapabilities() {
+    try {
+      return new MinikubeVersionCache(commandExecutorFactory, MinikubeVersionCache.getDefaultFile())
+          .getCapabilities(minikube.get());
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return MinikubeCapabilities.UNKNOWN;
+    }
+  }
+
+  /**
+   * Gets the minikube docker environment variables of the configured {@link #getProfile() profile}.
+   * See {@link #getDockerEnv(String)}.
    *
    * @return A map of docker environment variables and their values
    */
   public Map<String, String> getDockerEnv() throws IOException, InterruptedException {
-    return getDockerEnv("");
+    return getDockerEnv(profile.get());
   }
 
   /**
    * Gets the minikube docker environment variables by running the command 'minikube docker-env
-   * --shell=none'.
+   * --shell=none'. The command runs once per profile and build, and again after the build changed
+   * the state of the profile; {@link #injectDockerEnv} shares the result.
    *
    * @param profile target minikube profile
    * @return A map of docker environment variables and their values
@@ -73,12 +132,93 @@ public class MinikubeExtension {
       throw new NullPointerException("Minikube profile must not be null");
     }
 
-    List<String> minikubeDockerEnvCommand =
-        Arrays.asList(minikube.get(), "docker-env", "--shell=none", "--profile=" + profile);
+    return ClusterStateService.get(project, commandExecutorFactory)
+        .getDockerEnv(minikube.get(), profile);
+  }
+
+  /**
+   * Gets the IP of the configured {@link #getProfile() profile}'s cluster. See {@link
+   * #getIp(String)}.
+   *
+   * @return the IP
+   */
+  public String getIp() throws IOException, InterruptedException {
+    return getIp(profile.get());
+  }
+
+  /**
+   * Gets the IP of a profile's cluster with 'minikube ip'. The IP is looked up at most once per
+   * build and shared by all projects, until a minikube task changes the state of the profile.
+   *
+   * @param profile target minikube profile
+   * @return the IP
+   */
+  public String getIp(String profile) throws IOException, InterruptedException {
+    if (profile == null) {
+      throw new NullPointerException("Minikube profile must not be null");
+    }
+
+    return ClusterStateService.get(project, commandExecutorFactory).getIp(minikube.get(), profile);
+  }
+
+  /**
+   * Injects the docker environment of the configured {@link #getProfile() profile} into the {@code
+   * Exec}, {@code Test} and {@code JavaExec} tasks. See {@link #injectDockerEnv(String, Class[])}.
+   */
+  public void injectDockerEnv() {
+    injectDockerEnv(profile.get());
+  }
 
-    List<String> dockerEnv =
-        commandExecutorFactory.newCommandExecutor().run(minikubeDockerEnvCommand);
+  /**
+   * Injects the docker environment of {@code profile} into the {@code Exec}, {@code Test} and
+   * {@code JavaExec} tasks. See {@link #injectDockerEnv(String, Class[])}.
+   *
+   * @param profile target minikube profile
+   */
+  public void injectDockerEnv(String profile) {
+    injectDockerEnv(profile, Exec.class, Test.class, JavaExec.class);
+  }
 
-    return MinikubeDockerEnvParser.parse(dockerEnv);
+  /**
+   * Injects the docker environment of {@code profile} into the tasks of the given types, for
+   * example to build images with minikube's docker daemon. The environment is added when a task
+   * runs, and is looked up with 'minikube docker-env' at most once per build, shared by all
+   * projects, and only if such a task runs.
+   *
+   * @param profile target minikube profile
+   * @param taskTypes the types of the tasks, which must fork processes ({@link ProcessForkOptions})
+   */
+  @SafeVarargs
+  public final void injectDockerEnv(String profile, Class<? extends Task>... taskTypes) {
+    if (profile == null) {
+      throw new NullPointerException("Minikube profile must not be null");
+    }
+    for (Class<? extends Task> taskType : taskTypes) {
+      if (!ProcessForkOptions.class.isAssignableFrom(taskType)) {
+        throw new IllegalArgumentException(
+            taskType.getName() + " does not fork processes, the docker environment cannot be set");
+      }
+      project
+          .getTasks()
+          .withType(taskType)
+          .all(
+              task ->
+                  task.doFirst(
+                      ignored -> {
+                        try {
+                          ((ProcessForkOptions) task)
+                              .environment(
+                                  ClusterStateService.get(project, commandExecutorFactory)
+                                      .getDockerEnv(minikube.get(), profile));
+                        } catch (IOException ex) {
+                          throw new GradleException(
+                              "Getting the minikube docker environment failed", ex);
+                        } catch (InterruptedException ex) {
+                          Thread.currentThread().interrupt();
+                          throw new GradleException(
+                              "Getting the minikube docker environment was interrupted", ex);
+                        }
+                      }));
+    }
   }
 }
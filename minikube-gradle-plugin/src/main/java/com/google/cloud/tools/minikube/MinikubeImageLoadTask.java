@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube;
+
+import com.google.cloud.tools.minikube.util.CommandExecutorFactory;
+import com.google.cloud.tools.minikube.util.ImageLoader;
+import com.google.cloud.tools.minikube.util.MinikubeCapabilities;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.provider.PropertyState;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+
+/** Loads images from the local docker daemon into minikube, skipping the unchanged ones. */
+public class MinikubeImageLoadTask extends DefaultTask {
+
+  /** minikube executable : lazily evaluated from extension input */
+  private PropertyState<String> minikube;
+  /** docker executable the images are read from */
+  private String docker = "docker";
+  /** The minikube profile to load the images into */
+  private String profile = "minikube";
+  /** The images to load */
+  private List<String> images = new ArrayList<>();
+  /** Maximum number of images loaded at the same time */
+  private int parallelism = 4;
+  /** The image index file, defaults to the profile index in the minikube home */
+  private File indexFile;
+  /** The capabilities of the minikube binary : lazily queried through the extension */
+  private Supplier<MinikubeCapabilities> capabilities = () -> MinikubeCapabilities.UNKNOWN;
+
+  private CommandExecutorFactory commandExecutorFactory;
+
+  public MinikubeImageLoadTask() {
+    minikube = getProject().property(String.class);
+  }
+
+  public MinikubeImageLoadTask setCommandExecutorFactory(
+      CommandExecutorFactory commandExecutorFactory) {
+    this.commandExecutorFactory = commandExecutorFactory;
+    return this;
+  }
+
+  @Input
+  public String getMinikube() {
+    return minikube.get();
+  }
+
+  public void setMinikube(String minikube) {
+    this.minikube.set(minikube);
+  }
+
+  public void setMinikube(PropertyState<String> minikube) {
+    this.minikube = minikube;
+  }
+
+  @Input
+  public String getDocker() {
+    return docker;
+  }
+
+  public void setDocker(String docker) {
+    this.docker = docker;
+  }
+
+  @Input
+  public String getProfile() {
+    return profile;
+  }
+
+  public void setProfile(String profile) {
+    this.profile = profile;
+  }
+
+  @Input
+  public List<String> getImages() {
+    return images;
+  }
+
+  public void setImages(List<String> images) {
+    this.images = images;
+  }
+
+  @Input
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  @Internal
+  public File getIndexFile() {
+    return indexFile;
+  }
+
+  public void setIndexFile(File indexFile) {
+    this.indexFile = indexFile;
+  }
+
+  @Internal
+  public MinikubeCapabilities getCapabilities() {
+    return capabilities.get();
+  }
+
+  public void setCapabilities(Supplier<MinikubeCapabilities> capabilities) {
+    this.capabilities = capabilities;
+  }
+
+  @TaskAction
+  public void loadImages() throws IOException, InterruptedException {
+    ImageLoader imageLoader =
+        new ImageLoader(commandExecutorFactory, getMinikube(), docker, profile, getLogger())
+            .setParallelism(parallelism)
+            .setCapabilities(getCapabilities());
+    if (indexFile != null) {
+      imageLoader.setIndexFile(indexFile.toPath());
+    }
+
+    ImageLoader.Result result = imageLoader.load(images);
+    getLogger()
+        .lifecycle(
+            "Loaded "
+                + result.getLoaded().size()
+                + " image(s) into minikube, "
+                + result.getSkipped().size()
+                + " already up to date");
+  }
+}
@@ -17,12 +17,22 @@
 package com.google.cloud.tools.minikube;
 
 import com.google.cloud.tools.minikube.util.CommandExecutorFactory;
+import com.google.cloud.tools.minikube.util.CommandScheduler;
+import com.google.cloud.tools.minikube.util.ShellCoprocess;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.execution.TaskExecutionListener;
+import org.gradle.api.plugins.ExtraPropertiesExtension;
+import org.gradle.api.tasks.TaskState;
 
 /** An extremely basic minikube plugin to manage the minikube lifecycle from gradle. */
 public class MinikubePlugin implements Plugin<Project> {
   private static String MINIKUBE_GROUP = "Minikube";
+  private static final String SCHEDULER_REPORT_PROPERTY =
+      MinikubePlugin.class.getName() + ".schedulerReport";
   private Project project;
   private MinikubeExtension minikubeExtension;
 
@@ -37,9 +47,26 @@ public class MinikubePlugin implements Plugin<Project> {
     createMinikubeStartTask();
     createMinikubeStopTask();
     createMinikubeDeleteTask();
+    createMinikubePauseTask();
+    createMinikubeUnpauseTask();
+    createMinikubeTimingsTask();
+    createMinikubeImageLoadTask(commandExecutorFactory);
+    createMinikubeCacheTask(commandExecutorFactory);
+    createMinikubeAddonsTask(commandExecutorFactory);
+    createMinikubeDeployTask(commandExecutorFactory);
+    createMinikubeAwaitReadyTask(commandExecutorFactory);
+    createMinikubeDiagnosticsTask(commandExecutorFactory);
+    createMinikubeNamespaceTasks(commandExecutorFactory);
+    createMinikubeSyncTask(commandExecutorFactory);
+    createMinikubeBackgroundTasks(commandExecutorFactory);
+    createMinikubeWatchTask(commandExecutorFactory);
+    configureDiagnosticsOnFailure();
+    configureBackgroundProcessShutdown();
+    configureCommandSchedulerReport();
   }
 
-  // Configure tasks as they are added. This allows us to configure our own AND any user configured tasks.
+  // Configure tasks as they are added. This allows us to configure our own AND any user configured
+  // tasks.
   private void configureMinikubeTaskAdditionCallback(
       CommandExecutorFactory commandExecutorFactory) {
     project
@@ -50,6 +77,9 @@ public class MinikubePlugin implements Plugin<Project> {
               task.setMinikube(minikubeExtension.getMinikubeProvider());
               task.setGroup(MINIKUBE_GROUP);
               task.setCommandExecutorFactory(commandExecutorFactory);
+              task.setTimingsFile(minikubeExtension.getTimingsFileProvider());
+              task.setCapabilities(minikubeExtension::getCapabilities);
+              task.setClusterStateService(ClusterStateService.get(project, commandExecutorFactory));
             });
   }
 
@@ -61,8 +91,7 @@ public class MinikubePlugin implements Plugin<Project> {
   }
 
   private void createMinikubeStartTask() {
-    MinikubeTask task = project.getTasks().create("minikubeStart", MinikubeTask.class);
-    task.setCommand("start");
+    project.getTasks().create("minikubeStart", MinikubeStartTask.class);
   }
 
   private void createMinikubeStopTask() {
@@ -74,4 +103,246 @@ public class MinikubePlugin implements Plugin<Project> {
     MinikubeTask task = project.getTasks().create("minikubeDelete", MinikubeTask.class);
     task.setCommand("delete");
   }
+
+  private void createMinikubePauseTask() {
+    MinikubeTask task = project.getTasks().create("minikubePause", MinikubeTask.class);
+    task.setCommand("pause");
+  }
+
+  private void createMinikubeUnpauseTask() {
+    MinikubeTask task = project.getTasks().create("minikubeUnpause", MinikubeTask.class);
+    task.setCommand("unpause");
+  }
+
+  private void createMinikubeTimingsTask() {
+    MinikubeTimingsTask task =
+        project.getTasks().create("minikubeTimings", MinikubeTimingsTask.class);
+    task.setGroup(MINIKUBE_GROUP);
+    task.setDescription("Reports minikube timings and flags regressions against their baseline.");
+    task.setTimingsFile(minikubeExtension.getTimingsFileProvider());
+  }
+
+  private void createMinikubeImageLoadTask(CommandExecutorFactory commandExecutorFactory) {
+    MinikubeImageLoadTask task =
+        project.getTasks().create("minikubeImageLoad", MinikubeImageLoadTask.class);
+    task.setGroup(MINIKUBE_GROUP);
+    task.setDescription("Loads images into minikube, skipping the images already present.");
+    task.setMinikube(minikubeExtension.getMinikubeProvider());
+    task.setCapabilities(minikubeExtension::getCapabilities);
+    task.setCommandExecutorFactory(commandExecutorFactory);
+  }
+
+  private void createMinikubeCacheTask(CommandExecutorFactory commandExecutorFactory) {
+    MinikubeCacheTask task = project.getTasks().create("minikubeCache", MinikubeCacheTask.class);
+    task.setGroup(MINIKUBE_GROUP);
+    task.setDescription("Adds images to the minikube cache, skipping the images already cached.");
+    task.setMinikube(minikubeExtension.getMinikubeProvider());
+    task.setCommandExecutorFactory(commandExecutorFactory);
+  }
+
+  private void createMinikubeAddonsTask(CommandExecutorFactory commandExecutorFactory) {
+    MinikubeAddonsTask task = project.getTasks().create("minikubeAddons", MinikubeAddonsTask.class);
+    task.setGroup(MINIKUBE_GROUP);
+    task.setDescription(
+        "Enables minikube addons in parallel, skipping the addons already enabled.");
+    task.setMinikube(minikubeExtension.getMinikubeProvider());
+    task.setCommandExecutorFactory(commandExecutorFactory);
+    task.mustRunAfter("minikubeStart");
+  }
+
+  private void createMinikubeDeployTask(CommandExecutorFactory commandExecutorFactory) {
+    MinikubeDeployTask task = project.getTasks().create("minikubeDeploy", MinikubeDeployTask.class);
+    task.setGroup(MINIKUBE_GROUP);
+    task.setDescription("Applies Kubernetes manifests to minikube in dependency waves.");
+    task.setProfile(minikubeExtension.getProfileProvider());
+    task.setCommandExecutorFactory(commandExecutorFactory);
+    task.setTimingsFile(minikubeExtension.getTimingsFileProvider());
+    task.mustRunAfter("minikubeStart", "minikubeImageLoad");
+  }
+
+  private void createMinikubeAwaitReadyTask(CommandExecutorFactory commandExecutorFactory) {
+    MinikubeAwaitReadyTask task =
+        project.getTasks().create("minikubeAwaitReady", MinikubeAwaitReadyTask.class);
+    task.setGroup(MINIKUBE_GROUP);
+    task.setDescription("Waits for Kubernetes resources in minikube to be ready.");
+    task.setCommandExecutorFactory(commandExecutorFactory);
+    task.setTimingsFile(minikubeExtension.getTimingsFileProvider());
+    task.mustRunAfter("minikubeStart", "minikubeDeploy");
+  }
+
+  private void createMinikubeDiagnosticsTask(CommandExecutorFactory commandExecutorFactory) {
+    MinikubeDiagnosticsTask task =
+        project.getTasks().create("minikubeDiagnostics", MinikubeDiagnosticsTask.class);
+    task.setGroup(MINIKUBE_GROUP);
+    task.setDescription("Collects minikube and pod diagnostics into an archive.");
+    task.setMinikube(minikubeExtension.getMinikubeProvider());
+    task.setCommandExecutorFactory(commandExecutorFactory);
+  }
+
+  private void createMinikubeNamespaceTasks(CommandExecutorFactory commandExecutorFactory) {
+    MinikubeCreateNamespaceTask createTask =
+        project.getTasks().create("minikubeCreateNamespace", MinikubeCreateNamespaceTask.class);
+    createTask.setGroup(MINIKUBE_GROUP);
+    createTask.setDescription("Creates an isolated namespace for tests in minikube.");
+    createTask.setCommandExecutorFactory(commandExecutorFactory);
+    createTask.mustRunAfter("minikubeStart");
+
+    MinikubeDeleteNamespacesTask deleteTask =
+        project.getTasks().create("minikubeDeleteNamespaces", MinikubeDeleteNamespacesTask.class);
+    deleteTask.setGroup(MINIKUBE_GROUP);
+    deleteTask.setDescription("Deletes the isolated namespaces in the background.");
+    deleteTask.setCommandExecutorFactory(commandExecutorFactory);
+    deleteTask.setRunId(createTask.getRunId());
+    deleteTask.mustRunAfter(createTask);
+    project.getTasks().getByName("minikubeStop").mustRunAfter(deleteTask);
+    project.getTasks().getByName("minikubeDelete").mustRunAfter(deleteTask);
+  }
+
+  private void createMinikubeSyncTask(CommandExecutorFactory commandExecutorFactory) {
+    MinikubeSyncTask task = project.getTasks().create("minikubeSync", MinikubeSyncTask.class);
+    task.setGroup(MINIKUBE_GROUP);
+    task.setDescription("Copies the changed files of a directory into pods or the minikube node.");
+    task.setMinikube(minikubeExtension.getMinikubeProvider());
+    task.setProfile(minikubeExtension.getProfileProvider());
+    task.setCommandExecutorFactory(commandExecutorFactory);
+    task.mustRunAfter("minikubeStart", "minikubeDeploy", "minikubeAwaitReady");
+  }
+
+  private void createMinikubeWatchTask(CommandExecutorFactory commandExecutorFactory) {
+    MinikubeWatchTask task = project.getTasks().create("minikubeWatch", MinikubeWatchTask.class);
+    task.setGroup(MINIKUBE_GROUP);
+    task.setDescription("Rebuilds and redeploys to minikube whenever the sources change.");
+    task.setMinikube(minikubeExtension.getMinikubeProvider());
+    task.setProfile(minikubeExtension.getProfileProvider());
+    task.setCommandExecutorFactory(commandExecutorFactory);
+    task.mustRunAfter("minikubeStart", "minikubeDeploy");
+  }
+
+  private void createMinikubeBackgroundTasks(CommandExecutorFactory commandExecutorFactory) {
+    project
+        .getTasks()
+        .withType(MinikubeBackgroundTask.class)
+        .whenTaskAdded(
+            task -> {
+              task.setMinikube(minikubeExtension.getMinikubeProvider());
+              task.setGroup(MINIKUBE_GROUP);
+              task.setCommandExecutorFactory(commandExecutorFactory);
+              task.mustRunAfter("minikubeStart");
+            });
+
+    MinikubeBackgroundTask mountTask =
+        project.getTasks().create("minikubeMount", MinikubeBackgroundTask.class);
+    mountTask.setDescription("Mounts a host directory into minikube while the build runs.");
+    mountTask.setCommand("mount");
+    mountTask.setReadyPattern("Successfully mounted");
+
+    MinikubeBackgroundTask tunnelTask =
+        project.getTasks().create("minikubeTunnel", MinikubeBackgroundTask.class);
+    tunnelTask.setDescription("Routes LoadBalancer services to the host while the build runs.");
+    tunnelTask.setCommand("tunnel");
+    // Older versions only print the tunnel status once the routes are set up.
+    tunnelTask.setReadyPattern("Tunnel successfully started|^\\s*Status:");
+  }
+
+  // Stops the background commands before minikube is stopped or deleted, which would break them,
+  // and when the build finishes.
+  private void configureBackgroundProcessShutdown() {
+    project
+        .getGradle()
+        .getTaskGraph()
+        .addTaskExecutionListener(
+            new TaskExecutionListener() {
+              @Override
+              public void beforeExecute(Task task) {
+                if (task.getProject() == project
+                    && (task.getName().equals("minikubeStop")
+                        || task.getName().equals("minikubeDelete"))) {
+                  stopBackgroundProcesses();
+                }
+              }
+
+              @Override
+              public void afterExecute(Task task, TaskState state) {}
+            });
+    project.getGradle().buildFinished(result -> stopBackgroundProcesses());
+  }
+
+  private void stopBackgroundProcesses() {
+    for (MinikubeBackgroundTask task : project.getTasks().withType(MinikubeBackgroundTask.class)) {
+      try {
+        task.stopProcess();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  // Collects diagnostics before minikube is stopped after a failed task, for example when
+  // minikubeStop finalizes the integration tests.
+  private void configureDiagnosticsOnFailure() {
+    AtomicBoolean taskFailed = new AtomicBoolean();
+    project
+        .getGradle()
+        .getTaskGraph()
+        .addTaskExecutionListener(
+            new TaskExecutionListener() {
+              @Override
+              public void beforeExecute(Task task) {}
+
+              @Override
+              public void afterExecute(Task task, TaskState state) {
+                if (state.getFailure() != null) {
+                  taskFailed.set(true);
+                }
+              }
+            });
+
+    MinikubeDiagnosticsTask diagnosticsTask =
+        (MinikubeDiagnosticsTask) project.getTasks().getByName("minikubeDiagnostics");
+    project
+        .getTasks()
+        .getByName("minikubeStop")
+        .doFirst(
+            task -> {
+              if (!taskFailed.get() || !diagnosticsTask.getCollectOnFailure()) {
+                return;
+              }
+              try {
+                diagnosticsTask.collect();
+              } catch (IOException ex) {
+                // Diagnostics are best-effort and must not prevent stopping minikube.
+                task.getLogger().warn("Could not collect minikube diagnostics: " + ex.getMessage());
+              } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+              }
+            });
+  }
+
+  // Reports how long minikube and kubectl commands waited for a free slot, once per build even if
+  // the plugin is applied to several projects.
+  private void configureCommandSchedulerReport() {
+    ExtraPropertiesExtension extraProperties =
+        project.getRootProject().getExtensions().getExtraProperties();
+    synchronized (MinikubePlugin.class) {
+      if (extraProperties.has(SCHEDULER_REPORT_PROPERTY)) {
+        return;
+      }
+      extraProperties.set(SCHEDULER_REPORT_PROPERTY, true);
+    }
+
+    CommandScheduler commandScheduler = CommandScheduler.get();
+    // The scheduler outlives builds in the Gradle daemon.
+    commandScheduler.resetStatistics();
+    project
+        .getGradle()
+        .buildFinished(
+            result -> {
+              commandScheduler.formatStatistics().forEach(project.getLogger()::lifecycle);
+              commandScheduler.resetStatistics();
+              // Shells started in this build must not serve the next one, which may have a new
+              // environment.
+              ShellCoprocess.closeIdle();
+            });
+  }
 }
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube;
+
+import com.google.cloud.tools.minikube.util.MinikubeCapabilities;
+import com.google.cloud.tools.minikube.util.MinikubeStatus;
+import com.google.cloud.tools.minikube.util.ResourcePlanner;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.TaskAction;
+
+/** Minikube start task, which can resume a paused cluster instead of cold-starting it. */
+public class MinikubeStartTask extends MinikubeTask {
+
+  /** How the cluster is started. */
+  public enum StartPolicy {
+    /** Always runs {@code minikube start}. */
+    ALWAYS,
+    /**
+     * Chooses from the cluster state: resumes a paused cluster with {@code minikube unpause}, does
+     * nothing if the cluster is running, and runs {@code minikube start} otherwise.
+     */
+    AUTO
+  }
+
+  /** How the cluster's CPUs and memory are chosen. */
+  public enum ResourcePolicy {
+    /** Uses the {@code --cpus} and {@code --memory} flags, or minikube's defaults. */
+    STATIC,
+    /**
+     * Plans the CPUs and memory the flags do not set from the host's capacity, shared with the
+     * other running minikube clusters.
+     */
+    AUTO
+  }
+
+  /** How the cluster is started */
+  private StartPolicy startPolicy = StartPolicy.ALWAYS;
+  /** How the cluster's CPUs and memory are chosen */
+  private ResourcePolicy resourcePolicy = ResourcePolicy.STATIC;
+  /** The capacity of the host : detected when resources are planned */
+  private Supplier<ResourcePlanner.Resources> hostResources = ResourcePlanner::detectHost;
+
+  public MinikubeStartTask() {
+    setCommand("start");
+  }
+
+  @Input
+  public StartPolicy getStartPolicy() {
+    return startPolicy;
+  }
+
+  public void setStartPolicy(StartPolicy startPolicy) {
+    this.startPolicy = startPolicy;
+  }
+
+  @Input
+  public ResourcePolicy getResourcePolicy() {
+    return resourcePolicy;
+  }
+
+  public void setResourcePolicy(ResourcePolicy resourcePolicy) {
+    this.resourcePolicy = resourcePolicy;
+  }
+
+  // @VisibleForTesting
+  void setHostResources(Supplier<ResourcePlanner.Resources> hostResources) {
+    this.hostResources = hostResources;
+  }
+
+  @Override
+  @TaskAction
+  public void execMinikube() throws IOException, InterruptedException {
+    if (startPolicy == StartPolicy.AUTO && supportsPause()) {
+      List<String> profileFlags = MinikubeStatus.getProfileFlags(Arrays.asList(getFlags()));
+      switch (queryState(profileFlags)) {
+        case RUNNING:
+          getLogger().lifecycle("minikube is already running");
+          return;
+        case PAUSED:
+          getLogger().lifecycle("minikube is paused, resuming it");
+          List<String> unpauseCommand = new ArrayList<>();
+          unpauseCommand.add(getMinikube());
+          unpauseCommand.add("unpause");
+          unpauseCommand.addAll(profileFlags);
+          runTransition("unpause", unpauseCommand);
+          return;
+        default:
+          break;
+      }
+    }
+    super.execMinikube();
+  }
+
+  @Override
+  List<String> buildMinikubeCommand() {
+    List<String> minikubeCommand = super.buildMinikubeCommand();
+    if (resourcePolicy == ResourcePolicy.AUTO) {
+      minikubeCommand.addAll(planResources(minikubeCommand));
+    }
+    return minikubeCommand;
+  }
+
+  /** @return the flags for the planned CPUs and memory */
+  private List<String> planResources(List<String> minikubeCommand) {
+    List<String> profileFlags = MinikubeStatus.getProfileFlags(minikubeCommand);
+    String profile =
+        profileFlags.isEmpty() ? "minikube" : profileFlags.get(0).substring("--profile=".length());
+    int clusters = countOtherRunningClusters(profile) + 1;
+
+    ResourcePlanner.Resources host = hostResources.get();
+    ResourcePlanner.Resources plan = ResourcePlanner.plan(host, clusters);
+    List<String> planFlags = ResourcePlanner.getFlags(plan, minikubeCommand);
+    getLogger()
+        .lifecycle(
+            "Planned "
+                + plan
+                + " for minikube profile "
+                + profile
+                + ", one of "
+                + clusters
+                + " clusters on a host with "
+                + host
+                + (planFlags.isEmpty() ? ", the flags set both" : ": " + planFlags));
+    if (ResourcePlanner.isOvercommitted(host, plan, clusters)) {
+      getLogger()
+          .warn("The host cannot give each of " + clusters + " clusters the minimum resources");
+    }
+    return planFlags;
+  }
+
+  private int countOtherRunningClusters(String profile) {
+    if (!getCapabilities().supports(MinikubeCapabilities.Capability.JSON_OUTPUT)) {
+      getLogger().info(getCapabilities() + " cannot list profiles, planning for one cluster");
+      return 0;
+    }
+    try {
+      // minikube profile list fails when there are no profiles yet.
+      return ResourcePlanner.countRunningProfiles(
+          getCommandExecutorFactory()
+              .newCommandExecutor()
+              .setFailOnNonZeroExitCode(false)
+              .run(Arrays.asList(getMinikube(), "profile", "list", "--output=json")),
+          profile);
+
+    } catch (IOException ex) {
+      getLogger().warn("Could not list minikube profiles: " + ex.getMessage());
+      return 0;
+
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return 0;
+    }
+  }
+
+  private boolean supportsPause() {
+    MinikubeCapabilities capabilities = getCapabilities();
+    if (capabilities.supports(MinikubeCapabilities.Capability.PAUSE)) {
+      return true;
+    }
+    // The cluster state cannot be queried reliably, starting is always correct.
+    getLogger().info(capabilities + " cannot report a paused cluster, starting it");
+    return false;
+  }
+
+  private MinikubeStatus.State queryState(List<String> profileFlags)
+      throws IOException, InterruptedException {
+    ClusterStateService clusterStateService = getClusterStateService();
+    if (clusterStateService != null) {
+      // Known from the commands the build ran, or queried once for all projects.
+      MinikubeStatus.State state =
+          clusterStateService.getState(getMinikube(), ClusterStateService.getProfile(profileFlags));
+      getLogger().info("minikube state: " + state);
+      return state;
+    }
+
+    List<String> statusCommand = new ArrayList<>();
+    statusCommand.add(getMinikube());
+    statusCommand.add("status");
+    statusCommand.add("--output=json");
+    statusCommand.addAll(profileFlags);
+
+    // minikube status reports a stopped or missing cluster with a non-zero exit code.
+    MinikubeStatus.State state =
+        MinikubeStatus.parse(
+            getCommandExecutorFactory()
+                .newCommandExecutor()
+                .setFailOnNonZeroExitCode(false)
+                .run(statusCommand));
+    getLogger().info("minikube state: " + state);
+    return state;
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube;
+
+import com.google.cloud.tools.minikube.util.CommandExecutorFactory;
+import com.google.cloud.tools.minikube.util.FileSyncer;
+import com.google.cloud.tools.minikube.util.ParallelCommandRunner;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.provider.PropertyState;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Copies the changed files of a directory into running pods or the minikube node, so that
+ * recompiled classes or resources reach the cluster without rebuilding and redeploying the image.
+ * In continuous mode, the directory is synced again whenever it changes until the build is
+ * interrupted.
+ */
+public class MinikubeSyncTask extends DefaultTask {
+
+  /** minikube executable : lazily evaluated from extension input */
+  private PropertyState<String> minikube;
+  /** kubectl executable */
+  private String kubectl = "kubectl";
+  /** The kubectl context, defaults to the profile's context, which minikube names after it */
+  private String context;
+  /** The namespace of the pods */
+  private String namespace = "default";
+  /** The container of the pods, defaults to their default container */
+  private String container;
+  /** The minikube profile of the node target : lazily evaluated from extension input */
+  private PropertyState<String> profile;
+  /** The directory to sync */
+  private File sourceDirectory;
+  /** The directory in the targets, defaults to the classes directory of Jib images */
+  private String destination = "/app/classes";
+  /** The pods (such as pod/my-app or deployment/my-app) or "node" to sync to */
+  private List<String> targets = new ArrayList<>();
+  /** Maximum number of targets synced at the same time */
+  private int parallelism = 4;
+  /** Whether to keep syncing changes until the build is interrupted */
+  private boolean continuous = false;
+  /** How often the directory is checked for changes in continuous mode */
+  private long pollIntervalMillis = 1000;
+
+  private CommandExecutorFactory commandExecutorFactory;
+
+  public MinikubeSyncTask() {
+    minikube = getProject().property(String.class);
+    profile = getProject().property(String.class);
+    profile.set(ClusterStateService.DEFAULT_PROFILE);
+    sourceDirectory = new File(getProject().getBuildDir(), "classes/java/main");
+  }
+
+  public MinikubeSyncTask setCommandExecutorFactory(CommandExecutorFactory commandExecutorFactory) {
+    this.commandExecutorFactory = commandExecutorFactory;
+    return this;
+  }
+
+  @Input
+  public String getMinikube() {
+    return minikube.get();
+  }
+
+  public void setMinikube(String minikube) {
+    this.minikube.set(minikube);
+  }
+
+  public void setMinikube(PropertyState<String> minikube) {
+    this.minikube = minikube;
+  }
+
+  @Input
+  public String getKubectl() {
+    return kubectl;
+  }
+
+  public void setKubectl(String kubectl) {
+    this.kubectl = kubectl;
+  }
+
+  @Input
+  public String getContext() {
+    return context == null ? getProfile() : context;
+  }
+
+  public void setContext(String context) {
+    this.context = context;
+  }
+
+  @Input
+  public String getNamespace() {
+    return namespace;
+  }
+
+  public void setNamespace(String namespace) {
+    this.namespace = namespace;
+  }
+
+  @Input
+  @Optional
+  public String getContainer() {
+    return container;
+  }
+
+  public void setContainer(String container) {
+    this.container = container;
+  }
+
+  @Input
+  public String getProfile() {
+    return profile.get();
+  }
+
+  public void setProfile(String profile) {
+    this.profile = getProject().property(String.class);
+    this.profile.set(profile);
+  }
+
+  public void setProfile(PropertyState<String> profile) {
+    this.profile = profile;
+  }
+
+  @Internal
+  public File getSourceDirectory() {
+    return sourceDirectory;
+  }
+
+  public void setSourceDirectory(File sourceDirectory) {
+    this.sourceDirectory = sourceDirectory;
+  }
+
+  @Input
+  public String getDestination() {
+    return destination;
+  }
+
+  public void setDestination(String destination) {
+    this.destination = destination;
+  }
+
+  @Input
+  public List<String> getTargets() {
+    return targets;
+  }
+
+  public void setTargets(List<String> targets) {
+    this.targets = targets;
+  }
+
+  @Input
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  @Input
+  public boolean isContinuous() {
+    return continuous;
+  }
+
+  public void setContinuous(boolean continuous) {
+    this.continuous = continuous;
+  }
+
+  @Input
+  public long getPollIntervalMillis() {
+    return pollIntervalMillis;
+  }
+
+  public void setPollIntervalMillis(long pollIntervalMillis) {
+    this.pollIntervalMillis = pollIntervalMillis;
+  }
+
+  @TaskAction
+  public void sync() throws IOException, InterruptedException {
+    if (targets.isEmpty()) {
+      throw new GradleException("No sync targets configured, set minikubeSync.targets");
+    }
+    FileSyncer fileSyncer =
+        new FileSyncer(commandExecutorFactory, kubectl, getMinikube(), getLogger())
+            .setContext(getContext())
+            .setNamespace(namespace)
+            .setContainer(container)
+            .setProfile(getProfile())
+            .setParallelism(parallelism);
+
+    if (!continuous) {
+      String failures = ParallelCommandRunner.describeFailures(syncOnce(fileSyncer));
+      if (!failures.isEmpty()) {
+        throw new GradleException("Failed to sync files: " + failures);
+      }
+      return;
+    }
+
+    getLogger().lifecycle("Syncing " + sourceDirectory + " to " + targets + ", interrupt to stop");
+    while (true) {
+      String failures = ParallelCommandRunner.describeFailures(syncOnce(fileSyncer));
+      if (!failures.isEmpty()) {
+        // The failed targets are retried with the next poll, for example once a pod restarted.
+        getLogger().warn("Failed to sync files: " + failures);
+      }
+      Thread.sleep(pollIntervalMillis);
+    }
+  }
+
+  private List<ParallelCommandRunner.Result> syncOnce(FileSyncer fileSyncer)
+      throws IOException, InterruptedException {
+    return fileSyncer.sync(
+        sourceDirectory.toPath(),
+        destination,
+        targets,
+        // Each task keeps its own indexes, also when syncing to the same targets.
+        new File(getProject().getBuildDir(), "minikube/sync/" + getName()).toPath());
+  }
+}
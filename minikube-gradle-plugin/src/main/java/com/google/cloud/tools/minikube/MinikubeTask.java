@@ -17,29 +17,46 @@
 package com.google.cloud.tools.minikube;
 
 import com.google.cloud.tools.minikube.util.CommandExecutorFactory;
+import com.google.cloud.tools.minikube.util.MinikubeCapabilities;
+import com.google.cloud.tools.minikube.util.MinikubeEventParser;
+import com.google.cloud.tools.minikube.util.MinikubeStatus;
+import com.google.cloud.tools.minikube.util.StageTimer;
+import com.google.cloud.tools.minikube.util.TimingHistory;
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Supplier;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.provider.PropertyState;
 import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.TaskAction;
 
 /** Generic Minikube task. */
 public class MinikubeTask extends DefaultTask {
 
+  private static final String JSON_OUTPUT_FLAG = "--output=json";
+
   /** minikube executable : lazily evaluated from extension input */
   private PropertyState<String> minikube;
   /** The minikube command: start, stop, etc. */
   private String command;
   /** Flag passthrough */
   private String[] flags = {};
+  /** File to record timings to : lazily evaluated from extension input */
+  private PropertyState<File> timingsFile;
+  /** The capabilities of the minikube binary : lazily queried through the extension */
+  private Supplier<MinikubeCapabilities> capabilities = () -> MinikubeCapabilities.UNKNOWN;
 
   private CommandExecutorFactory commandExecutorFactory;
+  private ClusterStateService clusterStateService;
 
   public MinikubeTask() {
     minikube = getProject().property(String.class);
+    timingsFile = getProject().property(File.class);
   }
 
   public MinikubeTask setCommandExecutorFactory(CommandExecutorFactory commandExecutorFactory) {
@@ -47,6 +64,15 @@ public class MinikubeTask extends DefaultTask {
     return this;
   }
 
+  /**
+   * Sets the service that tracks the cluster state for all projects, so that commands another
+   * project already ran in this build are skipped.
+   */
+  public MinikubeTask setClusterStateService(ClusterStateService clusterStateService) {
+    this.clusterStateService = clusterStateService;
+    return this;
+  }
+
   @Input
   public String getMinikube() {
     return minikube.get();
@@ -78,10 +104,143 @@ public class MinikubeTask extends DefaultTask {
     this.flags = flags;
   }
 
+  @Internal
+  public File getTimingsFile() {
+    return timingsFile.isPresent() ? timingsFile.get() : null;
+  }
+
+  public void setTimingsFile(File timingsFile) {
+    this.timingsFile.set(timingsFile);
+  }
+
+  public void setTimingsFile(PropertyState<File> timingsFile) {
+    this.timingsFile = timingsFile;
+  }
+
+  @Internal
+  public MinikubeCapabilities getCapabilities() {
+    return capabilities.get();
+  }
+
+  public void setCapabilities(Supplier<MinikubeCapabilities> capabilities) {
+    this.capabilities = capabilities;
+  }
+
   @TaskAction
   public void execMinikube() throws IOException, InterruptedException {
     List<String> minikubeCommand = buildMinikubeCommand();
-    commandExecutorFactory.newCommandExecutor().run(minikubeCommand);
+    // Older versions reject the flag, they are run without structured output and stage timings.
+    if (minikubeCommand.contains(JSON_OUTPUT_FLAG)) {
+      MinikubeCapabilities capabilities = getCapabilities();
+      if (!capabilities.supports(MinikubeCapabilities.Capability.JSON_OUTPUT)) {
+        getLogger().info(capabilities + " does not support " + JSON_OUTPUT_FLAG);
+        minikubeCommand.remove(JSON_OUTPUT_FLAG);
+      }
+    }
+    runTransition(command, minikubeCommand);
+  }
+
+  /**
+   * Runs a minikube command through the cluster state service if it changes the cluster state, so
+   * that projects do not repeat it.
+   *
+   * @param command the minikube command
+   * @param minikubeCommand the command line to run
+   */
+  protected void runTransition(String command, List<String> minikubeCommand)
+      throws IOException, InterruptedException {
+    MinikubeStatus.State resultingState = getResultingState(command);
+    if (clusterStateService == null || resultingState == null) {
+      runMinikube(command, minikubeCommand);
+      return;
+    }
+    clusterStateService.transition(
+        getMinikube(),
+        minikubeCommand,
+        resultingState,
+        getLogger(),
+        () -> runMinikube(command, minikubeCommand));
+  }
+
+  /**
+   * Runs a minikube command, reporting and recording its timings.
+   *
+   * @param command the minikube command the timings are recorded for
+   * @param minikubeCommand the command line to run
+   */
+  protected void runMinikube(String command, List<String> minikubeCommand)
+      throws IOException, InterruptedException {
+    // Times the steps of commands that emit structured output (--output=json).
+    StageTimer stageTimer = new StageTimer();
+    commandExecutorFactory
+        .newCommandExecutor()
+        .setOutputListener(new MinikubeEventParser(stageTimer))
+        .run(minikubeCommand);
+    stageTimer.finish();
+
+    reportStageTimings(command, stageTimer);
+    recordTimings(command, ClusterStateService.getProfile(minikubeCommand), stageTimer);
+  }
+
+  protected CommandExecutorFactory getCommandExecutorFactory() {
+    return commandExecutorFactory;
+  }
+
+  protected ClusterStateService getClusterStateService() {
+    return clusterStateService;
+  }
+
+  /** @return the state {@code command} leaves the cluster in, {@code null} if it is unchanged */
+  private static MinikubeStatus.State getResultingState(String command) {
+    if (command == null) {
+      return null;
+    }
+    switch (command) {
+      case "start":
+      case "unpause":
+        return MinikubeStatus.State.RUNNING;
+      case "stop":
+      case "delete":
+        return MinikubeStatus.State.STOPPED;
+      case "pause":
+        return MinikubeStatus.State.PAUSED;
+      default:
+        return null;
+    }
+  }
+
+  private void recordTimings(String command, String profile, StageTimer stageTimer) {
+    File file = getTimingsFile();
+    if (file == null) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    List<TimingHistory.Sample> samples = new ArrayList<>();
+    samples.add(new TimingHistory.Sample(now, profile, command, "", stageTimer.getTotalMillis()));
+    for (StageTimer.Stage stage : stageTimer.getStages()) {
+      samples.add(
+          new TimingHistory.Sample(
+              now, profile, command, stage.getName(), stage.getDurationMillis()));
+    }
+
+    try {
+      new TimingHistory(file.toPath()).append(samples);
+    } catch (IOException ex) {
+      // Recording timings is best-effort and must not fail the build.
+      getLogger().warn("Could not record minikube timings to " + file + ": " + ex.getMessage());
+    }
+  }
+
+  private void reportStageTimings(String command, StageTimer stageTimer) throws IOException {
+    if (stageTimer.getStages().isEmpty()) {
+      return;
+    }
+    stageTimer.formatReport(command).forEach(getLogger()::lifecycle);
+
+    Path timingsFile =
+        getProject().getBuildDir().toPath().resolve("minikube").resolve(getName() + "-stages.json");
+    stageTimer.writeJson(timingsFile, command);
+    getLogger().info("Wrote stage timings to " + timingsFile);
   }
 
   // @VisibleForTesting
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube;
+
+import com.google.cloud.tools.minikube.util.TimingHistory;
+import com.google.cloud.tools.minikube.util.TimingRegressionDetector;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.provider.PropertyState;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+
+/** Reports recorded minikube timings against their rolling baselines and flags regressions. */
+public class MinikubeTimingsTask extends DefaultTask {
+
+  /** Timings file : lazily evaluated from extension input */
+  private PropertyState<File> timingsFile;
+  /** Number of samples in the rolling baseline */
+  private int baselineSize = 20;
+  /** Number of latest samples compared with the baseline */
+  private int recentSize = 3;
+  /** z-score above which a slowdown is significant */
+  private double significanceThreshold = 3.0;
+  /** Minimum relative slowdown (0.1 for 10%) reported as a regression */
+  private double minIncrease = 0.1;
+  /** Whether to fail the build when a regression is found */
+  private boolean failOnRegression = false;
+
+  public MinikubeTimingsTask() {
+    timingsFile = getProject().property(File.class);
+  }
+
+  @Internal
+  public File getTimingsFile() {
+    return timingsFile.get();
+  }
+
+  public void setTimingsFile(File timingsFile) {
+    this.timingsFile.set(timingsFile);
+  }
+
+  public void setTimingsFile(PropertyState<File> timingsFile) {
+    this.timingsFile = timingsFile;
+  }
+
+  @Input
+  public int getBaselineSize() {
+    return baselineSize;
+  }
+
+  public void setBaselineSize(int baselineSize) {
+    this.baselineSize = baselineSize;
+  }
+
+  @Input
+  public int getRecentSize() {
+    return recentSize;
+  }
+
+  public void setRecentSize(int recentSize) {
+    this.recentSize = recentSize;
+  }
+
+  @Input
+  public double getSignificanceThreshold() {
+    return significanceThreshold;
+  }
+
+  public void setSignificanceThreshold(double significanceThreshold) {
+    this.significanceThreshold = significanceThreshold;
+  }
+
+  @Input
+  public double getMinIncrease() {
+    return minIncrease;
+  }
+
+  public void setMinIncrease(double minIncrease) {
+    this.minIncrease = minIncrease;
+  }
+
+  @Input
+  public boolean isFailOnRegression() {
+    return failOnRegression;
+  }
+
+  public void setFailOnRegression(boolean failOnRegression) {
+    this.failOnRegression = failOnRegression;
+  }
+
+  @TaskAction
+  public void reportTimings() throws IOException {
+    List<TimingHistory.Sample> samples = new TimingHistory(getTimingsFile().toPath()).read();
+    List<TimingRegressionDetector.Result> results =
+        new TimingRegressionDetector()
+            .setBaselineSize(baselineSize)
+            .setRecentSize(recentSize)
+            .setSignificanceThreshold(significanceThreshold)
+            .setMinIncrease(minIncrease)
+            .analyze(samples);
+
+    if (results.isEmpty()) {
+      getLogger().lifecycle("Not enough minikube timings recorded in " + getTimingsFile());
+      return;
+    }
+
+    int regressions = 0;
+    for (TimingRegressionDetector.Result result : results) {
+      if (result.isRegression()) {
+        regressions++;
+        getLogger().warn(result.format());
+      } else {
+        getLogger().lifecycle(result.format());
+      }
+    }
+
+    if (regressions > 0 && failOnRegression) {
+      throw new GradleException(regressions + " minikube timing regression(s) detected");
+    }
+  }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube;
+
+import com.google.cloud.tools.minikube.util.ChangeWatcher;
+import com.google.cloud.tools.minikube.util.CommandExecutor;
+import com.google.cloud.tools.minikube.util.CommandExecutorFactory;
+import com.google.cloud.tools.minikube.util.DeployIndex;
+import com.google.cloud.tools.minikube.util.ImageLoader;
+import com.google.cloud.tools.minikube.util.ManifestDeployer;
+import com.google.cloud.tools.minikube.util.RedeployPipeline;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.provider.PropertyState;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Watches the sources and manifests, and rebuilds and redeploys to minikube when they change, until
+ * the build is interrupted. Only the affected stages run: source changes rebuild the images, load
+ * them and restart the workloads, and manifest changes apply the changed manifests. Changes that
+ * arrive while a redeploy runs cancel it, so that the latest changes are always deployed first.
+ */
+public class MinikubeWatchTask extends DefaultTask {
+
+  /** minikube executable : lazily evaluated from extension input */
+  private PropertyState<String> minikube;
+  /** kubectl executable */
+  private String kubectl = "kubectl";
+  /** The kubectl context, defaults to the profile's context, which minikube names after it */
+  private String context;
+  /**
+   * The minikube profile the images are built for and loaded into : lazily evaluated from extension
+   * input
+   */
+  private PropertyState<String> profile;
+  /** The directories whose changes require rebuilding the images */
+  private List<File> sourceDirectories;
+  /** The directory of the manifests to apply */
+  private File manifestDirectory;
+  /**
+   * The command that rebuilds the images, run with the minikube docker environment unless images
+   * are loaded
+   */
+  private List<String> rebuildCommand = new ArrayList<>();
+  /** The images to load into minikube after a rebuild on the host docker daemon */
+  private List<String> images = new ArrayList<>();
+  /** The workloads (such as deployment/my-app) to restart after a rebuild */
+  private List<String> restartResources = new ArrayList<>();
+  /** The namespace of the workloads to restart */
+  private String namespace = "default";
+  /** How long the sources must be unchanged before a redeploy starts */
+  private long debounceMillis = 300;
+  /** Maximum number of images or manifests handled at the same time */
+  private int parallelism = 4;
+
+  private CommandExecutorFactory commandExecutorFactory;
+
+  public MinikubeWatchTask() {
+    minikube = getProject().property(String.class);
+    profile = getProject().property(String.class);
+    profile.set(ClusterStateService.DEFAULT_PROFILE);
+    sourceDirectories =
+        new ArrayList<>(
+            Arrays.asList(
+                getProject().file("src/main/java"), getProject().file("src/main/resources")));
+    manifestDirectory = getProject().file("src/main/k8s");
+  }
+
+  public MinikubeWatchTask setCommandExecutorFactory(
+      CommandExecutorFactory commandExecutorFactory) {
+    this.commandExecutorFactory = commandExecutorFactory;
+    return this;
+  }
+
+  @Input
+  public String getMinikube() {
+    return minikube.get();
+  }
+
+  public void setMinikube(String minikube) {
+    this.minikube.set(minikube);
+  }
+
+  public void setMinikube(PropertyState<String> minikube) {
+    this.minikube = minikube;
+  }
+
+  @Input
+  public String getKubectl() {
+    return kubectl;
+  }
+
+  public void setKubectl(String kubectl) {
+    this.kubectl = kubectl;
+  }
+
+  @Input
+  public String getContext() {
+    return context == null ? getProfile() : context;
+  }
+
+  public void setContext(String context) {
+    this.context = context;
+  }
+
+  @Input
+  public String getProfile() {
+    return profile.get();
+  }
+
+  public void setProfile(String profile) {
+    this.profile = getProject().property(String.class);
+    this.profile.set(profile);
+  }
+
+  public void setProfile(PropertyState<String> profile) {
+    this.profile = profile;
+  }
+
+  @Internal
+  public List<File> getSourceDirectories() {
+    return sourceDirectories;
+  }
+
+  public void setSourceDirectories(List<File> sourceDirectories) {
+    this.sourceDirectories = sourceDirectories;
+  }
+
+  @Internal
+  public File getManifestDirectory() {
+    return manifestDirectory;
+  }
+
+  public void setManifestDirectory(File manifestDirectory) {
+    this.manifestDirectory = manifestDirectory;
+  }
+
+  @Input
+  public List<String> getRebuildCommand() {
+    return rebuildCommand;
+  }
+
+  public void setRebuildCommand(List<String> rebuildCommand) {
+    this.rebuildCommand = rebuildCommand;
+  }
+
+  @Input
+  public List<String> getImages() {
+    return images;
+  }
+
+  public void setImages(List<String> images) {
+    this.images = images;
+  }
+
+  @Input
+  public List<String> getRestartResources() {
+    return restartResources;
+  }
+
+  public void setRestartResources(List<String> restartResources) {
+    this.restartResources = restartResources;
+  }
+
+  @Input
+  public String getNamespace() {
+    return namespace;
+  }
+
+  public void setNamespace(String namespace) {
+    this.namespace = namespace;
+  }
+
+  @Input
+  public long getDebounceMillis() {
+    return debounceMillis;
+  }
+
+  public void setDebounceMillis(long debounceMillis) {
+    this.debounceMillis = debounceMillis;
+  }
+
+  @Input
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  @TaskAction
+  public void watch() throws IOException, InterruptedException {
+    List<Path> sourcePaths = new ArrayList<>();
+    for (File sourceDirectory : sourceDirectories) {
+      sourcePaths.add(sourceDirectory.toPath().toAbsolutePath());
+    }
+    Path manifestPath = manifestDirectory.toPath().toAbsolutePath();
+    List<Path> watched = new ArrayList<>(sourcePaths);
+    watched.add(manifestPath);
+
+    try (ChangeWatcher changeWatcher = new ChangeWatcher(watched, debounceMillis);
+        RedeployPipeline pipeline = newPipeline(sourcePaths, manifestPath)) {
+      getLogger().lifecycle("Watching " + watched + " for changes, interrupt to stop");
+      while (true) {
+        pipeline.submit(changeWatcher.awaitChanges());
+      }
+    }
+  }
+
+  // @VisibleForTesting
+  RedeployPipeline newPipeline(List<Path> sourcePaths, Path manifestPath) {
+    RedeployPipeline pipeline = new RedeployPipeline(sourcePaths, manifestPath, getLogger());
+    if (!rebuildCommand.isEmpty()) {
+      pipeline.setAction(RedeployPipeline.Stage.REBUILD, this::rebuild);
+    }
+    if (!images.isEmpty()) {
+      pipeline.setAction(RedeployPipeline.Stage.IMAGE_LOAD, this::loadImages);
+    }
+    if (manifestDirectory.isDirectory()) {
+      pipeline.setAction(RedeployPipeline.Stage.DEPLOY, this::deploy);
+    }
+    if (!restartResources.isEmpty()) {
+      pipeline.setAction(RedeployPipeline.Stage.RESTART, this::restart);
+    }
+    return pipeline;
+  }
+
+  // @VisibleForTesting
+  void rebuild() throws IOException, InterruptedException {
+    CommandExecutor commandExecutor = commandExecutorFactory.newCommandExecutor();
+    // With images to load, builds against the host daemon they are loaded from. Otherwise builds
+    // against the docker daemon of minikube, which runs the images without loading them.
+    if (images.isEmpty()) {
+      commandExecutor.setEnvironment(
+          ClusterStateService.get(getProject(), commandExecutorFactory)
+              .getDockerEnv(getMinikube(), getProfile()));
+    }
+    commandExecutor.run(rebuildCommand);
+  }
+
+  private void loadImages() throws IOException, InterruptedException {
+    new ImageLoader(commandExecutorFactory, getMinikube(), "docker", getProfile(), getLogger())
+        .setParallelism(parallelism)
+        .setCapabilities(getMinikubeExtension().getCapabilities())
+        .load(images);
+  }
+
+  private void deploy() throws IOException, InterruptedException {
+    String failures =
+        new ManifestDeployer(commandExecutorFactory, kubectl, getContext(), getLogger())
+            .setParallelism(parallelism)
+            .setIndexFile(
+                DeployIndex.getDefaultFile(getProject().getBuildDir().toPath(), getContext()))
+            .deploy(manifestDirectory.toPath())
+            .describeFailures();
+    if (!failures.isEmpty()) {
+      throw new GradleException("Failed to apply manifests: " + failures);
+    }
+  }
+
+  private void restart() throws IOException, InterruptedException {
+    List<String> command =
+        new ArrayList<>(
+            Arrays.asList(
+                kubectl,
+                "--context",
+                getContext(),
+                "--namespace",
+                namespace,
+                "rollout",
+                "restart"));
+    command.addAll(restartResources);
+    commandExecutorFactory.newCommandExecutor().run(command);
+  }
+
+  private MinikubeExtension getMinikubeExtension() {
+    return getProject().getExtensions().getByType(MinikubeExtension.class);
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Watches directory trees for changes with a {@link WatchService}. A burst of changes, such as a
+ * build writing many files or an editor saving through a temporary file, is reported as a single
+ * set once no further change arrived for the debounce period.
+ */
+public class ChangeWatcher implements Closeable {
+
+  private final WatchService watchService;
+  private final long debounceMillis;
+  private final Map<WatchKey, Path> directories = new HashMap<>();
+
+  /**
+   * Creates a new watcher.
+   *
+   * @param roots the directories to watch with their subdirectories; missing ones are skipped
+   * @param debounceMillis how long the directories must be unchanged before changes are reported
+   */
+  public ChangeWatcher(List<Path> roots, long debounceMillis) throws IOException {
+    this.watchService = FileSystems.getDefault().newWatchService();
+    this.debounceMillis = debounceMillis;
+    for (Path root : roots) {
+      if (Files.isDirectory(root)) {
+        register(root, null);
+      }
+    }
+  }
+
+  /**
+   * Waits for changes.
+   *
+   * @return the changed files and directories; a watched directory itself if its events were lost
+   */
+  public Set<Path> awaitChanges() throws IOException, InterruptedException {
+    Set<Path> changes = new TreeSet<>();
+    while (changes.isEmpty()) {
+      collect(watchService.take(), changes);
+    }
+    WatchKey key;
+    while ((key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+      collect(key, changes);
+    }
+    return changes;
+  }
+
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+  }
+
+  private void collect(WatchKey key, Set<Path> changes) throws IOException {
+    Path directory = directories.get(key);
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (directory == null) {
+        continue;
+      }
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        changes.add(directory);
+        continue;
+      }
+      Path path = directory.resolve((Path) event.context());
+      changes.add(path);
+      if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+        try {
+          // Files created before the new directory is watched are reported with it.
+          register(path, changes);
+        } catch (NoSuchFileException ex) {
+          // The directory was deleted again.
+        }
+      }
+    }
+    if (!key.reset()) {
+      directories.remove(key);
+    }
+  }
+
+  /** Watches a directory tree, and adds its files to {@code changes} unless it is {@code null}. */
+  private void register(Path root, Set<Path> changes) throws IOException {
+    List<Path> paths;
+    try (Stream<Path> walk = Files.walk(root)) {
+      paths = walk.collect(Collectors.toList());
+    }
+    for (Path path : paths) {
+      if (Files.isDirectory(path)) {
+        directories.put(
+            path.register(
+                watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY),
+            path);
+      } else if (changes != null) {
+        changes.add(path);
+      }
+    }
+  }
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits how many minikube and kubectl processes run at the same time in the build JVM, so that
+ * parallel projects do not thrash the CPU with heavyweight commands. Commands that change the
+ * cluster and read-only commands have separate limits, read from the {@code
+ * minikube.maxMutatingCommands} and {@code minikube.maxReadOnlyCommands} system properties each
+ * time a command is scheduled. The time commands wait for a free slot is recorded.
+ */
+public class CommandScheduler {
+
+  /** How a command is scheduled. */
+  public enum Kind {
+    /**
+     * Commands that change the cluster, for example {@code minikube start} or {@code kubectl
+     * apply}.
+     */
+    MUTATING,
+    /** Commands that only read the cluster state, for example {@code kubectl get}. */
+    READ_ONLY,
+    /** Commands that are not limited, for example {@code docker}. */
+    UNSCHEDULED
+  }
+
+  /** The queue time statistics of a kind of command. */
+  public static class Statistics {
+
+    private final int commands;
+    private final int queuedCommands;
+    private final long totalQueueMillis;
+    private final long maxQueueMillis;
+
+    Statistics(int commands, int queuedCommands, long totalQueueMillis, long maxQueueMillis) {
+      this.commands = commands;
+      this.queuedCommands = queuedCommands;
+      this.totalQueueMillis = totalQueueMillis;
+      this.maxQueueMillis = maxQueueMillis;
+    }
+
+    /** @return the number of commands scheduled */
+    public int getCommands() {
+      return commands;
+    }
+
+    /** @return the number of commands that waited for a free slot */
+    public int getQueuedCommands() {
+      return queuedCommands;
+    }
+
+    /** @return the total time commands waited for a free slot */
+    public long getTotalQueueMillis() {
+      return totalQueueMillis;
+    }
+
+    /** @return the longest time a command waited for a free slot */
+    public long getMaxQueueMillis() {
+      return maxQueueMillis;
+    }
+
+    private Statistics add(long queueMillis) {
+      return new Statistics(
+          commands + 1,
+          queuedCommands + (queueMillis > 0 ? 1 : 0),
+          totalQueueMillis + queueMillis,
+          Math.max(maxQueueMillis, queueMillis));
+    }
+  }
+
+  /** A slot held by a running command, released by {@link #close}. */
+  public class Permit implements AutoCloseable {
+
+    private final Kind kind;
+    private final long queueMillis;
+    private boolean released;
+
+    private Permit(Kind kind, long queueMillis) {
+      this.kind = kind;
+      this.queueMillis = queueMillis;
+    }
+
+    /** @return how the command was scheduled */
+    public Kind getKind() {
+      return kind;
+    }
+
+    /** @return how long the command waited for a free slot */
+    public long getQueueMillis() {
+      return queueMillis;
+    }
+
+    @Override
+    public void close() {
+      synchronized (CommandScheduler.this) {
+        if (!released && kind != Kind.UNSCHEDULED) {
+          released = true;
+          running.put(kind, running.get(kind) - 1);
+          CommandScheduler.this.notifyAll();
+        }
+      }
+    }
+  }
+
+  /** The system property of the limit of concurrent commands that change the cluster. */
+  public static final String MAX_MUTATING_COMMANDS_PROPERTY = "minikube.maxMutatingCommands";
+
+  /** The system property of the limit of concurrent read-only commands. */
+  public static final String MAX_READ_ONLY_COMMANDS_PROPERTY = "minikube.maxReadOnlyCommands";
+
+  private static final CommandScheduler instance = new CommandScheduler(System::currentTimeMillis);
+
+  private static final Set<String> READ_ONLY_KUBECTL_COMMANDS =
+      new HashSet<>(
+          Arrays.asList(
+              "api-resources",
+              "api-versions",
+              "cluster-info",
+              "describe",
+              "diff",
+              "explain",
+              "get",
+              "logs",
+              "top",
+              "version",
+              "wait"));
+  private static final Set<String> READ_ONLY_MINIKUBE_COMMANDS =
+      new HashSet<>(Arrays.asList("docker-env", "ip", "logs", "status", "version"));
+  // Read-only commands that return at once, unlike commands that wait or follow logs.
+  private static final Set<String> SHORT_KUBECTL_QUERIES =
+      new HashSet<>(Arrays.asList("get", "version"));
+  private static final Set<String> SHORT_MINIKUBE_QUERIES =
+      new HashSet<>(Arrays.asList("ip", "status", "version"));
+  private static final Set<String> LIST_SUBCOMMANDS = new HashSet<>(Arrays.asList("list", "ls"));
+  // Flags whose value is a separate argument.
+  private static final Set<String> FLAGS_WITH_VALUE =
+      new HashSet<>(Arrays.asList("--context", "--namespace", "-n", "--profile", "-p"));
+
+  /** @return the scheduler of the build JVM */
+  public static CommandScheduler get() {
+    return instance;
+  }
+
+  private final LongSupplier clock;
+  private final Map<Kind, Integer> running = new EnumMap<>(Kind.class);
+  private final Map<Kind, Statistics> statistics = new EnumMap<>(Kind.class);
+
+  // @VisibleForTesting
+  CommandScheduler(LongSupplier clock) {
+    this.clock = clock;
+    for (Kind kind : Kind.values()) {
+      running.put(kind, 0);
+      statistics.put(kind, new Statistics(0, 0, 0, 0));
+    }
+  }
+
+  /**
+   * Waits until the command may run.
+   *
+   * @param command the command line
+   * @return the slot of the command, to close when the command exited
+   */
+  public Permit acquire(List<String> command) throws InterruptedException {
+    Kind kind = classify(command);
+    if (kind == Kind.UNSCHEDULED) {
+      return new Permit(kind, 0);
+    }
+
+    long start = clock.getAsLong();
+    synchronized (this) {
+      while (running.get(kind) >= getLimit(kind)) {
+        wait();
+      }
+      running.put(kind, running.get(kind) + 1);
+      long queueMillis = clock.getAsLong() - start;
+      statistics.put(kind, statistics.get(kind).add(queueMillis));
+      return new Permit(kind, queueMillis);
+    }
+  }
+
+  /** @return the queue time statistics of the commands scheduled since the last reset */
+  public synchronized Map<Kind, Statistics> getStatistics() {
+    Map<Kind, Statistics> snapshot = new EnumMap<>(statistics);
+    snapshot.remove(Kind.UNSCHEDULED);
+    return Collections.unmodifiableMap(snapshot);
+  }
+
+  /** Resets the queue time statistics, for example when a build finished. */
+  public synchronized void resetStatistics() {
+    for (Kind kind : Kind.values()) {
+      statistics.put(kind, new Statistics(0, 0, 0, 0));
+    }
+  }
+
+  /** @return a line per kind of command whose commands waited for a free slot */
+  public List<String> formatStatistics() {
+    List<String> lines = new ArrayList<>();
+    for (Map.Entry<Kind, Statistics> entry : getStatistics().entrySet()) {
+      Statistics kindStatistics = entry.getValue();
+      if (kindStatistics.getQueuedCommands() == 0) {
+        continue;
+      }
+      lines.add(
+          String.format(
+              Locale.ROOT,
+              "%d of %d %s minikube/kubectl command(s) waited for a free slot, "
+                  + "%.1fs in total, at most %.1fs",
+              kindStatistics.getQueuedCommands(),
+              kindStatistics.getCommands(),
+              entry.getKey().name().toLowerCase(Locale.ROOT).replace('_', '-'),
+              kindStatistics.getTotalQueueMillis() / 1000.0,
+              kindStatistics.getMaxQueueMillis() / 1000.0));
+    }
+    return lines;
+  }
+
+  /** @return the limit of concurrent commands of {@code kind} */
+  // @VisibleForTesting
+  static int getLimit(Kind kind) {
+    int processors = Runtime.getRuntime().availableProcessors();
+    int limit =
+        kind == Kind.MUTATING
+            ? Integer.getInteger(MAX_MUTATING_COMMANDS_PROPERTY, Math.max(1, processors / 2))
+            : Integer.getInteger(MAX_READ_ONLY_COMMANDS_PROPERTY, Math.max(2, processors));
+    return Math.max(1, limit);
+  }
+
+  /**
+   * Classifies a command by its executable and subcommand.
+   *
+   * @param command the command line
+   * @return how the command is scheduled
+   */
+  // @VisibleForTesting
+  static Kind classify(List<String> command) {
+    if (command.isEmpty()) {
+      return Kind.UNSCHEDULED;
+    }
+    String executable = getExecutableName(command.get(0));
+    boolean minikube = executable.equals("minikube");
+    if (!minikube && !executable.equals("kubectl")) {
+      return Kind.UNSCHEDULED;
+    }
+
+    List<String> arguments = getPositionalArguments(command.subList(1, command.size()));
+    if (arguments.isEmpty()) {
+      return Kind.READ_ONLY;
+    }
+    String subcommand = arguments.get(0);
+    if (minikube) {
+      if (READ_ONLY_MINIKUBE_COMMANDS.contains(subcommand)) {
+        return Kind.READ_ONLY;
+      }
+      // minikube image ls, minikube addons list, minikube profile list, ...
+      if (arguments.size() > 1 && LIST_SUBCOMMANDS.contains(arguments.get(1))) {
+        return Kind.READ_ONLY;
+      }
+      return Kind.MUTATING;
+    }
+    return READ_ONLY_KUBECTL_COMMANDS.contains(subcommand) ? Kind.READ_ONLY : Kind.MUTATING;
+  }
+
+  /**
+   * Checks whether a command is a short query, such as {@code kubectl get} or {@code minikube
+   * status}. Other read-only commands may run for long, such as {@code kubectl wait} or {@code
+   * minikube logs}.
+   *
+   * @param command the command line
+   * @return {@code true} if the command is a read-only command that returns at once
+   */
+  static boolean isShortQuery(List<String> command) {
+    if (classify(command) != Kind.READ_ONLY) {
+      return false;
+    }
+    List<String> arguments = getPositionalArguments(command.subList(1, command.size()));
+    if (arguments.isEmpty()) {
+      return false;
+    }
+    String subcommand = arguments.get(0);
+    if (getExecutableName(command.get(0)).equals("minikube")) {
+      return SHORT_MINIKUBE_QUERIES.contains(subcommand)
+          || (subcommand.equals("profile")
+              && arguments.size() > 1
+              && LIST_SUBCOMMANDS.contains(arguments.get(1)));
+    }
+    for (String argument : command) {
+      if (argument.equals("-w") || argument.startsWith("--watch")) {
+        return false;
+      }
+    }
+    return SHORT_KUBECTL_QUERIES.contains(subcommand);
+  }
+
+  private static String getExecutableName(String executable) {
+    executable =
+        executable.substring(
+            Math.max(executable.lastIndexOf('/'), executable.lastIndexOf('\\')) + 1);
+    return executable.toLowerCase(Locale.ROOT).replaceFirst("\\.exe$", "");
+  }
+
+  private static List<String> getPositionalArguments(List<String> arguments) {
+    List<String> positionalArguments = new ArrayList<>();
+    for (int i = 0; i < arguments.size(); i++) {
+      String argument = arguments.get(i);
+      if (FLAGS_WITH_VALUE.contains(argument)) {
+        i++;
+      } else if (!argument.startsWith("-")) {
+        positionalArguments.add(argument);
+      }
+    }
+    return positionalArguments;
+  }
+}
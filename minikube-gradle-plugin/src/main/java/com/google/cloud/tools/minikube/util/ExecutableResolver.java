@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves executable names to absolute paths. {@code PATH} is searched once per executable and
+ * value of {@code PATH}, instead of by every spawned process. Commands whose environment sets their
+ * own {@code PATH} are resolved against it, without caching.
+ */
+public class ExecutableResolver {
+
+  private static final ConcurrentMap<String, Path> resolved = new ConcurrentHashMap<>();
+
+  private ExecutableResolver() {}
+
+  /**
+   * Resolves an executable against the {@code PATH} of the JVM.
+   *
+   * @param executable an executable name or path
+   * @return the absolute path of the executable, or {@code executable} itself if it is a path or
+   *     was not found
+   */
+  public static String resolve(String executable) {
+    return resolve(executable, null);
+  }
+
+  /**
+   * Resolves an executable against the {@code PATH} it runs with.
+   *
+   * @param executable an executable name or path
+   * @param environment the environment variables the executable runs with in addition to those of
+   *     the JVM, or {@code null}
+   * @return the absolute path of the executable, or {@code executable} itself if it is a path or
+   *     was not found
+   */
+  public static String resolve(String executable, Map<String, String> environment) {
+    if (environment != null && environment.containsKey("PATH")) {
+      Path found = find(executable, environment.get("PATH"), System.getenv("PATHEXT"));
+      return found == null ? executable : found.toString();
+    }
+
+    String path = System.getenv("PATH");
+    // The PATH of a long-lived JVM, such as the Gradle daemon, may change between builds.
+    String key = executable + File.pathSeparator + path;
+    Path cached = resolved.get(key);
+    // Revalidates the cached path, which is cheaper than searching PATH again.
+    if (cached != null && Files.isExecutable(cached)) {
+      return cached.toString();
+    }
+    Path found = find(executable, path, System.getenv("PATHEXT"));
+    if (found == null) {
+      resolved.remove(key);
+      return executable;
+    }
+    resolved.put(key, found);
+    return found.toString();
+  }
+
+  /**
+   * Searches the directories of a {@code PATH} for an executable.
+   *
+   * @param executable the executable name
+   * @param path the {@code PATH} to search
+   * @param pathExt the executable file extensions on Windows ({@code PATHEXT}), or {@code null}
+   * @return the absolute path of the executable, or {@code null} if {@code executable} is a path or
+   *     was not found
+   */
+  // @VisibleForTesting
+  static Path find(String executable, String path, String pathExt) {
+    if (executable.isEmpty()
+        || path == null
+        || executable.contains("/")
+        || executable.contains(File.separator)) {
+      return null;
+    }
+    List<String> extensions = new ArrayList<>();
+    extensions.add("");
+    if (pathExt != null) {
+      for (String extension : pathExt.split(File.pathSeparator)) {
+        if (!extension.isEmpty()) {
+          extensions.add(extension.toLowerCase());
+        }
+      }
+    }
+
+    for (String directory : path.split(File.pathSeparator)) {
+      if (directory.isEmpty()) {
+        continue;
+      }
+      for (String extension : extensions) {
+        try {
+          Path candidate = Paths.get(directory, executable + extension);
+          if (Files.isRegularFile(candidate) && Files.isExecutable(candidate)) {
+            return candidate.toAbsolutePath();
+          }
+        } catch (InvalidPathException ex) {
+          // Skips malformed PATH entries.
+        }
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+
+/**
+ * Loads images from the local docker daemon into a minikube cluster, skipping images whose content
+ * is already there.
+ *
+ * <p>An image is skipped when its ID (the hash of its content) is listed by {@code minikube image
+ * ls} under the same reference, or was recorded in the {@link ImageIndex} of the profile when it
+ * was last loaded. The index is not tied to a cluster instance, so if the cluster cannot be listed
+ * all images are loaded. The remaining images are loaded with a {@link ParallelCommandRunner}.
+ */
+public class ImageLoader {
+
+  /** The outcome of {@link #load}. */
+  public static class Result {
+
+    private final List<String> loaded;
+    private final List<String> skipped;
+
+    Result(List<String> loaded, List<String> skipped) {
+      this.loaded = Collections.unmodifiableList(loaded);
+      this.skipped = Collections.unmodifiableList(skipped);
+    }
+
+    /** @return the images that were transferred into the cluster */
+    public List<String> getLoaded() {
+      return loaded;
+    }
+
+    /** @return the images that were already present in the cluster */
+    public List<String> getSkipped() {
+      return skipped;
+    }
+  }
+
+  private static final String ID_PREFIX = "sha256:";
+
+  private final CommandExecutorFactory commandExecutorFactory;
+  private final String minikube;
+  private final String docker;
+  private final String profile;
+  private final Logger logger;
+  private int parallelism = 4;
+  private Path indexFile;
+  private MinikubeCapabilities capabilities = MinikubeCapabilities.UNKNOWN;
+
+  /**
+   * Creates a new loader.
+   *
+   * @param commandExecutorFactory creates the executors the minikube and docker commands run with
+   * @param minikube the minikube executable
+   * @param docker the docker executable the images are read from
+   * @param profile the minikube profile to load the images into
+   * @param logger for logging the images loaded and skipped
+   */
+  public ImageLoader(
+      CommandExecutorFactory commandExecutorFactory,
+      String minikube,
+      String docker,
+      String profile,
+      Logger logger) {
+    this.commandExecutorFactory = commandExecutorFactory;
+    this.minikube = minikube;
+    this.docker = docker;
+    this.profile = profile;
+    this.logger = logger;
+    this.indexFile = ImageIndex.getDefaultFile(profile);
+  }
+
+  /** Sets the maximum number of images loaded at the same time. */
+  public ImageLoader setParallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1");
+    }
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  /** Sets the file of the image index. Defaults to the profile index in the minikube home. */
+  public ImageLoader setIndexFile(Path indexFile) {
+    this.indexFile = indexFile;
+    return this;
+  }
+
+  /**
+   * Sets the capabilities of the minikube binary. Versions without {@code minikube image ls} load
+   * all images, and versions without {@code minikube image load} load the images with {@code
+   * minikube cache add}.
+   */
+  public ImageLoader setCapabilities(MinikubeCapabilities capabilities) {
+    this.capabilities = capabilities;
+    return this;
+  }
+
+  /**
+   * Loads the images that are not yet present in the cluster.
+   *
+   * @param images the image references to load
+   * @return the images loaded and skipped
+   * @throws GradleException if an image could not be inspected or loaded
+   */
+  public Result load(List<String> images) throws IOException, InterruptedException {
+    List<String> loaded = new ArrayList<>();
+    List<String> skipped = new ArrayList<>();
+    if (images.isEmpty()) {
+      return new Result(loaded, skipped);
+    }
+
+    Map<String, String> imageIds = inspectImageIds(images);
+    Map<String, Set<String>> clusterImages = listClusterImages();
+    ImageIndex index = new ImageIndex(indexFile);
+    Map<String, String> indexedIds = index.read();
+
+    List<String> toLoad = new ArrayList<>();
+    for (String image : images) {
+      String imageId = imageIds.get(image);
+      if (isPresent(image, imageId, indexedIds.get(image), clusterImages)) {
+        skipped.add(image);
+        logger.lifecycle("Image " + image + " is up to date in minikube profile " + profile);
+        indexedIds.put(image, imageId);
+      } else {
+        toLoad.add(image);
+      }
+    }
+
+    try {
+      loadAll(toLoad, loaded);
+    } finally {
+      // Records the successful loads even if another load failed.
+      for (String image : loaded) {
+        indexedIds.put(image, imageIds.get(image));
+      }
+      index.write(indexedIds);
+    }
+
+    return new Result(loaded, skipped);
+  }
+
+  // @VisibleForTesting
+  static boolean isPresent(
+      String image, String imageId, String indexedId, Map<String, Set<String>> clusterImages) {
+    if (clusterImages == null) {
+      // The index survives a recreated cluster: it cannot decide on its own.
+      return false;
+    }
+    Set<String> references = clusterImages.get(imageId);
+    if (references == null) {
+      return false;
+    }
+    // The same content may be present under another reference only.
+    return imageId.equals(indexedId) || references.contains(normalizeReference(image));
+  }
+
+  /**
+   * Loads images in parallel.
+   *
+   * @param images the images to load
+   * @param loaded receives the images that were loaded
+   */
+  private void loadAll(List<String> images, List<String> loaded) throws InterruptedException {
+    Map<String, List<String>> commands = new LinkedHashMap<>();
+    boolean imageLoad = capabilities.supports(MinikubeCapabilities.Capability.IMAGE_LOAD);
+    for (String image : images) {
+      commands.put(
+          image,
+          imageLoad
+              ? Arrays.asList(minikube, "image", "load", image, "--profile=" + profile)
+              : Arrays.asList(minikube, "cache", "add", image, "--profile=" + profile));
+    }
+
+    List<ParallelCommandRunner.Result> results =
+        new ParallelCommandRunner(commandExecutorFactory, parallelism).run(commands);
+    for (ParallelCommandRunner.Result result : results) {
+      if (result.isSucceeded()) {
+        loaded.add(result.getName());
+        logger.lifecycle(
+            String.format(
+                Locale.ROOT,
+                "Loaded image %s into minikube profile %s in %.1fs",
+                result.getName(),
+                profile,
+                result.getDurationMillis() / 1000.0));
+      }
+    }
+
+    String failures = ParallelCommandRunner.describeFailures(results);
+    if (!failures.isEmpty()) {
+      throw new GradleException("Failed to load images into minikube: " + failures);
+    }
+  }
+
+  /** Gets the IDs of the images in the local docker daemon with a single command. */
+  private Map<String, String> inspectImageIds(List<String> images)
+      throws IOException, InterruptedException {
+    List<String> command = new ArrayList<>();
+    command.addAll(Arrays.asList(docker, "image", "inspect", "--format={{.Id}}"));
+    command.addAll(images);
+    List<String> output = new ArrayList<>();
+    for (String line : commandExecutorFactory.newCommandExecutor().run(command)) {
+      if (!line.trim().isEmpty()) {
+        output.add(line.trim());
+      }
+    }
+    if (output.size() != images.size()) {
+      throw new GradleException("Unexpected output from docker image inspect: " + output);
+    }
+
+    Map<String, String> imageIds = new HashMap<>();
+    for (int i = 0; i < images.size(); i++) {
+      imageIds.put(images.get(i), normalizeId(output.get(i)));
+    }
+    return imageIds;
+  }
+
+  /**
+   * Lists the images in the cluster.
+   *
+   * @return the references of the images by image ID, or {@code null} if they could not be listed
+   */
+  private Map<String, Set<String>> listClusterImages() throws InterruptedException {
+    if (!capabilities.supports(MinikubeCapabilities.Capability.IMAGE_LIST)) {
+      logger.info(capabilities + " cannot list images, loading all images");
+      return null;
+    }
+    List<String> output;
+    try {
+      output =
+          commandExecutorFactory
+              .newCommandExecutor()
+              .run(Arrays.asList(minikube, "image", "ls", "--format=json", "--profile=" + profile));
+    } catch (GradleException | IOException ex) {
+      logger.info("Could not list images in minikube, loading all images");
+      return null;
+    }
+    return parseClusterImages(String.join("\n", output));
+  }
+
+  /**
+   * Parses the output of {@code minikube image ls --format=json}.
+   *
+   * @return the references of the images by image ID, or {@code null} if the output is malformed
+   */
+  // @VisibleForTesting
+  static Map<String, Set<String>> parseClusterImages(String json) {
+    JsonElement root;
+    try {
+      root = new JsonParser().parse(json);
+    } catch (JsonParseException ex) {
+      return null;
+    }
+    if (!root.isJsonArray()) {
+      return null;
+    }
+
+    Map<String, Set<String>> clusterImages = new HashMap<>();
+    for (JsonElement element : root.getAsJsonArray()) {
+      if (!element.isJsonObject() || !element.getAsJsonObject().has("id")) {
+        continue;
+      }
+      String imageId = normalizeId(element.getAsJsonObject().get("id").getAsString());
+      Set<String> references = clusterImages.computeIfAbsent(imageId, key -> new HashSet<>());
+      JsonElement repoTags = element.getAsJsonObject().get("repoTags");
+      if (repoTags != null && repoTags.isJsonArray()) {
+        for (JsonElement repoTag : repoTags.getAsJsonArray()) {
+          references.add(normalizeReference(repoTag.getAsString()));
+        }
+      }
+    }
+    return clusterImages;
+  }
+
+  /** Strips the digest algorithm, which not all container runtimes report. */
+  private static String normalizeId(String imageId) {
+    return imageId.startsWith(ID_PREFIX) ? imageId.substring(ID_PREFIX.length()) : imageId;
+  }
+
+  /**
+   * Expands an image reference to its fully qualified form, for example {@code
+   * docker.io/library/busybox:latest}.
+   */
+  static String normalizeReference(String reference) {
+    String normalized = reference;
+    int lastSlash = normalized.lastIndexOf('/');
+    if (normalized.indexOf(':', lastSlash + 1) == -1 && !normalized.contains("@")) {
+      normalized += ":latest";
+    }
+    if (lastSlash == -1) {
+      return "docker.io/library/" + normalized;
+    }
+    String domain = normalized.substring(0, normalized.indexOf('/'));
+    if (!domain.contains(".") && !domain.contains(":") && !domain.equals("localhost")) {
+      return "docker.io/" + normalized;
+    }
+    return normalized;
+  }
+}
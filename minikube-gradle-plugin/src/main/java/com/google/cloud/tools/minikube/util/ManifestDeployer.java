@@ -0,0 +1,574 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.gradle.api.logging.Logger;
+
+/**
+ * Applies a directory of Kubernetes manifests with {@code kubectl apply}, in dependency waves.
+ *
+ * <p>Each manifest file is assigned to the earliest wave of the kinds it contains: custom resource
+ * definitions and namespaces first, then configuration (service accounts, RBAC, config maps,
+ * secrets, storage), then workloads and everything else. The files of a wave are applied in
+ * parallel with a {@link ParallelCommandRunner}, and a wave only starts once the previous one
+ * succeeded. The time each manifest took to apply is logged.
+ *
+ * <p>With a {@link DeployIndex}, the deployment is incremental: a manifest is only applied if its
+ * content hash differs from the indexed one, and the resources that no manifest declares anymore
+ * are deleted from the cluster. The index is discarded when the cluster was recreated since.
+ */
+public class ManifestDeployer {
+
+  /** A group of manifests that can be applied at the same time. */
+  public enum Wave {
+    /**
+     * Custom resource definitions and namespaces, which other resources are created in terms of.
+     */
+    DEFINITIONS,
+    /** Service accounts, RBAC, config maps, secrets and storage, which workloads refer to. */
+    CONFIGURATION,
+    /** Workloads, services and any other kind, including custom resources. */
+    WORKLOADS
+  }
+
+  /** The outcome of {@link #deploy}. */
+  public static class Result {
+
+    private final List<ParallelCommandRunner.Result> applied;
+    private final List<String> unchanged;
+    private final List<ParallelCommandRunner.Result> pruned;
+
+    Result(
+        List<ParallelCommandRunner.Result> applied,
+        List<String> unchanged,
+        List<ParallelCommandRunner.Result> pruned) {
+      this.applied = Collections.unmodifiableList(applied);
+      this.unchanged = Collections.unmodifiableList(unchanged);
+      this.pruned = Collections.unmodifiableList(pruned);
+    }
+
+    /** @return the results of the manifests applied, named by path, in application order */
+    public List<ParallelCommandRunner.Result> getApplied() {
+      return applied;
+    }
+
+    /** @return the paths of the manifests skipped because they did not change */
+    public List<String> getUnchanged() {
+      return unchanged;
+    }
+
+    /** @return the results of the resources deleted, named by resource */
+    public List<ParallelCommandRunner.Result> getPruned() {
+      return pruned;
+    }
+
+    /**
+     * @return the failed applies and deletions, see {@link ParallelCommandRunner#describeFailures}
+     */
+    public String describeFailures() {
+      List<ParallelCommandRunner.Result> results = new ArrayList<>(applied);
+      results.addAll(pruned);
+      return ParallelCommandRunner.describeFailures(results);
+    }
+  }
+
+  private static final Set<String> DEFINITION_KINDS =
+      new HashSet<>(Arrays.asList("CustomResourceDefinition", "Namespace"));
+
+  private static final Set<String> CONFIGURATION_KINDS =
+      new HashSet<>(
+          Arrays.asList(
+              "ServiceAccount",
+              "Role",
+              "ClusterRole",
+              "RoleBinding",
+              "ClusterRoleBinding",
+              "ConfigMap",
+              "Secret",
+              "StorageClass",
+              "PersistentVolume",
+              "PersistentVolumeClaim",
+              "LimitRange",
+              "ResourceQuota",
+              "PriorityClass"));
+
+  private static final Set<String> MANIFEST_EXTENSIONS =
+      new HashSet<>(Arrays.asList(".yaml", ".yml", ".json"));
+
+  /** Matches a top-level YAML {@code kind} or a JSON {@code "kind"} member. */
+  private static final Pattern KIND_PATTERN =
+      Pattern.compile("^kind:\\s*[\"']?(\\w+)|\"kind\"\\s*:\\s*\"(\\w+)\"", Pattern.MULTILINE);
+
+  private static final Pattern DOCUMENT_SEPARATOR = Pattern.compile("^---.*$", Pattern.MULTILINE);
+
+  /** Matches a {@code name} or {@code namespace} field of the YAML {@code metadata} block. */
+  private static final Pattern METADATA_FIELD =
+      Pattern.compile("^(name|namespace):\\s*[\"']?([^\"'\\s#]+)");
+
+  private final CommandExecutorFactory commandExecutorFactory;
+  private final String kubectl;
+  private final String context;
+  private final Logger logger;
+  private int parallelism = 4;
+  private Path indexFile;
+  private boolean prune = true;
+
+  /**
+   * Creates a new deployer.
+   *
+   * @param commandExecutorFactory creates the executors the kubectl commands run with
+   * @param kubectl the kubectl executable
+   * @param context the kubectl context, which minikube names after the profile
+   * @param logger for logging the progress of the waves
+   */
+  public ManifestDeployer(
+      CommandExecutorFactory commandExecutorFactory,
+      String kubectl,
+      String context,
+      Logger logger) {
+    this.commandExecutorFactory = commandExecutorFactory;
+    this.kubectl = kubectl;
+    this.context = context;
+    this.logger = logger;
+  }
+
+  /** Sets the maximum number of manifests applied at the same time. */
+  public ManifestDeployer setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  /**
+   * Sets the file of the deploy index. Without an index, all manifests are applied and nothing is
+   * pruned.
+   */
+  public ManifestDeployer setIndexFile(Path indexFile) {
+    this.indexFile = indexFile;
+    return this;
+  }
+
+  /** Sets whether the resources no manifest declares anymore are deleted. Defaults to true. */
+  public ManifestDeployer setPrune(boolean prune) {
+    this.prune = prune;
+    return this;
+  }
+
+  /**
+   * Applies the changed manifests under {@code directory} wave by wave, then prunes the removed
+   * resources. No further wave is started after a wave with a failure, and nothing is pruned.
+   *
+   * @param directory the manifest directory, searched recursively
+   * @return the manifests applied and skipped and the resources pruned; manifests are named by
+   *     their path relative to {@code directory}
+   */
+  public Result deploy(Path directory) throws IOException, InterruptedException {
+    Map<String, Path> manifests = new LinkedHashMap<>();
+    Map<String, DeployIndex.Entry> entries = new LinkedHashMap<>();
+    for (Path manifest : findManifests(directory)) {
+      String name = getName(directory, manifest);
+      byte[] content = Files.readAllBytes(manifest);
+      manifests.put(name, manifest);
+      entries.put(
+          name,
+          new DeployIndex.Entry(
+              hash(content), readResources(new String(content, StandardCharsets.UTF_8))));
+    }
+
+    DeployIndex index = indexFile == null ? null : new DeployIndex(indexFile);
+    String clusterId = index == null ? null : getClusterId();
+    Map<String, DeployIndex.Entry> indexed = new TreeMap<>();
+    if (index != null && clusterId.equals(index.readClusterId())) {
+      indexed.putAll(index.read());
+    }
+
+    List<Path> changed = new ArrayList<>();
+    List<String> unchanged = new ArrayList<>();
+    for (Map.Entry<String, DeployIndex.Entry> entry : entries.entrySet()) {
+      DeployIndex.Entry indexedEntry = indexed.get(entry.getKey());
+      if (indexedEntry != null && indexedEntry.getHash().equals(entry.getValue().getHash())) {
+        unchanged.add(entry.getKey());
+      } else {
+        changed.add(manifests.get(entry.getKey()));
+      }
+    }
+    if (index != null) {
+      logger.lifecycle(unchanged.size() + " of " + entries.size() + " manifest(s) unchanged");
+    }
+
+    List<ParallelCommandRunner.Result> applied = new ArrayList<>();
+    List<ParallelCommandRunner.Result> pruned = new ArrayList<>();
+    boolean removedDone = false;
+    try {
+      apply(directory, changed, applied);
+      if (index != null && ParallelCommandRunner.describeFailures(applied).isEmpty()) {
+        if (prune) {
+          pruneRemoved(indexed, entries, pruned);
+        }
+        removedDone = ParallelCommandRunner.describeFailures(pruned).isEmpty();
+      }
+
+    } finally {
+      if (index != null) {
+        // Records the successful applies even if another apply failed.
+        Map<String, DeployIndex.Entry> updated = new TreeMap<>(indexed);
+        for (String name : unchanged) {
+          updated.put(name, entries.get(name));
+        }
+        for (ParallelCommandRunner.Result result : applied) {
+          if (result.isSucceeded()) {
+            updated.put(result.getName(), entries.get(result.getName()));
+          }
+        }
+        // The removed manifests are kept in the index until their resources are pruned.
+        if (removedDone) {
+          updated.keySet().retainAll(entries.keySet());
+        }
+        index.write(clusterId, updated);
+      }
+    }
+
+    return new Result(applied, unchanged, pruned);
+  }
+
+  private void apply(
+      Path directory, List<Path> manifests, List<ParallelCommandRunner.Result> results)
+      throws IOException, InterruptedException {
+    ParallelCommandRunner parallelCommandRunner =
+        new ParallelCommandRunner(commandExecutorFactory, parallelism);
+
+    for (Map.Entry<Wave, List<Path>> wave : planWaves(manifests).entrySet()) {
+      logger.lifecycle(
+          "Applying "
+              + wave.getValue().size()
+              + " "
+              + wave.getKey().name().toLowerCase(Locale.ROOT)
+              + " manifest(s)");
+
+      Map<String, List<String>> commands = new LinkedHashMap<>();
+      for (Path manifest : wave.getValue()) {
+        commands.put(getName(directory, manifest), buildApplyCommand(manifest));
+      }
+      List<ParallelCommandRunner.Result> waveResults = parallelCommandRunner.run(commands);
+      results.addAll(waveResults);
+      for (ParallelCommandRunner.Result result : waveResults) {
+        if (result.getStatus() != ParallelCommandRunner.Result.Status.SKIPPED) {
+          logger.lifecycle(ParallelCommandRunner.formatResult(result));
+        }
+      }
+
+      if (!ParallelCommandRunner.describeFailures(waveResults).isEmpty()) {
+        break;
+      }
+    }
+  }
+
+  /** Deletes the indexed resources that no current manifest declares. */
+  private void pruneRemoved(
+      Map<String, DeployIndex.Entry> indexed,
+      Map<String, DeployIndex.Entry> current,
+      List<ParallelCommandRunner.Result> results)
+      throws InterruptedException {
+    Set<String> removed = getRemovedResources(indexed, current);
+    if (removed.isEmpty()) {
+      return;
+    }
+    logger.lifecycle("Pruning " + removed.size() + " removed resource(s)");
+
+    Map<String, List<String>> commands = new LinkedHashMap<>();
+    for (String resource : removed) {
+      commands.put(resource, buildDeleteCommand(resource));
+    }
+    List<ParallelCommandRunner.Result> pruneResults =
+        new ParallelCommandRunner(commandExecutorFactory, parallelism).run(commands);
+    results.addAll(pruneResults);
+    for (ParallelCommandRunner.Result result : pruneResults) {
+      if (result.getStatus() != ParallelCommandRunner.Result.Status.SKIPPED) {
+        logger.lifecycle(ParallelCommandRunner.formatResult(result));
+      }
+    }
+  }
+
+  private static Set<String> getRemovedResources(
+      Map<String, DeployIndex.Entry> indexed, Map<String, DeployIndex.Entry> current) {
+    Set<String> removed = new LinkedHashSet<>();
+    for (DeployIndex.Entry entry : indexed.values()) {
+      removed.addAll(entry.getResources());
+    }
+    // A resource moved to another manifest is not removed.
+    for (DeployIndex.Entry entry : current.values()) {
+      removed.removeAll(entry.getResources());
+    }
+    return removed;
+  }
+
+  /**
+   * Gets the UID of the {@code kube-system} namespace, which changes when the cluster is recreated.
+   */
+  public String getClusterId() throws IOException, InterruptedException {
+    List<String> output =
+        commandExecutorFactory
+            .newCommandExecutor()
+            .run(
+                Arrays.asList(
+                    kubectl,
+                    "--context",
+                    context,
+                    "get",
+                    "namespace",
+                    "kube-system",
+                    "-o",
+                    "jsonpath={.metadata.uid}"));
+    return String.join("", output).trim();
+  }
+
+  // @VisibleForTesting
+  List<String> buildApplyCommand(Path manifest) {
+    return Arrays.asList(kubectl, "--context", context, "apply", "-f", manifest.toString());
+  }
+
+  // @VisibleForTesting
+  List<String> buildDeleteCommand(String resource) {
+    List<String> command = new ArrayList<>(Arrays.asList(kubectl, "--context", context, "delete"));
+    int namespaceStart = resource.indexOf('@');
+    if (namespaceStart == -1) {
+      command.add(resource);
+    } else {
+      command.add(resource.substring(0, namespaceStart));
+      command.add("--namespace");
+      command.add(resource.substring(namespaceStart + 1));
+    }
+    // Does not wait for finalizers (namespaces take long to terminate).
+    command.add("--ignore-not-found");
+    command.add("--wait=false");
+    return command;
+  }
+
+  /**
+   * Finds the manifest files (.yaml, .yml and .json) under {@code directory}.
+   *
+   * @return the files, sorted by path
+   */
+  public static List<Path> findManifests(Path directory) throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      return paths
+          .filter(Files::isRegularFile)
+          .filter(ManifestDeployer::isManifest)
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * Groups manifest files into waves.
+   *
+   * @return the non-empty waves in application order, each with its files in the order of {@code
+   *     manifests}
+   */
+  public static Map<Wave, List<Path>> planWaves(List<Path> manifests) throws IOException {
+    Map<Wave, List<Path>> waves = new EnumMap<>(Wave.class);
+    for (Path manifest : manifests) {
+      Wave wave =
+          getWave(readKinds(new String(Files.readAllBytes(manifest), StandardCharsets.UTF_8)));
+      waves.computeIfAbsent(wave, key -> new ArrayList<>()).add(manifest);
+    }
+    return waves;
+  }
+
+  /**
+   * Reads the resource kinds declared in manifest content, in YAML (including multi-document files)
+   * or JSON.
+   */
+  static Set<String> readKinds(String manifest) {
+    Set<String> kinds = new LinkedHashSet<>();
+    Matcher matcher = KIND_PATTERN.matcher(manifest);
+    while (matcher.find()) {
+      kinds.add(matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
+    }
+    return kinds;
+  }
+
+  /**
+   * Gets the wave of a manifest containing {@code kinds}: the earliest wave of any of the kinds,
+   * since the other manifests may depend on the resources of that kind.
+   */
+  static Wave getWave(Set<String> kinds) {
+    if (!Collections.disjoint(kinds, DEFINITION_KINDS)) {
+      return Wave.DEFINITIONS;
+    }
+    if (!Collections.disjoint(kinds, CONFIGURATION_KINDS)) {
+      return Wave.CONFIGURATION;
+    }
+    return Wave.WORKLOADS;
+  }
+
+  /**
+   * Reads the resources declared in manifest content, in YAML (including multi-document files) or
+   * JSON (including lists). Resources without a name are not read.
+   *
+   * @return the resources, as {@code kind/name} or {@code kind/name@namespace}
+   */
+  static List<String> readResources(String manifest) {
+    List<String> resources = new ArrayList<>();
+    String trimmed = manifest.trim();
+    if (trimmed.startsWith("{") || trimmed.startsWith("[")) {
+      try {
+        addJsonResources(new JsonParser().parse(trimmed), resources);
+      } catch (JsonParseException ex) {
+        // Left for kubectl to report.
+      }
+      return resources;
+    }
+
+    for (String document : DOCUMENT_SEPARATOR.split(manifest)) {
+      String resource = readYamlResource(document);
+      if (resource != null) {
+        resources.add(resource);
+      }
+    }
+    return resources;
+  }
+
+  private static void addJsonResources(JsonElement element, List<String> resources) {
+    if (element.isJsonArray()) {
+      element.getAsJsonArray().forEach(item -> addJsonResources(item, resources));
+      return;
+    }
+    if (!element.isJsonObject()) {
+      return;
+    }
+    JsonObject object = element.getAsJsonObject();
+    if (object.has("items")) {
+      addJsonResources(object.get("items"), resources);
+      return;
+    }
+    JsonObject metadata =
+        object.has("metadata") && object.get("metadata").isJsonObject()
+            ? object.getAsJsonObject("metadata")
+            : new JsonObject();
+    String resource =
+        toResource(
+            getString(object, "kind"),
+            getString(metadata, "name"),
+            getString(metadata, "namespace"));
+    if (resource != null) {
+      resources.add(resource);
+    }
+  }
+
+  private static String getString(JsonObject object, String member) {
+    JsonElement element = object.get(member);
+    return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+  }
+
+  /** Reads the kind and the name and namespace of the metadata block of a YAML document. */
+  private static String readYamlResource(String document) {
+    String kind = null;
+    String name = null;
+    String namespace = null;
+    boolean inMetadata = false;
+    int metadataIndent = -1;
+
+    for (String line : document.split("\\r?\\n")) {
+      String content = line.trim();
+      if (content.isEmpty() || content.startsWith("#")) {
+        continue;
+      }
+      int indent = line.indexOf(content);
+      if (indent == 0) {
+        Matcher kindMatcher = KIND_PATTERN.matcher(line);
+        if (kindMatcher.find() && kindMatcher.group(1) != null) {
+          kind = kindMatcher.group(1);
+        }
+        inMetadata = content.matches("metadata:\\s*(#.*)?");
+        metadataIndent = -1;
+        continue;
+      }
+      if (inMetadata) {
+        if (metadataIndent == -1) {
+          metadataIndent = indent;
+        }
+        Matcher fieldMatcher = METADATA_FIELD.matcher(content);
+        if (indent == metadataIndent && fieldMatcher.find()) {
+          if (fieldMatcher.group(1).equals("name")) {
+            name = fieldMatcher.group(2);
+          } else {
+            namespace = fieldMatcher.group(2);
+          }
+        }
+      }
+    }
+    return toResource(kind, name, namespace);
+  }
+
+  private static String toResource(String kind, String name, String namespace) {
+    if (kind == null || name == null) {
+      return null;
+    }
+    return kind + "/" + name + (namespace == null ? "" : "@" + namespace);
+  }
+
+  private static String hash(byte[] content) {
+    try {
+      StringBuilder hash = new StringBuilder();
+      for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) {
+        hash.append(String.format(Locale.ROOT, "%02x", b));
+      }
+      return hash.toString();
+
+    } catch (NoSuchAlgorithmException ex) {
+      // Every Java platform supports SHA-256.
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private static boolean isManifest(Path path) {
+    String fileName = path.getFileName().toString();
+    int extension = fileName.lastIndexOf('.');
+    return extension > 0
+        && MANIFEST_EXTENSIONS.contains(fileName.substring(extension).toLowerCase(Locale.ROOT));
+  }
+
+  private static String getName(Path directory, Path manifest) {
+    return directory.relativize(manifest).toString().replace('\\', '/');
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import java.util.function.Consumer;
+
+/**
+ * Parses the JSON lines minikube emits with {@code --output=json} (one CloudEvents-style object per
+ * line) and dispatches them to a {@link MinikubeEventListener}. Lines that are not events are
+ * ignored.
+ */
+public class MinikubeEventParser implements Consumer<String> {
+
+  private static final String EVENT_TYPE_PREFIX = "io.k8s.sigs.minikube.";
+
+  private final JsonParser jsonParser = new JsonParser();
+  private final MinikubeEventListener listener;
+
+  public MinikubeEventParser(MinikubeEventListener listener) {
+    this.listener = listener;
+  }
+
+  @Override
+  public void accept(String line) {
+    String trimmedLine = line.trim();
+    if (!trimmedLine.startsWith("{")) {
+      return;
+    }
+
+    JsonObject event;
+    try {
+      JsonElement element = jsonParser.parse(trimmedLine);
+      if (!element.isJsonObject()) {
+        return;
+      }
+      event = element.getAsJsonObject();
+    } catch (JsonParseException ex) {
+      return;
+    }
+
+    String type = getString(event, "type");
+    if (type == null || !type.startsWith(EVENT_TYPE_PREFIX)) {
+      return;
+    }
+    JsonObject data =
+        event.has("data") && event.get("data").isJsonObject()
+            ? event.getAsJsonObject("data")
+            : new JsonObject();
+
+    switch (type.substring(EVENT_TYPE_PREFIX.length())) {
+      case "step":
+        listener.onStep(
+            getInt(data, "currentstep"),
+            getInt(data, "totalsteps"),
+            getString(data, "name"),
+            getString(data, "message"));
+        break;
+      case "download.progress":
+        listener.onDownloadProgress(getString(data, "artifact"), getDouble(data, "progress"));
+        break;
+      case "info":
+        listener.onInfo(getString(data, "message"));
+        break;
+      case "warning":
+        listener.onWarning(getString(data, "message"));
+        break;
+      case "error":
+        listener.onError(getString(data, "message"));
+        break;
+      default:
+        break;
+    }
+  }
+
+  private static String getString(JsonObject object, String field) {
+    JsonElement element = object.get(field);
+    if (element == null || !element.isJsonPrimitive()) {
+      return null;
+    }
+    return element.getAsString();
+  }
+
+  // minikube encodes all event data fields as strings.
+  private static int getInt(JsonObject object, String field) {
+    String value = getString(object, field);
+    try {
+      return value == null ? 0 : Integer.parseInt(value.trim());
+    } catch (NumberFormatException ex) {
+      return 0;
+    }
+  }
+
+  private static double getDouble(JsonObject object, String field) {
+    String value = getString(object, field);
+    try {
+      return value == null ? 0 : Double.parseDouble(value.trim());
+    } catch (NumberFormatException ex) {
+      return 0;
+    }
+  }
+}
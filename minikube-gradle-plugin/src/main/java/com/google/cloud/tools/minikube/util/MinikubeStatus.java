@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import java.util.Collections;
+import java.util.List;
+
+/** Interprets the output of {@code minikube status --output=json}. */
+public class MinikubeStatus {
+
+  /** The state of a minikube cluster. */
+  public enum State {
+    /** The cluster is up and its Kubernetes components are running. */
+    RUNNING,
+    /** The cluster was paused with {@code minikube pause}. */
+    PAUSED,
+    /** The cluster is stopped, partially running, or does not exist. */
+    STOPPED
+  }
+
+  private MinikubeStatus() {}
+
+  /**
+   * Parses the state of the cluster. For multi-node clusters, the state of the first (control
+   * plane) node is used.
+   *
+   * @param output the output lines of {@code minikube status --output=json}
+   * @return the state, {@link State#STOPPED} if the output cannot be interpreted
+   */
+  public static State parse(List<String> output) {
+    String json = String.join("\n", output);
+    int start = json.indexOf('{');
+    int arrayStart = json.indexOf('[');
+    if (arrayStart != -1 && (start == -1 || arrayStart < start)) {
+      start = arrayStart;
+    }
+    if (start == -1) {
+      return State.STOPPED;
+    }
+
+    JsonElement element;
+    try {
+      element = new JsonParser().parse(json.substring(start));
+    } catch (JsonParseException ex) {
+      return State.STOPPED;
+    }
+    if (element.isJsonArray() && element.getAsJsonArray().size() > 0) {
+      element = element.getAsJsonArray().get(0);
+    }
+    if (!element.isJsonObject()) {
+      return State.STOPPED;
+    }
+
+    JsonObject status = element.getAsJsonObject();
+    if ("Paused".equals(getString(status, "APIServer"))) {
+      return State.PAUSED;
+    }
+    if ("Running".equals(getString(status, "Host"))
+        && "Running".equals(getString(status, "Kubelet"))
+        && "Running".equals(getString(status, "APIServer"))) {
+      return State.RUNNING;
+    }
+    return State.STOPPED;
+  }
+
+  /**
+   * Finds the profile selected by minikube flags, so that related commands can target the same
+   * cluster.
+   *
+   * @param flags minikube flags, for example {@code ["--profile", "dev", "--memory=4096"]}
+   * @return {@code ["--profile=<profile>"]} if the flags select a profile, else an empty list
+   */
+  public static List<String> getProfileFlags(List<String> flags) {
+    for (int i = 0; i < flags.size(); i++) {
+      String flag = flags.get(i);
+      if ((flag.equals("-p") || flag.equals("--profile")) && i + 1 < flags.size()) {
+        return Collections.singletonList("--profile=" + flags.get(i + 1));
+      }
+      for (String prefix : new String[] {"--profile=", "-p="}) {
+        if (flag.startsWith(prefix)) {
+          return Collections.singletonList("--profile=" + flag.substring(prefix.length()));
+        }
+      }
+    }
+    return Collections.emptyList();
+  }
+
+  private static String getString(JsonObject object, String member) {
+    JsonElement element = object.get(member);
+    return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.gradle.api.GradleException;
+
+/**
+ * Caches the versions of minikube binaries on disk, so that a binary's version is queried once
+ * instead of by every build. A binary is identified by its absolute path, size and modification
+ * time, so that an upgraded binary is queried again. Each line of the cache file holds these and
+ * the version, separated by tabs.
+ */
+public class MinikubeVersionCache {
+
+  private static final ConcurrentMap<String, MinikubeCapabilities> memoryCache =
+      new ConcurrentHashMap<>();
+
+  private static final Pattern VERSION_LINE = Pattern.compile("minikube version:\\s*(\\S+)");
+
+  /** @return the default cache file, in the minikube home */
+  public static Path getDefaultFile() {
+    return MinikubeHome.get().resolve("version-cache.tsv");
+  }
+
+  private final CommandExecutorFactory commandExecutorFactory;
+  private final Path file;
+
+  /**
+   * Creates a new cache.
+   *
+   * @param commandExecutorFactory creates the executors {@code minikube version} runs with
+   * @param file the cache file
+   */
+  public MinikubeVersionCache(CommandExecutorFactory commandExecutorFactory, Path file) {
+    this.commandExecutorFactory = commandExecutorFactory;
+    this.file = file;
+  }
+
+  /**
+   * Gets the capabilities of a minikube binary, querying its version only if it is not cached yet.
+   *
+   * @param minikube the minikube executable name or path
+   * @return the capabilities, {@link MinikubeCapabilities#UNKNOWN} if the version could not be
+   *     determined
+   */
+  public MinikubeCapabilities getCapabilities(String minikube) throws InterruptedException {
+    String binary = ExecutableResolver.resolve(minikube);
+    String key = getKey(binary);
+    if (key != null) {
+      MinikubeCapabilities cached = memoryCache.get(key);
+      if (cached != null) {
+        return cached;
+      }
+      String version = read(key);
+      if (version != null) {
+        return memoryCache.computeIfAbsent(key, ignored -> new MinikubeCapabilities(version));
+      }
+    }
+
+    String version = queryVersion(binary);
+    if (version == null) {
+      return MinikubeCapabilities.UNKNOWN;
+    }
+    MinikubeCapabilities capabilities = new MinikubeCapabilities(version);
+    if (key != null) {
+      memoryCache.put(key, capabilities);
+      try {
+        write(key, version);
+      } catch (IOException ex) {
+        // The cache only saves a version query, the next build queries it again.
+      }
+    }
+    return capabilities;
+  }
+
+  /**
+   * Queries the version of a minikube binary. Versions without {@code --output=json} are queried
+   * again without it.
+   *
+   * @return the version, or {@code null} if it could not be determined
+   */
+  // @VisibleForTesting
+  String queryVersion(String minikube) throws InterruptedException {
+    for (List<String> command :
+        Arrays.asList(
+            Arrays.asList(minikube, "version", "--output=json"),
+            Arrays.asList(minikube, "version"))) {
+      try {
+        String version =
+            parseVersion(
+                commandExecutorFactory
+                    .newCommandExecutor()
+                    .setFailOnNonZeroExitCode(false)
+                    .run(command));
+        if (version != null) {
+          return version;
+        }
+      } catch (IOException | GradleException ex) {
+        // minikube could not be run at all.
+        return null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Parses the output of {@code minikube version}, with or without {@code --output=json}.
+   *
+   * @return the version, or {@code null} if the output contains none
+   */
+  // @VisibleForTesting
+  static String parseVersion(List<String> output) {
+    String joined = String.join("\n", output).trim();
+    if (joined.startsWith("{")) {
+      try {
+        JsonElement root = new JsonParser().parse(joined);
+        if (root.isJsonObject() && root.getAsJsonObject().has("minikubeVersion")) {
+          return root.getAsJsonObject().get("minikubeVersion").getAsString();
+        }
+      } catch (JsonParseException | IllegalStateException | UnsupportedOperationException ex) {
+        // Falls back to the plain text format.
+      }
+    }
+    for (String line : output) {
+      Matcher matcher = VERSION_LINE.matcher(line);
+      if (matcher.find()) {
+        return matcher.group(1);
+      }
+    }
+    return null;
+  }
+
+  /** @return the key of the binary, or {@code null} if it is not a file */
+  private static String getKey(String binary) {
+    Path path = Paths.get(binary).toAbsolutePath();
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+      if (!attributes.isRegularFile()) {
+        return null;
+      }
+      return path + "\t" + attributes.size() + "\t" + attributes.lastModifiedTime().toMillis();
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+
+  private String read(String key) {
+    try {
+      if (!Files.exists(file)) {
+        return null;
+      }
+      for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+        int versionStart = line.lastIndexOf('\t');
+        if (versionStart > 0 && line.substring(0, versionStart).equals(key)) {
+          return line.substring(versionStart + 1);
+        }
+      }
+    } catch (IOException ex) {
+      // Treats an unreadable cache as empty.
+    }
+    return null;
+  }
+
+  private void write(String key, String version) throws IOException {
+    String path = key.substring(0, key.indexOf('\t') + 1);
+    List<String> lines = new ArrayList<>();
+    if (Files.exists(file)) {
+      for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+        // Drops the entries of previous binaries at the same path.
+        if (!line.startsWith(path)) {
+          lines.add(line);
+        }
+      }
+    }
+    lines.add(key + "\t" + version);
+
+    Path directory = file.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    // Writes to a temporary file first so that concurrent builds never see a partial cache.
+    Path temporaryFile = Files.createTempFile(directory, file.getFileName() + ".", ".tmp");
+    try {
+      Files.write(temporaryFile, lines, StandardCharsets.UTF_8);
+      Files.move(
+          temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import org.gradle.api.logging.Logger;
+
+/**
+ * Isolates tests in uniquely named, disposable namespaces, so that a cluster can be reused instead
+ * of being recreated for a clean state. Each namespace is labeled as isolated and with the run it
+ * belongs to. Namespaces are deleted without waiting: the cluster removes their resources in the
+ * background, and all namespaces of a run are deleted with a single command.
+ */
+public class NamespaceIsolation {
+
+  /** The label of every isolated namespace. */
+  public static final String ISOLATED_LABEL = "minikube-build-tools/isolated";
+
+  /** The label holding the run an isolated namespace belongs to. */
+  public static final String RUN_LABEL = "minikube-build-tools/run";
+
+  /** Kubernetes names are DNS labels of at most 63 characters. */
+  private static final int MAX_NAME_LENGTH = 63;
+
+  private static final int SUFFIX_LENGTH = 8;
+
+  private static final Random RANDOM = new SecureRandom();
+
+  /**
+   * Generates a namespace name from a prefix and a random suffix.
+   *
+   * @param prefix the prefix, for example the name of the test class or project
+   * @return a valid, unique namespace name
+   */
+  public static String newName(String prefix) {
+    String sanitizedPrefix =
+        prefix.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9-]+", "-").replaceAll("^-+|-+$", "");
+    if (sanitizedPrefix.isEmpty()) {
+      sanitizedPrefix = "test";
+    }
+    int maxPrefixLength = MAX_NAME_LENGTH - SUFFIX_LENGTH - 1;
+    if (sanitizedPrefix.length() > maxPrefixLength) {
+      sanitizedPrefix = sanitizedPrefix.substring(0, maxPrefixLength).replaceAll("-+$", "");
+    }
+    return sanitizedPrefix + "-" + newRunId();
+  }
+
+  /** @return a random identifier of a run, such as a build of a project */
+  public static String newRunId() {
+    return String.format(Locale.ROOT, "%08x", RANDOM.nextInt());
+  }
+
+  private final CommandExecutorFactory commandExecutorFactory;
+  private final String kubectl;
+  private final String context;
+  private final Logger logger;
+
+  /**
+   * Creates a new isolation.
+   *
+   * @param commandExecutorFactory creates the executors the kubectl commands run with
+   * @param kubectl the kubectl executable
+   * @param context the kubectl context, which minikube names after the profile
+   * @param logger for logging the created and deleted namespaces
+   */
+  public NamespaceIsolation(
+      CommandExecutorFactory commandExecutorFactory,
+      String kubectl,
+      String context,
+      Logger logger) {
+    this.commandExecutorFactory = commandExecutorFactory;
+    this.kubectl = kubectl;
+    this.context = context;
+    this.logger = logger;
+  }
+
+  /**
+   * Creates an isolated namespace.
+   *
+   * @param namespace the namespace name
+   * @param runId the run the namespace belongs to
+   */
+  public void create(String namespace, String runId) throws IOException, InterruptedException {
+    commandExecutorFactory.newCommandExecutor().run(kubectl("create", "namespace", namespace));
+    commandExecutorFactory
+        .newCommandExecutor()
+        .run(
+            kubectl(
+                "label",
+                "namespace",
+                namespace,
+                ISOLATED_LABEL + "=true",
+                RUN_LABEL + "=" + runId));
+    logger.lifecycle("Created namespace " + namespace);
+  }
+
+  /**
+   * Deletes the isolated namespaces of a run, without waiting for their resources to be removed.
+   *
+   * @param runId the run
+   */
+  public void deleteRun(String runId) throws IOException, InterruptedException {
+    delete(RUN_LABEL + "=" + runId);
+  }
+
+  /**
+   * Deletes all isolated namespaces, including the ones left behind by earlier runs, without
+   * waiting for their resources to be removed.
+   */
+  public void deleteAll() throws IOException, InterruptedException {
+    delete(ISOLATED_LABEL + "=true");
+  }
+
+  private void delete(String selector) throws IOException, InterruptedException {
+    List<String> output =
+        commandExecutorFactory
+            .newCommandExecutor()
+            .run(
+                kubectl(
+                    "delete",
+                    "namespace",
+                    "--selector=" + selector,
+                    "--ignore-not-found",
+                    "--wait=false"));
+    for (String line : output) {
+      logger.info(line);
+    }
+    logger.lifecycle("Deleting " + output.size() + " namespaces in the background");
+  }
+
+  private List<String> kubectl(String... arguments) {
+    List<String> command = new ArrayList<>();
+    command.addAll(Arrays.asList(kubectl, "--context", context));
+    command.addAll(Arrays.asList(arguments));
+    return command;
+  }
+}
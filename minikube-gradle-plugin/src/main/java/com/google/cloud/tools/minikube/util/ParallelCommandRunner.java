@@ -0,0 +1,187 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs independent commands in parallel, at most {@code parallelism} at a time. After the first
+ * failure, no further command is started, but the commands already running are allowed to finish so
+ * that no process is left behind.
+ */
+public class ParallelCommandRunner {
+
+  /** The outcome of one command. */
+  public static class Result {
+
+    /** What happened to a command. */
+    public enum Status {
+      SUCCEEDED,
+      FAILED,
+      /** The command was not started because another command failed. */
+      SKIPPED
+    }
+
+    private final String name;
+    private final Status status;
+    private final long durationMillis;
+    private final Exception failure;
+
+    Result(String name, Status status, long durationMillis, Exception failure) {
+      this.name = name;
+      this.status = status;
+      this.durationMillis = durationMillis;
+      this.failure = failure;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public Status getStatus() {
+      return status;
+    }
+
+    public boolean isSucceeded() {
+      return status == Status.SUCCEEDED;
+    }
+
+    public long getDurationMillis() {
+      return durationMillis;
+    }
+
+    /** @return why the command failed, or {@code null} if it did not fail */
+    public Exception getFailure() {
+      return failure;
+    }
+  }
+
+  private final CommandExecutorFactory commandExecutorFactory;
+  private final int parallelism;
+
+  /**
+   * Creates a new runner.
+   *
+   * @param commandExecutorFactory creates the executors the commands run with
+   * @param parallelism the maximum number of commands running at the same time
+   */
+  public ParallelCommandRunner(CommandExecutorFactory commandExecutorFactory, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1");
+    }
+    this.commandExecutorFactory = commandExecutorFactory;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Runs the commands and waits for them to finish.
+   *
+   * @param commands the commands to run by name, started in iteration order
+   * @return the results in the order of {@code commands}
+   */
+  public List<Result> run(Map<String, List<String>> commands) throws InterruptedException {
+    List<Result> results = new ArrayList<>();
+    if (commands.isEmpty()) {
+      return results;
+    }
+
+    ExecutorService executorService =
+        Executors.newFixedThreadPool(Math.min(parallelism, commands.size()));
+    AtomicBoolean failed = new AtomicBoolean();
+    Map<String, Future<Result>> futures = new LinkedHashMap<>();
+    try {
+      for (Map.Entry<String, List<String>> command : commands.entrySet()) {
+        futures.put(
+            command.getKey(),
+            executorService.submit(() -> runCommand(command.getKey(), command.getValue(), failed)));
+      }
+      for (Map.Entry<String, Future<Result>> future : futures.entrySet()) {
+        try {
+          results.add(future.getValue().get());
+        } catch (ExecutionException ex) {
+          // runCommand catches all exceptions.
+          throw new IllegalStateException(ex.getCause());
+        }
+      }
+      return results;
+
+    } finally {
+      // Interrupts the commands that are still running if this thread was interrupted.
+      executorService.shutdownNow();
+    }
+  }
+
+  private Result runCommand(String name, List<String> command, AtomicBoolean failed) {
+    if (failed.get()) {
+      return new Result(name, Result.Status.SKIPPED, 0, null);
+    }
+    long start = System.nanoTime();
+    try {
+      commandExecutorFactory.newCommandExecutor().run(command);
+      return new Result(name, Result.Status.SUCCEEDED, elapsedMillis(start), null);
+
+    } catch (Exception ex) {
+      if (ex instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      failed.set(true);
+      return new Result(name, Result.Status.FAILED, elapsedMillis(start), ex);
+    }
+  }
+
+  private static long elapsedMillis(long startNanos) {
+    return (System.nanoTime() - startNanos) / 1_000_000;
+  }
+
+  /**
+   * Formats the duration and the outcome of a command for logging.
+   *
+   * @return " duration name", followed by " FAILED" if the command failed
+   */
+  public static String formatResult(Result result) {
+    return String.format(
+        Locale.ROOT,
+        "  %8s  %s%s",
+        String.format(Locale.ROOT, "%.1fs", result.getDurationMillis() / 1000.0),
+        result.getName(),
+        result.getStatus() == Result.Status.FAILED ? " FAILED" : "");
+  }
+
+  /**
+   * Describes the failed commands of {@code results}.
+   *
+   * @return "name (reason), ..." for each failed command, or an empty string if none failed
+   */
+  public static String describeFailures(List<Result> results) {
+    List<String> failures = new ArrayList<>();
+    for (Result result : results) {
+      if (result.getStatus() == Result.Status.FAILED) {
+        failures.add(result.getName() + " (" + result.getFailure().getMessage() + ")");
+      }
+    }
+    return String.join(", ", failures);
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.LongSupplier;
+
+/**
+ * Normalizes process output into lines. Carriage-return rewrites (as emitted by progress bars and
+ * spinners) are collapsed so that only the final state of a line is reported as a line, and the
+ * intermediate states are reported as progress updates at most once per progress interval.
+ */
+public class ProcessOutputNormalizer {
+
+  /** Receives the normalized output. */
+  public interface Listener {
+
+    /** Called with each complete output line. */
+    void onLine(String line);
+
+    /** Called with an intermediate, in-place rewritten state of the current line. */
+    void onProgress(String progress);
+  }
+
+  /** The default minimum interval between two reported progress updates. */
+  public static final long DEFAULT_PROGRESS_INTERVAL_MILLIS = 1000;
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final long progressIntervalMillis;
+  private final LongSupplier clock;
+
+  /**
+   * Creates a new normalizer.
+   *
+   * @param progressIntervalMillis the minimum interval between two reported progress updates
+   */
+  public ProcessOutputNormalizer(long progressIntervalMillis) {
+    this(progressIntervalMillis, System::currentTimeMillis);
+  }
+
+  // @VisibleForTesting
+  ProcessOutputNormalizer(long progressIntervalMillis, LongSupplier clock) {
+    this.progressIntervalMillis = progressIntervalMillis;
+    this.clock = clock;
+  }
+
+  /**
+   * Reads {@code reader} to the end and reports its normalized content to {@code listener}.
+   *
+   * @param reader the process output
+   * @param listener receives the lines and progress updates
+   */
+  public void normalize(Reader reader, Listener listener) throws IOException {
+    char[] buffer = new char[BUFFER_SIZE];
+    StringBuilder line = new StringBuilder();
+    boolean pendingCarriageReturn = false;
+    long lastProgressTime = Long.MIN_VALUE;
+
+    int read;
+    while ((read = reader.read(buffer)) != -1) {
+      for (int i = 0; i < read; i++) {
+        char c = buffer[i];
+
+        if (c == '\n') {
+          // '\r\n' is a regular line terminator.
+          listener.onLine(line.toString());
+          line.setLength(0);
+          pendingCarriageReturn = false;
+          continue;
+        }
+
+        if (pendingCarriageReturn) {
+          // The current line is being rewritten: it was only a progress state.
+          pendingCarriageReturn = false;
+          long now = clock.getAsLong();
+          if (line.length() > 0
+              && (lastProgressTime == Long.MIN_VALUE
+                  || now - lastProgressTime >= progressIntervalMillis)) {
+            listener.onProgress(line.toString());
+            lastProgressTime = now;
+          }
+          line.setLength(0);
+        }
+
+        if (c == '\r') {
+          pendingCarriageReturn = true;
+        } else {
+          line.append(c);
+        }
+      }
+    }
+
+    if (line.length() > 0) {
+      listener.onLine(line.toString());
+    }
+  }
+}
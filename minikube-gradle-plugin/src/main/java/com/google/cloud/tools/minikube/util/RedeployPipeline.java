@@ -0,0 +1,193 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.gradle.api.logging.Logger;
+
+/**
+ * Runs the stages of the rebuild and redeploy pipeline that changed files affect. Changes that
+ * arrive while the pipeline runs cancel the run, and the new run also covers the stages the
+ * cancelled run did not finish, so that the latest changes are always processed first.
+ */
+public class RedeployPipeline implements Closeable {
+
+  /** The stages of the pipeline, in the order they run. */
+  public enum Stage {
+    /** Rebuilds the images, affected by source changes. */
+    REBUILD,
+    /** Loads the rebuilt images into minikube. */
+    IMAGE_LOAD,
+    /** Applies the changed manifests, affected by manifest changes. */
+    DEPLOY,
+    /** Restarts the workloads running the rebuilt images. */
+    RESTART
+  }
+
+  /** The action of a stage. */
+  public interface Action {
+    void run() throws IOException, InterruptedException;
+  }
+
+  /** A run of the pipeline. */
+  private class Run implements Runnable {
+
+    /** The stages that did not complete yet, guarded by itself. */
+    private final Set<Stage> remainingStages;
+
+    private Run(Set<Stage> stages) {
+      this.remainingStages = EnumSet.copyOf(stages);
+    }
+
+    private Set<Stage> getRemainingStages() {
+      synchronized (remainingStages) {
+        return remainingStages.isEmpty()
+            ? EnumSet.noneOf(Stage.class)
+            : EnumSet.copyOf(remainingStages);
+      }
+    }
+
+    @Override
+    public void run() {
+      long start = System.nanoTime();
+      for (Stage stage : getRemainingStages()) {
+        if (Thread.currentThread().isInterrupted()) {
+          return;
+        }
+        Action action = actions.get(stage);
+        try {
+          if (action != null) {
+            action.run();
+          }
+
+        } catch (InterruptedException ex) {
+          // Cancelled by newer changes.
+          return;
+        } catch (Exception ex) {
+          if (Thread.currentThread().isInterrupted()) {
+            return;
+          }
+          // The remaining stages run with the next changes.
+          logger.error("minikube redeploy failed in stage " + stage + ": " + ex.getMessage());
+          return;
+        }
+        synchronized (remainingStages) {
+          remainingStages.remove(stage);
+        }
+      }
+      logger.lifecycle(
+          String.format(
+              Locale.ROOT, "Redeployed in %.1fs", (System.nanoTime() - start) / 1_000_000_000.0));
+    }
+  }
+
+  private final Map<Stage, Action> actions = new EnumMap<>(Stage.class);
+  private final List<Path> sourceDirectories;
+  private final Path manifestDirectory;
+  private final Logger logger;
+  private final ExecutorService executorService =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "minikube-redeploy");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private Run run;
+  private Future<?> future;
+
+  /**
+   * Creates a new pipeline.
+   *
+   * @param sourceDirectories the directories whose changes require rebuilding the images
+   * @param manifestDirectory the directory whose changes require applying the manifests
+   * @param logger for logging the runs
+   */
+  public RedeployPipeline(List<Path> sourceDirectories, Path manifestDirectory, Logger logger) {
+    this.sourceDirectories = sourceDirectories;
+    this.manifestDirectory = manifestDirectory;
+    this.logger = logger;
+  }
+
+  /** Sets the action of a stage. Stages without an action are skipped. */
+  public RedeployPipeline setAction(Stage stage, Action action) {
+    actions.put(stage, action);
+    return this;
+  }
+
+  /**
+   * Runs the stages {@code changes} affect in the background. A run that is still in progress is
+   * cancelled, and its remaining stages run with the new ones, after its current command stopped.
+   *
+   * @param changes the changed files and directories
+   * @return the new run, or {@code null} if no stage needs to run
+   */
+  public synchronized Future<?> submit(Set<Path> changes) {
+    Set<Stage> stages = getAffectedStages(changes);
+    if (run != null) {
+      if (!future.isDone()) {
+        future.cancel(true);
+        logger.lifecycle("Cancelling the redeploy of older changes");
+      }
+      // Also retries the stages of a failed run.
+      stages.addAll(run.getRemainingStages());
+    }
+    stages.retainAll(actions.keySet());
+    if (stages.isEmpty()) {
+      return null;
+    }
+    logger.lifecycle("Changes detected, running " + stages);
+    run = new Run(stages);
+    future = executorService.submit(run);
+    return future;
+  }
+
+  /** Cancels the run in progress. */
+  @Override
+  public synchronized void close() {
+    executorService.shutdownNow();
+  }
+
+  /** @return the stages {@code changes} affect, in order */
+  // @VisibleForTesting
+  Set<Stage> getAffectedStages(Set<Path> changes) {
+    Set<Stage> stages = EnumSet.noneOf(Stage.class);
+    for (Path change : changes) {
+      if (manifestDirectory != null && change.startsWith(manifestDirectory)) {
+        stages.add(Stage.DEPLOY);
+      }
+      for (Path sourceDirectory : sourceDirectories) {
+        if (change.startsWith(sourceDirectory)) {
+          Collections.addAll(stages, Stage.REBUILD, Stage.IMAGE_LOAD, Stage.RESTART);
+        }
+      }
+    }
+    return stages;
+  }
+}
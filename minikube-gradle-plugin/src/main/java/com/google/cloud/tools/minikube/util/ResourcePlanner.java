@@ -0,0 +1,270 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Plans the CPUs and memory of a minikube cluster from the capacity of the host and the number of
+ * clusters sharing it. What is left after a reserve for the host is split evenly between the
+ * clusters, but a cluster never gets less than minikube needs to start.
+ */
+public class ResourcePlanner {
+
+  /** CPUs and memory, of a host or a cluster. */
+  public static class Resources {
+
+    private final int cpus;
+    private final long memoryMb;
+
+    public Resources(int cpus, long memoryMb) {
+      this.cpus = cpus;
+      this.memoryMb = memoryMb;
+    }
+
+    public int getCpus() {
+      return cpus;
+    }
+
+    public long getMemoryMb() {
+      return memoryMb;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT, "%d CPUs and %d MB of memory", cpus, memoryMb);
+    }
+  }
+
+  /** The fewest CPUs minikube starts a cluster with. */
+  public static final int MIN_CPUS = 2;
+
+  /** The least memory minikube starts a cluster with. */
+  public static final long MIN_MEMORY_MB = 2048;
+
+  /** The CPUs left to the host and the build itself. */
+  private static final int RESERVED_CPUS = 1;
+
+  /** The memory left to the host and the build itself: an eighth, but at least this much. */
+  private static final long MIN_RESERVED_MEMORY_MB = 1024;
+
+  private static final Path MEMINFO = Paths.get("/proc/meminfo");
+  private static final Path CGROUP_V2_MEMORY_MAX = Paths.get("/sys/fs/cgroup/memory.max");
+  private static final Path CGROUP_V1_MEMORY_LIMIT =
+      Paths.get("/sys/fs/cgroup/memory/memory.limit_in_bytes");
+
+  /** cgroup v1 reports no limit as a huge value (the largest page-aligned long). */
+  private static final long CGROUP_V1_UNLIMITED_BYTES = Long.MAX_VALUE / 2;
+
+  private ResourcePlanner() {}
+
+  /**
+   * Detects the CPUs available to the JVM and the host's physical memory, from {@code
+   * /proc/meminfo} on Linux and from the operating system MXBean elsewhere. In a container, the
+   * memory is capped by the cgroup memory limit of the build.
+   *
+   * @return the host's capacity
+   */
+  public static Resources detectHost() {
+    OperatingSystemMXBean operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+    long memoryMb = readMemTotalMb(MEMINFO);
+    if (memoryMb <= 0 && operatingSystem instanceof com.sun.management.OperatingSystemMXBean) {
+      memoryMb =
+          ((com.sun.management.OperatingSystemMXBean) operatingSystem).getTotalPhysicalMemorySize()
+              / (1024 * 1024);
+    }
+    long limitMb = readCgroupMemoryLimitMb(CGROUP_V2_MEMORY_MAX, CGROUP_V1_MEMORY_LIMIT);
+    if (limitMb > 0 && (memoryMb <= 0 || limitMb < memoryMb)) {
+      memoryMb = limitMb;
+    }
+    return new Resources(operatingSystem.getAvailableProcessors(), memoryMb);
+  }
+
+  /**
+   * Reads the cgroup memory limit, from {@code memory.max} (cgroup v2) or {@code
+   * memory.limit_in_bytes} (cgroup v1).
+   *
+   * @param memoryMax the cgroup v2 limit file
+   * @param limitInBytes the cgroup v1 limit file
+   * @return the limit in MB, or {@code -1} if there is no limit or it cannot be read
+   */
+  // @VisibleForTesting
+  static long readCgroupMemoryLimitMb(Path memoryMax, Path limitInBytes) {
+    for (Path file : new Path[] {memoryMax, limitInBytes}) {
+      if (!Files.isReadable(file)) {
+        continue;
+      }
+      try {
+        String value = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+        if (value.equals("max")) {
+          return -1;
+        }
+        long bytes = Long.parseLong(value);
+        return bytes >= CGROUP_V1_UNLIMITED_BYTES ? -1 : bytes / (1024 * 1024);
+      } catch (IOException | NumberFormatException ex) {
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Reads the total memory from {@code /proc/meminfo}.
+   *
+   * @param meminfo the meminfo file
+   * @return the total memory in MB, or {@code -1} if it cannot be read
+   */
+  // @VisibleForTesting
+  static long readMemTotalMb(Path meminfo) {
+    if (!Files.isReadable(meminfo)) {
+      return -1;
+    }
+    try {
+      for (String line : Files.readAllLines(meminfo, StandardCharsets.UTF_8)) {
+        // For example "MemTotal:       16318460 kB".
+        if (line.startsWith("MemTotal:")) {
+          String[] fields = line.substring("MemTotal:".length()).trim().split("\\s+");
+          return Long.parseLong(fields[0]) / 1024;
+        }
+      }
+    } catch (IOException | NumberFormatException ex) {
+      return -1;
+    }
+    return -1;
+  }
+
+  /**
+   * Plans the resources of one of the clusters sharing a host.
+   *
+   * @param host the host's capacity
+   * @param clusters the number of clusters sharing the host, including the planned one
+   * @return the planned resources of the cluster
+   */
+  public static Resources plan(Resources host, int clusters) {
+    int sharingClusters = Math.max(1, clusters);
+    int availableCpus = Math.max(0, host.getCpus() - RESERVED_CPUS);
+    long reservedMemoryMb = Math.max(MIN_RESERVED_MEMORY_MB, host.getMemoryMb() / 8);
+    long availableMemoryMb = Math.max(0, host.getMemoryMb() - reservedMemoryMb);
+
+    return new Resources(
+        Math.max(MIN_CPUS, availableCpus / sharingClusters),
+        Math.max(MIN_MEMORY_MB, availableMemoryMb / sharingClusters));
+  }
+
+  /**
+   * Checks whether the clusters sharing a host would together get more than the host has.
+   *
+   * @param host the host's capacity
+   * @param plan the planned resources of each cluster
+   * @param clusters the number of clusters sharing the host
+   * @return whether the host is overcommitted
+   */
+  public static boolean isOvercommitted(Resources host, Resources plan, int clusters) {
+    return (long) plan.getCpus() * clusters > host.getCpus()
+        || plan.getMemoryMb() * clusters > host.getMemoryMb();
+  }
+
+  /**
+   * Gets the flags that apply a plan, leaving out resources the flags already set.
+   *
+   * @param plan the planned resources
+   * @param flags the flags minikube is started with
+   * @return {@code --cpus} and {@code --memory} flags
+   */
+  public static List<String> getFlags(Resources plan, List<String> flags) {
+    List<String> planFlags = new ArrayList<>();
+    if (!hasFlag(flags, "--cpus")) {
+      planFlags.add("--cpus=" + plan.getCpus());
+    }
+    if (!hasFlag(flags, "--memory")) {
+      planFlags.add("--memory=" + plan.getMemoryMb() + "mb");
+    }
+    return planFlags;
+  }
+
+  /**
+   * Counts the running clusters in the output of {@code minikube profile list --output=json}.
+   *
+   * @param output the output lines
+   * @param excludedProfile a profile not to count, such as the one being started
+   * @return the number of running clusters, {@code 0} if the output cannot be interpreted
+   */
+  public static int countRunningProfiles(List<String> output, String excludedProfile) {
+    String json = String.join("\n", output);
+    int start = json.indexOf('{');
+    if (start == -1) {
+      return 0;
+    }
+
+    JsonElement element;
+    try {
+      element = new JsonParser().parse(json.substring(start));
+    } catch (JsonParseException ex) {
+      return 0;
+    }
+    if (!element.isJsonObject() || !element.getAsJsonObject().has("valid")) {
+      return 0;
+    }
+    JsonElement valid = element.getAsJsonObject().get("valid");
+    if (!valid.isJsonArray()) {
+      return 0;
+    }
+
+    int running = 0;
+    for (JsonElement profile : (JsonArray) valid) {
+      if (!profile.isJsonObject()) {
+        continue;
+      }
+      JsonObject profileObject = profile.getAsJsonObject();
+      if (excludedProfile.equals(getString(profileObject, "Name"))) {
+        continue;
+      }
+      if ("Running".equals(getString(profileObject, "Status"))) {
+        running++;
+      }
+    }
+    return running;
+  }
+
+  private static boolean hasFlag(List<String> flags, String flag) {
+    for (String existingFlag : flags) {
+      if (existingFlag.equals(flag) || existingFlag.startsWith(flag + "=")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String getString(JsonObject object, String member) {
+    JsonElement element = object.get(member);
+    return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+  }
+}
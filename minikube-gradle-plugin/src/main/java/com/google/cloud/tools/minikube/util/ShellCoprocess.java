@@ -0,0 +1,263 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+/**
+ * Runs short commands through a long-lived {@code /bin/sh} coprocess instead of starting a process
+ * from the JVM for each of them. Each command is written to the shell's input, followed by a {@code
+ * printf} of a random sentinel and the command's exit code, which frames the command's output on
+ * the shell's output. The shell forks the command itself, which is cheaper than a JVM spawn.
+ *
+ * <p>Shells are pooled: a command borrows an idle shell or starts a new one, so that commands run
+ * in parallel do not wait for each other. Idle shells exit when the JVM exits, which closes their
+ * input, or when {@link #closeIdle} is called. A shell whose command is interrupted is stopped
+ * instead of being returned to the pool.
+ */
+public class ShellCoprocess {
+
+  /** The system property that enables running short queries through shell coprocesses. */
+  public static final String ENABLED_PROPERTY = "minikube.shellCoprocess";
+
+  private static final Path SHELL = Paths.get("/bin/sh");
+
+  private static final Pattern ENVIRONMENT_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+  private static final Deque<ShellCoprocess> idleShells = new ArrayDeque<>();
+
+  /** Reads the output of the shells, so that a command waiting for it can be interrupted. */
+  private static final ExecutorService outputReaders =
+      Executors.newCachedThreadPool(
+          runnable -> {
+            Thread thread = new Thread(runnable, "minikube-shell-coprocess");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /**
+   * @param environment the environment variables a command runs with, or {@code null}
+   * @return {@code true} if shell coprocesses are enabled and can run a command with {@code
+   *     environment}
+   */
+  public static boolean canRun(Map<String, String> environment) {
+    if (!Boolean.getBoolean(ENABLED_PROPERTY) || !Files.isExecutable(SHELL)) {
+      return false;
+    }
+    if (environment != null) {
+      for (String name : environment.keySet()) {
+        if (!ENVIRONMENT_NAME.matcher(name).matches()) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Runs a command in an idle shell, or in a new one if all shells are busy.
+   *
+   * @param command the list of command line tokens
+   * @param environment additional environment variables, or {@code null}
+   * @param listener receives the normalized output lines of the command
+   * @return the exit code of the command
+   * @throws IOException if the shell could not be started or exited while running the command
+   * @throws InterruptedException if interrupted while waiting for the command, which stops the
+   *     shell
+   */
+  public static int execute(
+      List<String> command,
+      Map<String, String> environment,
+      ProcessOutputNormalizer.Listener listener)
+      throws IOException, InterruptedException {
+    ShellCoprocess shell;
+    synchronized (idleShells) {
+      shell = idleShells.pollFirst();
+    }
+    if (shell == null || !shell.process.isAlive()) {
+      shell = new ShellCoprocess(new ProcessBuilder(SHELL.toString()).redirectErrorStream(true));
+    }
+
+    ShellCoprocess borrowedShell = shell;
+    Future<Integer> result =
+        outputReaders.submit(() -> borrowedShell.run(command, environment, listener));
+    int exitCode;
+    try {
+      exitCode = result.get();
+    } catch (InterruptedException ex) {
+      // The command is no longer wanted, and the shell may still be running it.
+      shell.close();
+      throw ex;
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof IOException) {
+        throw (IOException) ex.getCause();
+      }
+      throw new IOException("Shell coprocess failed to run a command", ex.getCause());
+    }
+    synchronized (idleShells) {
+      idleShells.addFirst(shell);
+    }
+    return exitCode;
+  }
+
+  /** Stops the idle shells, for example at the end of a build in a long-lived JVM. */
+  public static void closeIdle() {
+    List<ShellCoprocess> shells;
+    synchronized (idleShells) {
+      shells = new ArrayList<>(idleShells);
+      idleShells.clear();
+    }
+    for (ShellCoprocess shell : shells) {
+      shell.close();
+    }
+  }
+
+  /** @return the number of idle shells */
+  // @VisibleForTesting
+  static int getIdleCount() {
+    synchronized (idleShells) {
+      return idleShells.size();
+    }
+  }
+
+  /**
+   * Quotes a token for the shell.
+   *
+   * @param token the token
+   * @return the token in single quotes
+   */
+  // @VisibleForTesting
+  static String quote(String token) {
+    return "'" + token.replace("'", "'\\''") + "'";
+  }
+
+  private final Process process;
+  private final Writer input;
+  private final Reader output;
+  private final String sentinel;
+
+  // @VisibleForTesting
+  ShellCoprocess(ProcessBuilder processBuilder) throws IOException {
+    process = processBuilder.start();
+    input = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+    output =
+        new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+    sentinel =
+        String.format(Locale.ROOT, "__minikube_coprocess_%016x__", new SecureRandom().nextLong());
+  }
+
+  /**
+   * Runs a command in this shell.
+   *
+   * @param command the list of command line tokens
+   * @param environment additional environment variables, or {@code null}
+   * @param listener receives the normalized output lines of the command
+   * @return the exit code of the command
+   * @throws IOException if the shell exited while running the command
+   */
+  // @VisibleForTesting
+  int run(
+      List<String> command,
+      Map<String, String> environment,
+      ProcessOutputNormalizer.Listener listener)
+      throws IOException {
+    StringBuilder script = new StringBuilder();
+    if (environment != null) {
+      for (Map.Entry<String, String> entry : environment.entrySet()) {
+        script.append(entry.getKey()).append('=').append(quote(entry.getValue())).append(' ');
+      }
+    }
+    for (String token : command) {
+      script.append(quote(token)).append(' ');
+    }
+    // Commands must not read the script from the shell's input, and share its output with errors.
+    script.append("</dev/null 2>&1; printf '%s %d\\n' ").append(sentinel).append(" \"$?\"\n");
+
+    try {
+      input.write(script.toString());
+      input.flush();
+      return readOutput(listener);
+
+    } catch (IOException ex) {
+      close();
+      throw ex;
+    }
+  }
+
+  private int readOutput(ProcessOutputNormalizer.Listener listener) throws IOException {
+    // Lines are normalized one by one, since the output of a command does not end with the stream.
+    ProcessOutputNormalizer normalizer =
+        new ProcessOutputNormalizer(ProcessOutputNormalizer.DEFAULT_PROGRESS_INTERVAL_MILLIS);
+    StringBuilder line = new StringBuilder();
+    int c;
+    while ((c = output.read()) != -1) {
+      if (c != '\n') {
+        line.append((char) c);
+        continue;
+      }
+
+      int sentinelIndex = line.indexOf(sentinel);
+      if (sentinelIndex == -1) {
+        normalizer.normalize(new StringReader(line.append('\n').toString()), listener);
+        line.setLength(0);
+        continue;
+      }
+
+      // The sentinel follows the last line if the output does not end with a line terminator.
+      if (sentinelIndex > 0) {
+        normalizer.normalize(new StringReader(line.substring(0, sentinelIndex)), listener);
+      }
+      try {
+        return Integer.parseInt(line.substring(sentinelIndex + sentinel.length()).trim());
+      } catch (NumberFormatException ex) {
+        throw new IOException("Unexpected shell coprocess output: " + line, ex);
+      }
+    }
+    throw new IOException("Shell coprocess exited while running a command");
+  }
+
+  private void close() {
+    try {
+      input.close();
+    } catch (IOException ignored) {
+      // The shell exits anyway.
+    }
+    process.destroy();
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * Records how long each step of a minikube command took, based on the step events minikube emits
+ * with {@code --output=json}. A step lasts until the next step begins or the command finishes.
+ */
+public class StageTimer implements MinikubeEventListener {
+
+  /** A finished step and its duration. */
+  public static class Stage {
+
+    private final int step;
+    private final String name;
+    private final long durationMillis;
+
+    Stage(int step, String name, long durationMillis) {
+      this.step = step;
+      this.name = name;
+      this.durationMillis = durationMillis;
+    }
+
+    public int getStep() {
+      return step;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public long getDurationMillis() {
+      return durationMillis;
+    }
+  }
+
+  private final LongSupplier clock;
+  private final long startTime;
+  private final List<Stage> stages = new ArrayList<>();
+
+  private String currentName;
+  private int currentStep;
+  private long currentStartTime;
+  private long endTime = -1;
+
+  public StageTimer() {
+    this(System::currentTimeMillis);
+  }
+
+  // @VisibleForTesting
+  StageTimer(LongSupplier clock) {
+    this.clock = clock;
+    startTime = clock.getAsLong();
+  }
+
+  @Override
+  public synchronized void onStep(int currentStep, int totalSteps, String name, String message) {
+    String stageName = name == null || name.isEmpty() ? message : name;
+    if (stageName == null || stageName.equals(currentName)) {
+      return;
+    }
+    long now = clock.getAsLong();
+    closeCurrentStage(now);
+    this.currentName = stageName;
+    this.currentStep = currentStep;
+    this.currentStartTime = now;
+  }
+
+  /** Marks the command as finished, which ends the last step. */
+  public synchronized void finish() {
+    endTime = clock.getAsLong();
+    closeCurrentStage(endTime);
+  }
+
+  /** @return the finished steps in the order they ran */
+  public synchronized List<Stage> getStages() {
+    return Collections.unmodifiableList(new ArrayList<>(stages));
+  }
+
+  /** @return the time from the creation of this timer until {@link #finish} */
+  public synchronized long getTotalMillis() {
+    return (endTime < 0 ? clock.getAsLong() : endTime) - startTime;
+  }
+
+  /**
+   * Formats the step breakdown for the build output.
+   *
+   * @param command the minikube command the steps belong to
+   * @return the lines of the report
+   */
+  public synchronized List<String> formatReport(String command) {
+    long totalMillis = getTotalMillis();
+    List<String> report = new ArrayList<>();
+    report.add(
+        String.format(
+            Locale.ROOT, "minikube %s stage timings (total %s):", command, seconds(totalMillis)));
+    for (Stage stage : stages) {
+      long percent = totalMillis <= 0 ? 0 : stage.getDurationMillis() * 100 / totalMillis;
+      report.add(
+          String.format(
+              Locale.ROOT,
+              "  %8s %3d%%  %s",
+              seconds(stage.getDurationMillis()),
+              percent,
+              stage.getName()));
+    }
+    return report;
+  }
+
+  /**
+   * Writes the step breakdown as JSON.
+   *
+   * @param file the file to write to, its parent directories are created if needed
+   * @param command the minikube command the steps belong to
+   */
+  public synchronized void writeJson(Path file, String command) throws IOException {
+    JsonObject json = new JsonObject();
+    json.addProperty("command", command);
+    json.addProperty("totalMillis", getTotalMillis());
+    JsonArray stagesJson = new JsonArray();
+    for (Stage stage : stages) {
+      JsonObject stageJson = new JsonObject();
+      stageJson.addProperty("step", stage.getStep());
+      stageJson.addProperty("name", stage.getName());
+      stageJson.addProperty("durationMillis", stage.getDurationMillis());
+      stagesJson.add(stageJson);
+    }
+    json.add("stages", stagesJson);
+
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+    try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      new GsonBuilder().setPrettyPrinting().create().toJson(json, writer);
+    }
+  }
+
+  private void closeCurrentStage(long now) {
+    if (currentName != null) {
+      stages.add(new Stage(currentStep, currentName, now - currentStartTime));
+      currentName = null;
+    }
+  }
+
+  private static String seconds(long millis) {
+    return String.format(Locale.ROOT, "%.1fs", millis / 1000.0);
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Writes uncompressed tar archives of regular files in the ustar format, which every tar
+ * implementation reads, including the busybox one of minimal container images.
+ */
+public class TarArchive implements Closeable {
+
+  private static final int BLOCK_SIZE = 512;
+  private static final int NAME_LENGTH = 100;
+  private static final int PREFIX_LENGTH = 155;
+  private static final long MAX_SIZE = 077777777777L;
+
+  private final OutputStream outputStream;
+
+  /**
+   * Creates a new archive.
+   *
+   * @param outputStream the stream the archive is written to, closed with the archive
+   */
+  public TarArchive(OutputStream outputStream) {
+    this.outputStream = outputStream;
+  }
+
+  /**
+   * Adds a file. Executable files keep their executable permission.
+   *
+   * @param name the path of the file in the archive, with {@code /} separators
+   * @param file the file to add
+   */
+  public void addFile(String name, Path file) throws IOException {
+    long size = Files.size(file);
+    writeHeader(
+        name,
+        Files.isExecutable(file) ? 0755 : 0644,
+        size,
+        Files.getLastModifiedTime(file).toMillis());
+    try (InputStream inputStream = Files.newInputStream(file)) {
+      byte[] buffer = new byte[8192];
+      long written = 0;
+      int read;
+      while (written < size && (read = inputStream.read(buffer)) != -1) {
+        // The file may grow while it is archived: only the announced size is written.
+        int length = (int) Math.min(read, size - written);
+        outputStream.write(buffer, 0, length);
+        written += length;
+      }
+      if (written < size) {
+        throw new IOException(file + " shrank while it was archived");
+      }
+    }
+    pad(size);
+  }
+
+  /**
+   * Adds a file with the given content.
+   *
+   * @param name the path of the file in the archive, with {@code /} separators
+   * @param content the content of the file
+   * @param lastModifiedMillis the modification time of the file
+   */
+  public void addFile(String name, byte[] content, long lastModifiedMillis) throws IOException {
+    writeHeader(name, 0644, content.length, lastModifiedMillis);
+    outputStream.write(content);
+    pad(content.length);
+  }
+
+  /** Writes the end of the archive and closes the stream. */
+  @Override
+  public void close() throws IOException {
+    try {
+      outputStream.write(new byte[2 * BLOCK_SIZE]);
+    } finally {
+      outputStream.close();
+    }
+  }
+
+  private void writeHeader(String name, int mode, long size, long lastModifiedMillis)
+      throws IOException {
+    if (size > MAX_SIZE) {
+      throw new IOException(name + " is too large for a tar archive");
+    }
+    byte[] header = new byte[BLOCK_SIZE];
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    if (nameBytes.length <= NAME_LENGTH) {
+      System.arraycopy(nameBytes, 0, header, 0, nameBytes.length);
+    } else {
+      // Longer paths are split into a prefix and a name at a directory separator.
+      int split = findSplit(nameBytes);
+      if (split == -1) {
+        throw new IOException(name + " is too long for a tar archive");
+      }
+      System.arraycopy(nameBytes, split + 1, header, 0, nameBytes.length - split - 1);
+      System.arraycopy(nameBytes, 0, header, 345, split);
+    }
+    putOctal(header, 100, 8, mode);
+    putOctal(header, 108, 8, 0);
+    putOctal(header, 116, 8, 0);
+    putOctal(header, 124, 12, size);
+    putOctal(header, 136, 12, lastModifiedMillis / 1000);
+    header[156] = '0';
+    System.arraycopy("ustar\u000000".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 8);
+
+    // The checksum is computed with its own field filled with spaces.
+    for (int i = 148; i < 156; i++) {
+      header[i] = ' ';
+    }
+    long checksum = 0;
+    for (byte b : header) {
+      checksum += b & 0xff;
+    }
+    putOctal(header, 148, 7, checksum);
+    header[155] = ' ';
+
+    outputStream.write(header);
+  }
+
+  private static int findSplit(byte[] nameBytes) {
+    for (int i = Math.min(PREFIX_LENGTH, nameBytes.length - 1); i > 0; i--) {
+      if (nameBytes[i] == '/' && nameBytes.length - i - 1 <= NAME_LENGTH) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Writes {@code value} as a zero-padded, NUL-terminated octal number. */
+  private static void putOctal(byte[] header, int offset, int length, long value) {
+    String octal = String.format(Locale.ROOT, "%0" + (length - 1) + "o", value);
+    System.arraycopy(octal.getBytes(StandardCharsets.US_ASCII), 0, header, offset, length - 1);
+    header[offset + length - 1] = 0;
+  }
+
+  private void pad(long size) throws IOException {
+    int remainder = (int) (size % BLOCK_SIZE);
+    if (remainder != 0) {
+      outputStream.write(new byte[BLOCK_SIZE - remainder]);
+    }
+  }
+}
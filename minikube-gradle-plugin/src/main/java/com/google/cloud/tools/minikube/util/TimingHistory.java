@@ -0,0 +1,169 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An append-only file of operation timings. Each line holds one sample as tab-separated {@code
+ * <epoch millis> <operation> <stage> <duration millis> <profile>}, where the stage is empty for the
+ * timing of the operation as a whole. Lines written before the profile was recorded have no
+ * profile.
+ */
+public class TimingHistory {
+
+  /** A recorded timing. */
+  public static class Sample {
+
+    private final long timestamp;
+    private final String profile;
+    private final String operation;
+    private final String stage;
+    private final long durationMillis;
+
+    /**
+     * Creates a sample.
+     *
+     * @param timestamp when the sample was taken, in epoch milliseconds
+     * @param profile the minikube profile the operation ran against, or empty if unknown
+     * @param operation the operation, for example the minikube command
+     * @param stage the stage of the operation, or empty for the whole operation
+     * @param durationMillis how long the operation or stage took
+     */
+    public Sample(
+        long timestamp, String profile, String operation, String stage, long durationMillis) {
+      this.timestamp = timestamp;
+      this.profile = profile;
+      this.operation = operation;
+      this.stage = stage;
+      this.durationMillis = durationMillis;
+    }
+
+    public long getTimestamp() {
+      return timestamp;
+    }
+
+    public String getProfile() {
+      return profile;
+    }
+
+    public String getOperation() {
+      return operation;
+    }
+
+    public String getStage() {
+      return stage;
+    }
+
+    public long getDurationMillis() {
+      return durationMillis;
+    }
+
+    /**
+     * @return "operation" or "operation/stage", followed by " (profile)", which identifies
+     *     comparable samples: timings of different profiles, which are sized and configured
+     *     differently, are not compared
+     */
+    public String getKey() {
+      String key = stage.isEmpty() ? operation : operation + "/" + stage;
+      return profile.isEmpty() ? key : key + " (" + profile + ")";
+    }
+  }
+
+  private final Path file;
+
+  public TimingHistory(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Appends samples to the history.
+   *
+   * @param samples the samples to append
+   */
+  public void append(List<Sample> samples) throws IOException {
+    if (samples.isEmpty()) {
+      return;
+    }
+    StringBuilder lines = new StringBuilder();
+    for (Sample sample : samples) {
+      lines
+          .append(sample.getTimestamp())
+          .append('\t')
+          .append(sanitize(sample.getOperation()))
+          .append('\t')
+          .append(sanitize(sample.getStage()))
+          .append('\t')
+          .append(sample.getDurationMillis())
+          .append('\t')
+          .append(sanitize(sample.getProfile()))
+          .append('\n');
+    }
+
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+    // A single appending write keeps concurrent builds from interleaving partial lines.
+    Files.write(
+        file,
+        lines.toString().getBytes(StandardCharsets.UTF_8),
+        StandardOpenOption.CREATE,
+        StandardOpenOption.APPEND);
+  }
+
+  /**
+   * Reads all samples in the order they were recorded. Malformed lines are skipped.
+   *
+   * @return the samples, or an empty list if there is no history yet
+   */
+  public List<Sample> read() throws IOException {
+    if (!Files.exists(file)) {
+      return Collections.emptyList();
+    }
+    List<Sample> samples = new ArrayList<>();
+    for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+      String[] fields = line.split("\t", -1);
+      if (fields.length != 4 && fields.length != 5) {
+        continue;
+      }
+      String profile = fields.length == 5 ? fields[4] : "";
+      try {
+        samples.add(
+            new Sample(
+                Long.parseLong(fields[0]),
+                profile,
+                fields[1],
+                fields[2],
+                Long.parseLong(fields[3])));
+      } catch (NumberFormatException ex) {
+        // Skips lines that were not written by this class.
+      }
+    }
+    return samples;
+  }
+
+  private static String sanitize(String field) {
+    return field.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+  }
+}
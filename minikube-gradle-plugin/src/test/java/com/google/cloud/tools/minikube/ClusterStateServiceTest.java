@@ -0,0 +1,229 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.minikube.util.CommandExecutor;
+import com.google.cloud.tools.minikube.util.CommandExecutorFactory;
+import com.google.cloud.tools.minikube.util.MinikubeStatus;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for ClusterStateService */
+public class ClusterStateServiceTest {
+
+  private static final List<String> START_COMMAND =
+      Arrays.asList("minikube", "start", "--profile=dev");
+  private static final List<String> STOP_COMMAND =
+      Arrays.asList("minikube", "stop", "--profile=dev");
+  private static final List<String> IP_COMMAND = Arrays.asList("minikube", "ip", "--profile=dev");
+  private static final List<String> DOCKER_ENV_COMMAND =
+      Arrays.asList("minikube", "docker-env", "--shell=none", "--profile=dev");
+  private static final List<String> STATUS_COMMAND =
+      Arrays.asList("minikube", "status", "--output=json", "--profile=dev");
+
+  private CommandExecutor commandExecutorMock;
+  private Logger loggerMock;
+  private ClusterStateService testClusterStateService;
+  private final AtomicInteger transitions = new AtomicInteger();
+
+  @Before
+  public void setUp() throws IOException, InterruptedException {
+    commandExecutorMock = mock(CommandExecutor.class);
+    CommandExecutorFactory commandExecutorFactoryMock = mock(CommandExecutorFactory.class);
+    when(commandExecutorFactoryMock.newCommandExecutor()).thenReturn(commandExecutorMock);
+    when(commandExecutorMock.setFailOnNonZeroExitCode(false)).thenReturn(commandExecutorMock);
+    when(commandExecutorMock.run(IP_COMMAND)).thenReturn(Collections.singletonList("192.168.49.2"));
+    when(commandExecutorMock.run(STATUS_COMMAND))
+        .thenReturn(
+            Collections.singletonList(
+                "{\"Host\":\"Running\",\"Kubelet\":\"Running\",\"APIServer\":\"Paused\"}"));
+    loggerMock = mock(Logger.class);
+
+    testClusterStateService = new ClusterStateService(commandExecutorFactoryMock);
+  }
+
+  @Test
+  public void testGet_sharedByAllProjects() {
+    Project rootProject = ProjectBuilder.builder().build();
+    Project subproject = ProjectBuilder.builder().withParent(rootProject).build();
+    CommandExecutorFactory commandExecutorFactory = mock(CommandExecutorFactory.class);
+
+    Assert.assertSame(
+        ClusterStateService.get(rootProject, commandExecutorFactory),
+        ClusterStateService.get(subproject, commandExecutorFactory));
+  }
+
+  @Test
+  public void testTransition_skipsRepeatedCommand() throws IOException, InterruptedException {
+    Assert.assertTrue(transition(START_COMMAND, MinikubeStatus.State.RUNNING));
+    Assert.assertFalse(transition(START_COMMAND, MinikubeStatus.State.RUNNING));
+    Assert.assertTrue(transition(STOP_COMMAND, MinikubeStatus.State.STOPPED));
+    Assert.assertTrue(transition(START_COMMAND, MinikubeStatus.State.RUNNING));
+
+    Assert.assertEquals(3, transitions.get());
+    verify(loggerMock).lifecycle("minikube profile dev is already running");
+  }
+
+  @Test
+  public void testTransition_failedCommandRunsAgain() throws IOException, InterruptedException {
+    try {
+      testClusterStateService.transition(
+          "minikube",
+          START_COMMAND,
+          MinikubeStatus.State.RUNNING,
+          loggerMock,
+          () -> {
+            throw new IOException("start failed");
+          });
+      Assert.fail();
+    } catch (IOException ex) {
+      Assert.assertEquals("start failed", ex.getMessage());
+    }
+
+    Assert.assertTrue(transition(START_COMMAND, MinikubeStatus.State.RUNNING));
+  }
+
+  @Test
+  public void testTransition_concurrentIdenticalCommandRunsOnce() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    // Releases the first command once the second one waits for it. Stubbed before the first
+    // command runs, since stubbing a mock that another thread uses is not thread-safe.
+    doAnswer(
+            invocation -> {
+              release.countDown();
+              return null;
+            })
+        .when(loggerMock)
+        .lifecycle("Waiting for another project running minikube start of profile dev");
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try {
+      Future<Boolean> first =
+          executorService.submit(
+              () ->
+                  testClusterStateService.transition(
+                      "minikube",
+                      START_COMMAND,
+                      MinikubeStatus.State.RUNNING,
+                      loggerMock,
+                      () -> {
+                        transitions.incrementAndGet();
+                        started.countDown();
+                        release.await();
+                      }));
+      Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+
+      Assert.assertFalse(transition(START_COMMAND, MinikubeStatus.State.RUNNING));
+
+      Assert.assertTrue(first.get(10, TimeUnit.SECONDS));
+      Assert.assertEquals(1, transitions.get());
+      verify(loggerMock)
+          .lifecycle("Waiting for another project running minikube start of profile dev");
+
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testGetIp_cachedUntilStateChanges() throws IOException, InterruptedException {
+    Assert.assertEquals("192.168.49.2", testClusterStateService.getIp("minikube", "dev"));
+    Assert.assertEquals("192.168.49.2", testClusterStateService.getIp("minikube", "dev"));
+    verify(commandExecutorMock, times(1)).run(IP_COMMAND);
+
+    transition(START_COMMAND, MinikubeStatus.State.RUNNING);
+    Assert.assertEquals("192.168.49.2", testClusterStateService.getIp("minikube", "dev"));
+    verify(commandExecutorMock, times(2)).run(IP_COMMAND);
+  }
+
+  @Test
+  public void testGetDockerEnv_oncePerProfile() throws IOException, InterruptedException {
+    List<String> otherCommand =
+        Arrays.asList("minikube", "docker-env", "--shell=none", "--profile=other");
+    when(commandExecutorMock.run(DOCKER_ENV_COMMAND))
+        .thenReturn(Collections.singletonList("DOCKER_HOST=tcp://192.168.99.100:2376"));
+    when(commandExecutorMock.run(otherCommand))
+        .thenReturn(Collections.singletonList("DOCKER_HOST=tcp://192.168.99.101:2376"));
+
+    Assert.assertEquals(
+        "tcp://192.168.99.100:2376",
+        testClusterStateService.getDockerEnv("minikube", "dev").get("DOCKER_HOST"));
+    Assert.assertEquals(
+        "tcp://192.168.99.100:2376",
+        testClusterStateService.getDockerEnv("minikube", "dev").get("DOCKER_HOST"));
+    Assert.assertEquals(
+        "tcp://192.168.99.101:2376",
+        testClusterStateService.getDockerEnv("minikube", "other").get("DOCKER_HOST"));
+    verify(commandExecutorMock, times(1)).run(DOCKER_ENV_COMMAND);
+    verify(commandExecutorMock, times(1)).run(otherCommand);
+  }
+
+  @Test
+  public void testGetIp_failedLookupRunsAgain() throws IOException, InterruptedException {
+    when(commandExecutorMock.run(IP_COMMAND))
+        .thenThrow(new IOException("not running"))
+        .thenReturn(Collections.singletonList("192.168.49.2"));
+
+    try {
+      testClusterStateService.getIp("minikube", "dev");
+      Assert.fail();
+    } catch (IOException ex) {
+      Assert.assertEquals("not running", ex.getMessage());
+    }
+    Assert.assertEquals("192.168.49.2", testClusterStateService.getIp("minikube", "dev"));
+  }
+
+  @Test
+  public void testGetState() throws IOException, InterruptedException {
+    Assert.assertEquals(
+        MinikubeStatus.State.PAUSED, testClusterStateService.getState("minikube", "dev"));
+    Assert.assertEquals(
+        MinikubeStatus.State.PAUSED, testClusterStateService.getState("minikube", "dev"));
+    verify(commandExecutorMock, times(1)).run(STATUS_COMMAND);
+
+    transition(START_COMMAND, MinikubeStatus.State.RUNNING);
+    Assert.assertEquals(
+        MinikubeStatus.State.RUNNING, testClusterStateService.getState("minikube", "dev"));
+    verify(commandExecutorMock, times(1)).run(STATUS_COMMAND);
+  }
+
+  private boolean transition(List<String> commandLine, MinikubeStatus.State resultingState)
+      throws IOException, InterruptedException {
+    return testClusterStateService.transition(
+        "minikube", commandLine, resultingState, loggerMock, transitions::incrementAndGet);
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.minikube.util.CommandExecutor;
+import com.google.cloud.tools.minikube.util.CommandExecutorFactory;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for MinikubeCacheTask */
+public class MinikubeCacheTaskTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void testCacheImages_skipsCachedImages() throws IOException, InterruptedException {
+    CommandExecutor commandExecutorMock = mock(CommandExecutor.class);
+    MinikubeCacheTask task = createTask(commandExecutorMock);
+
+    task.cacheImages();
+
+    verify(commandExecutorMock).run(Arrays.asList("/test/minikube", "cache", "add", "nginx"));
+    verify(commandExecutorMock, never())
+        .run(Arrays.asList("/test/minikube", "cache", "add", "busybox"));
+  }
+
+  @Test
+  public void testCacheImages_fails() throws IOException, InterruptedException {
+    CommandExecutor commandExecutorMock = mock(CommandExecutor.class);
+    when(commandExecutorMock.run(any()))
+        .thenThrow(new GradleException("command exited with non-zero exit code : 1"));
+    MinikubeCacheTask task = createTask(commandExecutorMock);
+
+    try {
+      task.cacheImages();
+      Assert.fail("cacheImages() should have failed");
+    } catch (GradleException ex) {
+      Assert.assertEquals(
+          "Failed to add images to the minikube cache: "
+              + "nginx (command exited with non-zero exit code : 1)",
+          ex.getMessage());
+    }
+  }
+
+  private MinikubeCacheTask createTask(CommandExecutor commandExecutorMock) throws IOException {
+    Project project = ProjectBuilder.builder().withProjectDir(tmp.newFolder("project")).build();
+    CommandExecutorFactory commandExecutorFactoryMock = mock(CommandExecutorFactory.class);
+    when(commandExecutorFactoryMock.newCommandExecutor()).thenReturn(commandExecutorMock);
+
+    Path cacheDirectory = tmp.newFolder("cache").toPath();
+    Files.createDirectories(cacheDirectory.resolve("docker.io/library"));
+    Files.createFile(cacheDirectory.resolve("docker.io/library/busybox_latest"));
+
+    MinikubeCacheTask task =
+        project.getTasks().create("minikubeCacheTest", MinikubeCacheTask.class);
+    task.setMinikube("/test/minikube");
+    task.setCommandExecutorFactory(commandExecutorFactoryMock);
+    task.setCacheDirectory(cacheDirectory.toFile());
+    task.setImages(Arrays.asList("busybox", "nginx"));
+    return task;
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.minikube.util.CommandExecutor;
+import com.google.cloud.tools.minikube.util.CommandExecutorFactory;
+import com.google.cloud.tools.minikube.util.DeployIndex;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import org.gradle.api.Project;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for MinikubeDeployTask */
+public class MinikubeDeployTaskTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private CommandExecutor commandExecutorMock;
+  private MinikubeDeployTask task;
+  private File indexFile;
+
+  @Before
+  public void setUp() throws IOException, InterruptedException {
+    Project project = ProjectBuilder.builder().withProjectDir(tmp.newFolder("project")).build();
+    commandExecutorMock = mock(CommandExecutor.class);
+    CommandExecutorFactory commandExecutorFactoryMock = mock(CommandExecutorFactory.class);
+    when(commandExecutorFactoryMock.newCommandExecutor()).thenReturn(commandExecutorMock);
+    when(commandExecutorMock.run(
+            Arrays.asList(
+                "kubectl",
+                "--context",
+                "minikube",
+                "get",
+                "namespace",
+                "kube-system",
+                "-o",
+                "jsonpath={.metadata.uid}")))
+        .thenReturn(Collections.singletonList("uid-2"));
+
+    indexFile = new File(tmp.getRoot(), "deploy-index/minikube.tsv");
+    task = project.getTasks().create("minikubeDeployTest", MinikubeDeployTask.class);
+    task.setCommandExecutorFactory(commandExecutorFactoryMock);
+    task.setIndexFile(indexFile);
+  }
+
+  @Test
+  public void testIsIndexForCurrentCluster_noIndex() {
+    Assert.assertFalse(task.isIndexForCurrentCluster());
+  }
+
+  @Test
+  public void testIsIndexForCurrentCluster_sameCluster() throws IOException {
+    new DeployIndex(indexFile.toPath()).write("uid-2", Collections.emptyMap());
+
+    Assert.assertTrue(task.isIndexForCurrentCluster());
+  }
+
+  @Test
+  public void testIsIndexForCurrentCluster_recreatedCluster() throws IOException {
+    new DeployIndex(indexFile.toPath()).write("uid-1", Collections.emptyMap());
+
+    Assert.assertFalse(task.isIndexForCurrentCluster());
+  }
+}
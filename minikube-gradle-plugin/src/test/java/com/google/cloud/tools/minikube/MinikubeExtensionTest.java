@@ -17,6 +17,7 @@
 package com.google.cloud.tools.minikube;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -31,6 +32,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.gradle.api.Project;
+import org.gradle.api.tasks.Copy;
+import org.gradle.api.tasks.Exec;
 import org.gradle.testfixtures.ProjectBuilder;
 import org.junit.Assert;
 import org.junit.Before;
@@ -41,6 +44,7 @@ public class MinikubeExtensionTest {
 
   private CommandExecutor commandExecutorMock;
   private CommandExecutorFactory commandExecutorFactoryMock;
+  private Project project;
   private MinikubeExtension minikube;
 
   private List<String> expectedCommand;
@@ -57,7 +61,7 @@ public class MinikubeExtensionTest {
 
   @Before
   public void setUp() {
-    Project project = ProjectBuilder.builder().build();
+    project = ProjectBuilder.builder().build();
 
     // Mocks the CommandExecutor.
     commandExecutorMock = mock(CommandExecutor.class);
@@ -77,7 +81,7 @@ public class MinikubeExtensionTest {
    */
   @Test
   public void testGetDockerEnvWithDefaultProfile() throws IOException, InterruptedException {
-    expectedCommand.add("--profile=");
+    expectedCommand.add("--profile=minikube");
     when(commandExecutorMock.run(expectedCommand)).thenReturn(dockerEnvOutput);
     Assert.assertEquals(expectedMap, minikube.getDockerEnv());
     verify(commandExecutorMock).run(expectedCommand);
@@ -96,16 +100,17 @@ public class MinikubeExtensionTest {
   }
 
   /*
-   * Make sure both minikube.getDockerEnv() and minikube.getDockerEnv("") refer to the default minikube profile
+   * Make sure both minikube.getDockerEnv() and minikube.getDockerEnv("minikube") refer to the default minikube profile
    */
   @Test
   public void testGetSameDockerEnvWithTwoDefaultProfiles()
       throws IOException, InterruptedException {
-    String profile = "";
+    String profile = "minikube";
     expectedCommand.add("--profile=".concat(profile));
     when(commandExecutorMock.run(expectedCommand)).thenReturn(dockerEnvOutput);
     Assert.assertEquals(minikube.getDockerEnv(), minikube.getDockerEnv(profile));
-    verify(commandExecutorMock, times(2)).run(expectedCommand);
+    // The docker environment is looked up once per profile.
+    verify(commandExecutorMock, times(1)).run(expectedCommand);
   }
 
   /*
@@ -121,4 +126,51 @@ public class MinikubeExtensionTest {
       Assert.assertEquals("Minikube profile must not be null", ex.getMessage());
     }
   }
+
+  @Test
+  public void testInjectDockerEnv() throws IOException, InterruptedException {
+    expectedCommand.add("--profile=dev");
+    when(commandExecutorMock.run(expectedCommand)).thenReturn(dockerEnvOutput);
+    Exec execTask = project.getTasks().create("dockerBuild", Exec.class);
+
+    minikube.injectDockerEnv("dev", Exec.class);
+    // Tasks added later are configured too.
+    Exec laterExecTask = project.getTasks().create("dockerPush", Exec.class);
+
+    // Nothing is looked up before a task runs.
+    verify(commandExecutorMock, never()).run(expectedCommand);
+
+    execTask.getActions().get(0).execute(execTask);
+    laterExecTask.getActions().get(0).execute(laterExecTask);
+
+    Assert.assertEquals("VAL1", execTask.getEnvironment().get("ENV_VAR1"));
+    Assert.assertEquals("VAL2", laterExecTask.getEnvironment().get("ENV_VAR2"));
+    verify(commandExecutorMock, times(1)).run(expectedCommand);
+  }
+
+  @Test
+  public void testInjectDockerEnv_sharesDefaultProfileWithGetDockerEnv()
+      throws IOException, InterruptedException {
+    expectedCommand.add("--profile=minikube");
+    when(commandExecutorMock.run(expectedCommand)).thenReturn(dockerEnvOutput);
+    Exec execTask = project.getTasks().create("dockerBuild", Exec.class);
+
+    minikube.injectDockerEnv();
+    execTask.getActions().get(0).execute(execTask);
+
+    Assert.assertEquals(expectedMap, minikube.getDockerEnv());
+    verify(commandExecutorMock, times(1)).run(expectedCommand);
+  }
+
+  @Test
+  public void testInjectDockerEnv_notForkingTaskType() {
+    try {
+      minikube.injectDockerEnv("dev", Copy.class);
+      Assert.fail("injectDockerEnv() should not permit tasks that do not fork processes");
+    } catch (IllegalArgumentException ex) {
+      Assert.assertEquals(
+          "org.gradle.api.tasks.Copy does not fork processes, the docker environment cannot be set",
+          ex.getMessage());
+    }
+  }
 }
@@ -16,6 +16,8 @@
 
 package com.google.cloud.tools.minikube;
 
+import java.io.File;
+import java.util.Arrays;
 import org.gradle.api.Project;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.tasks.TaskCollection;
@@ -39,11 +41,16 @@ public class MinikubePluginTest {
     TaskContainer t = project.getTasks();
     TaskCollection<MinikubeTask> tc = t.withType(MinikubeTask.class);
 
-    Assert.assertEquals(3, tc.size());
+    Assert.assertEquals(5, tc.size());
 
     AssertMinikubeTaskConfig(tc, "minikubeStart", "start");
     AssertMinikubeTaskConfig(tc, "minikubeStop", "stop");
     AssertMinikubeTaskConfig(tc, "minikubeDelete", "delete");
+    AssertMinikubeTaskConfig(tc, "minikubePause", "pause");
+    AssertMinikubeTaskConfig(tc, "minikubeUnpause", "unpause");
+
+    MinikubeStartTask startTask = (MinikubeStartTask) tc.getByName("minikubeStart");
+    Assert.assertEquals(MinikubeStartTask.StartPolicy.ALWAYS, startTask.getStartPolicy());
   }
 
   private void AssertMinikubeTaskConfig(
@@ -64,7 +71,7 @@ public class MinikubePluginTest {
     TaskContainer t = project.getTasks();
     TaskCollection<MinikubeTask> tc = t.withType(MinikubeTask.class);
 
-    Assert.assertEquals(3, tc.size());
+    Assert.assertEquals(5, tc.size());
 
     tc.forEach(
         minikubeTask -> {
@@ -86,4 +93,196 @@ public class MinikubePluginTest {
     Assert.assertEquals(custom.getCommand(), "custom");
     Assert.assertArrayEquals(custom.getFlags(), new String[] {});
   }
+
+  @Test
+  public void testClusterStateServiceSharedBySubprojects() {
+    Project rootProject = ProjectBuilder.builder().withProjectDir(tmp.getRoot()).build();
+    Project subproject = ProjectBuilder.builder().withParent(rootProject).build();
+    rootProject.getPluginManager().apply(MinikubePlugin.class);
+    subproject.getPluginManager().apply(MinikubePlugin.class);
+
+    MinikubeTask rootStart = (MinikubeTask) rootProject.getTasks().getByName("minikubeStart");
+    MinikubeTask subprojectStart = (MinikubeTask) subproject.getTasks().getByName("minikubeStart");
+    Assert.assertNotNull(rootStart.getClusterStateService());
+    Assert.assertSame(rootStart.getClusterStateService(), subprojectStart.getClusterStateService());
+  }
+
+  @Test
+  public void testMinikubeTimingsTask() {
+    Project project = ProjectBuilder.builder().withProjectDir(tmp.getRoot()).build();
+    project.getPluginManager().apply(MinikubePlugin.class);
+    MinikubeExtension ex = (MinikubeExtension) project.getExtensions().getByName("minikube");
+    ex.setTimingsFile(new File("/custom/timings.tsv"));
+
+    MinikubeTimingsTask task =
+        (MinikubeTimingsTask) project.getTasks().getByName("minikubeTimings");
+    Assert.assertEquals(new File("/custom/timings.tsv"), task.getTimingsFile());
+    Assert.assertEquals(
+        new File("/custom/timings.tsv"),
+        ((MinikubeTask) project.getTasks().getByName("minikubeStart")).getTimingsFile());
+    Assert.assertEquals(
+        new File("/custom/timings.tsv"),
+        ((MinikubeAwaitReadyTask) project.getTasks().getByName("minikubeAwaitReady"))
+            .getTimingsFile());
+  }
+
+  @Test
+  public void testMinikubeImageLoadTask() {
+    Project project = ProjectBuilder.builder().withProjectDir(tmp.getRoot()).build();
+    project.getPluginManager().apply(MinikubePlugin.class);
+    MinikubeExtension ex = (MinikubeExtension) project.getExtensions().getByName("minikube");
+    ex.setMinikube("/custom/minikube/path");
+
+    MinikubeImageLoadTask task =
+        (MinikubeImageLoadTask) project.getTasks().getByName("minikubeImageLoad");
+    Assert.assertEquals("/custom/minikube/path", task.getMinikube());
+    Assert.assertEquals("minikube", task.getProfile());
+    Assert.assertEquals(4, task.getParallelism());
+  }
+
+  @Test
+  public void testMinikubeDeployTask() {
+    Project project = ProjectBuilder.builder().withProjectDir(tmp.getRoot()).build();
+    project.getPluginManager().apply(MinikubePlugin.class);
+
+    MinikubeDeployTask task = (MinikubeDeployTask) project.getTasks().getByName("minikubeDeploy");
+    Assert.assertEquals(project.file("src/main/k8s"), task.getManifestDirectory());
+    Assert.assertEquals("minikube", task.getContext());
+    Assert.assertEquals(4, task.getParallelism());
+  }
+
+  @Test
+  public void testDeploySyncAndWatchTasksDefaultToExtensionProfile() {
+    Project project = ProjectBuilder.builder().withProjectDir(tmp.getRoot()).build();
+    project.getPluginManager().apply(MinikubePlugin.class);
+    MinikubeExtension ex = (MinikubeExtension) project.getExtensions().getByName("minikube");
+    ex.setProfile("dev");
+
+    MinikubeDeployTask deployTask =
+        (MinikubeDeployTask) project.getTasks().getByName("minikubeDeploy");
+    MinikubeSyncTask syncTask = (MinikubeSyncTask) project.getTasks().getByName("minikubeSync");
+    MinikubeWatchTask watchTask = (MinikubeWatchTask) project.getTasks().getByName("minikubeWatch");
+    Assert.assertEquals("dev", deployTask.getContext());
+    Assert.assertEquals("dev", syncTask.getProfile());
+    Assert.assertEquals("dev", syncTask.getContext());
+    Assert.assertEquals("dev", watchTask.getProfile());
+    Assert.assertEquals("dev", watchTask.getContext());
+    Assert.assertEquals(
+        new File(project.getBuildDir(), "minikube/deploy-index/dev.tsv"),
+        deployTask.getIndexFile());
+
+    // A task's own profile or context does not change the extension or the other tasks.
+    syncTask.setProfile("other");
+    watchTask.setContext("custom");
+    Assert.assertEquals("other", syncTask.getContext());
+    Assert.assertEquals("dev", watchTask.getProfile());
+    Assert.assertEquals("custom", watchTask.getContext());
+    Assert.assertEquals("dev", ex.getProfile());
+    Assert.assertEquals("dev", deployTask.getContext());
+  }
+
+  @Test
+  public void testMinikubeDiagnosticsTask() {
+    Project project = ProjectBuilder.builder().withProjectDir(tmp.getRoot()).build();
+    project.getPluginManager().apply(MinikubePlugin.class);
+    MinikubeExtension ex = (MinikubeExtension) project.getExtensions().getByName("minikube");
+    ex.setMinikube("/custom/minikube/path");
+
+    MinikubeDiagnosticsTask task =
+        (MinikubeDiagnosticsTask) project.getTasks().getByName("minikubeDiagnostics");
+    Assert.assertEquals("/custom/minikube/path", task.getMinikube());
+    Assert.assertEquals(
+        new File(project.getBuildDir(), "minikube/diagnostics"), task.getOutputDirectory());
+    Assert.assertTrue(task.getCollectOnFailure());
+    // minikubeStop collects the diagnostics first after a failure.
+    Assert.assertEquals(2, project.getTasks().getByName("minikubeStop").getActions().size());
+  }
+
+  @Test
+  public void testMinikubeNamespaceTasks() {
+    Project project = ProjectBuilder.builder().withProjectDir(tmp.getRoot()).build();
+    project.getPluginManager().apply(MinikubePlugin.class);
+
+    MinikubeCreateNamespaceTask createTask =
+        (MinikubeCreateNamespaceTask) project.getTasks().getByName("minikubeCreateNamespace");
+    MinikubeDeleteNamespacesTask deleteTask =
+        (MinikubeDeleteNamespacesTask) project.getTasks().getByName("minikubeDeleteNamespaces");
+    Assert.assertTrue(
+        createTask.getNamespace(),
+        createTask.getNamespace().matches(project.getName().toLowerCase() + "-[0-9a-f]{8}"));
+    Assert.assertEquals(createTask.getRunId(), deleteTask.getRunId());
+    Assert.assertFalse(deleteTask.getAll());
+  }
+
+  @Test
+  public void testMinikubeSyncTask() {
+    Project project = ProjectBuilder.builder().withProjectDir(tmp.getRoot()).build();
+    project.getPluginManager().apply(MinikubePlugin.class);
+    MinikubeExtension ex = (MinikubeExtension) project.getExtensions().getByName("minikube");
+    ex.setMinikube("/custom/minikube/path");
+
+    MinikubeSyncTask task = (MinikubeSyncTask) project.getTasks().getByName("minikubeSync");
+    Assert.assertEquals("/custom/minikube/path", task.getMinikube());
+    Assert.assertEquals(
+        new File(project.getBuildDir(), "classes/java/main"), task.getSourceDirectory());
+    Assert.assertEquals("/app/classes", task.getDestination());
+    Assert.assertFalse(task.isContinuous());
+  }
+
+  @Test
+  public void testMinikubeBackgroundTasks() throws InterruptedException {
+    Project project = ProjectBuilder.builder().withProjectDir(tmp.getRoot()).build();
+    project.getPluginManager().apply(MinikubePlugin.class);
+    MinikubeExtension ex = (MinikubeExtension) project.getExtensions().getByName("minikube");
+    ex.setMinikube("/custom/minikube/path");
+
+    MinikubeBackgroundTask mountTask =
+        (MinikubeBackgroundTask) project.getTasks().getByName("minikubeMount");
+    Assert.assertEquals("/custom/minikube/path", mountTask.getMinikube());
+    Assert.assertEquals("mount", mountTask.getCommand());
+    Assert.assertEquals("Successfully mounted", mountTask.getReadyPattern());
+    MinikubeBackgroundTask tunnelTask =
+        (MinikubeBackgroundTask) project.getTasks().getByName("minikubeTunnel");
+    Assert.assertEquals("tunnel", tunnelTask.getCommand());
+
+    // Custom background tasks are configured like the built-in ones.
+    MinikubeBackgroundTask customTask =
+        project.getTasks().create("minikubeCustomBackground", MinikubeBackgroundTask.class);
+    Assert.assertEquals("/custom/minikube/path", customTask.getMinikube());
+    Assert.assertEquals("Minikube", customTask.getGroup());
+
+    // Stopping a command that was not started does nothing.
+    Assert.assertFalse(mountTask.isProcessRunning());
+    mountTask.stopProcess();
+  }
+
+  @Test
+  public void testMinikubeWatchTask() {
+    Project project = ProjectBuilder.builder().withProjectDir(tmp.getRoot()).build();
+    project.getPluginManager().apply(MinikubePlugin.class);
+    MinikubeExtension ex = (MinikubeExtension) project.getExtensions().getByName("minikube");
+    ex.setMinikube("/custom/minikube/path");
+
+    MinikubeWatchTask task = (MinikubeWatchTask) project.getTasks().getByName("minikubeWatch");
+    Assert.assertEquals("/custom/minikube/path", task.getMinikube());
+    Assert.assertEquals(
+        Arrays.asList(project.file("src/main/java"), project.file("src/main/resources")),
+        task.getSourceDirectories());
+    Assert.assertEquals(project.file("src/main/k8s"), task.getManifestDirectory());
+    Assert.assertEquals(300, task.getDebounceMillis());
+  }
+
+  @Test
+  public void testMinikubeAddonsTask() {
+    Project project = ProjectBuilder.builder().withProjectDir(tmp.getRoot()).build();
+    project.getPluginManager().apply(MinikubePlugin.class);
+    MinikubeExtension ex = (MinikubeExtension) project.getExtensions().getByName("minikube");
+    ex.setMinikube("/custom/minikube/path");
+
+    MinikubeAddonsTask task = (MinikubeAddonsTask) project.getTasks().getByName("minikubeAddons");
+    Assert.assertEquals("/custom/minikube/path", task.getMinikube());
+    Assert.assertEquals("minikube", task.getProfile());
+    Assert.assertEquals(2, task.getParallelism());
+    Assert.assertTrue(task.getAddons().isEmpty());
+  }
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.minikube.util.CommandExecutor;
+import com.google.cloud.tools.minikube.util.CommandExecutorFactory;
+import com.google.cloud.tools.minikube.util.MinikubeCapabilities;
+import com.google.cloud.tools.minikube.util.ResourcePlanner;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.gradle.api.Project;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for MinikubeStartTask */
+public class MinikubeStartTaskTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private final List<String> statusCommand =
+      Arrays.asList("minikube", "status", "--output=json", "--profile=dev");
+  private final List<String> startCommand = Arrays.asList("minikube", "start", "-p", "dev");
+  private final List<String> unpauseCommand = Arrays.asList("minikube", "unpause", "--profile=dev");
+
+  private CommandExecutor commandExecutorMock;
+  private MinikubeStartTask testTask;
+
+  @Before
+  public void setUp() {
+    Project project = ProjectBuilder.builder().withProjectDir(tmp.getRoot()).build();
+
+    commandExecutorMock = mock(CommandExecutor.class);
+    CommandExecutorFactory commandExecutorFactoryMock = mock(CommandExecutorFactory.class);
+    when(commandExecutorFactoryMock.newCommandExecutor()).thenReturn(commandExecutorMock);
+    when(commandExecutorMock.setOutputListener(any())).thenReturn(commandExecutorMock);
+    when(commandExecutorMock.setFailOnNonZeroExitCode(false)).thenReturn(commandExecutorMock);
+
+    testTask = project.getTasks().create("minikubeTestStart", MinikubeStartTask.class);
+    testTask.setMinikube("minikube");
+    testTask.setFlags(new String[] {"-p", "dev"});
+    testTask.setCommandExecutorFactory(commandExecutorFactoryMock);
+  }
+
+  @Test
+  public void testExecMinikube_always() throws IOException, InterruptedException {
+    testTask.execMinikube();
+
+    verify(commandExecutorMock).run(startCommand);
+    verify(commandExecutorMock, never()).run(statusCommand);
+  }
+
+  @Test
+  public void testExecMinikube_autoResumesPausedCluster() throws IOException, InterruptedException {
+    setState("Running", "Stopped", "Paused");
+    testTask.setStartPolicy(MinikubeStartTask.StartPolicy.AUTO);
+
+    testTask.execMinikube();
+
+    verify(commandExecutorMock).run(unpauseCommand);
+    verify(commandExecutorMock, never()).run(startCommand);
+  }
+
+  @Test
+  public void testExecMinikube_autoSkipsRunningCluster() throws IOException, InterruptedException {
+    setState("Running", "Running", "Running");
+    testTask.setStartPolicy(MinikubeStartTask.StartPolicy.AUTO);
+
+    testTask.execMinikube();
+
+    verify(commandExecutorMock, never()).run(unpauseCommand);
+    verify(commandExecutorMock, never()).run(startCommand);
+  }
+
+  @Test
+  public void testExecMinikube_autoStartsStoppedCluster() throws IOException, InterruptedException {
+    setState("Stopped", "Stopped", "Stopped");
+    testTask.setStartPolicy(MinikubeStartTask.StartPolicy.AUTO);
+
+    testTask.execMinikube();
+
+    verify(commandExecutorMock).run(startCommand);
+  }
+
+  @Test
+  public void testExecMinikube_autoStartsWithoutPauseSupport()
+      throws IOException, InterruptedException {
+    setState("Running", "Running", "Running");
+    testTask.setStartPolicy(MinikubeStartTask.StartPolicy.AUTO);
+    testTask.setCapabilities(() -> new MinikubeCapabilities("v1.4.0"));
+
+    testTask.execMinikube();
+
+    verify(commandExecutorMock, never()).run(statusCommand);
+    verify(commandExecutorMock).run(startCommand);
+  }
+
+  @Test
+  public void testExecMinikube_dropsUnsupportedJsonOutput()
+      throws IOException, InterruptedException {
+    testTask.setFlags(new String[] {"-p", "dev", "--output=json"});
+    testTask.setCapabilities(() -> new MinikubeCapabilities("v1.9.2"));
+
+    testTask.execMinikube();
+
+    verify(commandExecutorMock).run(startCommand);
+  }
+
+  @Test
+  public void testExecMinikube_autoResources() throws IOException, InterruptedException {
+    when(commandExecutorMock.run(Arrays.asList("minikube", "profile", "list", "--output=json")))
+        .thenReturn(
+            Collections.singletonList(
+                "{\"invalid\":[],\"valid\":[{\"Name\":\"other\",\"Status\":\"Running\"},"
+                    + "{\"Name\":\"dev\",\"Status\":\"Stopped\"}]}"));
+    testTask.setResourcePolicy(MinikubeStartTask.ResourcePolicy.AUTO);
+    testTask.setHostResources(() -> new ResourcePlanner.Resources(17, 32768));
+
+    testTask.execMinikube();
+
+    verify(commandExecutorMock)
+        .run(Arrays.asList("minikube", "start", "-p", "dev", "--cpus=8", "--memory=14336mb"));
+  }
+
+  @Test
+  public void testExecMinikube_autoResourcesKeepsFlags() throws IOException, InterruptedException {
+    testTask.setFlags(new String[] {"-p", "dev", "--cpus", "4"});
+    testTask.setResourcePolicy(MinikubeStartTask.ResourcePolicy.AUTO);
+    testTask.setHostResources(() -> new ResourcePlanner.Resources(9, 16384));
+
+    testTask.execMinikube();
+
+    verify(commandExecutorMock)
+        .run(Arrays.asList("minikube", "start", "-p", "dev", "--cpus", "4", "--memory=14336mb"));
+  }
+
+  private void setState(String host, String kubelet, String apiServer)
+      throws IOException, InterruptedException {
+    when(commandExecutorMock.run(statusCommand))
+        .thenReturn(
+            Collections.singletonList(
+                String.format(
+                    "{\"Name\":\"dev\",\"Host\":\"%s\",\"Kubelet\":\"%s\",\"APIServer\":\"%s\"}",
+                    host, kubelet, apiServer)));
+  }
+}
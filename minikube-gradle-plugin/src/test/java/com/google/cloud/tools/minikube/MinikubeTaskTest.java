@@ -16,7 +16,23 @@
 
 package com.google.cloud.tools.minikube;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.minikube.util.CommandExecutor;
+import com.google.cloud.tools.minikube.util.CommandExecutorFactory;
+import com.google.cloud.tools.minikube.util.TimingHistory;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import org.gradle.api.Project;
 import org.gradle.testfixtures.ProjectBuilder;
 import org.junit.Assert;
@@ -48,4 +64,58 @@ public class MinikubeTaskTest {
         Arrays.asList("/test/path/to/minikube", "testCommand", "testFlag1", "testFlag2"),
         testTask.buildMinikubeCommand());
   }
+
+  @Test
+  public void testExecMinikube_writesAndRecordsTimings() throws IOException, InterruptedException {
+    Project project = ProjectBuilder.builder().withProjectDir(tmp.getRoot()).build();
+
+    CommandExecutor commandExecutorMock = mock(CommandExecutor.class);
+    CommandExecutorFactory commandExecutorFactoryMock = mock(CommandExecutorFactory.class);
+    when(commandExecutorFactoryMock.newCommandExecutor()).thenReturn(commandExecutorMock);
+    AtomicReference<Consumer<String>> outputListener = new AtomicReference<>();
+    when(commandExecutorMock.setOutputListener(any()))
+        .thenAnswer(
+            invocation -> {
+              outputListener.set(invocation.getArgument(0));
+              return commandExecutorMock;
+            });
+    when(commandExecutorMock.run(Arrays.asList("minikube", "start", "--output=json")))
+        .thenAnswer(
+            invocation -> {
+              outputListener
+                  .get()
+                  .accept(
+                      "{\"type\":\"io.k8s.sigs.minikube.step\",\"data\":{\"currentstep\":\"0\","
+                          + "\"name\":\"Creating VM\",\"totalsteps\":\"1\"}}");
+              return Collections.emptyList();
+            });
+
+    MinikubeTask testTask =
+        project
+            .getTasks()
+            .create(
+                "minikubeTestTask",
+                MinikubeTask.class,
+                minikubeTask -> {
+                  minikubeTask.setMinikube("minikube");
+                  minikubeTask.setCommand("start");
+                  minikubeTask.setFlags(new String[] {"--output=json"});
+                  minikubeTask.setCommandExecutorFactory(commandExecutorFactoryMock);
+                  minikubeTask.setTimingsFile(new File(tmp.getRoot(), "timings.tsv"));
+                });
+    testTask.execMinikube();
+
+    Path timingsFile =
+        project.getBuildDir().toPath().resolve("minikube/minikubeTestTask-stages.json");
+    Assert.assertTrue(Files.exists(timingsFile));
+    Assert.assertTrue(
+        new String(Files.readAllBytes(timingsFile), StandardCharsets.UTF_8)
+            .contains("\"name\": \"Creating VM\""));
+
+    List<TimingHistory.Sample> samples =
+        new TimingHistory(tmp.getRoot().toPath().resolve("timings.tsv")).read();
+    Assert.assertEquals(2, samples.size());
+    Assert.assertEquals("start (minikube)", samples.get(0).getKey());
+    Assert.assertEquals("start/Creating VM (minikube)", samples.get(1).getKey());
+  }
 }
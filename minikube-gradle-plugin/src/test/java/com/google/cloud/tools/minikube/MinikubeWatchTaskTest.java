@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.minikube.util.CommandExecutor;
+import com.google.cloud.tools.minikube.util.CommandExecutorFactory;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.gradle.api.Project;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for MinikubeWatchTask */
+public class MinikubeWatchTaskTest {
+
+  private static final List<String> DOCKER_ENV_COMMAND =
+      Arrays.asList("minikube", "docker-env", "--shell=none", "--profile=minikube");
+  private static final List<String> REBUILD_COMMAND =
+      Arrays.asList("docker", "build", "-t", "my-app:dev", ".");
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private CommandExecutor commandExecutorMock;
+  private MinikubeWatchTask task;
+
+  @Before
+  public void setUp() throws IOException, InterruptedException {
+    Project project = ProjectBuilder.builder().withProjectDir(tmp.newFolder("project")).build();
+    commandExecutorMock = mock(CommandExecutor.class);
+    CommandExecutorFactory commandExecutorFactoryMock = mock(CommandExecutorFactory.class);
+    when(commandExecutorFactoryMock.newCommandExecutor()).thenReturn(commandExecutorMock);
+    when(commandExecutorMock.setEnvironment(any())).thenReturn(commandExecutorMock);
+    when(commandExecutorMock.run(DOCKER_ENV_COMMAND))
+        .thenReturn(Collections.singletonList("DOCKER_HOST=tcp://192.168.49.2:2376"));
+
+    task = project.getTasks().create("minikubeWatchTest", MinikubeWatchTask.class);
+    task.setCommandExecutorFactory(commandExecutorFactoryMock);
+    task.setMinikube("minikube");
+    task.setRebuildCommand(REBUILD_COMMAND);
+  }
+
+  @Test
+  public void testRebuild_insideMinikubeWithCachedDockerEnv()
+      throws IOException, InterruptedException {
+    task.rebuild();
+    task.rebuild();
+
+    verify(commandExecutorMock, times(1)).run(DOCKER_ENV_COMMAND);
+    verify(commandExecutorMock, times(2))
+        .setEnvironment(Collections.singletonMap("DOCKER_HOST", "tcp://192.168.49.2:2376"));
+    verify(commandExecutorMock, times(2)).run(REBUILD_COMMAND);
+  }
+
+  @Test
+  public void testRebuild_onHostWhenImagesAreLoaded() throws IOException, InterruptedException {
+    task.setImages(Collections.singletonList("my-app:dev"));
+
+    task.rebuild();
+
+    verify(commandExecutorMock, never()).run(DOCKER_ENV_COMMAND);
+    verify(commandExecutorMock, never()).setEnvironment(any());
+    verify(commandExecutorMock).run(REBUILD_COMMAND);
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+import org.gradle.api.GradleException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@code BackgroundProcess} */
+public class BackgroundProcessTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private BackgroundProcess testProcess;
+
+  @After
+  public void tearDown() throws InterruptedException {
+    if (testProcess != null) {
+      testProcess.stop(0);
+    }
+  }
+
+  @Test
+  public void testStart_waitsUntilReady() throws IOException, InterruptedException {
+    testProcess = newProcess("echo starting; sleep 0.2; echo Successfully mounted; exec sleep 60");
+
+    testProcess.start(new CommandExecutor(), 10_000);
+
+    Assert.assertTrue(testProcess.isRunning());
+    testProcess.stop(1000);
+    Assert.assertFalse(testProcess.isRunning());
+  }
+
+  @Test
+  public void testStop_stopsStartedProcesses() throws IOException, InterruptedException {
+    // Only Java 9 and later can list the processes a process started.
+    Assume.assumeTrue(hasMethod(Process.class, "descendants"));
+    Assume.assumeTrue(Files.isDirectory(Paths.get("/proc")));
+    Path pidFile = tmp.getRoot().toPath().resolve("pid");
+    testProcess =
+        newProcess("sleep 60 & echo $! > " + pidFile + "; echo Successfully mounted; wait");
+    testProcess.start(new CommandExecutor(), 10_000);
+    String pid = new String(Files.readAllBytes(pidFile), StandardCharsets.UTF_8).trim();
+    Assert.assertTrue(isAlive(pid));
+
+    testProcess.stop(1000);
+
+    for (int i = 0; i < 50 && isAlive(pid); i++) {
+      Thread.sleep(100);
+    }
+    Assert.assertFalse(isAlive(pid));
+  }
+
+  @Test
+  public void testStart_exitsBeforeReady() throws IOException, InterruptedException {
+    testProcess = newProcess("echo mount failed; exit 1");
+
+    try {
+      testProcess.start(new CommandExecutor(), 10_000);
+      Assert.fail();
+    } catch (GradleException ex) {
+      Assert.assertEquals(
+          "minikube mount exited before it was ready: mount failed", ex.getMessage());
+    }
+    Assert.assertFalse(testProcess.isRunning());
+  }
+
+  @Test
+  public void testStart_exitsBeforeReadyStopsStartedProcesses()
+      throws IOException, InterruptedException {
+    // Only Java 9 and later can list the processes a process started.
+    Assume.assumeTrue(hasMethod(Process.class, "descendants"));
+    Assume.assumeTrue(Files.isDirectory(Paths.get("/proc")));
+    Path pidFile = tmp.getRoot().toPath().resolve("pid");
+    testProcess = newProcess("sleep 60 & echo $! > " + pidFile + "; sleep 0.5; exit 1");
+
+    try {
+      testProcess.start(new CommandExecutor(), 10_000);
+      Assert.fail();
+    } catch (GradleException ex) {
+      // Expected.
+    }
+
+    String pid = new String(Files.readAllBytes(pidFile), StandardCharsets.UTF_8).trim();
+    for (int i = 0; i < 50 && isAlive(pid); i++) {
+      Thread.sleep(100);
+    }
+    Assert.assertFalse(isAlive(pid));
+  }
+
+  @Test
+  public void testStart_notReadyInTime() throws IOException, InterruptedException {
+    testProcess = newProcess("echo waiting; exec sleep 60");
+
+    try {
+      testProcess.start(new CommandExecutor(), 500);
+      Assert.fail();
+    } catch (GradleException ex) {
+      Assert.assertEquals("minikube mount was not ready after 500ms: waiting", ex.getMessage());
+    }
+    Assert.assertFalse(testProcess.isRunning());
+  }
+
+  @Test
+  public void testStart_interrupted() throws IOException, InterruptedException {
+    testProcess = newProcess("echo waiting; exec sleep 60");
+    Thread caller = Thread.currentThread();
+    Thread interrupter =
+        new Thread(
+            () -> {
+              try {
+                Thread.sleep(300);
+              } catch (InterruptedException ignored) {
+                // Interrupts at once.
+              }
+              caller.interrupt();
+            });
+    interrupter.start();
+
+    try {
+      testProcess.start(new CommandExecutor(), 10_000);
+      Assert.fail();
+    } catch (InterruptedException ex) {
+      // Expected.
+    }
+    interrupter.join();
+    Assert.assertFalse(testProcess.isRunning());
+  }
+
+  private static BackgroundProcess newProcess(String script) {
+    return new BackgroundProcess(
+        "minikube mount",
+        Arrays.asList("/bin/sh", "-c", script),
+        Pattern.compile("Successfully mounted"));
+  }
+
+  private static boolean hasMethod(Class<?> type, String name) {
+    try {
+      type.getMethod(name);
+      return true;
+    } catch (NoSuchMethodException ex) {
+      return false;
+    }
+  }
+
+  /** @return {@code true} if the process exists and is not a zombie waiting to be reaped */
+  private static boolean isAlive(String pid) throws IOException {
+    Path stat = Paths.get("/proc", pid, "stat");
+    if (!Files.exists(stat)) {
+      return false;
+    }
+    String content = new String(Files.readAllBytes(stat), StandardCharsets.UTF_8);
+    // The state follows the parenthesized command name.
+    return content.charAt(content.lastIndexOf(')') + 2) != 'Z';
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@code ChangeWatcher} */
+public class ChangeWatcherTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+  private Path root;
+  private ChangeWatcher testWatcher;
+
+  @Before
+  public void setUp() throws IOException {
+    root = tmp.newFolder("src").toPath();
+    Files.createDirectories(root.resolve("com/example"));
+    testWatcher =
+        new ChangeWatcher(Arrays.asList(root, tmp.getRoot().toPath().resolve("missing")), 300);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    executorService.shutdownNow();
+    testWatcher.close();
+  }
+
+  @Test
+  public void testAwaitChanges_coalescesBurst() throws Exception {
+    Future<Set<Path>> changes = executorService.submit(testWatcher::awaitChanges);
+
+    write("com/example/App.java");
+    Thread.sleep(100);
+    write("com/example/Util.java");
+
+    Assert.assertEquals(
+        new HashSet<>(
+            Arrays.asList(
+                root.resolve("com/example/App.java"), root.resolve("com/example/Util.java"))),
+        changes.get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testAwaitChanges_newDirectory() throws Exception {
+    Future<Set<Path>> changes = executorService.submit(testWatcher::awaitChanges);
+
+    write("com/example/web/Handler.java");
+
+    Set<Path> changed = changes.get(10, TimeUnit.SECONDS);
+    Assert.assertTrue(changed.toString(), changed.contains(root.resolve("com/example/web")));
+
+    // The new directory is watched.
+    changes = executorService.submit(testWatcher::awaitChanges);
+    write("com/example/web/Router.java");
+    Assert.assertEquals(
+        Collections.singleton(root.resolve("com/example/web/Router.java")),
+        changes.get(10, TimeUnit.SECONDS));
+  }
+
+  private void write(String path) throws IOException {
+    Path file = root.resolve(path);
+    Files.createDirectories(file.getParent());
+    Files.write(file, "class A {}".getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -16,15 +16,24 @@
 
 package com.google.cloud.tools.minikube.util;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -34,14 +43,19 @@ import org.apache.tools.ant.filters.StringInputStream;
 import org.gradle.api.GradleException;
 import org.gradle.api.logging.Logger;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 /** Tests for CommandExecutor */
 public class CommandExecutorTest {
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @Mock private CommandExecutor.ProcessBuilderFactory processBuilderFactoryMock;
 
   @Mock private ProcessBuilder processBuilderMock;
@@ -132,6 +146,30 @@ public class CommandExecutorTest {
     loggerInOrder.verify(loggerMock).info("some output line 2");
   }
 
+  @Test
+  public void testRunCommand_collapsesProgressOutput() throws IOException, InterruptedException {
+    List<String> command = Arrays.asList("someCommand", "someOption");
+
+    when(processMock.getInputStream())
+        .thenReturn(new StringInputStream("some output line 1\n 10%\r 20%\r100%\nlast line"));
+
+    List<String> output =
+        new CommandExecutor()
+            .setLogger(loggerMock)
+            .setProgressIntervalMillis(Long.MAX_VALUE)
+            .setProcessBuilderFactory(processBuilderFactoryMock)
+            .run(command);
+
+    Assert.assertEquals(Arrays.asList("some output line 1", "100%", "last line"), output);
+
+    loggerInOrder.verify(loggerMock).debug("Running command : someCommand someOption");
+    loggerInOrder.verify(loggerMock).info("some output line 1");
+    loggerInOrder.verify(loggerMock).info(" 10%");
+    loggerInOrder.verify(loggerMock).info("100%");
+    loggerInOrder.verify(loggerMock).info("last line");
+    verify(loggerMock, never()).info(" 20%");
+  }
+
   @Test
   public void testRunCommandWithLogging_badProcessOutput()
       throws IOException, InterruptedException {
@@ -168,6 +206,42 @@ public class CommandExecutorTest {
     }
   }
 
+  @Test
+  public void testRunCommand_commandErrorIgnored() throws IOException, InterruptedException {
+    List<String> command = Arrays.asList("someCommand", "someOption");
+    List<String> expectedOutput = Arrays.asList("some output line 1", "some output line 2");
+
+    setProcessMockOutput(expectedOutput);
+    when(processMock.waitFor()).thenReturn(7);
+
+    List<String> output =
+        new CommandExecutor()
+            .setProcessBuilderFactory(processBuilderFactoryMock)
+            .setFailOnNonZeroExitCode(false)
+            .run(command);
+
+    Assert.assertEquals(expectedOutput, output);
+  }
+
+  @Test
+  public void testRunCommand_outputNotRetained() throws IOException, InterruptedException {
+    List<String> command = Arrays.asList("someCommand", "someOption");
+    List<String> expectedOutput = Arrays.asList("some output line 1", "some output line 2");
+
+    setProcessMockOutput(expectedOutput);
+
+    List<String> lines = new ArrayList<>();
+    List<String> output =
+        new CommandExecutor()
+            .setProcessBuilderFactory(processBuilderFactoryMock)
+            .setRetainOutput(false)
+            .setOutputListener(lines::add)
+            .run(command);
+
+    Assert.assertEquals(Collections.emptyList(), output);
+    Assert.assertEquals(expectedOutput, lines);
+  }
+
   @Test
   public void testRunCommandWithLogging_commandTimeout() throws IOException, InterruptedException {
     List<String> command = Arrays.asList("someCommand", "someOption");
@@ -192,6 +266,77 @@ public class CommandExecutorTest {
         .debug("Task Executor interrupted waiting for output consumer thread");
   }
 
+  @Test
+  public void testRunCommand_interrupted() throws IOException, InterruptedException {
+    List<String> command = Arrays.asList("someCommand", "someOption");
+    setProcessMockOutput(Collections.emptyList());
+    when(processMock.waitFor()).thenThrow(new InterruptedException());
+
+    try {
+      new CommandExecutor().setProcessBuilderFactory(processBuilderFactoryMock).run(command);
+      Assert.fail();
+    } catch (InterruptedException ex) {
+      // The command is stopped instead of left running.
+      verify(processMock).destroy();
+    }
+  }
+
+  @Test
+  public void testStartCommand() throws IOException {
+    List<String> command = Arrays.asList("someCommand", "--watch");
+    setProcessMockOutput(Arrays.asList("some output line 1", "some output line 2"));
+
+    // Mocks the ExecutorService to read the output synchronously.
+    CommandExecutor.ExecutorServiceFactory executorServiceFactoryMock =
+        mock(CommandExecutor.ExecutorServiceFactory.class);
+    ExecutorService executorServiceMock = mock(ExecutorService.class);
+    when(executorServiceFactoryMock.createExecutorService()).thenReturn(executorServiceMock);
+    doAnswer(
+            invocation -> {
+              ((Runnable) invocation.getArgument(0)).run();
+              return null;
+            })
+        .when(executorServiceMock)
+        .execute(any());
+    when(processMock.isAlive()).thenReturn(true);
+
+    List<String> lines = new ArrayList<>();
+    CommandExecutor.RunningCommand runningCommand =
+        new CommandExecutor()
+            .setProcessBuilderFactory(processBuilderFactoryMock)
+            .setExecutorServiceFactory(executorServiceFactoryMock)
+            .setOutputListener(lines::add)
+            .start(command);
+
+    verifyProcessBuilding(command);
+    Assert.assertEquals(Arrays.asList("some output line 1", "some output line 2"), lines);
+    Assert.assertTrue(runningCommand.isRunning());
+    runningCommand.destroy();
+    verify(processMock).destroy();
+  }
+
+  @Test
+  public void testRunCommand_readOnlyInShellCoprocess() throws IOException, InterruptedException {
+    Assume.assumeTrue(Files.isExecutable(Paths.get("/bin/sh")));
+    Path kubectl = temporaryFolder.getRoot().toPath().resolve("kubectl");
+    Files.write(kubectl, "#!/bin/sh\necho \"$@\"\n".getBytes(StandardCharsets.UTF_8));
+    Assume.assumeTrue(kubectl.toFile().setExecutable(true));
+
+    System.setProperty(ShellCoprocess.ENABLED_PROPERTY, "true");
+    try {
+      List<String> output =
+          new CommandExecutor()
+              .setProcessBuilderFactory(processBuilderFactoryMock)
+              .run(Arrays.asList(kubectl.toString(), "get", "pods"));
+
+      Assert.assertEquals(Collections.singletonList("get pods"), output);
+      verifyZeroInteractions(processBuilderFactoryMock);
+
+    } finally {
+      System.clearProperty(ShellCoprocess.ENABLED_PROPERTY);
+    }
+  }
+
   private void setProcessMockOutput(List<String> expectedOutput) {
     when(processMock.getInputStream())
         .thenReturn(new StringInputStream(String.join("\n", expectedOutput)));
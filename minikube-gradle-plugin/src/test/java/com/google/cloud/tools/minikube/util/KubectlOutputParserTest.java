@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import com.google.gson.JsonObject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests for {@code KubectlOutputParser} */
+public class KubectlOutputParserTest {
+
+  private final List<JsonObject> objects = new ArrayList<>();
+  private final KubectlOutputParser parser = new KubectlOutputParser(objects::add);
+
+  @Test
+  public void testAccept_prettyPrintedStream() {
+    Arrays.asList(
+            "{",
+            "    \"kind\": \"Pod\",",
+            "    \"status\": {",
+            "        \"phase\": \"Pending\"",
+            "    }",
+            "}",
+            "{",
+            "    \"kind\": \"Pod\",",
+            "    \"status\": {",
+            "        \"phase\": \"Running\"",
+            "    }",
+            "}")
+        .forEach(parser);
+
+    Assert.assertEquals(2, objects.size());
+    Assert.assertEquals(
+        "Running", objects.get(1).getAsJsonObject("status").get("phase").getAsString());
+  }
+
+  @Test
+  public void testAccept_singleLineObject() {
+    parser.accept("{\"kind\": \"Node\"}");
+
+    Assert.assertEquals(1, objects.size());
+    Assert.assertEquals("Node", objects.get(0).get("kind").getAsString());
+  }
+
+  @Test
+  public void testAccept_ignoresOtherOutput() {
+    Arrays.asList(
+            "Error from server (NotFound): deployments.apps \"app\" not found",
+            "{",
+            "  not json",
+            "}",
+            "}")
+        .forEach(parser);
+
+    Assert.assertEquals(0, objects.size());
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import com.google.cloud.tools.minikube.util.MinikubeCapabilities.Capability;
+import java.util.EnumSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests for {@code MinikubeCapabilities} */
+public class MinikubeCapabilitiesTest {
+
+  @Test
+  public void testSupports() {
+    MinikubeCapabilities capabilities = new MinikubeCapabilities("v1.17.1");
+
+    Assert.assertTrue(capabilities.supports(Capability.PAUSE));
+    Assert.assertTrue(capabilities.supports(Capability.JSON_OUTPUT));
+    Assert.assertTrue(capabilities.supports(Capability.IMAGE_LOAD));
+    Assert.assertFalse(capabilities.supports(Capability.IMAGE_LIST));
+  }
+
+  @Test
+  public void testSupports_olderVersion() {
+    Assert.assertEquals(
+        EnumSet.noneOf(Capability.class), new MinikubeCapabilities("v1.4.0").getSupported());
+    Assert.assertEquals(
+        EnumSet.of(Capability.PAUSE), new MinikubeCapabilities("1.9.2").getSupported());
+  }
+
+  @Test
+  public void testSupports_unknownVersion() {
+    Assert.assertEquals(
+        EnumSet.allOf(Capability.class), MinikubeCapabilities.UNKNOWN.getSupported());
+    Assert.assertEquals(
+        EnumSet.allOf(Capability.class), new MinikubeCapabilities("devel").getSupported());
+  }
+
+  @Test
+  public void testParseVersion() {
+    Assert.assertArrayEquals(
+        new int[] {1, 30, 1}, MinikubeCapabilities.parseVersion("v1.30.1-beta.0"));
+    Assert.assertArrayEquals(new int[] {0, 35, 0}, MinikubeCapabilities.parseVersion("0.35.0"));
+    Assert.assertNull(MinikubeCapabilities.parseVersion("v1.30"));
+  }
+
+  @Test
+  public void testGetMinimumVersion() {
+    Assert.assertEquals("v1.5.0", Capability.PAUSE.getMinimumVersion());
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@code MinikubeEventParser} */
+public class MinikubeEventParserTest {
+
+  private MinikubeEventListener listenerMock;
+  private MinikubeEventParser parser;
+
+  @Before
+  public void setUp() {
+    listenerMock = mock(MinikubeEventListener.class);
+    parser = new MinikubeEventParser(listenerMock);
+  }
+
+  @Test
+  public void testAccept_step() {
+    parser.accept(
+        "{\"specversion\":\"1.0\",\"id\":\"1\",\"source\":\"https://minikube.sigs.k8s.io/\","
+            + "\"type\":\"io.k8s.sigs.minikube.step\",\"datacontenttype\":\"application/json\","
+            + "\"data\":{\"currentstep\":\"3\",\"message\":\"Creating virtualbox VM ...\","
+            + "\"name\":\"Creating VM\",\"totalsteps\":\"19\"}}");
+
+    verify(listenerMock).onStep(3, 19, "Creating VM", "Creating virtualbox VM ...");
+    verifyNoMoreInteractions(listenerMock);
+  }
+
+  @Test
+  public void testAccept_downloadProgress() {
+    parser.accept(
+        "{\"type\":\"io.k8s.sigs.minikube.download.progress\","
+            + "\"data\":{\"artifact\":\"preloaded-images\",\"progress\":\"0.25\"}}");
+
+    verify(listenerMock).onDownloadProgress("preloaded-images", 0.25);
+  }
+
+  @Test
+  public void testAccept_messages() {
+    parser.accept("{\"type\":\"io.k8s.sigs.minikube.info\",\"data\":{\"message\":\"info\"}}");
+    parser.accept("{\"type\":\"io.k8s.sigs.minikube.warning\",\"data\":{\"message\":\"warning\"}}");
+    parser.accept("{\"type\":\"io.k8s.sigs.minikube.error\",\"data\":{\"message\":\"error\"}}");
+
+    verify(listenerMock).onInfo("info");
+    verify(listenerMock).onWarning("warning");
+    verify(listenerMock).onError("error");
+  }
+
+  @Test
+  public void testAccept_ignoresOtherOutput() {
+    parser.accept("Starting local Kubernetes cluster...");
+    parser.accept("{not json");
+    parser.accept("{\"type\":\"some.other.event\"}");
+    parser.accept("[]");
+
+    verifyZeroInteractions(listenerMock);
+  }
+}
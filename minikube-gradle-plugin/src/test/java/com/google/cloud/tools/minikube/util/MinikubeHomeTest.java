@@ -0,0 +1,38 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import java.nio.file.Paths;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests for {@code MinikubeHome} */
+public class MinikubeHomeTest {
+
+  @Test
+  public void testGet_userHome() {
+    Assert.assertEquals(Paths.get("/home/user/.minikube"), MinikubeHome.get(null, "/home/user"));
+    Assert.assertEquals(Paths.get("/home/user/.minikube"), MinikubeHome.get("", "/home/user"));
+  }
+
+  @Test
+  public void testGet_minikubeHomeEnvironment() {
+    Assert.assertEquals(Paths.get("/data/.minikube"), MinikubeHome.get("/data", "/home/user"));
+    Assert.assertEquals(
+        Paths.get("/data/.minikube"), MinikubeHome.get("/data/.minikube", "/home/user"));
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.gradle.api.logging.Logger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@code NamespaceIsolation} */
+public class NamespaceIsolationTest {
+
+  private CommandExecutor commandExecutorMock;
+  private Logger loggerMock;
+  private NamespaceIsolation testNamespaceIsolation;
+
+  @Before
+  public void setUp() {
+    commandExecutorMock = mock(CommandExecutor.class);
+    CommandExecutorFactory commandExecutorFactoryMock = mock(CommandExecutorFactory.class);
+    when(commandExecutorFactoryMock.newCommandExecutor()).thenReturn(commandExecutorMock);
+    loggerMock = mock(Logger.class);
+
+    testNamespaceIsolation =
+        new NamespaceIsolation(commandExecutorFactoryMock, "kubectl", "dev", loggerMock);
+  }
+
+  @Test
+  public void testNewName() {
+    Assert.assertTrue(
+        NamespaceIsolation.newName("com.example.MyIT").matches("com-example-myit-[0-9a-f]{8}"));
+    Assert.assertTrue(NamespaceIsolation.newName("--").matches("test-[0-9a-f]{8}"));
+    Assert.assertNotEquals(NamespaceIsolation.newName("a"), NamespaceIsolation.newName("a"));
+
+    char[] longPrefix = new char[100];
+    Arrays.fill(longPrefix, 'x');
+    String name = NamespaceIsolation.newName(new String(longPrefix));
+    Assert.assertEquals(63, name.length());
+  }
+
+  @Test
+  public void testCreate() throws IOException, InterruptedException {
+    testNamespaceIsolation.create("app-1234abcd", "run1");
+
+    verify(commandExecutorMock)
+        .run(Arrays.asList("kubectl", "--context", "dev", "create", "namespace", "app-1234abcd"));
+    verify(commandExecutorMock)
+        .run(
+            Arrays.asList(
+                "kubectl",
+                "--context",
+                "dev",
+                "label",
+                "namespace",
+                "app-1234abcd",
+                "minikube-build-tools/isolated=true",
+                "minikube-build-tools/run=run1"));
+  }
+
+  @Test
+  public void testDeleteRun() throws IOException, InterruptedException {
+    when(commandExecutorMock.run(
+            Arrays.asList(
+                "kubectl",
+                "--context",
+                "dev",
+                "delete",
+                "namespace",
+                "--selector=minikube-build-tools/run=run1",
+                "--ignore-not-found",
+                "--wait=false")))
+        .thenReturn(Arrays.asList("namespace \"a-1\" deleted", "namespace \"b-2\" deleted"));
+
+    testNamespaceIsolation.deleteRun("run1");
+
+    verify(loggerMock).lifecycle("Deleting 2 namespaces in the background");
+  }
+
+  @Test
+  public void testDeleteAll() throws IOException, InterruptedException {
+    testNamespaceIsolation.deleteAll();
+
+    verify(commandExecutorMock)
+        .run(
+            Arrays.asList(
+                "kubectl",
+                "--context",
+                "dev",
+                "delete",
+                "namespace",
+                "--selector=minikube-build-tools/isolated=true",
+                "--ignore-not-found",
+                "--wait=false"));
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@code ProcessOutputNormalizer} */
+public class ProcessOutputNormalizerTest {
+
+  private final List<String> lines = new ArrayList<>();
+  private final List<String> progress = new ArrayList<>();
+  private final AtomicLong clock = new AtomicLong();
+
+  private ProcessOutputNormalizer.Listener listener;
+
+  @Before
+  public void setUp() {
+    listener =
+        new ProcessOutputNormalizer.Listener() {
+          @Override
+          public void onLine(String line) {
+            lines.add(line);
+          }
+
+          @Override
+          public void onProgress(String progressLine) {
+            progress.add(progressLine);
+          }
+        };
+  }
+
+  @Test
+  public void testNormalize_plainLines() throws IOException {
+    normalize("line 1\nline 2\r\nline 3", 0);
+
+    Assert.assertEquals(Arrays.asList("line 1", "line 2", "line 3"), lines);
+    Assert.assertEquals(Collections.emptyList(), progress);
+  }
+
+  @Test
+  public void testNormalize_collapsesCarriageReturns() throws IOException {
+    normalize("start\n 10%\r 50%\r100%\ndone\n", 0);
+
+    Assert.assertEquals(Arrays.asList("start", "100%", "done"), lines);
+    Assert.assertEquals(Arrays.asList(" 10%", " 50%"), progress);
+  }
+
+  @Test
+  public void testNormalize_trailingCarriageReturn() throws IOException {
+    normalize("downloading\r", 0);
+
+    Assert.assertEquals(Collections.singletonList("downloading"), lines);
+    Assert.assertEquals(Collections.emptyList(), progress);
+  }
+
+  @Test
+  public void testNormalize_rateLimitsProgress() throws IOException {
+    StringBuilder output = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      output.append(i).append('\r');
+    }
+    output.append("finished\n");
+
+    // With an update every 100ms, only every third update is reported.
+    normalize(output.toString(), 250);
+
+    Assert.assertEquals(Collections.singletonList("finished"), lines);
+    Assert.assertEquals(Arrays.asList("0", "3", "6"), progress.subList(0, 3));
+    Assert.assertEquals(34, progress.size());
+  }
+
+  private void normalize(String output, long progressIntervalMillis) throws IOException {
+    new ProcessOutputNormalizer(progressIntervalMillis, () -> clock.getAndAdd(100))
+        .normalize(new StringReader(output), listener);
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@code ReadinessWaiter} */
+public class ReadinessWaiterTest {
+
+  private static final String READY_DEPLOYMENT =
+      "{\"kind\":\"Deployment\",\"metadata\":{\"generation\":2},\"spec\":{\"replicas\":2},"
+          + "\"status\":{\"observedGeneration\":2,\"updatedReplicas\":2,\"availableReplicas\":2}}";
+  private static final String UNAVAILABLE_DEPLOYMENT =
+      "{\"kind\":\"Deployment\",\"metadata\":{\"generation\":2},\"spec\":{\"replicas\":2},"
+          + "\"status\":{\"observedGeneration\":2,\"updatedReplicas\":2,\"availableReplicas\":1}}";
+
+  private final List<String> watchCommand =
+      Arrays.asList(
+          "kubectl",
+          "--context",
+          "minikube",
+          "get",
+          "deployment/app",
+          "--namespace",
+          "default",
+          "-o",
+          "json",
+          "--watch");
+  private final List<String> pollCommand = watchCommand.subList(0, watchCommand.size() - 1);
+
+  private CommandExecutor commandExecutorMock;
+  private CommandExecutor.RunningCommand runningCommandMock;
+  private final AtomicReference<Consumer<String>> outputListener = new AtomicReference<>();
+  private ReadinessWaiter readinessWaiter;
+
+  @Before
+  public void setUp() throws IOException {
+    commandExecutorMock = mock(CommandExecutor.class);
+    runningCommandMock = mock(CommandExecutor.RunningCommand.class);
+    CommandExecutorFactory commandExecutorFactoryMock = mock(CommandExecutorFactory.class);
+    when(commandExecutorFactoryMock.newCommandExecutor()).thenReturn(commandExecutorMock);
+    when(commandExecutorMock.setOutputListener(any()))
+        .thenAnswer(
+            invocation -> {
+              outputListener.set(invocation.getArgument(0));
+              return commandExecutorMock;
+            });
+
+    readinessWaiter =
+        new ReadinessWaiter(commandExecutorFactoryMock, "kubectl", "minikube", mock(Logger.class))
+            .setPollIntervalMillis(1, 2);
+  }
+
+  @Test
+  public void testAwait_watch() throws IOException, InterruptedException {
+    when(commandExecutorMock.start(watchCommand))
+        .thenAnswer(
+            invocation -> {
+              outputListener.get().accept(UNAVAILABLE_DEPLOYMENT);
+              outputListener.get().accept(READY_DEPLOYMENT);
+              return runningCommandMock;
+            });
+    when(runningCommandMock.isRunning()).thenReturn(true);
+
+    readinessWaiter.await("deployment/app", deadlineInSeconds(10));
+
+    verify(runningCommandMock).destroy();
+    verify(commandExecutorMock, never()).run(any());
+  }
+
+  @Test
+  public void testAwait_pollsWhenWatchEnds() throws IOException, InterruptedException {
+    when(commandExecutorMock.start(watchCommand)).thenReturn(runningCommandMock);
+    when(runningCommandMock.isRunning()).thenReturn(false);
+    when(commandExecutorMock.run(pollCommand))
+        .thenThrow(new GradleException("command exited with non-zero exit code : 1"))
+        .thenReturn(Collections.singletonList(UNAVAILABLE_DEPLOYMENT))
+        .thenReturn(Collections.singletonList(READY_DEPLOYMENT));
+
+    readinessWaiter.await("deployment/app", deadlineInSeconds(10));
+
+    verify(commandExecutorMock, times(3)).run(pollCommand);
+  }
+
+  @Test
+  public void testAwait_timeout() throws IOException, InterruptedException {
+    when(commandExecutorMock.start(watchCommand)).thenReturn(runningCommandMock);
+    when(runningCommandMock.isRunning()).thenReturn(true);
+
+    try {
+      readinessWaiter.await("deployment/app", deadlineInSeconds(0));
+      Assert.fail("await() should have failed");
+    } catch (GradleException ex) {
+      Assert.assertEquals("Timed out waiting for deployment/app to be ready", ex.getMessage());
+    }
+    verify(runningCommandMock).destroy();
+  }
+
+  @Test
+  public void testIsReady() {
+    Assert.assertTrue(ReadinessWaiter.isReady(parse(READY_DEPLOYMENT)));
+    Assert.assertFalse(ReadinessWaiter.isReady(parse(UNAVAILABLE_DEPLOYMENT)));
+    // The controller has not observed the latest spec yet.
+    Assert.assertFalse(
+        ReadinessWaiter.isReady(
+            parse(READY_DEPLOYMENT.replace("\"generation\":2", "\"generation\":3"))));
+
+    Assert.assertTrue(
+        ReadinessWaiter.isReady(
+            parse(
+                "{\"kind\":\"Pod\",\"status\":{\"conditions\":["
+                    + "{\"type\":\"Initialized\",\"status\":\"True\"},"
+                    + "{\"type\":\"Ready\",\"status\":\"True\"}]}}")));
+    Assert.assertFalse(
+        ReadinessWaiter.isReady(
+            parse(
+                "{\"kind\":\"Node\",\"status\":{\"conditions\":["
+                    + "{\"type\":\"Ready\",\"status\":\"False\"}]}}")));
+
+    Assert.assertTrue(
+        ReadinessWaiter.isReady(parse("{\"kind\":\"List\",\"items\":[" + READY_DEPLOYMENT + "]}")));
+    Assert.assertFalse(ReadinessWaiter.isReady(parse("{\"kind\":\"List\",\"items\":[]}")));
+  }
+
+  private static JsonObject parse(String json) {
+    return new JsonParser().parse(json).getAsJsonObject();
+  }
+
+  private static long deadlineInSeconds(long seconds) {
+    return System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.gradle.api.logging.Logger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@code RedeployPipeline} */
+public class RedeployPipelineTest {
+
+  private static final Path SOURCES = Paths.get("/project/src/main/java");
+  private static final Path MANIFESTS = Paths.get("/project/src/main/k8s");
+  private static final Path SOURCE_CHANGE = SOURCES.resolve("com/example/App.java");
+  private static final Path MANIFEST_CHANGE = MANIFESTS.resolve("deployment.yaml");
+
+  private final List<RedeployPipeline.Stage> ran = Collections.synchronizedList(new ArrayList<>());
+  private RedeployPipeline testPipeline;
+
+  @Before
+  public void setUp() {
+    testPipeline =
+        new RedeployPipeline(Collections.singletonList(SOURCES), MANIFESTS, mock(Logger.class));
+    for (RedeployPipeline.Stage stage : RedeployPipeline.Stage.values()) {
+      testPipeline.setAction(stage, () -> ran.add(stage));
+    }
+  }
+
+  @After
+  public void tearDown() {
+    testPipeline.close();
+  }
+
+  @Test
+  public void testGetAffectedStages() {
+    Assert.assertEquals(
+        EnumSet.of(
+            RedeployPipeline.Stage.REBUILD,
+            RedeployPipeline.Stage.IMAGE_LOAD,
+            RedeployPipeline.Stage.RESTART),
+        testPipeline.getAffectedStages(Collections.singleton(SOURCE_CHANGE)));
+    Assert.assertEquals(
+        EnumSet.of(RedeployPipeline.Stage.DEPLOY),
+        testPipeline.getAffectedStages(Collections.singleton(MANIFEST_CHANGE)));
+    Assert.assertEquals(
+        EnumSet.allOf(RedeployPipeline.Stage.class),
+        testPipeline.getAffectedStages(
+            new HashSet<>(Arrays.asList(SOURCE_CHANGE, MANIFEST_CHANGE))));
+    Assert.assertEquals(
+        EnumSet.noneOf(RedeployPipeline.Stage.class),
+        testPipeline.getAffectedStages(Collections.singleton(Paths.get("/project/README.md"))));
+  }
+
+  @Test
+  public void testSubmit_runsAffectedStagesInOrder() throws Exception {
+    testPipeline.submit(Collections.singleton(SOURCE_CHANGE)).get(10, TimeUnit.SECONDS);
+
+    Assert.assertEquals(
+        Arrays.asList(
+            RedeployPipeline.Stage.REBUILD,
+            RedeployPipeline.Stage.IMAGE_LOAD,
+            RedeployPipeline.Stage.RESTART),
+        ran);
+    Assert.assertNull(testPipeline.submit(Collections.singleton(Paths.get("/project/README.md"))));
+  }
+
+  @Test
+  public void testSubmit_skipsStagesWithoutAction() throws Exception {
+    RedeployPipeline pipeline =
+        new RedeployPipeline(Collections.singletonList(SOURCES), MANIFESTS, mock(Logger.class))
+            .setAction(RedeployPipeline.Stage.DEPLOY, () -> ran.add(RedeployPipeline.Stage.DEPLOY));
+    try {
+      Assert.assertNull(pipeline.submit(Collections.singleton(SOURCE_CHANGE)));
+    } finally {
+      pipeline.close();
+    }
+  }
+
+  @Test
+  public void testSubmit_cancelsStaleRun() throws Exception {
+    CountDownLatch rebuilding = new CountDownLatch(1);
+    CountDownLatch cancelled = new CountDownLatch(1);
+    testPipeline.setAction(
+        RedeployPipeline.Stage.REBUILD,
+        () -> {
+          ran.add(RedeployPipeline.Stage.REBUILD);
+          if (rebuilding.getCount() == 0) {
+            return;
+          }
+          rebuilding.countDown();
+          try {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+          } catch (InterruptedException ex) {
+            cancelled.countDown();
+            throw ex;
+          }
+        });
+    Future<?> staleRun = testPipeline.submit(Collections.singleton(SOURCE_CHANGE));
+    Assert.assertTrue(rebuilding.await(10, TimeUnit.SECONDS));
+
+    // The new run also covers the stages of the cancelled one.
+    Future<?> run = testPipeline.submit(Collections.singleton(MANIFEST_CHANGE));
+    run.get(10, TimeUnit.SECONDS);
+
+    Assert.assertTrue(staleRun.isCancelled());
+    Assert.assertEquals(0, cancelled.getCount());
+    Assert.assertEquals(
+        Arrays.asList(
+            RedeployPipeline.Stage.REBUILD,
+            RedeployPipeline.Stage.REBUILD,
+            RedeployPipeline.Stage.IMAGE_LOAD,
+            RedeployPipeline.Stage.DEPLOY,
+            RedeployPipeline.Stage.RESTART),
+        ran);
+  }
+
+  @Test
+  public void testSubmit_retriesFailedStages() throws Exception {
+    testPipeline.setAction(
+        RedeployPipeline.Stage.IMAGE_LOAD,
+        () -> {
+          ran.add(RedeployPipeline.Stage.IMAGE_LOAD);
+          if (Collections.frequency(ran, RedeployPipeline.Stage.IMAGE_LOAD) == 1) {
+            throw new IOException("image not found");
+          }
+        });
+    testPipeline.submit(Collections.singleton(SOURCE_CHANGE)).get(10, TimeUnit.SECONDS);
+
+    testPipeline.submit(Collections.singleton(MANIFEST_CHANGE)).get(10, TimeUnit.SECONDS);
+
+    Assert.assertEquals(
+        Arrays.asList(
+            RedeployPipeline.Stage.REBUILD,
+            RedeployPipeline.Stage.IMAGE_LOAD,
+            RedeployPipeline.Stage.IMAGE_LOAD,
+            RedeployPipeline.Stage.DEPLOY,
+            RedeployPipeline.Stage.RESTART),
+        ran);
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@code ResourcePlanner} */
+public class ResourcePlannerTest {
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testPlan_singleCluster() {
+    ResourcePlanner.Resources plan =
+        ResourcePlanner.plan(new ResourcePlanner.Resources(64, 262144), 1);
+
+    Assert.assertEquals(63, plan.getCpus());
+    Assert.assertEquals(229376, plan.getMemoryMb());
+  }
+
+  @Test
+  public void testPlan_sharedHost() {
+    ResourcePlanner.Resources host = new ResourcePlanner.Resources(17, 32768);
+    ResourcePlanner.Resources plan = ResourcePlanner.plan(host, 4);
+
+    Assert.assertEquals(4, plan.getCpus());
+    Assert.assertEquals(7168, plan.getMemoryMb());
+    Assert.assertFalse(ResourcePlanner.isOvercommitted(host, plan, 4));
+  }
+
+  @Test
+  public void testPlan_smallHost() {
+    ResourcePlanner.Resources host = new ResourcePlanner.Resources(4, 8192);
+    ResourcePlanner.Resources plan = ResourcePlanner.plan(host, 4);
+
+    Assert.assertEquals(ResourcePlanner.MIN_CPUS, plan.getCpus());
+    Assert.assertEquals(ResourcePlanner.MIN_MEMORY_MB, plan.getMemoryMb());
+    Assert.assertTrue(ResourcePlanner.isOvercommitted(host, plan, 4));
+  }
+
+  @Test
+  public void testGetFlags() {
+    ResourcePlanner.Resources plan = new ResourcePlanner.Resources(4, 8192);
+
+    Assert.assertEquals(
+        Arrays.asList("--cpus=4", "--memory=8192mb"),
+        ResourcePlanner.getFlags(plan, Arrays.asList("minikube", "start")));
+    Assert.assertEquals(
+        Collections.singletonList("--cpus=4"),
+        ResourcePlanner.getFlags(plan, Arrays.asList("minikube", "start", "--memory=4g")));
+    Assert.assertEquals(
+        Collections.emptyList(),
+        ResourcePlanner.getFlags(
+            plan, Arrays.asList("minikube", "start", "--cpus", "2", "--memory", "4g")));
+  }
+
+  @Test
+  public void testCountRunningProfiles() {
+    String output =
+        "{\"invalid\":[],\"valid\":["
+            + "{\"Name\":\"minikube\",\"Status\":\"Running\"},"
+            + "{\"Name\":\"dev\",\"Status\":\"Running\"},"
+            + "{\"Name\":\"old\",\"Status\":\"Stopped\"}]}";
+
+    Assert.assertEquals(
+        1, ResourcePlanner.countRunningProfiles(Collections.singletonList(output), "dev"));
+    Assert.assertEquals(
+        0,
+        ResourcePlanner.countRunningProfiles(
+            Collections.singletonList("* No minikube profile was found."), "dev"));
+  }
+
+  @Test
+  public void testReadMemTotalMb() throws IOException {
+    Path meminfo = temporaryFolder.newFile("meminfo").toPath();
+    Files.write(
+        meminfo,
+        "MemTotal:       16318460 kB\nMemFree:         1203456 kB\n"
+            .getBytes(StandardCharsets.UTF_8));
+
+    Assert.assertEquals(15935, ResourcePlanner.readMemTotalMb(meminfo));
+    Assert.assertEquals(
+        -1, ResourcePlanner.readMemTotalMb(temporaryFolder.getRoot().toPath().resolve("none")));
+  }
+
+  @Test
+  public void testReadCgroupMemoryLimitMb() throws IOException {
+    Path memoryMax = temporaryFolder.getRoot().toPath().resolve("memory.max");
+    Path limitInBytes = temporaryFolder.getRoot().toPath().resolve("memory.limit_in_bytes");
+    Path none = temporaryFolder.getRoot().toPath().resolve("none");
+
+    Assert.assertEquals(-1, ResourcePlanner.readCgroupMemoryLimitMb(none, none));
+
+    Files.write(limitInBytes, "9223372036854771712\n".getBytes(StandardCharsets.UTF_8));
+    Assert.assertEquals(-1, ResourcePlanner.readCgroupMemoryLimitMb(none, limitInBytes));
+    Files.write(limitInBytes, "4294967296\n".getBytes(StandardCharsets.UTF_8));
+    Assert.assertEquals(4096, ResourcePlanner.readCgroupMemoryLimitMb(none, limitInBytes));
+
+    Files.write(memoryMax, "max\n".getBytes(StandardCharsets.UTF_8));
+    Assert.assertEquals(-1, ResourcePlanner.readCgroupMemoryLimitMb(memoryMax, limitInBytes));
+    Files.write(memoryMax, "8589934592\n".getBytes(StandardCharsets.UTF_8));
+    Assert.assertEquals(8192, ResourcePlanner.readCgroupMemoryLimitMb(memoryMax, limitInBytes));
+  }
+
+  @Test
+  public void testDetectHost() {
+    ResourcePlanner.Resources host = ResourcePlanner.detectHost();
+
+    Assert.assertTrue(host.getCpus() > 0);
+    Assert.assertTrue(host.getMemoryMb() > 0);
+  }
+}
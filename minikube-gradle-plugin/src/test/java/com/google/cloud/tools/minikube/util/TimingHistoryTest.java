@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@code TimingHistory} */
+public class TimingHistoryTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private Path file;
+  private TimingHistory timingHistory;
+
+  @Before
+  public void setUp() {
+    file = tmp.getRoot().toPath().resolve("some/dir/timings.tsv");
+    timingHistory = new TimingHistory(file);
+  }
+
+  @Test
+  public void testRead_noHistory() throws IOException {
+    Assert.assertEquals(Collections.emptyList(), timingHistory.read());
+  }
+
+  @Test
+  public void testAppendAndRead() throws IOException {
+    timingHistory.append(
+        Arrays.asList(
+            new TimingHistory.Sample(1000, "minikube", "start", "", 60000),
+            new TimingHistory.Sample(1000, "minikube", "start", "Creating\tVM", 30000)));
+    timingHistory.append(
+        Collections.singletonList(new TimingHistory.Sample(2000, "dev", "stop", "", 5)));
+
+    Assert.assertEquals(
+        Arrays.asList(
+            "1000\tstart\t\t60000\tminikube",
+            "1000\tstart\tCreating VM\t30000\tminikube",
+            "2000\tstop\t\t5\tdev"),
+        Files.readAllLines(file, StandardCharsets.UTF_8));
+
+    List<TimingHistory.Sample> samples = timingHistory.read();
+    Assert.assertEquals(3, samples.size());
+    Assert.assertEquals("start (minikube)", samples.get(0).getKey());
+    Assert.assertEquals(60000, samples.get(0).getDurationMillis());
+    Assert.assertEquals("start/Creating VM (minikube)", samples.get(1).getKey());
+    Assert.assertEquals("dev", samples.get(2).getProfile());
+    Assert.assertEquals(2000, samples.get(2).getTimestamp());
+  }
+
+  @Test
+  public void testRead_linesWithoutProfile() throws IOException {
+    Files.createDirectories(file.getParent());
+    Files.write(file, Collections.singletonList("1000\tstart\t\t42"), StandardCharsets.UTF_8);
+    timingHistory.append(
+        Collections.singletonList(new TimingHistory.Sample(2000, "minikube", "start", "", 43)));
+
+    List<TimingHistory.Sample> samples = timingHistory.read();
+    Assert.assertEquals(2, samples.size());
+    Assert.assertEquals("", samples.get(0).getProfile());
+    // Samples of an unknown profile are not compared with the samples of a known one.
+    Assert.assertEquals("start", samples.get(0).getKey());
+    Assert.assertEquals("start (minikube)", samples.get(1).getKey());
+  }
+
+  @Test
+  public void testRead_skipsMalformedLines() throws IOException {
+    Files.createDirectories(file.getParent());
+    Files.write(
+        file,
+        Arrays.asList("garbage", "1000\tstart\t\tNaN", "1000\tstart\t\t42"),
+        StandardCharsets.UTF_8,
+        StandardOpenOption.CREATE);
+
+    List<TimingHistory.Sample> samples = timingHistory.read();
+    Assert.assertEquals(1, samples.size());
+    Assert.assertEquals(42, samples.get(0).getDurationMillis());
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests for {@code TimingRegressionDetector} */
+public class TimingRegressionDetectorTest {
+
+  private final List<TimingHistory.Sample> samples = new ArrayList<>();
+
+  @Test
+  public void testAnalyze_regression() {
+    addSamples("start", 60000, 61000, 59000, 60500, 59500, 60000, 80000, 79000, 81000);
+
+    List<TimingRegressionDetector.Result> results = new TimingRegressionDetector().analyze(samples);
+
+    Assert.assertEquals(1, results.size());
+    TimingRegressionDetector.Result result = results.get(0);
+    Assert.assertEquals("start (minikube)", result.getKey());
+    Assert.assertEquals(6, result.getBaselineSamples());
+    Assert.assertEquals(60000, result.getBaselineMeanMillis(), 0.001);
+    Assert.assertEquals(3, result.getRecentSamples());
+    Assert.assertEquals(80000, result.getRecentMeanMillis(), 0.001);
+    Assert.assertTrue(result.isRegression());
+    Assert.assertEquals(
+        "start (minikube): baseline 60.0s (n=6), recent 80.0s (n=3), +33% REGRESSION",
+        result.format());
+  }
+
+  @Test
+  public void testAnalyze_noisyBaselineIsNotSignificant() {
+    addSamples("start", 30000, 90000, 40000, 100000, 35000, 95000, 80000, 79000, 81000);
+
+    List<TimingRegressionDetector.Result> results = new TimingRegressionDetector().analyze(samples);
+
+    Assert.assertEquals(1, results.size());
+    Assert.assertFalse(results.get(0).isRegression());
+  }
+
+  @Test
+  public void testAnalyze_smallIncreaseIsNotARegression() {
+    addSamples("stop", 1000, 1000, 1000, 1000, 1050, 1050, 1050);
+
+    List<TimingRegressionDetector.Result> results = new TimingRegressionDetector().analyze(samples);
+
+    Assert.assertEquals(1, results.size());
+    Assert.assertFalse(results.get(0).isRegression());
+  }
+
+  @Test
+  public void testAnalyze_rollingBaselineAndStages() {
+    // Old samples outside of the rolling baseline are ignored.
+    addSamples("start", 10000, 10000, 10000, 60000, 60000, 60000, 61000);
+    samples.add(new TimingHistory.Sample(0, "minikube", "start", "Creating VM", 1000));
+
+    List<TimingRegressionDetector.Result> results =
+        new TimingRegressionDetector().setBaselineSize(3).setRecentSize(1).analyze(samples);
+
+    Assert.assertEquals(1, results.size());
+    Assert.assertEquals(60000, results.get(0).getBaselineMeanMillis(), 0.001);
+    Assert.assertFalse(results.get(0).isRegression());
+  }
+
+  @Test
+  public void testAnalyze_profilesAreNotCompared() {
+    // A slower profile that starts bigger clusters is not a regression of the default profile.
+    addSamples("start", 60000, 61000, 59000, 60500, 59500, 60000);
+    addSamples("big", "start", 80000, 79000, 81000);
+
+    List<TimingRegressionDetector.Result> results = new TimingRegressionDetector().analyze(samples);
+
+    Assert.assertEquals(1, results.size());
+    Assert.assertEquals("start (minikube)", results.get(0).getKey());
+    Assert.assertFalse(results.get(0).isRegression());
+  }
+
+  private void addSamples(String operation, long... durations) {
+    addSamples("minikube", operation, durations);
+  }
+
+  private void addSamples(String profile, String operation, long... durations) {
+    for (long duration : durations) {
+      samples.add(new TimingHistory.Sample(samples.size(), profile, operation, "", duration));
+    }
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Enables minikube addons. The addon states are read once with {@code minikube addons list
+ * --output=json}, and only the disabled addons are enabled. At most {@code parallelism} addons of
+ * the profile are enabled at the same time. Waiting for the resources of an enabled addon to be
+ * ready does not hold an enable slot, so that the waits of all addons overlap with each other and
+ * with the remaining enables. After the first failure, no further addon is enabled.
+ */
+public class AddonEnabler {
+
+  /** Creates the waiters for the resources of the addons, by namespace. */
+  public interface ReadinessWaiterFactory {
+    ReadinessWaiter newReadinessWaiter(String namespace);
+  }
+
+  private final Supplier<CommandExecutor> commandExecutorSupplier;
+  private final String minikube;
+  private final String profile;
+  private final BuildLogger logger;
+  private int parallelism = 2;
+  private ReadinessWaiterFactory readinessWaiterFactory;
+
+  /**
+   * Creates a new enabler.
+   *
+   * @param commandExecutorSupplier creates the executors the minikube commands run with
+   * @param minikube the minikube executable
+   * @param profile the minikube profile the addons are enabled in
+   * @param logger for logging the addons that are already enabled and the commands
+   */
+  public AddonEnabler(
+      Supplier<CommandExecutor> commandExecutorSupplier,
+      String minikube,
+      String profile,
+      BuildLogger logger) {
+    this.commandExecutorSupplier = commandExecutorSupplier;
+    this.minikube = minikube;
+    this.profile = profile;
+    this.logger = logger;
+  }
+
+  /** Sets the maximum number of addons enabled at the same time. */
+  public AddonEnabler setParallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1");
+    }
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  /** Sets the factory of the waiters for the ready targets of the addons. */
+  public AddonEnabler setReadinessWaiterFactory(ReadinessWaiterFactory readinessWaiterFactory) {
+    this.readinessWaiterFactory = readinessWaiterFactory;
+    return this;
+  }
+
+  /**
+   * Reads the addon states of the profile.
+   *
+   * @return whether each addon minikube knows is enabled, by name
+   * @throws IOException if the states cannot be read
+   */
+  public Map<String, Boolean> getStates() throws IOException, InterruptedException {
+    return parseStates(
+        commandExecutorSupplier
+            .get()
+            .setLogger(logger)
+            .run(Arrays.asList(minikube, "addons", "list", "--profile=" + profile, "-o", "json")));
+  }
+
+  /**
+   * Parses the output of {@code minikube addons list --output=json}, an object with a {@code
+   * {"Profile": ..., "Status": "enabled"|"disabled"}} member per addon.
+   *
+   * @return whether each addon is enabled, by name
+   * @throws IOException if the output is not an addon list
+   */
+  @VisibleForTesting
+  static Map<String, Boolean> parseStates(List<String> output) throws IOException {
+    String json = String.join("\n", output);
+    int start = json.indexOf('{');
+    JsonElement element = null;
+    if (start != -1) {
+      try {
+        element = new JsonParser().parse(json.substring(start));
+      } catch (JsonParseException ex) {
+        // Reported below.
+      }
+    }
+    if (element == null || !element.isJsonObject()) {
+      throw new IOException("Unexpected output of minikube addons list: " + json);
+    }
+
+    Map<String, Boolean> states = new LinkedHashMap<>();
+    for (Map.Entry<String, JsonElement> addon : element.getAsJsonObject().entrySet()) {
+      JsonElement status =
+          addon.getValue().isJsonObject() ? addon.getValue().getAsJsonObject().get("Status") : null;
+      states.put(
+          addon.getKey(),
+          status != null && status.isJsonPrimitive() && "enabled".equals(status.getAsString()));
+    }
+    return states;
+  }
+
+  /**
+   * Enables the addons that are not enabled yet and waits for their resources to be ready.
+   *
+   * @param addons the addons to enable, started in order
+   * @param readyTargets the resources to wait for after enabling an addon, by addon, as {@code
+   *     [<namespace>/]<kind>/<name>} with {@code kube-system} as the default namespace
+   * @param deadlineNanos the {@link System#nanoTime()} by which the resources must be ready
+   * @return the results of the addons that were not enabled yet, in the order of {@code addons}
+   * @throws IOException if an addon is unknown to minikube
+   */
+  public List<ParallelCommandRunner.Result> enable(
+      List<String> addons, Map<String, List<String>> readyTargets, long deadlineNanos)
+      throws IOException, InterruptedException {
+    Map<String, Boolean> states = getStates();
+    List<String> unknown = new ArrayList<>();
+    List<String> disabled = new ArrayList<>();
+    for (String addon : addons) {
+      if (!states.containsKey(addon)) {
+        unknown.add(addon);
+      } else if (!states.get(addon) && !disabled.contains(addon)) {
+        disabled.add(addon);
+      }
+    }
+    if (!unknown.isEmpty()) {
+      throw new IOException("Unknown minikube addon(s): " + String.join(", ", unknown));
+    }
+    logger.lifecycle(
+        (addons.size() - disabled.size()) + " of " + addons.size() + " addon(s) already enabled");
+
+    List<ParallelCommandRunner.Result> results = new ArrayList<>();
+    if (disabled.isEmpty()) {
+      return results;
+    }
+
+    ExecutorService enableService =
+        Executors.newFixedThreadPool(Math.min(parallelism, disabled.size()));
+    ExecutorService awaitService = Executors.newCachedThreadPool();
+    AtomicBoolean failed = new AtomicBoolean();
+    List<CompletableFuture<ParallelCommandRunner.Result>> futures = new ArrayList<>();
+    try {
+      for (String addon : disabled) {
+        List<String> targets = readyTargets.getOrDefault(addon, Collections.emptyList());
+        futures.add(
+            CompletableFuture.supplyAsync(() -> enableAddon(addon, failed), enableService)
+                .thenApplyAsync(
+                    result -> awaitAddon(result, targets, deadlineNanos, failed), awaitService));
+      }
+      for (CompletableFuture<ParallelCommandRunner.Result> future : futures) {
+        try {
+          results.add(future.get());
+        } catch (ExecutionException ex) {
+          // enableAddon and awaitAddon catch all exceptions.
+          throw new IllegalStateException(ex.getCause());
+        }
+      }
+      return results;
+
+    } finally {
+      // Interrupts the commands that are still running if this thread was interrupted.
+      enableService.shutdownNow();
+      awaitService.shutdownNow();
+    }
+  }
+
+  private ParallelCommandRunner.Result enableAddon(String addon, AtomicBoolean failed) {
+    if (failed.get()) {
+      return new ParallelCommandRunner.Result(
+          addon, ParallelCommandRunner.Result.Status.SKIPPED, 0, null);
+    }
+    long start = System.nanoTime();
+    try {
+      commandExecutorSupplier
+          .get()
+          .setLogger(logger)
+          .run(Arrays.asList(minikube, "addons", "enable", addon, "--profile=" + profile));
+      return new ParallelCommandRunner.Result(
+          addon, ParallelCommandRunner.Result.Status.SUCCEEDED, elapsedMillis(start), null);
+
+    } catch (Exception ex) {
+      return fail(addon, start, ex, failed);
+    }
+  }
+
+  private ParallelCommandRunner.Result awaitAddon(
+      ParallelCommandRunner.Result enabled,
+      List<String> targets,
+      long deadlineNanos,
+      AtomicBoolean failed) {
+    if (!enabled.isSucceeded() || targets.isEmpty()) {
+      return enabled;
+    }
+    // The duration of the addon includes the enable command.
+    long start = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(enabled.getDurationMillis());
+    try {
+      for (String target : targets) {
+        String[] parts = target.split("/", 3);
+        if (parts.length == 3) {
+          readinessWaiterFactory
+              .newReadinessWaiter(parts[0])
+              .await(parts[1] + "/" + parts[2], deadlineNanos);
+        } else {
+          readinessWaiterFactory.newReadinessWaiter("kube-system").await(target, deadlineNanos);
+        }
+      }
+      return new ParallelCommandRunner.Result(
+          enabled.getName(),
+          ParallelCommandRunner.Result.Status.SUCCEEDED,
+          elapsedMillis(start),
+          null);
+
+    } catch (Exception ex) {
+      return fail(enabled.getName(), start, ex, failed);
+    }
+  }
+
+  private static ParallelCommandRunner.Result fail(
+      String addon, long start, Exception ex, AtomicBoolean failed) {
+    if (ex instanceof InterruptedException) {
+      Thread.currentThread().interrupt();
+    }
+    failed.set(true);
+    return new ParallelCommandRunner.Result(
+        addon, ParallelCommandRunner.Result.Status.FAILED, elapsedMillis(start), ex);
+  }
+
+  private static long elapsedMillis(long startNanos) {
+    return (System.nanoTime() - startNanos) / 1_000_000;
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * A long-running command, such as {@code minikube mount} or {@code minikube tunnel}, that runs in
+ * the background while other tasks use it. It is ready once it prints a line matching its readiness
+ * pattern, and is stopped together with the processes it started.
+ */
+public class BackgroundProcess {
+
+  /** The number of output lines reported when the command exits before it is ready. */
+  private static final int REPORTED_LINES = 20;
+
+  private final String name;
+  private final List<String> command;
+  private final Pattern readyPattern;
+  private final Deque<String> lastLines = new ArrayDeque<>();
+  private CommandExecutor.RunningCommand runningCommand;
+
+  /**
+   * Creates a new background process.
+   *
+   * @param name the name of the process in messages, for example {@code minikube mount}
+   * @param command the command line
+   * @param readyPattern the pattern of the output line that reports that the command is ready
+   */
+  public BackgroundProcess(String name, List<String> command, Pattern readyPattern) {
+    this.name = name;
+    this.command = command;
+    this.readyPattern = readyPattern;
+  }
+
+  /**
+   * Starts the command and waits until it is ready.
+   *
+   * @param commandExecutor the executor to start the command with; its output listener is replaced
+   * @param readyTimeoutMillis how long the command may take to get ready
+   * @throws IOException if the command exits or does not get ready in time, in which case it is
+   *     stopped
+   * @throws InterruptedException if interrupted while waiting for the command, which is then
+   *     stopped
+   */
+  public void start(CommandExecutor commandExecutor, long readyTimeoutMillis)
+      throws IOException, InterruptedException {
+    if (isRunning()) {
+      throw new IllegalStateException(name + " is already running");
+    }
+    CountDownLatch ready = new CountDownLatch(1);
+    synchronized (lastLines) {
+      lastLines.clear();
+    }
+    runningCommand =
+        commandExecutor
+            .setOutputListener(
+                line -> {
+                  synchronized (lastLines) {
+                    if (lastLines.size() == REPORTED_LINES) {
+                      lastLines.removeFirst();
+                    }
+                    lastLines.addLast(line);
+                  }
+                  if (readyPattern.matcher(line).find()) {
+                    ready.countDown();
+                  }
+                })
+            .start(command);
+
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(readyTimeoutMillis);
+    try {
+      // Polls, so that a command that exits without printing the readiness line is noticed.
+      while (!ready.await(100, TimeUnit.MILLISECONDS)) {
+        if (!runningCommand.isRunning()) {
+          // Helpers it started, such as the 9p server of minikube mount, may still be running.
+          stop(0);
+          // Gives the output reader a moment to read the last lines.
+          Thread.sleep(200);
+          throw new IOException(name + " exited before it was ready: " + getLastLines());
+        }
+        runningCommand.rememberDescendants();
+        if (System.nanoTime() - deadline > 0) {
+          stop(0);
+          throw new IOException(
+              name + " was not ready after " + readyTimeoutMillis + "ms: " + getLastLines());
+        }
+      }
+    } catch (InterruptedException ex) {
+      // The build no longer waits for the command, which must not be left running.
+      stop(0);
+      throw ex;
+    }
+  }
+
+  /** @return {@code true} if the command was started and has not exited or been stopped since */
+  public boolean isRunning() {
+    return runningCommand != null && runningCommand.isRunning();
+  }
+
+  /**
+   * Stops the command and the processes it started, if it is running.
+   *
+   * @param gracePeriodMillis how long the command may take to clean up and exit before it is killed
+   */
+  public void stop(long gracePeriodMillis) throws InterruptedException {
+    if (runningCommand == null) {
+      return;
+    }
+    runningCommand.destroyTree(gracePeriodMillis);
+    runningCommand = null;
+  }
+
+  private String getLastLines() {
+    synchronized (lastLines) {
+      return lastLines.isEmpty() ? "no output" : String.join("\n", new ArrayList<>(lastLines));
+    }
+  }
+}
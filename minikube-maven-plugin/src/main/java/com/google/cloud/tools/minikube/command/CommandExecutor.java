@@ -17,19 +17,26 @@
 package com.google.cloud.tools.minikube.command;
 
 import com.google.common.annotations.VisibleForTesting;
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 // TODO: Share this with minikube-gradle-plugin.
 /** Executes a shell command. */
@@ -41,6 +48,11 @@ public class CommandExecutor {
   private Supplier<ExecutorService> executorServiceSupplier = Executors::newSingleThreadExecutor;
   private BuildLogger logger;
   private Map<String, String> environment;
+  private long progressIntervalMillis = ProcessOutputNormalizer.DEFAULT_PROGRESS_INTERVAL_MILLIS;
+  private Consumer<String> outputListener;
+  private boolean failOnNonZeroExitCode = true;
+  private boolean retainOutput = true;
+  private File inputFile;
 
   /** Sets the {@code BuildLogger} to use to log messages during the command execution. */
   public CommandExecutor setLogger(BuildLogger logger) {
@@ -54,6 +66,48 @@ public class CommandExecutor {
     return this;
   }
 
+  /**
+   * Sets the minimum interval between two logged progress updates. Progress updates are the
+   * intermediate states of a line that the command rewrites in place with carriage returns.
+   */
+  public CommandExecutor setProgressIntervalMillis(long progressIntervalMillis) {
+    this.progressIntervalMillis = progressIntervalMillis;
+    return this;
+  }
+
+  /**
+   * Sets whether a non-zero exit code fails the command, which is the default. Commands that report
+   * a state through their exit code can disable it.
+   */
+  public CommandExecutor setFailOnNonZeroExitCode(boolean failOnNonZeroExitCode) {
+    this.failOnNonZeroExitCode = failOnNonZeroExitCode;
+    return this;
+  }
+
+  /**
+   * Sets a listener that receives each output line as soon as it is read, for example to parse
+   * structured output while the command is still running.
+   */
+  public CommandExecutor setOutputListener(Consumer<String> outputListener) {
+    this.outputListener = outputListener;
+    return this;
+  }
+
+  /**
+   * Sets whether {@link #run} returns the output lines, which is the default. Commands with large
+   * output that is consumed by the output listener can disable it to not hold the output in memory.
+   */
+  public CommandExecutor setRetainOutput(boolean retainOutput) {
+    this.retainOutput = retainOutput;
+    return this;
+  }
+
+  /** Sets a file the command reads as its standard input, for example an archive to extract. */
+  public CommandExecutor setInputFile(File inputFile) {
+    this.inputFile = inputFile;
+    return this;
+  }
+
   @VisibleForTesting
   CommandExecutor setProcessBuilderSupplier(Supplier<ProcessBuilder> processBuilderSupplier) {
     this.processBuilderSupplier = processBuilderSupplier;
@@ -72,31 +126,63 @@ public class CommandExecutor {
   }
 
   /**
-   * Runs the command.
+   * Runs the command. minikube and kubectl commands wait for a free slot of the {@link
+   * CommandScheduler} first.
    *
    * @param command the list of command line tokens
-   * @return the output of the command as a list of lines
-   * @throws IOException if the command failed to run or exited with non-zero exit code
+   * @return the output of the command as a list of lines, or an empty list if the output is not
+   *     retained
+   * @throws IOException if the command failed to run or exited with non-zero exit code, unless
+   *     disabled with {@link #setFailOnNonZeroExitCode}
    */
   public List<String> run(List<String> command) throws IOException, InterruptedException {
+    // Waits for a free slot if the build already runs many minikube or kubectl commands.
+    try (CommandScheduler.Permit permit = CommandScheduler.get().acquire(command)) {
+      if (permit.getQueueMillis() > 0 && logger != null) {
+        logger.info(
+            String.format(
+                Locale.ROOT,
+                "Waited %.1fs for a free slot to run %s",
+                permit.getQueueMillis() / 1000.0,
+                String.join(" ", command)));
+      }
+      if (CommandScheduler.isShortQuery(command)
+          && inputFile == null
+          && ShellCoprocess.canRun(environment)) {
+        return runInShell(command);
+      }
+      return runProcess(command);
+    }
+  }
+
+  /** Runs a short command in a shell coprocess, which saves starting a process from the JVM. */
+  private List<String> runInShell(List<String> command) throws IOException, InterruptedException {
     if (logger != null) {
-      logger.debug("Running command : " + String.join(" ", command));
+      logger.debug("Running command in shell coprocess : " + String.join(" ", command));
     }
 
-    ExecutorService executor = executorServiceSupplier.get();
+    List<String> output = new ArrayList<>();
+    int exitCode =
+        ShellCoprocess.execute(
+            resolveExecutable(command),
+            environment,
+            newOutputListener(retainOutput ? output : null));
 
-    // Builds the command to execute.
-    ProcessBuilder processBuilder = processBuilderSupplier.get();
-    processBuilder.command(command);
-    processBuilder.redirectErrorStream(true);
-    if (environment != null) {
-      processBuilder.environment().putAll(environment);
+    // Checks the command exit code.
+    if (exitCode != 0 && failOnNonZeroExitCode) {
+      throw new IOException("command exited with non-zero exit code : " + exitCode);
     }
-    Process process = processBuilder.start();
+
+    return output;
+  }
+
+  private List<String> runProcess(List<String> command) throws IOException, InterruptedException {
+    ExecutorService executor = executorServiceSupplier.get();
+    Process process = startProcess(command);
 
     // Runs the command and streams the output.
     List<String> output = new ArrayList<>();
-    executor.execute(makeOutputConsumerRunnable(process, output));
+    executor.execute(makeOutputConsumerRunnable(process, retainOutput ? output : null));
     int exitCode = process.waitFor();
 
     // Shuts down the executor.
@@ -111,7 +197,7 @@ public class CommandExecutor {
     }
 
     // Checks the command exit code.
-    if (exitCode != 0) {
+    if (exitCode != 0 && failOnNonZeroExitCode) {
       throw new IOException("command exited with non-zero exit code : " + exitCode);
     }
 
@@ -119,25 +205,142 @@ public class CommandExecutor {
   }
 
   /**
-   * Creates a {@link Runnable} to read the command output.
+   * Starts the command without waiting for it to exit, for example to follow a command that runs
+   * until it is stopped. The output is logged and passed to the output listener as it is read.
+   *
+   * @param command the list of command line tokens
+   * @return the running command
+   */
+  public RunningCommand start(List<String> command) throws IOException {
+    ExecutorService executor = executorServiceSupplier.get();
+    Process process = startProcess(command);
+    executor.execute(makeOutputConsumerRunnable(process, null));
+    executor.shutdown();
+
+    return new RunningCommand(process);
+  }
+
+  /** A command started with {@link #start}. */
+  public static class RunningCommand {
+
+    private final Process process;
+    /** The processes the command started, as seen while it ran. */
+    private final Set<Object> knownDescendants = new LinkedHashSet<>();
+
+    @VisibleForTesting
+    RunningCommand(Process process) {
+      this.process = process;
+    }
+
+    /** @return {@code true} if the command has not exited yet */
+    public boolean isRunning() {
+      return process.isAlive();
+    }
+
+    /** Stops the command. */
+    public void destroy() {
+      process.destroy();
+    }
+
+    /**
+     * Remembers the processes the command started so far, so that {@link #destroyTree} also stops
+     * those that outlive the command, which cannot be listed after it exited.
+     */
+    public void rememberDescendants() {
+      List<Object> descendants = getDescendants(process);
+      synchronized (knownDescendants) {
+        knownDescendants.addAll(descendants);
+      }
+    }
+
+    /**
+     * Stops the command and the processes it started. The command is asked to exit first, so that
+     * it can clean up, and is killed if it does not exit within the grace period. The processes it
+     * started can only be listed on Java 9 and later.
+     *
+     * @param gracePeriodMillis how long the command may take to exit
+     */
+    public void destroyTree(long gracePeriodMillis) throws InterruptedException {
+      Set<Object> descendants = new LinkedHashSet<>(getDescendants(process));
+      synchronized (knownDescendants) {
+        descendants.addAll(knownDescendants);
+      }
+      process.destroy();
+      if (!process.waitFor(gracePeriodMillis, TimeUnit.MILLISECONDS)) {
+        process.destroyForcibly();
+      }
+      for (Object descendant : descendants) {
+        try {
+          Class<?> processHandleClass = Class.forName("java.lang.ProcessHandle");
+          if ((Boolean) processHandleClass.getMethod("isAlive").invoke(descendant)) {
+            processHandleClass.getMethod("destroy").invoke(descendant);
+          }
+        } catch (ReflectiveOperationException ex) {
+          // The process cannot be stopped from here.
+        }
+      }
+    }
+
+    /** @return the {@code ProcessHandle}s of the processes the process started */
+    private static List<Object> getDescendants(Process process) {
+      try {
+        try (Stream<?> descendants =
+            (Stream<?>) Process.class.getMethod("descendants").invoke(process)) {
+          return descendants.collect(Collectors.toList());
+        }
+      } catch (ReflectiveOperationException ex) {
+        // Java 8 cannot list them.
+        return Collections.emptyList();
+      }
+    }
+  }
+
+  private Process startProcess(List<String> command) throws IOException {
+    if (logger != null) {
+      logger.debug("Running command : " + String.join(" ", command));
+    }
+
+    // Builds the command to execute.
+    ProcessBuilder processBuilder = processBuilderSupplier.get();
+    processBuilder.command(resolveExecutable(command));
+    processBuilder.redirectErrorStream(true);
+    if (environment != null) {
+      processBuilder.environment().putAll(environment);
+    }
+    if (inputFile != null) {
+      processBuilder.redirectInput(inputFile);
+    }
+    return processBuilder.start();
+  }
+
+  /** Resolves the executable once per {@code PATH} instead of letting every spawn search it. */
+  private List<String> resolveExecutable(List<String> command) {
+    if (command.isEmpty()) {
+      return command;
+    }
+    String executable = ExecutableResolver.resolve(command.get(0), environment);
+    if (executable.equals(command.get(0))) {
+      return command;
+    }
+    List<String> resolvedCommand = new ArrayList<>(command);
+    resolvedCommand.set(0, executable);
+    return resolvedCommand;
+  }
+
+  /**
+   * Creates a {@link Runnable} to read the command output. Lines rewritten in place with carriage
+   * returns are collapsed into their final state.
    *
    * @param process the process to read from
-   * @param output a list to store the output lines to
+   * @param output a list to store the output lines to, or {@code null} to not store them
    */
   private Runnable makeOutputConsumerRunnable(Process process, List<String> output) {
     return () -> {
       try (InputStream processInputStream = process.getInputStream();
           InputStreamReader inputStreamReader =
-              new InputStreamReader(processInputStream, StandardCharsets.UTF_8);
-          BufferedReader bufferedReader = new BufferedReader(inputStreamReader)) {
-        String line = bufferedReader.readLine();
-        while (line != null) {
-          if (logger != null) {
-            logger.lifecycle(line);
-          }
-          output.add(line);
-          line = bufferedReader.readLine();
-        }
+              new InputStreamReader(processInputStream, StandardCharsets.UTF_8)) {
+        new ProcessOutputNormalizer(progressIntervalMillis)
+            .normalize(inputStreamReader, newOutputListener(output));
 
       } catch (IOException ex) {
         if (logger != null) {
@@ -146,4 +349,33 @@ public class CommandExecutor {
       }
     };
   }
+
+  /**
+   * Creates the listener of the normalized command output, which logs the output.
+   *
+   * @param output a list to store the output lines to, or {@code null} to not store them
+   */
+  private ProcessOutputNormalizer.Listener newOutputListener(List<String> output) {
+    return new ProcessOutputNormalizer.Listener() {
+      @Override
+      public void onLine(String line) {
+        if (logger != null) {
+          logger.lifecycle(line);
+        }
+        if (output != null) {
+          output.add(line);
+        }
+        if (outputListener != null) {
+          outputListener.accept(line);
+        }
+      }
+
+      @Override
+      public void onProgress(String progress) {
+        if (logger != null) {
+          logger.lifecycle(progress);
+        }
+      }
+    };
+  }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A fingerprint of a minikube command line and the cluster state it leaves, so that a later build
+ * can skip the command when neither changed. The fingerprint file holds a hash of the command line
+ * and the state, separated by a tab.
+ */
+public class CommandFingerprint {
+
+  private final Path file;
+
+  public CommandFingerprint(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Checks whether the fingerprint was written for a command line and state.
+   *
+   * @param commandLine the effective command line
+   * @param state the state the command leaves the cluster in
+   * @return whether the fingerprint matches, {@code false} if there is none
+   */
+  public boolean matches(List<String> commandLine, MinikubeStatus.State state) throws IOException {
+    if (!Files.exists(file)) {
+      return false;
+    }
+    String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    return content.trim().equals(format(commandLine, state));
+  }
+
+  /**
+   * Writes the fingerprint of a command line that completed.
+   *
+   * @param commandLine the effective command line
+   * @param state the state the command left the cluster in
+   */
+  public void write(List<String> commandLine, MinikubeStatus.State state) throws IOException {
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+    // Writes to a unique temporary file first, so that parallel modules never mix their writes.
+    Path temporaryFile =
+        Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName() + ".", ".tmp");
+    try {
+      Files.write(
+          temporaryFile, (format(commandLine, state) + "\n").getBytes(StandardCharsets.UTF_8));
+      Files.move(
+          temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  /** Removes the fingerprint, so that a command that fails is run again. */
+  public void delete() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  private static String format(List<String> commandLine, MinikubeStatus.State state) {
+    return hash(commandLine) + "\t" + state;
+  }
+
+  private static String hash(List<String> commandLine) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      for (String argument : commandLine) {
+        // Separates the arguments so that ["a b"] and ["a", "b"] hash differently.
+        digest.update(argument.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+      }
+      StringBuilder hash = new StringBuilder();
+      for (byte b : digest.digest()) {
+        hash.append(String.format(Locale.ROOT, "%02x", b));
+      }
+      return hash.toString();
+
+    } catch (NoSuchAlgorithmException ex) {
+      // Every Java platform supports SHA-256.
+      throw new IllegalStateException(ex);
+    }
+  }
+}
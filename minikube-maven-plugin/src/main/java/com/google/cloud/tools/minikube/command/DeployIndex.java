@@ -0,0 +1,154 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A local index of the manifests applied to a cluster. The first line of the index file holds the
+ * ID of the cluster the manifests were applied to. Each following line holds the path of a
+ * manifest, the hash of its content and the resources it declares, separated by tabs.
+ */
+public class DeployIndex {
+
+  /** What is known about an applied manifest. */
+  public static class Entry {
+
+    private final String hash;
+    private final List<String> resources;
+
+    public Entry(String hash, List<String> resources) {
+      this.hash = hash;
+      this.resources = Collections.unmodifiableList(new ArrayList<>(resources));
+    }
+
+    /** @return the hash of the manifest content */
+    public String getHash() {
+      return hash;
+    }
+
+    /**
+     * @return the resources declared by the manifest, see {@link ManifestDeployer#readResources}
+     */
+    public List<String> getResources() {
+      return resources;
+    }
+  }
+
+  private static final String CLUSTER_PREFIX = "cluster\t";
+
+  /**
+   * Gets the default index file of a kubectl context, under the build directory.
+   *
+   * @param buildDirectory the build directory
+   * @param context the kubectl context, which minikube names after the profile
+   * @return the index file
+   */
+  public static Path getDefaultFile(Path buildDirectory, String context) {
+    return buildDirectory
+        .resolve("minikube")
+        .resolve("deploy-index")
+        .resolve(context.replaceAll("[^A-Za-z0-9._-]", "_") + ".tsv");
+  }
+
+  private final Path file;
+
+  public DeployIndex(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Reads the ID of the cluster the indexed manifests were applied to.
+   *
+   * @return the cluster ID, or {@code null} if there is no index yet
+   */
+  public String readClusterId() throws IOException {
+    if (!Files.exists(file)) {
+      return null;
+    }
+    List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    if (lines.isEmpty() || !lines.get(0).startsWith(CLUSTER_PREFIX)) {
+      return null;
+    }
+    return lines.get(0).substring(CLUSTER_PREFIX.length());
+  }
+
+  /**
+   * Reads the index. Malformed lines are skipped.
+   *
+   * @return the entries by manifest path, or an empty map if there is no index yet
+   */
+  public Map<String, Entry> read() throws IOException {
+    Map<String, Entry> entries = new TreeMap<>();
+    if (!Files.exists(file)) {
+      return entries;
+    }
+    for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+      if (line.startsWith(CLUSTER_PREFIX)) {
+        continue;
+      }
+      String[] fields = line.split("\t", -1);
+      if (fields.length >= 2 && !fields[0].isEmpty() && !fields[1].isEmpty()) {
+        entries.put(
+            fields[0], new Entry(fields[1], Arrays.asList(fields).subList(2, fields.length)));
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Replaces the index.
+   *
+   * @param clusterId the ID of the cluster the manifests were applied to
+   * @param entries the entries by manifest path
+   */
+  public void write(String clusterId, Map<String, Entry> entries) throws IOException {
+    StringBuilder lines = new StringBuilder(CLUSTER_PREFIX).append(clusterId).append('\n');
+    for (Map.Entry<String, Entry> entry : new TreeMap<>(entries).entrySet()) {
+      lines.append(entry.getKey()).append('\t').append(entry.getValue().getHash());
+      for (String resource : entry.getValue().getResources()) {
+        lines.append('\t').append(resource);
+      }
+      lines.append('\n');
+    }
+
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+    // Writes to a temporary file first so that readers never see a partially written index.
+    // A unique temporary file keeps concurrent builds from mixing their writes.
+    Path temporaryFile =
+        Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName() + ".", ".tmp");
+    try {
+      Files.write(temporaryFile, lines.toString().getBytes(StandardCharsets.UTF_8));
+      Files.move(
+          temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+}
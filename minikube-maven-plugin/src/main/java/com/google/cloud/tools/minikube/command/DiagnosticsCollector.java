@@ -0,0 +1,423 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Collects diagnostics from a minikube cluster: {@code minikube logs}, the pods and events, and
+ * {@code kubectl describe} and {@code kubectl logs} of every pod.
+ *
+ * <p>The collectors run in parallel. Each one streams its output into a gzip file as it is read, so
+ * that no output is held in memory, and stops writing once it reached its size cap. With the {@link
+ * Format#ZIP} format, the gzip files are then streamed into a single zip archive.
+ */
+public class DiagnosticsCollector {
+
+  /** How the collected output is archived. */
+  public enum Format {
+    /** One {@code .gz} file per collector. */
+    GZIP,
+    /** A single {@code diagnostics.zip} archive. */
+    ZIP
+  }
+
+  /** The outcome of one collector. */
+  public static class Result {
+
+    private final String name;
+    private final long bytes;
+    private final boolean truncated;
+    private final Exception failure;
+
+    Result(String name, long bytes, boolean truncated, Exception failure) {
+      this.name = name;
+      this.bytes = bytes;
+      this.truncated = truncated;
+      this.failure = failure;
+    }
+
+    /** @return the path of the collected output in the archive */
+    public String getName() {
+      return name;
+    }
+
+    /** @return the number of uncompressed bytes written */
+    public long getBytes() {
+      return bytes;
+    }
+
+    /** @return {@code true} if the output was cut at the size cap */
+    public boolean isTruncated() {
+      return truncated;
+    }
+
+    /** @return why the collector could not run, or {@code null} if it ran */
+    public Exception getFailure() {
+      return failure;
+    }
+  }
+
+  /** The name of the archive written with the {@link Format#ZIP} format. */
+  public static final String ZIP_FILE_NAME = "diagnostics.zip";
+
+  private static final String GZIP_EXTENSION = ".gz";
+
+  private final Supplier<CommandExecutor> commandExecutorSupplier;
+  private final String minikube;
+  private final String kubectl;
+  private final String profile;
+  private final String context;
+  private final BuildLogger logger;
+  private int parallelism = 4;
+  private long maxBytes = 10 * 1024 * 1024;
+  private List<String> namespaces = Collections.emptyList();
+  private Format format = Format.ZIP;
+
+  /**
+   * Creates a new collector.
+   *
+   * @param commandExecutorSupplier supplies the executors the minikube and kubectl commands run
+   *     with
+   * @param minikube the minikube executable
+   * @param kubectl the kubectl executable
+   * @param profile the minikube profile
+   * @param context the kubectl context, which minikube names after the profile
+   * @param logger for logging the collected diagnostics
+   */
+  public DiagnosticsCollector(
+      Supplier<CommandExecutor> commandExecutorSupplier,
+      String minikube,
+      String kubectl,
+      String profile,
+      String context,
+      BuildLogger logger) {
+    this.commandExecutorSupplier = commandExecutorSupplier;
+    this.minikube = minikube;
+    this.kubectl = kubectl;
+    this.profile = profile;
+    this.context = context;
+    this.logger = logger;
+  }
+
+  /** Sets the maximum number of collectors running at the same time. */
+  public DiagnosticsCollector setParallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1");
+    }
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  /** Sets the maximum number of uncompressed bytes each collector writes. */
+  public DiagnosticsCollector setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+    return this;
+  }
+
+  /** Sets the namespaces whose pods are collected. Empty (the default) means all namespaces. */
+  public DiagnosticsCollector setNamespaces(List<String> namespaces) {
+    this.namespaces = namespaces;
+    return this;
+  }
+
+  /** Sets how the collected output is archived. */
+  public DiagnosticsCollector setFormat(Format format) {
+    this.format = format;
+    return this;
+  }
+
+  /**
+   * Runs the collectors. A collector that fails does not stop the others.
+   *
+   * @param outputDirectory the directory to write the archive to
+   * @return the results of the collectors
+   */
+  public List<Result> collect(Path outputDirectory) throws IOException, InterruptedException {
+    Files.createDirectories(outputDirectory);
+    Map<String, List<String>> collectors = buildCollectors(listPods());
+
+    List<Result> results = new ArrayList<>();
+    ExecutorService executorService =
+        Executors.newFixedThreadPool(Math.min(parallelism, collectors.size()));
+    try {
+      List<Future<Result>> futures = new ArrayList<>();
+      for (Map.Entry<String, List<String>> collector : collectors.entrySet()) {
+        Path file = getGzipFile(outputDirectory, collector.getKey());
+        futures.add(
+            executorService.submit(
+                () -> runCollector(collector.getKey(), collector.getValue(), file)));
+      }
+      for (Future<Result> future : futures) {
+        try {
+          results.add(future.get());
+        } catch (ExecutionException ex) {
+          // runCollector catches all exceptions.
+          throw new IllegalStateException(ex.getCause());
+        }
+      }
+
+    } finally {
+      executorService.shutdown();
+    }
+
+    for (Result result : results) {
+      if (result.getFailure() != null) {
+        logger.warn(
+            "Could not collect " + result.getName() + ": " + result.getFailure().getMessage());
+      } else {
+        logger.info(
+            String.format(
+                Locale.ROOT,
+                "Collected %s (%d bytes%s)",
+                result.getName(),
+                result.getBytes(),
+                result.isTruncated() ? ", truncated" : ""));
+      }
+    }
+
+    if (format == Format.ZIP) {
+      zip(outputDirectory, new ArrayList<>(collectors.keySet()));
+      logger.lifecycle("Wrote minikube diagnostics to " + outputDirectory.resolve(ZIP_FILE_NAME));
+    } else {
+      logger.lifecycle("Wrote minikube diagnostics to " + outputDirectory);
+    }
+    return results;
+  }
+
+  private Path getGzipFile(Path outputDirectory, String name) {
+    // The gzip files are only staged for the zip archive, so they are kept flat.
+    return outputDirectory.resolve(
+        (format == Format.ZIP ? name.replace('/', '_') : name) + GZIP_EXTENSION);
+  }
+
+  /**
+   * Lists the pods to collect.
+   *
+   * @return the pods as {@code namespace/name} of the namespaces that could be listed
+   */
+  private List<String> listPods() throws InterruptedException {
+    List<String> pods = new ArrayList<>();
+    for (List<String> namespaceFlags : getNamespaceScopes().values()) {
+      List<String> command =
+          new ArrayList<>(Arrays.asList(kubectl, "--context", context, "get", "pods"));
+      command.addAll(namespaceFlags);
+      command.add("-o");
+      command.add("jsonpath={range .items[*]}{.metadata.namespace}/{.metadata.name}{\"\\n\"}{end}");
+      try {
+        for (String line : commandExecutorSupplier.get().run(command)) {
+          if (line.contains("/")) {
+            pods.add(line.trim());
+          }
+        }
+
+      } catch (Exception ex) {
+        if (ex instanceof InterruptedException) {
+          throw (InterruptedException) ex;
+        }
+        logger.warn("Could not list pods: " + ex.getMessage());
+      }
+    }
+    return pods;
+  }
+
+  @VisibleForTesting
+  Map<String, List<String>> buildCollectors(List<String> pods) {
+    Map<String, List<String>> collectors = new LinkedHashMap<>();
+    collectors.put("minikube-logs.txt", Arrays.asList(minikube, "logs", "--profile=" + profile));
+
+    for (Map.Entry<String, List<String>> scope : getNamespaceScopes().entrySet()) {
+      List<String> getPods =
+          new ArrayList<>(
+              Arrays.asList(kubectl, "--context", context, "get", "pods", "-o", "wide"));
+      getPods.addAll(scope.getValue());
+      collectors.put("pods" + scope.getKey() + ".txt", getPods);
+
+      List<String> getEvents =
+          new ArrayList<>(
+              Arrays.asList(
+                  kubectl, "--context", context, "get", "events", "--sort-by=.lastTimestamp"));
+      getEvents.addAll(scope.getValue());
+      collectors.put("events" + scope.getKey() + ".txt", getEvents);
+    }
+
+    for (String pod : pods) {
+      String namespace = pod.substring(0, pod.indexOf('/'));
+      String name = pod.substring(pod.indexOf('/') + 1);
+      collectors.put(
+          "pods/" + pod + "-describe.txt",
+          Arrays.asList(
+              kubectl, "--context", context, "describe", "pod", name, "--namespace", namespace));
+      collectors.put(
+          "pods/" + pod + "-logs.txt",
+          Arrays.asList(
+              kubectl,
+              "--context",
+              context,
+              "logs",
+              name,
+              "--namespace",
+              namespace,
+              "--all-containers=true"));
+    }
+    return collectors;
+  }
+
+  /**
+   * Gets the kubectl flags that select the namespaces. kubectl takes a single namespace, and
+   * comma-separated field selectors must all match, so each namespace is listed separately.
+   *
+   * @return the namespace flags by file name suffix: {@code --all-namespaces} without a suffix if
+   *     no namespaces are set, else {@code --namespace <namespace>} with suffix {@code
+   *     -<namespace>}
+   */
+  private Map<String, List<String>> getNamespaceScopes() {
+    Map<String, List<String>> scopes = new LinkedHashMap<>();
+    if (namespaces.isEmpty()) {
+      scopes.put("", Collections.singletonList("--all-namespaces"));
+    }
+    for (String namespace : namespaces) {
+      scopes.put("-" + namespace, Arrays.asList("--namespace", namespace));
+    }
+    return scopes;
+  }
+
+  private Result runCollector(String name, List<String> command, Path file) {
+    try {
+      Files.createDirectories(file.getParent());
+      try (CappedWriter writer = new CappedWriter(Files.newOutputStream(file), maxBytes)) {
+        // The output can be large: it is only written to the file, not logged or retained.
+        commandExecutorSupplier
+            .get()
+            .setRetainOutput(false)
+            .setFailOnNonZeroExitCode(false)
+            .setOutputListener(writer)
+            .run(command);
+        return new Result(name, writer.getBytes(), writer.isTruncated(), writer.getFailure());
+      }
+
+    } catch (Exception ex) {
+      if (ex instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      return new Result(name, 0, false, ex);
+    }
+  }
+
+  /** Streams the gzip files of the collectors into a zip archive and deletes them. */
+  private void zip(Path outputDirectory, List<String> names) throws IOException {
+    Path zipFile = outputDirectory.resolve(ZIP_FILE_NAME);
+    try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+      for (String name : names) {
+        Path file = getGzipFile(outputDirectory, name);
+        if (!Files.exists(file)) {
+          continue;
+        }
+        zip.putNextEntry(new ZipEntry(name));
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(file))) {
+          byte[] buffer = new byte[8192];
+          int read;
+          while ((read = input.read(buffer)) != -1) {
+            zip.write(buffer, 0, read);
+          }
+        }
+        zip.closeEntry();
+        Files.delete(file);
+      }
+    }
+  }
+
+  /** Writes output lines to a gzip stream, up to a maximum number of uncompressed bytes. */
+  private static class CappedWriter implements Consumer<String>, AutoCloseable {
+
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final OutputStream output;
+    private final long maxBytes;
+    private long bytes;
+    private boolean truncated;
+    private IOException failure;
+
+    CappedWriter(OutputStream output, long maxBytes) throws IOException {
+      this.output = new GZIPOutputStream(output);
+      this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public synchronized void accept(String line) {
+      if (truncated || failure != null) {
+        return;
+      }
+      byte[] lineBytes = line.getBytes(StandardCharsets.UTF_8);
+      try {
+        if (bytes + lineBytes.length + 1 > maxBytes) {
+          truncated = true;
+          output.write(
+              String.format(Locale.ROOT, "[truncated after %d bytes]%n", bytes)
+                  .getBytes(StandardCharsets.UTF_8));
+          return;
+        }
+        output.write(lineBytes);
+        output.write(NEWLINE);
+        bytes += lineBytes.length + 1;
+
+      } catch (IOException ex) {
+        failure = ex;
+      }
+    }
+
+    synchronized long getBytes() {
+      return bytes;
+    }
+
+    synchronized boolean isTruncated() {
+      return truncated;
+    }
+
+    synchronized IOException getFailure() {
+      return failure;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+      output.close();
+    }
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Caches the docker environment of minikube profiles across builds. An entry is valid as long as
+ * the profile's {@code config.json}, which minikube rewrites when it starts the cluster, was not
+ * modified since the entry was written. Each cache file holds that modification time on its first
+ * line, followed by the environment as {@code KEY=VALUE} lines.
+ */
+public class DockerEnvCache {
+
+  /** Gets the default cache directory, under the minikube home directory. */
+  public static Path getDefaultDirectory() {
+    return MinikubeHome.get().resolve("docker-env-cache");
+  }
+
+  private final Path directory;
+  private final Path minikubeHome;
+
+  /**
+   * Creates a new cache.
+   *
+   * @param directory the directory holding the cache files
+   * @param minikubeHome the {@code .minikube} directory holding the profiles
+   */
+  public DockerEnvCache(Path directory, Path minikubeHome) {
+    this.directory = directory;
+    this.minikubeHome = minikubeHome;
+  }
+
+  /**
+   * Reads the cached docker environment of a profile.
+   *
+   * @param profile the minikube profile
+   * @return the docker environment, or an empty map if there is no valid entry
+   */
+  public Map<String, String> read(String profile) throws IOException {
+    Path file = getFile(profile);
+    String stamp = getStamp(profile);
+    if (stamp == null || !Files.exists(file)) {
+      return Collections.emptyMap();
+    }
+    List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    if (lines.isEmpty() || !stamp.equals(lines.get(0))) {
+      return Collections.emptyMap();
+    }
+    try {
+      return MinikubeDockerEnvParser.parse(lines.subList(1, lines.size()));
+    } catch (IllegalArgumentException ex) {
+      return Collections.emptyMap();
+    }
+  }
+
+  /**
+   * Caches the docker environment of a profile. Nothing is cached for a profile without a {@code
+   * config.json}.
+   *
+   * @param profile the minikube profile
+   * @param dockerEnv the docker environment
+   */
+  public void write(String profile, Map<String, String> dockerEnv) throws IOException {
+    String stamp = getStamp(profile);
+    if (stamp == null) {
+      return;
+    }
+    List<String> lines = new ArrayList<>();
+    lines.add(stamp);
+    for (Map.Entry<String, String> entry : new TreeMap<>(dockerEnv).entrySet()) {
+      lines.add(entry.getKey() + "=" + entry.getValue());
+    }
+
+    Files.createDirectories(directory);
+    Path file = getFile(profile);
+    // Writes to a temporary file first so that readers never see a partially written entry.
+    // A unique temporary file keeps concurrent builds from mixing their writes.
+    Path temporaryFile = Files.createTempFile(directory, file.getFileName() + ".", ".tmp");
+    try {
+      Files.write(temporaryFile, lines, StandardCharsets.UTF_8);
+      Files.move(
+          temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  private Path getFile(String profile) {
+    return directory.resolve(profile.replaceAll("[^A-Za-z0-9._-]", "_") + ".env");
+  }
+
+  /** @return the modification time of the profile's config, or {@code null} if there is none */
+  private String getStamp(String profile) throws IOException {
+    Path config = minikubeHome.resolve("profiles").resolve(profile).resolve("config.json");
+    if (!Files.exists(config)) {
+      return null;
+    }
+    return String.valueOf(Files.getLastModifiedTime(config).toMillis());
+  }
+}
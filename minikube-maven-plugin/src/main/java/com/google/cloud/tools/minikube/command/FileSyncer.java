@@ -0,0 +1,431 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Copies the changed files of a local directory into running pods or the minikube node.
+ *
+ * <p>The files are hashed, and the hashes synced to each target are kept in an index (in the layout
+ * of the {@link DeployIndex}), so that only added and changed files are copied and removed files
+ * are deleted. The changed files are copied as a single tar archive per target, extracted with
+ * {@code kubectl exec} in a pod, or copied with {@code minikube cp} and extracted with {@code
+ * minikube ssh} on the node. Targets are synced in parallel.
+ *
+ * <p>Each sync also writes a marker file holding the ID of the index into the destination. When the
+ * marker does not match, for example because the pod was recreated, all files are copied, even if
+ * none of them changed.
+ */
+public class FileSyncer {
+
+  /** The target of the minikube node, instead of a pod. */
+  public static final String NODE_TARGET = "node";
+
+  /** The name of the marker file in the destination directory. */
+  public static final String MARKER_FILE = ".minikube-sync-id";
+
+  /** The size and modification time a file had when it was hashed, and its hash. */
+  private static class HashedFile {
+
+    private final long size;
+    private final long lastModifiedMillis;
+    private final String hash;
+
+    private HashedFile(long size, long lastModifiedMillis, String hash) {
+      this.size = size;
+      this.lastModifiedMillis = lastModifiedMillis;
+      this.hash = hash;
+    }
+  }
+
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  private final Supplier<CommandExecutor> commandExecutorSupplier;
+  private final String kubectl;
+  private final String minikube;
+  private final BuildLogger logger;
+  private String context = "minikube";
+  private String namespace = "default";
+  private String container;
+  private String profile = "minikube";
+  private int parallelism = 4;
+
+  /** Hashes by relative path, reused while files are unchanged, for example in continuous mode. */
+  private final Map<String, HashedFile> hashedFiles = new HashMap<>();
+
+  /**
+   * Creates a new syncer.
+   *
+   * @param commandExecutorSupplier supplies the executors the commands run with
+   * @param kubectl the kubectl executable
+   * @param minikube the minikube executable
+   * @param logger for logging the synced files
+   */
+  public FileSyncer(
+      Supplier<CommandExecutor> commandExecutorSupplier,
+      String kubectl,
+      String minikube,
+      BuildLogger logger) {
+    this.commandExecutorSupplier = commandExecutorSupplier;
+    this.kubectl = kubectl;
+    this.minikube = minikube;
+    this.logger = logger;
+  }
+
+  /** Sets the kubectl context of the pods, which minikube names after the profile. */
+  public FileSyncer setContext(String context) {
+    this.context = context;
+    return this;
+  }
+
+  /** Sets the namespace of the pods. */
+  public FileSyncer setNamespace(String namespace) {
+    this.namespace = namespace;
+    return this;
+  }
+
+  /** Sets the container of the pods, or {@code null} for their default container. */
+  public FileSyncer setContainer(String container) {
+    this.container = container;
+    return this;
+  }
+
+  /** Sets the minikube profile of the node target. */
+  public FileSyncer setProfile(String profile) {
+    this.profile = profile;
+    return this;
+  }
+
+  /** Sets the maximum number of targets synced at the same time. */
+  public FileSyncer setParallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1");
+    }
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  /**
+   * Syncs a directory to the targets.
+   *
+   * @param sourceDirectory the local directory
+   * @param destination the absolute path of the directory in the targets
+   * @param targets the targets: {@code kubectl exec} targets such as {@code pod/my-app} or {@code
+   *     deployment/my-app}, or {@link #NODE_TARGET}
+   * @param workDirectory the directory of the indexes and archives, which is not shared with other
+   *     tasks syncing to the same targets
+   * @return the results by target, in the order of {@code targets}; the targets that were up to
+   *     date are left out
+   */
+  public List<ParallelCommandRunner.Result> sync(
+      Path sourceDirectory, String destination, List<String> targets, Path workDirectory)
+      throws IOException, InterruptedException {
+    Map<String, String> files = hash(sourceDirectory);
+
+    ExecutorService executorService =
+        Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, targets.size())));
+    Map<String, Future<ParallelCommandRunner.Result>> futures = new LinkedHashMap<>();
+    try {
+      for (String target : targets) {
+        futures.put(
+            target,
+            executorService.submit(
+                () -> syncTarget(sourceDirectory, files, target, destination, workDirectory)));
+      }
+      List<ParallelCommandRunner.Result> results = new ArrayList<>();
+      for (Future<ParallelCommandRunner.Result> future : futures.values()) {
+        try {
+          ParallelCommandRunner.Result result = future.get();
+          if (result != null) {
+            results.add(result);
+          }
+        } catch (ExecutionException ex) {
+          // syncTarget catches all exceptions.
+          throw new IllegalStateException(ex.getCause());
+        }
+      }
+      return results;
+
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  /** @return the result, or {@code null} if the target was up to date */
+  private ParallelCommandRunner.Result syncTarget(
+      Path sourceDirectory,
+      Map<String, String> files,
+      String target,
+      String destination,
+      Path workDirectory) {
+    long start = System.nanoTime();
+    try {
+      String fileName = getIndexName(sourceDirectory, destination, target);
+      DeployIndex index = new DeployIndex(workDirectory.resolve(fileName + ".tsv"));
+      String syncId = index.readClusterId();
+      Map<String, DeployIndex.Entry> indexed = index.read();
+
+      List<String> changed = new ArrayList<>();
+      for (Map.Entry<String, String> file : files.entrySet()) {
+        DeployIndex.Entry entry = indexed.get(file.getKey());
+        if (entry == null || !entry.getHash().equals(file.getValue())) {
+          changed.add(file.getKey());
+        }
+      }
+      List<String> removed = new ArrayList<>(indexed.keySet());
+      removed.removeAll(files.keySet());
+      if (syncId == null || !syncId.equals(readMarker(target, destination))) {
+        // The target does not have the indexed files, for example because it was recreated.
+        syncId = String.format(Locale.ROOT, "%016x", RANDOM.nextLong());
+        changed = new ArrayList<>(files.keySet());
+        removed = Collections.emptyList();
+      } else if (changed.isEmpty() && removed.isEmpty()) {
+        return null;
+      }
+
+      Path archive = workDirectory.resolve(fileName + ".tar");
+      Files.createDirectories(workDirectory);
+      try (TarArchive tarArchive =
+          new TarArchive(new BufferedOutputStream(Files.newOutputStream(archive)))) {
+        for (String file : changed) {
+          tarArchive.addFile(file, sourceDirectory.resolve(file));
+        }
+        tarArchive.addFile(
+            MARKER_FILE, syncId.getBytes(StandardCharsets.UTF_8), System.currentTimeMillis());
+      }
+      try {
+        copy(archive, target, destination, syncId, removed);
+      } finally {
+        Files.deleteIfExists(archive);
+      }
+
+      Map<String, DeployIndex.Entry> entries = new TreeMap<>();
+      for (Map.Entry<String, String> file : files.entrySet()) {
+        entries.put(file.getKey(), new DeployIndex.Entry(file.getValue(), Collections.emptyList()));
+      }
+      index.write(syncId, entries);
+
+      long durationMillis = (System.nanoTime() - start) / 1_000_000;
+      logger.lifecycle(
+          String.format(
+              Locale.ROOT,
+              "Synced %d changed and %d removed file(s) to %s in %.1fs",
+              changed.size(),
+              removed.size(),
+              target,
+              durationMillis / 1000.0));
+      return new ParallelCommandRunner.Result(
+          target, ParallelCommandRunner.Result.Status.SUCCEEDED, durationMillis, null);
+
+    } catch (Exception ex) {
+      if (ex instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      return new ParallelCommandRunner.Result(
+          target,
+          ParallelCommandRunner.Result.Status.FAILED,
+          (System.nanoTime() - start) / 1_000_000,
+          ex);
+    }
+  }
+
+  /** @return the ID in the marker file of the target, or {@code null} if there is none */
+  private String readMarker(String target, String destination)
+      throws IOException, InterruptedException {
+    String marker = destination + "/" + MARKER_FILE;
+    List<String> command =
+        NODE_TARGET.equals(target)
+            ? Arrays.asList(
+                minikube,
+                "ssh",
+                "--profile=" + profile,
+                "--",
+                "cat " + ShellCoprocess.quote(marker))
+            : kubectlExec(target, false, "cat", marker);
+    List<String> output =
+        commandExecutorSupplier.get().setFailOnNonZeroExitCode(false).run(command);
+    return output.isEmpty() ? null : output.get(output.size() - 1).trim();
+  }
+
+  private void copy(
+      Path archive, String target, String destination, String syncId, List<String> removed)
+      throws IOException, InterruptedException {
+    if (NODE_TARGET.equals(target)) {
+      String nodeArchive = "/tmp/minikube-sync-" + syncId + ".tar";
+      commandExecutorSupplier
+          .get()
+          .run(
+              Arrays.asList(
+                  minikube, "cp", "--profile=" + profile, archive.toString(), nodeArchive));
+      StringBuilder script =
+          new StringBuilder("mkdir -p ")
+              .append(ShellCoprocess.quote(destination))
+              .append(" && tar -xf ")
+              .append(ShellCoprocess.quote(nodeArchive))
+              .append(" -C ")
+              .append(ShellCoprocess.quote(destination))
+              .append(" && rm -f ")
+              .append(ShellCoprocess.quote(nodeArchive));
+      if (!removed.isEmpty()) {
+        script.append(" && cd ").append(ShellCoprocess.quote(destination)).append(" && rm -f --");
+        for (String file : removed) {
+          script.append(' ').append(ShellCoprocess.quote(file));
+        }
+      }
+      commandExecutorSupplier
+          .get()
+          .run(Arrays.asList(minikube, "ssh", "--profile=" + profile, "--", script.toString()));
+      return;
+    }
+
+    // The archive is streamed to tar in the pod, which also deletes the removed files.
+    List<String> script = new ArrayList<>();
+    script.add("sh");
+    script.add("-c");
+    script.add(
+        "mkdir -p \"$0\" && tar -xf - -C \"$0\" && cd \"$0\""
+            + " && { [ $# -eq 0 ] || rm -f -- \"$@\"; }");
+    script.add(destination);
+    script.addAll(removed);
+    commandExecutorSupplier
+        .get()
+        .setInputFile(archive.toFile())
+        .run(kubectlExec(target, true, script.toArray(new String[0])));
+  }
+
+  private List<String> kubectlExec(String target, boolean stdin, String... command) {
+    List<String> kubectlCommand = new ArrayList<>();
+    kubectlCommand.addAll(
+        Arrays.asList(kubectl, "--context", context, "--namespace", namespace, "exec"));
+    if (stdin) {
+      kubectlCommand.add("-i");
+    }
+    kubectlCommand.add(target);
+    if (container != null) {
+      kubectlCommand.add("--container=" + container);
+    }
+    kubectlCommand.add("--");
+    kubectlCommand.addAll(Arrays.asList(command));
+    return kubectlCommand;
+  }
+
+  /**
+   * Hashes the files of a directory. Files whose size and modification time did not change since
+   * the last sync are not read again.
+   *
+   * @return the hashes by path relative to the directory, with {@code /} separators
+   */
+  @VisibleForTesting
+  Map<String, String> hash(Path directory) throws IOException {
+    Map<String, String> files = new TreeMap<>();
+    if (!Files.isDirectory(directory)) {
+      return files;
+    }
+    List<Path> paths;
+    try (Stream<Path> walk = Files.walk(directory)) {
+      paths = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+    }
+    for (Path path : paths) {
+      String relativePath = directory.relativize(path).toString().replace('\\', '/');
+      long size = Files.size(path);
+      long lastModifiedMillis = Files.getLastModifiedTime(path).toMillis();
+      HashedFile hashedFile = hashedFiles.get(relativePath);
+      if (hashedFile == null
+          || hashedFile.size != size
+          || hashedFile.lastModifiedMillis != lastModifiedMillis) {
+        hashedFile = new HashedFile(size, lastModifiedMillis, hashFile(path));
+        hashedFiles.put(relativePath, hashedFile);
+      }
+      files.put(relativePath, hashedFile.hash);
+    }
+    hashedFiles.keySet().retainAll(files.keySet());
+    return files;
+  }
+
+  /**
+   * Names the index of a target after the target, the source directory and the destination, so that
+   * syncs of other directories to the same target keep their own index.
+   *
+   * @param sourceDirectory the local directory
+   * @param destination the directory in the target
+   * @param target the target
+   * @return the file name of the index, without extension
+   */
+  @VisibleForTesting
+  static String getIndexName(Path sourceDirectory, String destination, String target) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(
+          (sourceDirectory.toAbsolutePath() + "\n" + destination).getBytes(StandardCharsets.UTF_8));
+      return target.replaceAll("[^A-Za-z0-9._-]", "_")
+          + "-"
+          + toHex(digest.digest()).substring(0, 12);
+
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("SHA-256 is not available", ex);
+    }
+  }
+
+  private static String hashFile(Path file) throws IOException {
+    try (InputStream inputStream = Files.newInputStream(file)) {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = inputStream.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+      return toHex(digest.digest());
+
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("SHA-256 is not available", ex);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder();
+    for (byte b : bytes) {
+      hex.append(String.format(Locale.ROOT, "%02x", b));
+    }
+    return hex.toString();
+  }
+}
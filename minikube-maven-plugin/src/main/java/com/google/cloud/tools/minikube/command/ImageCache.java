@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * minikube's local image cache ({@code ~/.minikube/cache/images}), which {@code minikube cache add}
+ * populates and {@code minikube start} loads images from instead of pulling them.
+ */
+public class ImageCache {
+
+  /** @return the default cache directory, under the minikube home directory */
+  public static Path getDefaultDirectory() {
+    return MinikubeHome.get().resolve("cache").resolve("images");
+  }
+
+  private final Path directory;
+  private final String architecture;
+
+  public ImageCache(Path directory) {
+    this(directory, getArchitecture(System.getProperty("os.arch")));
+  }
+
+  @VisibleForTesting
+  ImageCache(Path directory, String architecture) {
+    this.directory = directory;
+    this.architecture = architecture;
+  }
+
+  /**
+   * Checks whether an image is cached. minikube stores an image as a file named after its reference
+   * with {@code :} replaced by {@code _}, in an architecture subdirectory in newer versions. Both
+   * the reference as given and its fully qualified form are looked up.
+   *
+   * @param image the image reference
+   * @return {@code true} if the image is in the cache
+   */
+  public boolean contains(String image) {
+    Set<String> references = new LinkedHashSet<>();
+    references.add(image);
+    references.add(ImageLoader.normalizeReference(image));
+    for (String reference : references) {
+      String fileName = reference.replace(':', '_');
+      if (Files.isRegularFile(directory.resolve(architecture).resolve(fileName))
+          || Files.isRegularFile(directory.resolve(fileName))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Filters out the cached images.
+   *
+   * @param images the image references
+   * @return the images that are not in the cache, in order
+   */
+  public List<String> getMissing(List<String> images) {
+    List<String> missing = new ArrayList<>();
+    for (String image : images) {
+      if (!contains(image)) {
+        missing.add(image);
+      }
+    }
+    return missing;
+  }
+
+  /** Maps a Java {@code os.arch} to the architecture name minikube uses. */
+  @VisibleForTesting
+  static String getArchitecture(String osArch) {
+    switch (osArch) {
+      case "x86_64":
+      case "amd64":
+        return "amd64";
+      case "aarch64":
+      case "arm64":
+        return "arm64";
+      default:
+        return osArch;
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A local index of the images loaded into a minikube profile. Each line of the index file holds an
+ * image reference and the ID (content hash) of the image that was loaded for it, separated by a
+ * tab.
+ */
+public class ImageIndex {
+
+  /**
+   * Gets the default index file of a profile, under the minikube home directory.
+   *
+   * @param profile the minikube profile
+   * @return the index file
+   */
+  public static Path getDefaultFile(String profile) {
+    return MinikubeHome.get()
+        .resolve("image-index")
+        .resolve(profile.replaceAll("[^A-Za-z0-9._-]", "_") + ".tsv");
+  }
+
+  private final Path file;
+
+  public ImageIndex(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Reads the index. Malformed lines are skipped.
+   *
+   * @return the image IDs by image reference, or an empty map if there is no index yet
+   */
+  public Map<String, String> read() throws IOException {
+    Map<String, String> imageIds = new TreeMap<>();
+    if (!Files.exists(file)) {
+      return imageIds;
+    }
+    for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+      String[] fields = line.split("\t", -1);
+      if (fields.length == 2 && !fields[0].isEmpty() && !fields[1].isEmpty()) {
+        imageIds.put(fields[0], fields[1]);
+      }
+    }
+    return imageIds;
+  }
+
+  /**
+   * Replaces the index.
+   *
+   * @param imageIds the image IDs by image reference
+   */
+  public void write(Map<String, String> imageIds) throws IOException {
+    StringBuilder lines = new StringBuilder();
+    for (Map.Entry<String, String> entry : new TreeMap<>(imageIds).entrySet()) {
+      lines.append(entry.getKey()).append('\t').append(entry.getValue()).append('\n');
+    }
+
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+    // Writes to a temporary file first so that readers never see a partially written index.
+    // A unique temporary file keeps concurrent builds on the same profile from mixing their writes.
+    Path temporaryFile =
+        Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName() + ".", ".tmp");
+    try {
+      Files.write(temporaryFile, lines.toString().getBytes(StandardCharsets.UTF_8));
+      Files.move(
+          temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import java.util.function.Consumer;
+
+/**
+ * Parses the JSON objects {@code kubectl -o json} prints, one after the other with {@code --watch},
+ * from its output lines. kubectl pretty-prints each object, so an object starts with a line that is
+ * only <code>{</code> and ends with the next line that starts with <code>}</code>.
+ */
+public class KubectlOutputParser implements Consumer<String> {
+
+  private final JsonParser jsonParser = new JsonParser();
+  private final Consumer<JsonObject> listener;
+  private final StringBuilder object = new StringBuilder();
+
+  /** @param listener receives each parsed object */
+  public KubectlOutputParser(Consumer<JsonObject> listener) {
+    this.listener = listener;
+  }
+
+  @Override
+  public void accept(String line) {
+    if (object.length() == 0) {
+      if (!line.startsWith("{")) {
+        return;
+      }
+      if (line.trim().endsWith("}")) {
+        // The whole object is on one line.
+        parse(line);
+        return;
+      }
+    }
+
+    object.append(line).append('\n');
+    if (line.startsWith("}")) {
+      parse(object.toString());
+      object.setLength(0);
+    }
+  }
+
+  private void parse(String json) {
+    JsonElement element;
+    try {
+      element = jsonParser.parse(json);
+    } catch (JsonParseException ex) {
+      return;
+    }
+    if (element.isJsonObject()) {
+      listener.accept(element.getAsJsonObject());
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The features of a minikube version that tasks pick their code paths by. When the version is
+ * unknown, every feature is assumed to be supported so that the newest code path is tried.
+ */
+public class MinikubeCapabilities {
+
+  /** A feature that depends on the minikube version. */
+  public enum Capability {
+    /** {@code minikube pause}, and {@code minikube status} reporting a paused cluster. */
+    PAUSE(1, 5, 0),
+    /** Structured progress events with {@code --output=json}. */
+    JSON_OUTPUT(1, 10, 0),
+    /** {@code minikube image load}. */
+    IMAGE_LOAD(1, 17, 0),
+    /** {@code minikube image ls --format=json}. */
+    IMAGE_LIST(1, 20, 0);
+
+    private final int[] minimumVersion;
+
+    Capability(int... minimumVersion) {
+      this.minimumVersion = minimumVersion;
+    }
+
+    /** @return the first minikube version with the feature, for example {@code v1.5.0} */
+    public String getMinimumVersion() {
+      return "v" + minimumVersion[0] + "." + minimumVersion[1] + "." + minimumVersion[2];
+    }
+  }
+
+  /** The capabilities of a minikube binary whose version could not be determined. */
+  public static final MinikubeCapabilities UNKNOWN = new MinikubeCapabilities(null);
+
+  private static final Pattern VERSION_PATTERN =
+      Pattern.compile("v?([0-9]+)\\.([0-9]+)\\.([0-9]+)");
+
+  private final String version;
+  private final Set<Capability> supported;
+
+  /** @param version the minikube version, for example {@code v1.30.1}, or {@code null} */
+  public MinikubeCapabilities(String version) {
+    this.version = version;
+
+    int[] parsedVersion = version == null ? null : parseVersion(version);
+    Set<Capability> supported = EnumSet.noneOf(Capability.class);
+    for (Capability capability : Capability.values()) {
+      if (parsedVersion == null || compare(parsedVersion, capability.minimumVersion) >= 0) {
+        supported.add(capability);
+      }
+    }
+    this.supported = Collections.unmodifiableSet(supported);
+  }
+
+  /** @return the minikube version, or {@code null} if unknown */
+  public String getVersion() {
+    return version;
+  }
+
+  /** @return whether the version supports {@code capability} */
+  public boolean supports(Capability capability) {
+    return supported.contains(capability);
+  }
+
+  /** @return the supported capabilities */
+  public Set<Capability> getSupported() {
+    return supported;
+  }
+
+  @Override
+  public String toString() {
+    return "minikube " + (version == null ? "(unknown version)" : version) + " " + supported;
+  }
+
+  /**
+   * @return the major, minor and patch versions, or {@code null} if {@code version} is malformed
+   */
+  // @VisibleForTesting
+  static int[] parseVersion(String version) {
+    Matcher matcher = VERSION_PATTERN.matcher(version.trim());
+    if (!matcher.lookingAt()) {
+      return null;
+    }
+    return new int[] {
+      Integer.parseInt(matcher.group(1)),
+      Integer.parseInt(matcher.group(2)),
+      Integer.parseInt(matcher.group(3))
+    };
+  }
+
+  private static int compare(int[] version, int[] otherVersion) {
+    for (int i = 0; i < version.length; i++) {
+      if (version[i] != otherVersion[i]) {
+        return Integer.compare(version[i], otherVersion[i]);
+      }
+    }
+    return 0;
+  }
+}
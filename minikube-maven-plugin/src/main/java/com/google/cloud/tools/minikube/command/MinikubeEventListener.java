@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+/** Receives the events minikube emits with {@code --output=json}. */
+public interface MinikubeEventListener {
+
+  /**
+   * Called when minikube begins a new step.
+   *
+   * @param currentStep the index of the step
+   * @param totalSteps the total number of steps
+   * @param name the name of the step, for example "Creating VM"
+   * @param message the human-readable message of the step
+   */
+  default void onStep(int currentStep, int totalSteps, String name, String message) {}
+
+  /**
+   * Called when minikube reports download progress.
+   *
+   * @param artifact the artifact being downloaded
+   * @param progress the download progress between 0 and 1
+   */
+  default void onDownloadProgress(String artifact, double progress) {}
+
+  /** Called with an informational message. */
+  default void onInfo(String message) {}
+
+  /** Called with a warning message. */
+  default void onWarning(String message) {}
+
+  /** Called with an error message. */
+  default void onError(String message) {}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/** Utility class to locate minikube's {@code .minikube} directory. */
+public class MinikubeHome {
+
+  private MinikubeHome() {}
+
+  /**
+   * Gets the {@code .minikube} directory, honoring the {@code MINIKUBE_HOME} environment variable
+   * the same way minikube does.
+   */
+  public static Path get() {
+    return get(System.getenv("MINIKUBE_HOME"), System.getProperty("user.home"));
+  }
+
+  @VisibleForTesting
+  static Path get(String minikubeHomeEnv, String userHome) {
+    if (minikubeHomeEnv == null || minikubeHomeEnv.isEmpty()) {
+      return Paths.get(userHome, ".minikube");
+    }
+    Path minikubeHome = Paths.get(minikubeHomeEnv);
+    if (minikubeHome.getFileName() != null
+        && ".minikube".equals(minikubeHome.getFileName().toString())) {
+      return minikubeHome;
+    }
+    return minikubeHome.resolve(".minikube");
+  }
+}
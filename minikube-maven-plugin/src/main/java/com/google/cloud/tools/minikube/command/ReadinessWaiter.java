@@ -0,0 +1,266 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Waits for Kubernetes resources to become ready.
+ *
+ * <p>A resource is followed with {@code kubectl get --watch -o json}, so that the wait completes as
+ * soon as kubectl reports the resource ready. If the watch ends early (for example because the
+ * resource does not exist yet), the resource is polled instead, with an interval that doubles up to
+ * a maximum while the resource is not ready.
+ */
+public class ReadinessWaiter {
+
+  private static final long WATCH_CHECK_INTERVAL_MILLIS = 100;
+
+  private final Supplier<CommandExecutor> commandExecutorSupplier;
+  private final String kubectl;
+  private final String context;
+  private final BuildLogger logger;
+  private String namespace = "default";
+  private long initialPollIntervalMillis = 500;
+  private long maxPollIntervalMillis = 5000;
+
+  /**
+   * Creates a new waiter.
+   *
+   * @param commandExecutorSupplier supplies the executors the kubectl commands run with
+   * @param kubectl the kubectl executable
+   * @param context the kubectl context, which minikube names after the profile
+   * @param logger for logging the progress of the wait
+   */
+  public ReadinessWaiter(
+      Supplier<CommandExecutor> commandExecutorSupplier,
+      String kubectl,
+      String context,
+      BuildLogger logger) {
+    this.commandExecutorSupplier = commandExecutorSupplier;
+    this.kubectl = kubectl;
+    this.context = context;
+    this.logger = logger;
+  }
+
+  /** Sets the namespace of the resources. Nodes are not namespaced and ignore it. */
+  public ReadinessWaiter setNamespace(String namespace) {
+    this.namespace = namespace;
+    return this;
+  }
+
+  /** Sets the first and the maximum interval of the fallback polling. */
+  public ReadinessWaiter setPollIntervalMillis(long initialMillis, long maxMillis) {
+    this.initialPollIntervalMillis = initialMillis;
+    this.maxPollIntervalMillis = maxMillis;
+    return this;
+  }
+
+  /**
+   * Waits for a resource to be ready.
+   *
+   * @param target the resource, as {@code <kind>/<name>}, for example {@code deployment/my-app}
+   * @param deadlineNanos the {@link System#nanoTime()} by which the resource must be ready
+   * @throws IOException if the resource is not ready by the deadline
+   */
+  public void await(String target, long deadlineNanos) throws IOException, InterruptedException {
+    if (watch(target, deadlineNanos)) {
+      return;
+    }
+
+    logger.info("Watching " + target + " ended, polling it instead");
+    long intervalMillis = initialPollIntervalMillis;
+    while (!poll(target)) {
+      long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+      if (remainingMillis <= 0) {
+        throw new IOException("Timed out waiting for " + target + " to be ready");
+      }
+      Thread.sleep(Math.min(intervalMillis, remainingMillis));
+      intervalMillis = Math.min(intervalMillis * 2, maxPollIntervalMillis);
+    }
+  }
+
+  /**
+   * Follows the resource with a watch.
+   *
+   * @return {@code true} if the resource became ready, {@code false} if the watch ended before
+   * @throws IOException if the resource is not ready by the deadline
+   */
+  private boolean watch(String target, long deadlineNanos)
+      throws IOException, InterruptedException {
+    CountDownLatch ready = new CountDownLatch(1);
+    CommandExecutor.RunningCommand watch;
+    try {
+      watch =
+          commandExecutorSupplier
+              .get()
+              .setOutputListener(
+                  new KubectlOutputParser(
+                      object -> {
+                        if (isReady(object)) {
+                          ready.countDown();
+                        }
+                      }))
+              .start(buildCommand(target, "--watch"));
+    } catch (IOException ex) {
+      return false;
+    }
+
+    try {
+      while (!ready.await(WATCH_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+        if (!watch.isRunning()) {
+          return false;
+        }
+        if (System.nanoTime() - deadlineNanos >= 0) {
+          throw new IOException("Timed out waiting for " + target + " to be ready");
+        }
+      }
+      return true;
+
+    } finally {
+      watch.destroy();
+    }
+  }
+
+  /** @return {@code true} if the resource is ready */
+  private boolean poll(String target) throws InterruptedException {
+    List<String> output;
+    try {
+      output = commandExecutorSupplier.get().run(buildCommand(target));
+    } catch (IOException ex) {
+      // The resource may not exist yet.
+      return false;
+    }
+
+    List<JsonObject> objects = new ArrayList<>();
+    KubectlOutputParser parser = new KubectlOutputParser(objects::add);
+    output.forEach(parser);
+    return !objects.isEmpty() && isReady(objects.get(objects.size() - 1));
+  }
+
+  private List<String> buildCommand(String target, String... moreFlags) {
+    List<String> command = new ArrayList<>();
+    command.addAll(Arrays.asList(kubectl, "--context", context, "get", target));
+    if (!target.toLowerCase(Locale.ROOT).startsWith("node")) {
+      command.addAll(Arrays.asList("--namespace", namespace));
+    }
+    command.addAll(Arrays.asList("-o", "json"));
+    command.addAll(Arrays.asList(moreFlags));
+    return command;
+  }
+
+  /**
+   * Checks whether a Kubernetes object is ready. Deployments and stateful sets are ready when all
+   * their replicas of the current generation are available, pods and nodes when their {@code Ready}
+   * condition is true, and lists when they are not empty and all their items are ready.
+   *
+   * @param object the object as printed by {@code kubectl -o json}
+   * @return {@code true} if the object is ready
+   */
+  public static boolean isReady(JsonObject object) {
+    String kind = getString(object, "kind");
+    if (kind == null) {
+      return false;
+    }
+    JsonObject status = getObject(object, "status");
+    switch (kind) {
+      case "List":
+        JsonElement items = object.get("items");
+        if (items == null || !items.isJsonArray() || items.getAsJsonArray().size() == 0) {
+          return false;
+        }
+        for (JsonElement item : items.getAsJsonArray()) {
+          if (!item.isJsonObject() || !isReady(item.getAsJsonObject())) {
+            return false;
+          }
+        }
+        return true;
+
+      case "Deployment":
+        return isCurrentGeneration(object)
+            && getLong(status, "updatedReplicas") >= getReplicas(object)
+            && getLong(status, "availableReplicas") >= getReplicas(object);
+
+      case "StatefulSet":
+        return isCurrentGeneration(object)
+            && getLong(status, "readyReplicas") >= getReplicas(object);
+
+      case "Pod":
+      case "Node":
+        return hasTrueCondition(status, "Ready");
+
+      default:
+        return false;
+    }
+  }
+
+  private static boolean isCurrentGeneration(JsonObject object) {
+    return getLong(getObject(object, "status"), "observedGeneration")
+        >= getLong(getObject(object, "metadata"), "generation");
+  }
+
+  private static long getReplicas(JsonObject object) {
+    JsonObject spec = getObject(object, "spec");
+    return spec.has("replicas") ? getLong(spec, "replicas") : 1;
+  }
+
+  private static boolean hasTrueCondition(JsonObject status, String type) {
+    JsonElement conditions = status.get("conditions");
+    if (conditions == null || !conditions.isJsonArray()) {
+      return false;
+    }
+    for (JsonElement condition : conditions.getAsJsonArray()) {
+      if (condition.isJsonObject()
+          && type.equals(getString(condition.getAsJsonObject(), "type"))
+          && "True".equals(getString(condition.getAsJsonObject(), "status"))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static JsonObject getObject(JsonObject object, String member) {
+    JsonElement element = object.get(member);
+    return element != null && element.isJsonObject() ? element.getAsJsonObject() : new JsonObject();
+  }
+
+  private static String getString(JsonObject object, String member) {
+    JsonElement element = object.get(member);
+    return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+  }
+
+  private static long getLong(JsonObject object, String member) {
+    JsonElement element = object.get(member);
+    if (element == null || !element.isJsonPrimitive()) {
+      return 0;
+    }
+    try {
+      return element.getAsLong();
+    } catch (NumberFormatException ex) {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares the most recent timings of each operation and stage with a rolling baseline of the
+ * timings recorded before them. A slowdown is flagged as a regression when it is both large enough
+ * (relative increase of the mean) and statistically significant (z-score of the recent mean against
+ * the baseline distribution).
+ */
+public class TimingRegressionDetector {
+
+  /** The comparison of the recent timings of one operation or stage with its baseline. */
+  public static class Result {
+
+    private final String key;
+    private final int baselineSamples;
+    private final double baselineMeanMillis;
+    private final int recentSamples;
+    private final double recentMeanMillis;
+    private final boolean regression;
+
+    Result(
+        String key,
+        int baselineSamples,
+        double baselineMeanMillis,
+        int recentSamples,
+        double recentMeanMillis,
+        boolean regression) {
+      this.key = key;
+      this.baselineSamples = baselineSamples;
+      this.baselineMeanMillis = baselineMeanMillis;
+      this.recentSamples = recentSamples;
+      this.recentMeanMillis = recentMeanMillis;
+      this.regression = regression;
+    }
+
+    public String getKey() {
+      return key;
+    }
+
+    public int getBaselineSamples() {
+      return baselineSamples;
+    }
+
+    public double getBaselineMeanMillis() {
+      return baselineMeanMillis;
+    }
+
+    public int getRecentSamples() {
+      return recentSamples;
+    }
+
+    public double getRecentMeanMillis() {
+      return recentMeanMillis;
+    }
+
+    /** @return the relative change of the recent mean over the baseline mean */
+    public double getChange() {
+      return baselineMeanMillis <= 0 ? 0 : recentMeanMillis / baselineMeanMillis - 1;
+    }
+
+    public boolean isRegression() {
+      return regression;
+    }
+
+    /** @return a one-line summary for the build output */
+    public String format() {
+      return String.format(
+          Locale.ROOT,
+          "%s: baseline %.1fs (n=%d), recent %.1fs (n=%d), %+.0f%%%s",
+          key,
+          baselineMeanMillis / 1000,
+          baselineSamples,
+          recentMeanMillis / 1000,
+          recentSamples,
+          getChange() * 100,
+          regression ? " REGRESSION" : "");
+    }
+  }
+
+  /** Minimum number of baseline samples needed to judge the recent samples. */
+  private static final int MIN_BASELINE_SAMPLES = 3;
+
+  private int baselineSize = 20;
+  private int recentSize = 3;
+  private double significanceThreshold = 3.0;
+  private double minIncrease = 0.1;
+
+  /** Sets how many samples before the recent ones make up the rolling baseline. */
+  public TimingRegressionDetector setBaselineSize(int baselineSize) {
+    this.baselineSize = baselineSize;
+    return this;
+  }
+
+  /** Sets how many of the latest samples are compared with the baseline. */
+  public TimingRegressionDetector setRecentSize(int recentSize) {
+    this.recentSize = recentSize;
+    return this;
+  }
+
+  /** Sets the z-score above which a slowdown is significant. */
+  public TimingRegressionDetector setSignificanceThreshold(double significanceThreshold) {
+    this.significanceThreshold = significanceThreshold;
+    return this;
+  }
+
+  /** Sets the minimum relative increase of the mean (0.1 for 10%) to report a regression. */
+  public TimingRegressionDetector setMinIncrease(double minIncrease) {
+    this.minIncrease = minIncrease;
+    return this;
+  }
+
+  /**
+   * Analyzes the samples per operation and stage.
+   *
+   * @param samples the samples in the order they were recorded
+   * @return a result for every operation or stage with enough samples, in order of first appearance
+   */
+  public List<Result> analyze(List<TimingHistory.Sample> samples) {
+    Map<String, List<Long>> durationsByKey = new LinkedHashMap<>();
+    for (TimingHistory.Sample sample : samples) {
+      durationsByKey
+          .computeIfAbsent(sample.getKey(), ignored -> new ArrayList<>())
+          .add(sample.getDurationMillis());
+    }
+
+    List<Result> results = new ArrayList<>();
+    for (Map.Entry<String, List<Long>> entry : durationsByKey.entrySet()) {
+      List<Long> durations = entry.getValue();
+      int recentCount = Math.min(recentSize, durations.size());
+      int baselineEnd = durations.size() - recentCount;
+      int baselineStart = Math.max(0, baselineEnd - baselineSize);
+      if (recentCount == 0 || baselineEnd - baselineStart < MIN_BASELINE_SAMPLES) {
+        continue;
+      }
+
+      List<Long> baseline = durations.subList(baselineStart, baselineEnd);
+      List<Long> recent = durations.subList(baselineEnd, durations.size());
+      double baselineMean = mean(baseline);
+      double recentMean = mean(recent);
+      double baselineStandardDeviation = standardDeviation(baseline, baselineMean);
+
+      boolean largeEnough = recentMean >= baselineMean * (1 + minIncrease);
+      boolean significant;
+      if (baselineStandardDeviation == 0) {
+        significant = recentMean > baselineMean;
+      } else {
+        // Standard error of the mean of recentCount samples drawn from the baseline distribution.
+        double standardError = baselineStandardDeviation / Math.sqrt(recentCount);
+        significant = (recentMean - baselineMean) / standardError >= significanceThreshold;
+      }
+
+      results.add(
+          new Result(
+              entry.getKey(),
+              baseline.size(),
+              baselineMean,
+              recent.size(),
+              recentMean,
+              largeEnough && significant));
+    }
+    return results;
+  }
+
+  private static double mean(List<Long> values) {
+    double sum = 0;
+    for (long value : values) {
+      sum += value;
+    }
+    return sum / values.size();
+  }
+
+  private static double standardDeviation(List<Long> values, double mean) {
+    if (values.size() < 2) {
+      return 0;
+    }
+    double sumOfSquares = 0;
+    for (long value : values) {
+      sumOfSquares += (value - mean) * (value - mean);
+    }
+    return Math.sqrt(sumOfSquares / (values.size() - 1));
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.BackgroundProcess;
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Starts a long-running minikube command in the background and waits until it is ready. The command
+ * keeps running for the goals that follow, until the {@code stop-background} goal stops it or Maven
+ * exits.
+ */
+abstract class AbstractBackgroundMojo extends AbstractMojo {
+
+  /** Path to minikube executable. */
+  @Parameter(defaultValue = "minikube", required = true)
+  private String minikube = "minikube";
+
+  /** Flags to pass to the command, including its arguments. */
+  @Parameter @Nullable private List<String> flags;
+
+  /** The name the {@code stop-background} goal stops the command by. Defaults to the command. */
+  @Parameter @Nullable private String name;
+
+  /** The pattern of the output line that reports that the command is ready. */
+  @Parameter @Nullable private String readyPattern;
+
+  /** How long the command may take to get ready. */
+  @Parameter(defaultValue = "60")
+  private int readyTimeoutSeconds = 60;
+
+  /** How long the command may take to clean up when it is stopped, before it is killed. */
+  @Parameter(defaultValue = "10")
+  private int gracePeriodSeconds = 10;
+
+  private Supplier<CommandExecutor> commandExecutorSupplier = CommandExecutor::new;
+  @Nullable private MavenBuildLogger mavenBuildLogger;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    String processName = name == null ? getCommand() : name;
+    if (BackgroundProcesses.isRunning(processName)) {
+      getLog().info("minikube " + getCommand() + " is already running as " + processName);
+      return;
+    }
+
+    List<String> minikubeCommand = new ArrayList<>();
+    minikubeCommand.add(minikube);
+    minikubeCommand.add(getCommand());
+    if (flags != null) {
+      minikubeCommand.addAll(flags);
+    }
+    BackgroundProcess process =
+        new BackgroundProcess(
+            "minikube " + getCommand(),
+            minikubeCommand,
+            Pattern.compile(readyPattern == null ? getDefaultReadyPattern() : readyPattern));
+    try {
+      process.start(
+          commandExecutorSupplier.get().setLogger(getMavenBuildLogger()),
+          TimeUnit.SECONDS.toMillis(readyTimeoutSeconds));
+
+    } catch (InterruptedException | IOException ex) {
+      throw new MojoExecutionException(ex.getMessage(), ex);
+    }
+    BackgroundProcesses.add(processName, process, TimeUnit.SECONDS.toMillis(gracePeriodSeconds));
+    getLog().info("minikube " + getCommand() + " is running in the background as " + processName);
+  }
+
+  /** @return the minikube command, for example {@code mount} */
+  abstract String getCommand();
+
+  /** @return the pattern of the output line that reports that the command is ready */
+  abstract String getDefaultReadyPattern();
+
+  @VisibleForTesting
+  void setFlags(List<String> flags) {
+    this.flags = flags;
+  }
+
+  @VisibleForTesting
+  void setName(String name) {
+    this.name = name;
+  }
+
+  @VisibleForTesting
+  void setCommandExecutorSupplier(Supplier<CommandExecutor> commandExecutorSupplier) {
+    this.commandExecutorSupplier = commandExecutorSupplier;
+  }
+
+  /** @return the logger, bound to the log Maven injects before running the goal */
+  private MavenBuildLogger getMavenBuildLogger() {
+    return mavenBuildLogger == null ? new MavenBuildLogger(getLog()) : mavenBuildLogger;
+  }
+
+  @VisibleForTesting
+  void setMavenBuildLogger(MavenBuildLogger mavenBuildLogger) {
+    this.mavenBuildLogger = mavenBuildLogger;
+  }
+}
@@ -17,18 +17,43 @@
 package com.google.cloud.tools.minikube.maven;
 
 import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.cloud.tools.minikube.command.CommandFingerprint;
+import com.google.cloud.tools.minikube.command.MinikubeCapabilities;
+import com.google.cloud.tools.minikube.command.MinikubeEventParser;
+import com.google.cloud.tools.minikube.command.MinikubeHome;
+import com.google.cloud.tools.minikube.command.MinikubeStatus;
+import com.google.cloud.tools.minikube.command.MinikubeVersionCache;
+import com.google.cloud.tools.minikube.command.StageTimer;
+import com.google.cloud.tools.minikube.command.TimingHistory;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
 
 abstract class AbstractMinikubeMojo extends AbstractMojo {
 
+  private static final String JSON_OUTPUT_FLAG = "--output=json";
+
+  private static final ImmutableSet<String> RELEASE_GOALS = ImmutableSet.of("stop", "delete");
+
   /** Path to minikube executable. */
   @Parameter(defaultValue = "minikube", required = true)
   private String minikube;
@@ -36,21 +61,326 @@ abstract class AbstractMinikubeMojo extends AbstractMojo {
   /** Common flags to add when calling minikube. */
   @Parameter private List<String> flags;
 
+  /** Directory to write reports such as stage timings to. */
+  @Parameter(defaultValue = "${project.build.directory}", readonly = true)
+  @Nullable
+  private File buildDirectory;
+
+  /**
+   * Whether to skip the goal when a previous build ran the same command line and the cluster is
+   * still in the state that command left it in.
+   */
+  @Parameter(defaultValue = "true")
+  private boolean skipUnchanged = true;
+
+  /** File to append command timings to. Defaults to {@code ~/.minikube/build-timings.tsv}. */
+  @Parameter @Nullable private File timingsFile;
+
+  /**
+   * How long a cluster started for one module serves the other modules of the build: {@code MODULE}
+   * until no module that started it uses it anymore, or {@code SESSION} until the last module
+   * binding a cluster goal ran its {@code stop} and {@code delete} goals.
+   */
+  @Parameter(defaultValue = "MODULE")
+  private ClusterCoordinator.Scope lifecycleScope = ClusterCoordinator.Scope.MODULE;
+
+  @Parameter(defaultValue = "${plugin}", readonly = true)
+  @Nullable
+  private PluginDescriptor plugin;
+
+  @Parameter(defaultValue = "${session}", readonly = true)
+  @Nullable
+  private MavenSession session;
+
   private Supplier<CommandExecutor> commandExecutorSupplier = CommandExecutor::new;
-  private MavenBuildLogger mavenBuildLogger = new MavenBuildLogger(getLog());
+  @Nullable private MavenBuildLogger mavenBuildLogger;
+  @Nullable private MinikubeCapabilities capabilities;
 
   @Override
   public void execute() throws MojoExecutionException {
     List<String> minikubeCommand = buildMinikubeCommand();
+    // Older versions reject the flag, they are run without structured output and stage timings.
+    if (minikubeCommand.contains(JSON_OUTPUT_FLAG)
+        && !getCapabilities().supports(MinikubeCapabilities.Capability.JSON_OUTPUT)) {
+      getLog().info(getCapabilities() + " does not support " + JSON_OUTPUT_FLAG);
+      minikubeCommand = new ArrayList<>(minikubeCommand);
+      minikubeCommand.remove(JSON_OUTPUT_FLAG);
+    }
 
+    MinikubeStatus.State resultingState = getResultingState();
+    CommandFingerprint fingerprint = getFingerprint();
+    if (resultingState == null || fingerprint == null) {
+      runMinikube(getCommand(), minikubeCommand);
+      return;
+    }
+    if (isUpToDate(fingerprint, minikubeCommand, resultingState)) {
+      getLog()
+          .info("minikube " + getCommand() + " is up to date, the cluster is " + resultingState);
+      return;
+    }
+    // Skipping is an optimization, the goal must not fail because of its fingerprint.
+    try {
+      fingerprint.delete();
+    } catch (IOException ex) {
+      getLog().warn("Could not delete the fingerprint of minikube " + getCommand(), ex);
+    }
+    runMinikube(getCommand(), minikubeCommand);
     try {
-      commandExecutorSupplier.get().setLogger(mavenBuildLogger).run(minikubeCommand);
+      fingerprint.write(minikubeCommand, resultingState);
+    } catch (IOException ex) {
+      getLog().warn("Could not write the fingerprint of minikube " + getCommand(), ex);
+    }
+  }
+
+  /**
+   * Checks whether a previous build ran the same command line and the cluster is still in the state
+   * that command left it in.
+   */
+  private boolean isUpToDate(
+      CommandFingerprint fingerprint, List<String> minikubeCommand, MinikubeStatus.State state)
+      throws MojoExecutionException {
+    try {
+      if (!fingerprint.matches(minikubeCommand, state)) {
+        return false;
+      }
+    } catch (IOException ex) {
+      getLog().warn("Could not read the fingerprint of minikube " + getCommand(), ex);
+      return false;
+    }
+    // The cluster state can only be probed with structured output.
+    if (!getCapabilities().supports(MinikubeCapabilities.Capability.JSON_OUTPUT)) {
+      return false;
+    }
+    return queryState(MinikubeStatus.getProfileFlags(minikubeCommand)) == state;
+  }
+
+  /** @return the fingerprint of this goal, or {@code null} if it is not fingerprinted */
+  @Nullable
+  private CommandFingerprint getFingerprint() {
+    if (!skipUnchanged || buildDirectory == null) {
+      return null;
+    }
+    return new CommandFingerprint(
+        buildDirectory.toPath().resolve("minikube").resolve(getCommand() + ".fingerprint"));
+  }
+
+  /**
+   * Queries the state of the cluster with {@code minikube status}.
+   *
+   * @param profileFlags selects the profile to query
+   * @return the state of the cluster
+   */
+  MinikubeStatus.State queryState(List<String> profileFlags) throws MojoExecutionException {
+    List<String> statusCommand = new ArrayList<>();
+    statusCommand.add(getMinikube());
+    statusCommand.add("status");
+    statusCommand.add("--output=json");
+    statusCommand.addAll(profileFlags);
+
+    try {
+      // minikube status reports a stopped or missing cluster with a non-zero exit code.
+      MinikubeStatus.State state =
+          MinikubeStatus.parse(
+              getCommandExecutorSupplier()
+                  .get()
+                  .setFailOnNonZeroExitCode(false)
+                  .run(statusCommand));
+      getLog().debug("minikube state: " + state);
+      return state;
+
+    } catch (InterruptedException | IOException ex) {
+      throw new MojoExecutionException("Getting minikube status failed", ex);
+    }
+  }
+
+  /**
+   * Gets the capabilities of the minikube binary. Its version is queried once and cached in the
+   * minikube home, keyed by the binary's path, size and modification time.
+   */
+  MinikubeCapabilities getCapabilities() throws MojoExecutionException {
+    if (capabilities == null) {
+      try {
+        capabilities =
+            new MinikubeVersionCache(commandExecutorSupplier, MinikubeVersionCache.getDefaultFile())
+                .getCapabilities(minikube);
+      } catch (InterruptedException ex) {
+        throw new MojoExecutionException("Getting the minikube version failed", ex);
+      }
+      getLog().debug(capabilities.toString());
+    }
+    return capabilities;
+  }
+
+  /**
+   * Runs a minikube command, reporting and recording its timings.
+   *
+   * @param command the minikube command the timings are recorded for
+   * @param minikubeCommand the command line to run
+   */
+  void runMinikube(String command, List<String> minikubeCommand) throws MojoExecutionException {
+    // Times the steps of commands that emit structured output (--output=json).
+    StageTimer stageTimer = new StageTimer();
+    try {
+      commandExecutorSupplier
+          .get()
+          .setLogger(getMavenBuildLogger())
+          .setOutputListener(new MinikubeEventParser(stageTimer))
+          .run(minikubeCommand);
+      stageTimer.finish();
+
+      reportStageTimings(command, stageTimer);
+      recordTimings(command, getProfile(minikubeCommand), stageTimer);
 
     } catch (InterruptedException | IOException ex) {
       throw new MojoExecutionException(getDescription() + " failed", ex);
     }
   }
 
+  private void reportStageTimings(String command, StageTimer stageTimer) throws IOException {
+    if (stageTimer.getStages().isEmpty()) {
+      return;
+    }
+    stageTimer.formatReport(command).forEach(getMavenBuildLogger()::lifecycle);
+
+    if (buildDirectory == null) {
+      return;
+    }
+    Path timingsFile =
+        buildDirectory.toPath().resolve("minikube").resolve(command + "-stages.json");
+    stageTimer.writeJson(timingsFile, command);
+    getMavenBuildLogger().info("Wrote stage timings to " + timingsFile);
+  }
+
+  private void recordTimings(String command, String profile, StageTimer stageTimer) {
+    long now = System.currentTimeMillis();
+    List<TimingHistory.Sample> samples = new ArrayList<>();
+    samples.add(new TimingHistory.Sample(now, profile, command, "", stageTimer.getTotalMillis()));
+    for (StageTimer.Stage stage : stageTimer.getStages()) {
+      samples.add(
+          new TimingHistory.Sample(
+              now, profile, command, stage.getName(), stage.getDurationMillis()));
+    }
+
+    Path file = getTimingsFile();
+    try {
+      new TimingHistory(file).append(samples);
+
+    } catch (IOException ex) {
+      // Recording timings is best-effort and must not fail the build.
+      getMavenBuildLogger()
+          .warn("Could not record minikube timings to " + file + ": " + ex.getMessage());
+    }
+  }
+
+  /** @return the file command timings are recorded to */
+  Path getTimingsFile() {
+    if (timingsFile == null) {
+      return MinikubeHome.get().resolve("build-timings.tsv");
+    }
+    return timingsFile.toPath();
+  }
+
+  /** @return the path to the minikube executable */
+  String getMinikube() {
+    return minikube;
+  }
+
+  /** @return the build session, or {@code null} outside of a build */
+  @Nullable
+  MavenSession getSession() {
+    return session;
+  }
+
+  /** @return the coordinator of the goals changing the cluster across the build's modules */
+  ClusterCoordinator getClusterCoordinator() {
+    ClusterCoordinator clusterCoordinator = ClusterCoordinator.get(session);
+    if (session != null && plugin != null) {
+      clusterCoordinator.initReleaseGoals(
+          getReleaseGoals(session.getProjects(), plugin.getPluginLookupKey()));
+    }
+    return clusterCoordinator;
+  }
+
+  /**
+   * Stops or deletes the cluster, unless other modules of the build still need it.
+   *
+   * @param release stops or deletes the cluster
+   */
+  void releaseCluster(ClusterCoordinator.Action release) throws MojoExecutionException {
+    getClusterCoordinator()
+        .release(getProfile(), getModule(), getCommand(), lifecycleScope, getLog(), release);
+  }
+
+  /**
+   * @param projects the modules of the build
+   * @param pluginKey the {@code groupId:artifactId} of this plugin
+   * @return the {@code stop} and {@code delete} goals each module binds
+   */
+  @VisibleForTesting
+  static Map<String, Set<String>> getReleaseGoals(List<MavenProject> projects, String pluginKey) {
+    Map<String, Set<String>> releaseGoals = new LinkedHashMap<>();
+    for (MavenProject project : projects) {
+      Set<String> goals = new HashSet<>();
+      for (Plugin buildPlugin : project.getBuildPlugins()) {
+        if (!pluginKey.equals(buildPlugin.getKey())) {
+          continue;
+        }
+        for (PluginExecution execution : buildPlugin.getExecutions()) {
+          for (String goal : execution.getGoals()) {
+            if (RELEASE_GOALS.contains(goal)) {
+              goals.add(goal);
+            }
+          }
+        }
+      }
+      releaseGoals.put(project.getGroupId() + ":" + project.getArtifactId(), goals);
+    }
+    return releaseGoals;
+  }
+
+  /** @return the module the goal runs for */
+  String getModule() {
+    MavenProject project = session == null ? null : session.getCurrentProject();
+    if (project == null) {
+      return "";
+    }
+    return project.getGroupId() + ":" + project.getArtifactId();
+  }
+
+  /** @return the minikube profile this goal runs against */
+  String getProfile() {
+    return getProfile(buildMinikubeCommand());
+  }
+
+  /** @return the minikube profile the command runs against */
+  @VisibleForTesting
+  static String getProfile(List<String> minikubeCommand) {
+    List<String> profileFlags = MinikubeStatus.getProfileFlags(minikubeCommand);
+    if (profileFlags.isEmpty()) {
+      return "minikube";
+    }
+    return profileFlags.get(0).substring("--profile=".length());
+  }
+
+  Supplier<CommandExecutor> getCommandExecutorSupplier() {
+    return commandExecutorSupplier;
+  }
+
+  @VisibleForTesting
+  void setCapabilities(MinikubeCapabilities capabilities) {
+    this.capabilities = capabilities;
+  }
+
+  @VisibleForTesting
+  void setLifecycleScope(ClusterCoordinator.Scope lifecycleScope) {
+    this.lifecycleScope = lifecycleScope;
+  }
+
+  @VisibleForTesting
+  void setSession(MavenSession session) {
+    this.session = session;
+  }
+
   @VisibleForTesting
   void setMinikube(String minikube) {
     this.minikube = minikube;
@@ -61,6 +391,26 @@ abstract class AbstractMinikubeMojo extends AbstractMojo {
     this.flags = flags;
   }
 
+  @VisibleForTesting
+  void setBuildDirectory(File buildDirectory) {
+    this.buildDirectory = buildDirectory;
+  }
+
+  @VisibleForTesting
+  void setSkipUnchanged(boolean skipUnchanged) {
+    this.skipUnchanged = skipUnchanged;
+  }
+
+  @VisibleForTesting
+  void setTimingsFile(File timingsFile) {
+    this.timingsFile = timingsFile;
+  }
+
+  /** @return the logger, bound to the log Maven injects before running the goal */
+  MavenBuildLogger getMavenBuildLogger() {
+    return mavenBuildLogger == null ? new MavenBuildLogger(getLog()) : mavenBuildLogger;
+  }
+
   @VisibleForTesting
   void setMavenBuildLogger(MavenBuildLogger mavenBuildLogger) {
     this.mavenBuildLogger = mavenBuildLogger;
@@ -71,6 +421,14 @@ abstract class AbstractMinikubeMojo extends AbstractMojo {
     this.commandExecutorSupplier = commandExecutorSupplier;
   }
 
+  /**
+   * @return the state this goal leaves the cluster in, or {@code null} if the goal is always run
+   */
+  @Nullable
+  MinikubeStatus.State getResultingState() {
+    return null;
+  }
+
   /** @return what this goal does */
   abstract String getDescription();
 
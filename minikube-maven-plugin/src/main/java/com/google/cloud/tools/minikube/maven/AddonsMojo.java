@@ -0,0 +1,153 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.AddonEnabler;
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.cloud.tools.minikube.command.ParallelCommandRunner;
+import com.google.cloud.tools.minikube.command.ReadinessWaiter;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/** Enables minikube addons in parallel, skipping the addons already enabled. */
+@Mojo(name = "addons", threadSafe = true)
+class AddonsMojo extends AbstractMojo {
+
+  /** Path to minikube executable. */
+  @Parameter(defaultValue = "minikube", required = true)
+  private String minikube = "minikube";
+
+  /** Path to kubectl executable. */
+  @Parameter(defaultValue = "kubectl", required = true)
+  private String kubectl = "kubectl";
+
+  /** The kubectl context, which minikube names after the profile. */
+  @Parameter(defaultValue = "minikube", required = true)
+  private String context = "minikube";
+
+  /** The minikube profile. */
+  @Parameter(defaultValue = "minikube", required = true)
+  private String profile = "minikube";
+
+  /** The addons to enable. */
+  @Parameter @Nullable private List<String> addons;
+
+  /**
+   * The resources to wait for by addon, as comma-separated {@code [<namespace>/]<kind>/<name>},
+   * with {@code kube-system} as the default namespace.
+   */
+  @Parameter @Nullable private Map<String, String> readyTargets;
+
+  /** Maximum number of addons enabled at the same time. */
+  @Parameter(defaultValue = "2")
+  private int parallelism = 2;
+
+  /** How long to wait for the resources of all addons to be ready. */
+  @Parameter(defaultValue = "300")
+  private int timeoutSeconds = 300;
+
+  private Supplier<CommandExecutor> commandExecutorSupplier = CommandExecutor::new;
+  @Nullable private MavenBuildLogger mavenBuildLogger;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    if (addons == null || addons.isEmpty()) {
+      getLog().info("No minikube addons to enable");
+      return;
+    }
+
+    Map<String, List<String>> targets = new LinkedHashMap<>();
+    if (readyTargets != null) {
+      for (Map.Entry<String, String> addon : readyTargets.entrySet()) {
+        targets.put(
+            addon.getKey(),
+            Splitter.on(',').trimResults().omitEmptyStrings().splitToList(addon.getValue()));
+      }
+    }
+
+    MavenBuildLogger logger = getMavenBuildLogger();
+    List<ParallelCommandRunner.Result> results;
+    try {
+      results =
+          new AddonEnabler(commandExecutorSupplier, minikube, profile, logger)
+              .setParallelism(parallelism)
+              .setReadinessWaiterFactory(
+                  namespace ->
+                      new ReadinessWaiter(commandExecutorSupplier, kubectl, context, logger)
+                          .setNamespace(namespace))
+              .enable(
+                  addons, targets, System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds));
+
+    } catch (IOException | InterruptedException ex) {
+      throw new MojoExecutionException("Enabling minikube addons failed", ex);
+    }
+
+    for (ParallelCommandRunner.Result result : results) {
+      if (result.getStatus() != ParallelCommandRunner.Result.Status.SKIPPED) {
+        getLog().info(ParallelCommandRunner.formatResult(result));
+      }
+    }
+
+    String failures = ParallelCommandRunner.describeFailures(results);
+    if (!failures.isEmpty()) {
+      throw new MojoExecutionException("Failed to enable minikube addons: " + failures);
+    }
+  }
+
+  @VisibleForTesting
+  void setAddons(ImmutableList<String> addons) {
+    this.addons = addons;
+  }
+
+  @VisibleForTesting
+  void setReadyTargets(ImmutableMap<String, String> readyTargets) {
+    this.readyTargets = readyTargets;
+  }
+
+  @VisibleForTesting
+  void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  /** @return the logger, bound to the log Maven injects before running the goal */
+  private MavenBuildLogger getMavenBuildLogger() {
+    return mavenBuildLogger == null ? new MavenBuildLogger(getLog()) : mavenBuildLogger;
+  }
+
+  @VisibleForTesting
+  void setMavenBuildLogger(MavenBuildLogger mavenBuildLogger) {
+    this.mavenBuildLogger = mavenBuildLogger;
+  }
+
+  @VisibleForTesting
+  void setCommandExecutorSupplier(Supplier<CommandExecutor> commandExecutorSupplier) {
+    this.commandExecutorSupplier = commandExecutorSupplier;
+  }
+}
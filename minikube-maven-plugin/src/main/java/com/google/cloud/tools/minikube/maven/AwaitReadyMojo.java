@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.cloud.tools.minikube.command.MinikubeHome;
+import com.google.cloud.tools.minikube.command.ReadinessWaiter;
+import com.google.cloud.tools.minikube.command.TimingHistory;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/** Waits for Kubernetes resources in the minikube cluster to become ready. */
+@Mojo(name = "await-ready", threadSafe = true)
+class AwaitReadyMojo extends AbstractMojo {
+
+  /** Path to kubectl executable. */
+  @Parameter(defaultValue = "kubectl", required = true)
+  private String kubectl = "kubectl";
+
+  /** The kubectl context, which minikube names after the profile. */
+  @Parameter(defaultValue = "minikube", required = true)
+  private String context = "minikube";
+
+  /** The namespace of the resources. */
+  @Parameter(defaultValue = "default", required = true)
+  private String namespace = "default";
+
+  /** The resources to wait for, as {@code <kind>/<name>}, for example {@code deployment/my-app}. */
+  @Parameter @Nullable private List<String> targets;
+
+  /** How long to wait for all resources to be ready. */
+  @Parameter(defaultValue = "300")
+  private int timeoutSeconds = 300;
+
+  /** File to append the time to ready to. Defaults to {@code ~/.minikube/build-timings.tsv}. */
+  @Parameter @Nullable private File timingsFile;
+
+  private Supplier<CommandExecutor> commandExecutorSupplier = CommandExecutor::new;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    if (targets == null || targets.isEmpty()) {
+      getLog().info("No resources to wait for");
+      return;
+    }
+
+    ReadinessWaiter readinessWaiter =
+        new ReadinessWaiter(
+                commandExecutorSupplier, kubectl, context, new MavenBuildLogger(getLog()))
+            .setNamespace(namespace);
+
+    long start = System.nanoTime();
+    long deadline = start + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+    long now = System.currentTimeMillis();
+    List<TimingHistory.Sample> samples = new ArrayList<>();
+    try {
+      // Resources are awaited one after the other: the total is the time until the last one is
+      // ready.
+      for (String target : targets) {
+        readinessWaiter.await(target, deadline);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        getLog()
+            .info(
+                String.format(Locale.ROOT, "%s ready after %.1fs", target, elapsedMillis / 1000.0));
+        samples.add(new TimingHistory.Sample(now, context, "await-ready", target, elapsedMillis));
+      }
+
+    } catch (InterruptedException | IOException ex) {
+      throw new MojoExecutionException("Waiting for minikube resources failed", ex);
+    }
+    samples.add(
+        0,
+        new TimingHistory.Sample(
+            now,
+            context,
+            "await-ready",
+            "",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+
+    recordTimings(samples);
+  }
+
+  private void recordTimings(List<TimingHistory.Sample> samples) {
+    Path file =
+        timingsFile == null
+            ? MinikubeHome.get().resolve("build-timings.tsv")
+            : timingsFile.toPath();
+    try {
+      new TimingHistory(file).append(samples);
+
+    } catch (IOException ex) {
+      // Recording timings is best-effort and must not fail the build.
+      getLog().warn("Could not record minikube timings to " + file + ": " + ex.getMessage());
+    }
+  }
+
+  @VisibleForTesting
+  void setTargets(ImmutableList<String> targets) {
+    this.targets = targets;
+  }
+
+  @VisibleForTesting
+  void setTimeoutSeconds(int timeoutSeconds) {
+    this.timeoutSeconds = timeoutSeconds;
+  }
+
+  @VisibleForTesting
+  void setTimingsFile(File timingsFile) {
+    this.timingsFile = timingsFile;
+  }
+
+  @VisibleForTesting
+  void setCommandExecutorSupplier(Supplier<CommandExecutor> commandExecutorSupplier) {
+    this.commandExecutorSupplier = commandExecutorSupplier;
+  }
+}
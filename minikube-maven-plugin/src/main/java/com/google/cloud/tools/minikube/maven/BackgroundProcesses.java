@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.BackgroundProcess;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The commands started in the background by the {@code mount} and {@code tunnel} goals, by name.
+ * They run until the {@code stop-background} goal stops them, or until Maven exits.
+ */
+class BackgroundProcesses {
+
+  /** A started command and how long it may take to clean up when it is stopped. */
+  private static class Started {
+
+    private final BackgroundProcess process;
+    private final long gracePeriodMillis;
+
+    private Started(BackgroundProcess process, long gracePeriodMillis) {
+      this.process = process;
+      this.gracePeriodMillis = gracePeriodMillis;
+    }
+  }
+
+  private static final Map<String, Started> started = new LinkedHashMap<>();
+  private static boolean shutdownHookAdded;
+
+  private BackgroundProcesses() {}
+
+  /** @return {@code true} if the command named {@code name} was started and is still running */
+  static synchronized boolean isRunning(String name) {
+    Started process = started.get(name);
+    return process != null && process.process.isRunning();
+  }
+
+  /**
+   * Adds a started command, which is stopped when Maven exits unless it is stopped before.
+   *
+   * @param name the name the command is stopped by
+   * @param process the started command
+   * @param gracePeriodMillis how long the command may take to clean up when it is stopped
+   */
+  static synchronized void add(String name, BackgroundProcess process, long gracePeriodMillis) {
+    started.put(name, new Started(process, gracePeriodMillis));
+    if (!shutdownHookAdded) {
+      shutdownHookAdded = true;
+      Runtime.getRuntime()
+          .addShutdownHook(
+              new Thread(
+                  () -> {
+                    try {
+                      stop(null);
+                    } catch (InterruptedException ex) {
+                      // The remaining commands are left running.
+                    }
+                  },
+                  "minikube-background-processes"));
+    }
+  }
+
+  /**
+   * Stops started commands and the processes they started.
+   *
+   * @param name the name of the command to stop, or {@code null} to stop all commands
+   * @return the names of the stopped commands
+   */
+  static synchronized List<String> stop(String name) throws InterruptedException {
+    List<String> names = new ArrayList<>();
+    for (Map.Entry<String, Started> entry : new ArrayList<>(started.entrySet())) {
+      if (name == null || name.equals(entry.getKey())) {
+        entry.getValue().process.stop(entry.getValue().gracePeriodMillis);
+        started.remove(entry.getKey());
+        names.add(entry.getKey());
+      }
+    }
+    return names;
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.cloud.tools.minikube.command.ImageCache;
+import com.google.cloud.tools.minikube.command.ParallelCommandRunner;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/** Adds images to minikube's local image cache, skipping the images already cached. */
+@Mojo(name = "cache", threadSafe = true)
+class CacheMojo extends AbstractMojo {
+
+  /** Path to minikube executable. */
+  @Parameter(defaultValue = "minikube", required = true)
+  private String minikube = "minikube";
+
+  /** The images to cache. */
+  @Parameter @Nullable private List<String> images;
+
+  /** Maximum number of images cached at the same time. */
+  @Parameter(defaultValue = "4")
+  private int parallelism = 4;
+
+  /** minikube's image cache directory. Defaults to {@code ~/.minikube/cache/images}. */
+  @Parameter @Nullable private File cacheDirectory;
+
+  private Supplier<CommandExecutor> commandExecutorSupplier = CommandExecutor::new;
+  @Nullable private MavenBuildLogger mavenBuildLogger;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    if (images == null || images.isEmpty()) {
+      getLog().info("No images to add to the minikube cache");
+      return;
+    }
+
+    Path directory =
+        cacheDirectory == null ? ImageCache.getDefaultDirectory() : cacheDirectory.toPath();
+    List<String> missing = new ImageCache(directory).getMissing(images);
+    getLog()
+        .info(
+            (images.size() - missing.size())
+                + " of "
+                + images.size()
+                + " image(s) already in the minikube cache");
+
+    Map<String, List<String>> commands = new LinkedHashMap<>();
+    for (String image : missing) {
+      commands.put(image, Arrays.asList(minikube, "cache", "add", image));
+    }
+    List<ParallelCommandRunner.Result> results;
+    try {
+      results =
+          new ParallelCommandRunner(commandExecutorSupplier, getMavenBuildLogger(), parallelism)
+              .run(commands);
+
+    } catch (InterruptedException ex) {
+      throw new MojoExecutionException("Adding images to the minikube cache failed", ex);
+    }
+
+    for (ParallelCommandRunner.Result result : results) {
+      if (result.getStatus() != ParallelCommandRunner.Result.Status.SKIPPED) {
+        getLog().info(ParallelCommandRunner.formatResult(result));
+      }
+    }
+
+    String failures = ParallelCommandRunner.describeFailures(results);
+    if (!failures.isEmpty()) {
+      throw new MojoExecutionException("Failed to add images to the minikube cache: " + failures);
+    }
+  }
+
+  @VisibleForTesting
+  void setImages(ImmutableList<String> images) {
+    this.images = images;
+  }
+
+  @VisibleForTesting
+  void setCacheDirectory(File cacheDirectory) {
+    this.cacheDirectory = cacheDirectory;
+  }
+
+  /** @return the logger, bound to the log Maven injects before running the goal */
+  private MavenBuildLogger getMavenBuildLogger() {
+    return mavenBuildLogger == null ? new MavenBuildLogger(getLog()) : mavenBuildLogger;
+  }
+
+  @VisibleForTesting
+  void setMavenBuildLogger(MavenBuildLogger mavenBuildLogger) {
+    this.mavenBuildLogger = mavenBuildLogger;
+  }
+
+  @VisibleForTesting
+  void setCommandExecutorSupplier(Supplier<CommandExecutor> commandExecutorSupplier) {
+    this.commandExecutorSupplier = commandExecutorSupplier;
+  }
+}
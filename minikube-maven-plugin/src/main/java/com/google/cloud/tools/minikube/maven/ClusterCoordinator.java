@@ -0,0 +1,289 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+
+/**
+ * Coordinates the goals that change a minikube cluster across the modules of a build. In a parallel
+ * build ({@code -T}), modules sharing a profile would otherwise race to start, stop or delete it.
+ *
+ * <p>There is one coordinator per build session. Goals for the same profile run one at a time, and
+ * a cluster started for one module serves every other module of the build. With the {@link
+ * Scope#MODULE} scope, it is stopped or deleted once the last module using it releases it. Modules
+ * that bind no {@code stop} or {@code delete} goal never release it, so they do not count as users.
+ * With the {@link Scope#SESSION} scope, stopping or deleting it is deferred until every module of
+ * the build that binds a cluster goal ran its {@code stop} and {@code delete} goals, or until the
+ * session ends if a module never reaches them, for example because it failed or was excluded.
+ */
+class ClusterCoordinator {
+
+  /** How long a cluster started for one module serves the other modules. */
+  enum Scope {
+    /** Until no module that started the cluster is using it anymore. */
+    MODULE,
+    /** Until the last module of the build that binds a cluster goal is done with it. */
+    SESSION
+  }
+
+  /** A goal's action on the cluster. */
+  interface Action {
+    void run() throws MojoExecutionException;
+  }
+
+  /** The coordination state of a profile, guarded by itself. */
+  private static class ProfileState {
+
+    /** Whether the cluster was started and not released since. */
+    private boolean started;
+
+    /** The modules using the cluster that will release it. */
+    private final Set<String> users = new LinkedHashSet<>();
+
+    /** The release goals each module still has to run, for the {@code SESSION} scope. */
+    @Nullable private Map<String, Set<String>> pendingReleaseGoals;
+
+    /** The deferred release actions, by goal, in the order they are run. */
+    private final Map<String, Action> deferredReleases = new LinkedHashMap<>();
+
+    /** Logs the deferred releases if they run when the session ends. */
+    @Nullable private Log deferredReleaseLog;
+  }
+
+  private static final String SESSION_DATA_KEY = ClusterCoordinator.class.getName();
+
+  private final Map<String, ProfileState> profileStates = new HashMap<>();
+
+  /** The release goals ({@code stop}, {@code delete}) bound by each module of the build. */
+  private Map<String, Set<String>> releaseGoals = Collections.emptyMap();
+
+  /**
+   * Gets the coordinator of a build session.
+   *
+   * @param session the build session, or {@code null} outside of a build
+   * @return the session's coordinator, or a new one if there is no session
+   */
+  static ClusterCoordinator get(@Nullable MavenSession session) {
+    RepositorySystemSession repositorySession =
+        session == null ? null : session.getRepositorySession();
+    if (repositorySession == null) {
+      return new ClusterCoordinator();
+    }
+    // The repository session is shared by the per-module copies of the session in parallel builds.
+    SessionData data = repositorySession.getData();
+    Object coordinator = data.get(SESSION_DATA_KEY);
+    if (coordinator == null) {
+      ClusterCoordinator newCoordinator = new ClusterCoordinator();
+      if (data.set(SESSION_DATA_KEY, null, newCoordinator)) {
+        SessionEndListener.register(session, newCoordinator::releaseDeferred);
+      }
+      coordinator = data.get(SESSION_DATA_KEY);
+    }
+    return (ClusterCoordinator) coordinator;
+  }
+
+  /**
+   * Sets the release goals bound by each module of the build, unless they were already set.
+   *
+   * @param releaseGoals the {@code stop} and {@code delete} goals bound by each module
+   */
+  synchronized void initReleaseGoals(Map<String, Set<String>> releaseGoals) {
+    if (this.releaseGoals.isEmpty()) {
+      this.releaseGoals = releaseGoals;
+    }
+  }
+
+  /**
+   * Starts a profile's cluster for a module, unless it was already started for another module.
+   *
+   * @param profile the minikube profile
+   * @param module the module using the cluster
+   * @param log logs a skipped start
+   * @param start starts the cluster
+   * @return whether {@code start} ran
+   */
+  boolean start(String profile, String module, Log log, Action start)
+      throws MojoExecutionException {
+    ProfileState state = getState(profile);
+    synchronized (state) {
+      if (state.started) {
+        log.info("minikube profile " + profile + " was already started for " + state.users);
+        addUser(state, module);
+        return false;
+      }
+      start.run();
+      state.started = true;
+      addUser(state, module);
+      return true;
+    }
+  }
+
+  /**
+   * Releases a profile's cluster for a module, and stops or deletes it unless other modules still
+   * need it.
+   *
+   * @param profile the minikube profile
+   * @param module the module releasing the cluster
+   * @param goal the goal releasing the cluster, {@code stop} or {@code delete}
+   * @param scope how long the cluster serves the modules of the build
+   * @param log logs a skipped or deferred release
+   * @param release stops or deletes the cluster
+   * @return whether {@code release} ran
+   */
+  boolean release(String profile, String module, String goal, Scope scope, Log log, Action release)
+      throws MojoExecutionException {
+    ProfileState state = getState(profile);
+    synchronized (state) {
+      state.users.remove(module);
+
+      if (scope == Scope.MODULE) {
+        if (!state.users.isEmpty()) {
+          log.info("minikube profile " + profile + " is still used by " + state.users);
+          return false;
+        }
+        state.started = false;
+        release.run();
+        return true;
+      }
+
+      Set<String> pendingModules = completeReleaseGoal(state, module, goal);
+      // Keeps the order the goals were first deferred in, with the latest action for each goal.
+      state.deferredReleases.put(goal, release);
+      state.deferredReleaseLog = log;
+      if (!pendingModules.isEmpty()) {
+        log.info(
+            "Deferring minikube "
+                + goal
+                + " of profile "
+                + profile
+                + " until "
+                + pendingModules
+                + " are done");
+        return false;
+      }
+
+      List<Action> releases = new ArrayList<>(state.deferredReleases.values());
+      state.deferredReleases.clear();
+      state.started = false;
+      for (Action deferredRelease : releases) {
+        deferredRelease.run();
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Runs the releases that are still deferred when the session ends, because modules did not run
+   * their release goals. Failures are logged, since the build is already over.
+   */
+  void releaseDeferred() {
+    Map<String, ProfileState> states;
+    synchronized (this) {
+      states = new LinkedHashMap<>(profileStates);
+    }
+    for (Map.Entry<String, ProfileState> entry : states.entrySet()) {
+      ProfileState state = entry.getValue();
+      synchronized (state) {
+        if (state.deferredReleases.isEmpty()) {
+          continue;
+        }
+        Log log = state.deferredReleaseLog;
+        log.info(
+            "Running the deferred minikube "
+                + String.join(", ", state.deferredReleases.keySet())
+                + " of profile "
+                + entry.getKey()
+                + " at the end of the build, "
+                + state.pendingReleaseGoals.keySet()
+                + " did not run their release goals");
+        List<Action> releases = new ArrayList<>(state.deferredReleases.values());
+        state.deferredReleases.clear();
+        state.pendingReleaseGoals = null;
+        state.started = false;
+        for (Action deferredRelease : releases) {
+          try {
+            deferredRelease.run();
+          } catch (MojoExecutionException ex) {
+            log.error(ex.getMessage(), ex);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Runs an action on a profile's cluster, one at a time with the other goals for that profile.
+   *
+   * @param profile the minikube profile
+   * @param action the action to run
+   */
+  void run(String profile, Action action) throws MojoExecutionException {
+    ProfileState state = getState(profile);
+    synchronized (state) {
+      action.run();
+    }
+  }
+
+  /** Adds a module to the users of the cluster if it binds a release goal. */
+  private synchronized void addUser(ProfileState state, String module) {
+    // Without the release goals of the build, every module is assumed to release the cluster.
+    if (releaseGoals.isEmpty()
+        || !releaseGoals.getOrDefault(module, Collections.emptySet()).isEmpty()) {
+      state.users.add(module);
+    }
+  }
+
+  /** @return the modules that still have to run release goals */
+  private synchronized Set<String> completeReleaseGoal(
+      ProfileState state, String module, String goal) {
+    if (state.pendingReleaseGoals == null) {
+      state.pendingReleaseGoals = new LinkedHashMap<>();
+      for (Map.Entry<String, Set<String>> entry : releaseGoals.entrySet()) {
+        if (!entry.getValue().isEmpty()) {
+          state.pendingReleaseGoals.put(entry.getKey(), new HashSet<>(entry.getValue()));
+        }
+      }
+    }
+
+    Set<String> moduleGoals = state.pendingReleaseGoals.get(module);
+    if (moduleGoals != null) {
+      moduleGoals.remove(goal);
+      if (moduleGoals.isEmpty()) {
+        state.pendingReleaseGoals.remove(module);
+      }
+    }
+    return new LinkedHashSet<>(state.pendingReleaseGoals.keySet());
+  }
+
+  private synchronized ProfileState getState(String profile) {
+    return profileStates.computeIfAbsent(profile, key -> new ProfileState());
+  }
+}
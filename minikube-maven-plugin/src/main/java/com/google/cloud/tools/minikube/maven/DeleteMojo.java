@@ -17,14 +17,20 @@
 package com.google.cloud.tools.minikube.maven;
 
 import com.google.common.collect.ImmutableList;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 
-@Mojo(name = "delete")
+@Mojo(name = "delete", threadSafe = true)
 class DeleteMojo extends AbstractMinikubeMojo {
 
   @Parameter private CommandConfiguration delete;
 
+  @Override
+  public void execute() throws MojoExecutionException {
+    releaseCluster(super::execute);
+  }
+
   @Override
   String getDescription() {
     return "Deleting minikube cluster";
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.cloud.tools.minikube.command.DeployIndex;
+import com.google.cloud.tools.minikube.command.ManifestDeployer;
+import com.google.cloud.tools.minikube.command.MinikubeHome;
+import com.google.cloud.tools.minikube.command.ParallelCommandRunner;
+import com.google.cloud.tools.minikube.command.TimingHistory;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Applies a directory of Kubernetes manifests to the minikube cluster in dependency waves. Only the
+ * changed manifests are applied, and the resources of removed manifests are pruned.
+ */
+@Mojo(name = "deploy", threadSafe = true)
+class DeployMojo extends AbstractMojo {
+
+  /** Path to kubectl executable. */
+  @Parameter(defaultValue = "kubectl", required = true)
+  private String kubectl = "kubectl";
+
+  /** The kubectl context, which minikube names after the profile. */
+  @Parameter(defaultValue = "minikube", required = true)
+  private String context = "minikube";
+
+  /** The directory of the manifests to apply. */
+  @Parameter(defaultValue = "${project.basedir}/src/main/k8s", required = true)
+  private File manifestDirectory;
+
+  /** Maximum number of manifests applied at the same time. */
+  @Parameter(defaultValue = "4")
+  private int parallelism = 4;
+
+  /** Whether resources no manifest declares anymore are deleted. */
+  @Parameter(defaultValue = "true")
+  private boolean prune = true;
+
+  /**
+   * The deploy index file. Defaults to {@code
+   * ${project.build.directory}/minikube/deploy-index/<context>.tsv}.
+   */
+  @Parameter @Nullable private File indexFile;
+
+  @Parameter(defaultValue = "${project.build.directory}", required = true, readonly = true)
+  private File buildDirectory;
+
+  /** File to append the apply timings to. Defaults to {@code ~/.minikube/build-timings.tsv}. */
+  @Parameter @Nullable private File timingsFile;
+
+  private Supplier<CommandExecutor> commandExecutorSupplier = CommandExecutor::new;
+  @Nullable private MavenBuildLogger mavenBuildLogger;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    if (!manifestDirectory.isDirectory()) {
+      throw new MojoExecutionException("Manifest directory not found: " + manifestDirectory);
+    }
+
+    long start = System.nanoTime();
+    long now = System.currentTimeMillis();
+    Path index =
+        indexFile == null
+            ? DeployIndex.getDefaultFile(buildDirectory.toPath(), context)
+            : indexFile.toPath();
+    ManifestDeployer.Result result;
+    try {
+      result =
+          new ManifestDeployer(commandExecutorSupplier, kubectl, context, getMavenBuildLogger())
+              .setParallelism(parallelism)
+              .setIndexFile(index)
+              .setPrune(prune)
+              .deploy(manifestDirectory.toPath());
+
+    } catch (InterruptedException | IOException ex) {
+      throw new MojoExecutionException("Applying manifests failed", ex);
+    }
+
+    String failures = result.describeFailures();
+    if (!failures.isEmpty()) {
+      throw new MojoExecutionException("Failed to apply manifests: " + failures);
+    }
+
+    List<TimingHistory.Sample> samples = new ArrayList<>();
+    samples.add(
+        new TimingHistory.Sample(
+            now, context, "deploy", "", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+    for (ParallelCommandRunner.Result applied : result.getApplied()) {
+      samples.add(
+          new TimingHistory.Sample(
+              now, context, "deploy", applied.getName(), applied.getDurationMillis()));
+    }
+    recordTimings(samples);
+  }
+
+  private void recordTimings(List<TimingHistory.Sample> samples) {
+    Path file =
+        timingsFile == null
+            ? MinikubeHome.get().resolve("build-timings.tsv")
+            : timingsFile.toPath();
+    try {
+      new TimingHistory(file).append(samples);
+
+    } catch (IOException ex) {
+      // Recording timings is best-effort and must not fail the build.
+      getLog().warn("Could not record minikube timings to " + file + ": " + ex.getMessage());
+    }
+  }
+
+  @VisibleForTesting
+  void setManifestDirectory(File manifestDirectory) {
+    this.manifestDirectory = manifestDirectory;
+  }
+
+  @VisibleForTesting
+  void setIndexFile(File indexFile) {
+    this.indexFile = indexFile;
+  }
+
+  @VisibleForTesting
+  void setTimingsFile(File timingsFile) {
+    this.timingsFile = timingsFile;
+  }
+
+  @VisibleForTesting
+  void setCommandExecutorSupplier(Supplier<CommandExecutor> commandExecutorSupplier) {
+    this.commandExecutorSupplier = commandExecutorSupplier;
+  }
+
+  /** @return the logger, bound to the log Maven injects before running the goal */
+  private MavenBuildLogger getMavenBuildLogger() {
+    return mavenBuildLogger == null ? new MavenBuildLogger(getLog()) : mavenBuildLogger;
+  }
+
+  @VisibleForTesting
+  void setMavenBuildLogger(MavenBuildLogger mavenBuildLogger) {
+    this.mavenBuildLogger = mavenBuildLogger;
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.cloud.tools.minikube.command.DiagnosticsCollector;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Collects minikube logs and the pods' descriptions, logs and events into a compressed archive,
+ * running the collectors in parallel.
+ */
+@Mojo(name = "diagnostics", threadSafe = true)
+class DiagnosticsMojo extends AbstractMojo {
+
+  /** Path to minikube executable. */
+  @Parameter(defaultValue = "minikube", required = true)
+  private String minikube = "minikube";
+
+  /** Path to kubectl executable. */
+  @Parameter(defaultValue = "kubectl", required = true)
+  private String kubectl = "kubectl";
+
+  /** The minikube profile to collect diagnostics of. */
+  @Parameter(defaultValue = "minikube", required = true)
+  private String profile = "minikube";
+
+  /** The kubectl context of the cluster. */
+  @Parameter(defaultValue = "minikube", required = true)
+  private String context = "minikube";
+
+  /** The namespaces to collect pod diagnostics of. Defaults to all namespaces. */
+  @Parameter @Nullable private List<String> namespaces;
+
+  /** Maximum number of bytes written per collected file. */
+  @Parameter(defaultValue = "10485760")
+  private long maxBytes = 10 * 1024 * 1024;
+
+  /** Maximum number of collectors running at the same time. */
+  @Parameter(defaultValue = "4")
+  private int parallelism = 4;
+
+  /** {@code ZIP} for a single archive, {@code GZIP} for a directory of gzip files. */
+  @Parameter(defaultValue = "ZIP")
+  private DiagnosticsCollector.Format format = DiagnosticsCollector.Format.ZIP;
+
+  /** Directory to write the diagnostics to. */
+  @Parameter(defaultValue = "${project.build.directory}/minikube/diagnostics", required = true)
+  private File outputDirectory;
+
+  private Supplier<CommandExecutor> commandExecutorSupplier = CommandExecutor::new;
+  @Nullable private MavenBuildLogger mavenBuildLogger;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    try {
+      new DiagnosticsCollector(
+              commandExecutorSupplier, minikube, kubectl, profile, context, getMavenBuildLogger())
+          .setParallelism(parallelism)
+          .setMaxBytes(maxBytes)
+          .setNamespaces(namespaces == null ? Collections.emptyList() : namespaces)
+          .setFormat(format)
+          .collect(outputDirectory.toPath());
+
+    } catch (IOException | InterruptedException ex) {
+      throw new MojoExecutionException("Collecting minikube diagnostics failed", ex);
+    }
+  }
+
+  @VisibleForTesting
+  void setOutputDirectory(File outputDirectory) {
+    this.outputDirectory = outputDirectory;
+  }
+
+  @VisibleForTesting
+  void setProfile(String profile) {
+    this.profile = profile;
+  }
+
+  @VisibleForTesting
+  void setContext(String context) {
+    this.context = context;
+  }
+
+  @VisibleForTesting
+  void setFormat(DiagnosticsCollector.Format format) {
+    this.format = format;
+  }
+
+  /** @return the logger, bound to the log Maven injects before running the goal */
+  private MavenBuildLogger getMavenBuildLogger() {
+    return mavenBuildLogger == null ? new MavenBuildLogger(getLog()) : mavenBuildLogger;
+  }
+
+  @VisibleForTesting
+  void setMavenBuildLogger(MavenBuildLogger mavenBuildLogger) {
+    this.mavenBuildLogger = mavenBuildLogger;
+  }
+
+  @VisibleForTesting
+  void setCommandExecutorSupplier(Supplier<CommandExecutor> commandExecutorSupplier) {
+    this.commandExecutorSupplier = commandExecutorSupplier;
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.cloud.tools.minikube.command.DockerEnvCache;
+import com.google.cloud.tools.minikube.command.MinikubeDockerEnvParser;
+import com.google.cloud.tools.minikube.command.MinikubeHome;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+
+/**
+ * Resolves the minikube docker environment with {@code minikube docker-env} and exposes each
+ * variable as a project and session property, for example {@code
+ * ${minikube.docker-env.DOCKER_HOST}}, so that image build plugins can use minikube's docker
+ * daemon. The environment is resolved once per profile and build, and reused by all modules.
+ */
+@Mojo(name = "docker-env", threadSafe = true)
+class DockerEnvMojo extends AbstractMojo {
+
+  private static final String SESSION_DATA_KEY = DockerEnvMojo.class.getName();
+
+  /** Path to minikube executable. */
+  @Parameter(defaultValue = "minikube", required = true)
+  private String minikube = "minikube";
+
+  /** The minikube profile to get the docker environment of. */
+  @Parameter(defaultValue = "minikube", required = true)
+  private String profile = "minikube";
+
+  /** The prefix of the properties the variables are exposed as. */
+  @Parameter(defaultValue = "minikube.docker-env.", required = true)
+  private String propertyPrefix = "minikube.docker-env.";
+
+  /**
+   * Whether to cache the environment across builds, until minikube rewrites the profile's
+   * configuration when it starts the cluster.
+   */
+  @Parameter(defaultValue = "false")
+  private boolean cacheAcrossBuilds;
+
+  @Parameter(defaultValue = "${project}", readonly = true)
+  @Nullable
+  private MavenProject project;
+
+  @Parameter(defaultValue = "${session}", readonly = true)
+  @Nullable
+  private MavenSession session;
+
+  private Supplier<CommandExecutor> commandExecutorSupplier = CommandExecutor::new;
+  private DockerEnvCache dockerEnvCache =
+      new DockerEnvCache(DockerEnvCache.getDefaultDirectory(), MinikubeHome.get());
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    Map<String, Map<String, String>> sessionDockerEnvs = getSessionDockerEnvs();
+    Map<String, String> dockerEnv;
+    // Modules running in parallel wait for the first lookup instead of running their own.
+    synchronized (sessionDockerEnvs) {
+      dockerEnv = sessionDockerEnvs.get(profile);
+      if (dockerEnv == null) {
+        dockerEnv = resolveDockerEnv();
+        sessionDockerEnvs.put(profile, dockerEnv);
+      }
+    }
+
+    for (Map.Entry<String, String> entry : dockerEnv.entrySet()) {
+      String property = propertyPrefix + entry.getKey();
+      if (project != null) {
+        project.getProperties().setProperty(property, entry.getValue());
+      }
+      if (session != null) {
+        session.getUserProperties().setProperty(property, entry.getValue());
+      }
+      getLog().debug(property + "=" + entry.getValue());
+    }
+    getLog().info("Set " + dockerEnv.size() + " minikube docker environment properties");
+  }
+
+  private Map<String, String> resolveDockerEnv() throws MojoExecutionException {
+    try {
+      if (cacheAcrossBuilds) {
+        Map<String, String> cachedDockerEnv = dockerEnvCache.read(profile);
+        if (!cachedDockerEnv.isEmpty()) {
+          getLog().info("Using the cached docker environment of minikube profile " + profile);
+          return cachedDockerEnv;
+        }
+      }
+
+      List<String> dockerEnvCommand =
+          Arrays.asList(minikube, "docker-env", "--shell=none", "--profile=" + profile);
+      Map<String, String> dockerEnv =
+          Collections.unmodifiableMap(
+              MinikubeDockerEnvParser.parse(commandExecutorSupplier.get().run(dockerEnvCommand)));
+
+      if (cacheAcrossBuilds) {
+        dockerEnvCache.write(profile, dockerEnv);
+      }
+      return dockerEnv;
+
+    } catch (InterruptedException | IOException | IllegalArgumentException ex) {
+      throw new MojoExecutionException("Getting the minikube docker environment failed", ex);
+    }
+  }
+
+  /**
+   * @return the docker environments resolved in this build by profile, shared by the modules and
+   *     guarded by the map itself
+   */
+  private Map<String, Map<String, String>> getSessionDockerEnvs() {
+    RepositorySystemSession repositorySession =
+        session == null ? null : session.getRepositorySession();
+    if (repositorySession == null) {
+      return new HashMap<>();
+    }
+    SessionData data = repositorySession.getData();
+    Object dockerEnvs = data.get(SESSION_DATA_KEY);
+    if (dockerEnvs == null) {
+      data.set(SESSION_DATA_KEY, null, new HashMap<String, Map<String, String>>());
+      dockerEnvs = data.get(SESSION_DATA_KEY);
+    }
+    @SuppressWarnings("unchecked")
+    Map<String, Map<String, String>> sessionDockerEnvs =
+        (Map<String, Map<String, String>>) dockerEnvs;
+    return sessionDockerEnvs;
+  }
+
+  @VisibleForTesting
+  void setProfile(String profile) {
+    this.profile = profile;
+  }
+
+  @VisibleForTesting
+  void setCacheAcrossBuilds(boolean cacheAcrossBuilds) {
+    this.cacheAcrossBuilds = cacheAcrossBuilds;
+  }
+
+  @VisibleForTesting
+  void setProject(MavenProject project) {
+    this.project = project;
+  }
+
+  @VisibleForTesting
+  void setSession(MavenSession session) {
+    this.session = session;
+  }
+
+  @VisibleForTesting
+  void setDockerEnvCache(DockerEnvCache dockerEnvCache) {
+    this.dockerEnvCache = dockerEnvCache;
+  }
+
+  @VisibleForTesting
+  void setCommandExecutorSupplier(Supplier<CommandExecutor> commandExecutorSupplier) {
+    this.commandExecutorSupplier = commandExecutorSupplier;
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.cloud.tools.minikube.command.ImageLoader;
+import com.google.cloud.tools.minikube.command.MinikubeCapabilities;
+import com.google.cloud.tools.minikube.command.MinikubeVersionCache;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/** Loads images from the local docker daemon into minikube, skipping the unchanged ones. */
+@Mojo(name = "image-load", threadSafe = true)
+class ImageLoadMojo extends AbstractMojo {
+
+  /** Path to minikube executable. */
+  @Parameter(defaultValue = "minikube", required = true)
+  private String minikube = "minikube";
+
+  /** Path to docker executable the images are read from. */
+  @Parameter(defaultValue = "docker", required = true)
+  private String docker = "docker";
+
+  /** The minikube profile to load the images into. */
+  @Parameter(defaultValue = "minikube", required = true)
+  private String profile = "minikube";
+
+  /** The images to load. */
+  @Parameter @Nullable private List<String> images;
+
+  /** Maximum number of images loaded at the same time. */
+  @Parameter(defaultValue = "4")
+  private int parallelism = 4;
+
+  /** The image index file. Defaults to {@code ~/.minikube/image-index/<profile>.tsv}. */
+  @Parameter @Nullable private File indexFile;
+
+  private Supplier<CommandExecutor> commandExecutorSupplier = CommandExecutor::new;
+  @Nullable private MavenBuildLogger mavenBuildLogger;
+  @Nullable private MinikubeCapabilities capabilities;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    if (images == null || images.isEmpty()) {
+      getLog().info("No images to load into minikube");
+      return;
+    }
+
+    try {
+      if (capabilities == null) {
+        capabilities =
+            new MinikubeVersionCache(commandExecutorSupplier, MinikubeVersionCache.getDefaultFile())
+                .getCapabilities(minikube);
+      }
+      ImageLoader imageLoader =
+          new ImageLoader(commandExecutorSupplier, minikube, docker, profile, getMavenBuildLogger())
+              .setParallelism(parallelism)
+              .setCapabilities(capabilities);
+      if (indexFile != null) {
+        imageLoader.setIndexFile(indexFile.toPath());
+      }
+
+      ImageLoader.Result result = imageLoader.load(images);
+      getLog()
+          .info(
+              "Loaded "
+                  + result.getLoaded().size()
+                  + " image(s) into minikube, "
+                  + result.getSkipped().size()
+                  + " already up to date");
+
+    } catch (InterruptedException | IOException ex) {
+      throw new MojoExecutionException("Loading images into minikube failed", ex);
+    }
+  }
+
+  @VisibleForTesting
+  void setImages(ImmutableList<String> images) {
+    this.images = images;
+  }
+
+  @VisibleForTesting
+  void setCapabilities(MinikubeCapabilities capabilities) {
+    this.capabilities = capabilities;
+  }
+
+  @VisibleForTesting
+  void setIndexFile(File indexFile) {
+    this.indexFile = indexFile;
+  }
+
+  /** @return the logger, bound to the log Maven injects before running the goal */
+  private MavenBuildLogger getMavenBuildLogger() {
+    return mavenBuildLogger == null ? new MavenBuildLogger(getLog()) : mavenBuildLogger;
+  }
+
+  @VisibleForTesting
+  void setMavenBuildLogger(MavenBuildLogger mavenBuildLogger) {
+    this.mavenBuildLogger = mavenBuildLogger;
+  }
+
+  @VisibleForTesting
+  void setCommandExecutorSupplier(Supplier<CommandExecutor> commandExecutorSupplier) {
+    this.commandExecutorSupplier = commandExecutorSupplier;
+  }
+}
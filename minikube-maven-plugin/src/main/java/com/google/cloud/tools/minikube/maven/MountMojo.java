@@ -0,0 +1,38 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import org.apache.maven.plugins.annotations.Mojo;
+
+/**
+ * Mounts a host directory into minikube in the background, for example to run freshly built code
+ * from a {@code hostPath} volume instead of rebuilding images. The mount string ({@code <host
+ * directory>:<node directory>}) is passed in the flags.
+ */
+@Mojo(name = "mount", threadSafe = true)
+class MountMojo extends AbstractBackgroundMojo {
+
+  @Override
+  String getCommand() {
+    return "mount";
+  }
+
+  @Override
+  String getDefaultReadyPattern() {
+    return "Successfully mounted";
+  }
+}
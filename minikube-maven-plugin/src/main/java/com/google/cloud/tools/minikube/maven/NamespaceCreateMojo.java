@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.cloud.tools.minikube.command.NamespaceIsolation;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Creates a uniquely named, isolated namespace for the tests of the project, as a faster
+ * alternative to recreating the cluster for a clean state. The namespace is exposed as the {@code
+ * ${minikube.namespace}} project property, and deleted with the {@code namespace-delete} goal.
+ */
+@Mojo(name = "namespace-create", threadSafe = true)
+class NamespaceCreateMojo extends AbstractMojo {
+
+  /** The project property the namespace is exposed as. */
+  static final String NAMESPACE_PROPERTY = "minikube.namespace";
+
+  /** The project property the run of the namespace is exposed as. */
+  static final String RUN_PROPERTY = "minikube.namespace.run";
+
+  /** Path to kubectl executable. */
+  @Parameter(defaultValue = "kubectl", required = true)
+  private String kubectl = "kubectl";
+
+  /** The kubectl context, which minikube names after the profile. */
+  @Parameter(defaultValue = "minikube", required = true)
+  private String context = "minikube";
+
+  /** The prefix of the generated namespace name. */
+  @Parameter(defaultValue = "${project.artifactId}", required = true)
+  private String prefix = "test";
+
+  /** The namespace to create. Generated from the prefix and a random suffix by default. */
+  @Parameter @Nullable private String namespace;
+
+  @Parameter(defaultValue = "${project}", readonly = true)
+  @Nullable
+  private MavenProject project;
+
+  private Supplier<CommandExecutor> commandExecutorSupplier = CommandExecutor::new;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    String name = namespace == null ? NamespaceIsolation.newName(prefix) : namespace;
+    String runId = null;
+    if (project != null) {
+      // All namespaces of a project share its run, so that they are deleted together.
+      runId = project.getProperties().getProperty(RUN_PROPERTY);
+    }
+    if (runId == null) {
+      runId = NamespaceIsolation.newRunId();
+    }
+
+    try {
+      new NamespaceIsolation(
+              commandExecutorSupplier, kubectl, context, new MavenBuildLogger(getLog()))
+          .create(name, runId);
+
+    } catch (InterruptedException | IOException ex) {
+      throw new MojoExecutionException("Creating namespace " + name + " failed", ex);
+    }
+
+    if (project != null) {
+      project.getProperties().setProperty(NAMESPACE_PROPERTY, name);
+      project.getProperties().setProperty(RUN_PROPERTY, runId);
+    }
+  }
+
+  @VisibleForTesting
+  void setNamespace(String namespace) {
+    this.namespace = namespace;
+  }
+
+  @VisibleForTesting
+  void setProject(MavenProject project) {
+    this.project = project;
+  }
+
+  @VisibleForTesting
+  void setCommandExecutorSupplier(Supplier<CommandExecutor> commandExecutorSupplier) {
+    this.commandExecutorSupplier = commandExecutorSupplier;
+  }
+}
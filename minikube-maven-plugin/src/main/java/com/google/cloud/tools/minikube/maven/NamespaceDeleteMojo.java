@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.cloud.tools.minikube.command.NamespaceIsolation;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Deletes the namespaces created by the {@code namespace-create} goal. The namespaces are deleted
+ * without waiting: the cluster removes their resources in the background, while the build goes on.
+ */
+@Mojo(name = "namespace-delete", threadSafe = true)
+class NamespaceDeleteMojo extends AbstractMojo {
+
+  /** Path to kubectl executable. */
+  @Parameter(defaultValue = "kubectl", required = true)
+  private String kubectl = "kubectl";
+
+  /** The kubectl context, which minikube names after the profile. */
+  @Parameter(defaultValue = "minikube", required = true)
+  private String context = "minikube";
+
+  /**
+   * Whether to delete all isolated namespaces, including the ones left behind by earlier builds,
+   * instead of only the ones created for this project.
+   */
+  @Parameter(defaultValue = "false")
+  private boolean all;
+
+  @Parameter(defaultValue = "${project}", readonly = true)
+  @Nullable
+  private MavenProject project;
+
+  private Supplier<CommandExecutor> commandExecutorSupplier = CommandExecutor::new;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    String runId =
+        project == null
+            ? null
+            : project.getProperties().getProperty(NamespaceCreateMojo.RUN_PROPERTY);
+    if (!all && runId == null) {
+      getLog().info("No namespaces to delete");
+      return;
+    }
+
+    NamespaceIsolation namespaceIsolation =
+        new NamespaceIsolation(
+            commandExecutorSupplier, kubectl, context, new MavenBuildLogger(getLog()));
+    try {
+      if (all) {
+        namespaceIsolation.deleteAll();
+      } else {
+        namespaceIsolation.deleteRun(runId);
+      }
+
+    } catch (InterruptedException | IOException ex) {
+      throw new MojoExecutionException("Deleting namespaces failed", ex);
+    }
+  }
+
+  @VisibleForTesting
+  void setAll(boolean all) {
+    this.all = all;
+  }
+
+  @VisibleForTesting
+  void setProject(MavenProject project) {
+    this.project = project;
+  }
+
+  @VisibleForTesting
+  void setCommandExecutorSupplier(Supplier<CommandExecutor> commandExecutorSupplier) {
+    this.commandExecutorSupplier = commandExecutorSupplier;
+  }
+}
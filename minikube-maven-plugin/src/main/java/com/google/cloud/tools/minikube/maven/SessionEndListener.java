@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import javax.annotation.Nullable;
+import org.apache.maven.execution.AbstractExecutionListener;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+
+/**
+ * Forwards the events of a build to the listener it replaces, and runs an action when the session
+ * ends. Maven looks the listener up in the execution request for every event, so a goal can add it
+ * without the plugin being a build extension.
+ */
+class SessionEndListener implements ExecutionListener {
+
+  /**
+   * Runs an action when a session ends, even if modules failed or were skipped.
+   *
+   * @param session the build session
+   * @param onSessionEnd runs before the other listeners are told that the session ended
+   */
+  static void register(MavenSession session, Runnable onSessionEnd) {
+    MavenExecutionRequest request = session.getRequest();
+    if (request == null) {
+      return;
+    }
+    synchronized (request) {
+      request.setExecutionListener(
+          new SessionEndListener(request.getExecutionListener(), onSessionEnd));
+    }
+  }
+
+  private final ExecutionListener delegate;
+  private final Runnable onSessionEnd;
+
+  private SessionEndListener(@Nullable ExecutionListener delegate, Runnable onSessionEnd) {
+    this.delegate = delegate == null ? new AbstractExecutionListener() : delegate;
+    this.onSessionEnd = onSessionEnd;
+  }
+
+  @Override
+  public void sessionEnded(ExecutionEvent event) {
+    try {
+      onSessionEnd.run();
+    } finally {
+      delegate.sessionEnded(event);
+    }
+  }
+
+  @Override
+  public void projectDiscoveryStarted(ExecutionEvent event) {
+    delegate.projectDiscoveryStarted(event);
+  }
+
+  @Override
+  public void sessionStarted(ExecutionEvent event) {
+    delegate.sessionStarted(event);
+  }
+
+  @Override
+  public void projectSkipped(ExecutionEvent event) {
+    delegate.projectSkipped(event);
+  }
+
+  @Override
+  public void projectStarted(ExecutionEvent event) {
+    delegate.projectStarted(event);
+  }
+
+  @Override
+  public void projectSucceeded(ExecutionEvent event) {
+    delegate.projectSucceeded(event);
+  }
+
+  @Override
+  public void projectFailed(ExecutionEvent event) {
+    delegate.projectFailed(event);
+  }
+
+  @Override
+  public void mojoSkipped(ExecutionEvent event) {
+    delegate.mojoSkipped(event);
+  }
+
+  @Override
+  public void mojoStarted(ExecutionEvent event) {
+    delegate.mojoStarted(event);
+  }
+
+  @Override
+  public void mojoSucceeded(ExecutionEvent event) {
+    delegate.mojoSucceeded(event);
+  }
+
+  @Override
+  public void mojoFailed(ExecutionEvent event) {
+    delegate.mojoFailed(event);
+  }
+
+  @Override
+  public void forkStarted(ExecutionEvent event) {
+    delegate.forkStarted(event);
+  }
+
+  @Override
+  public void forkSucceeded(ExecutionEvent event) {
+    delegate.forkSucceeded(event);
+  }
+
+  @Override
+  public void forkFailed(ExecutionEvent event) {
+    delegate.forkFailed(event);
+  }
+
+  @Override
+  public void forkedProjectStarted(ExecutionEvent event) {
+    delegate.forkedProjectStarted(event);
+  }
+
+  @Override
+  public void forkedProjectSucceeded(ExecutionEvent event) {
+    delegate.forkedProjectSucceeded(event);
+  }
+
+  @Override
+  public void forkedProjectFailed(ExecutionEvent event) {
+    delegate.forkedProjectFailed(event);
+  }
+}
@@ -16,16 +16,171 @@
 
 package com.google.cloud.tools.minikube.maven;
 
+import com.google.cloud.tools.minikube.command.MinikubeCapabilities;
+import com.google.cloud.tools.minikube.command.MinikubeStatus;
+import com.google.cloud.tools.minikube.command.ResourcePlanner;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 
-@Mojo(name = "start")
+@Mojo(name = "start", threadSafe = true)
 class StartMojo extends AbstractMinikubeMojo {
 
+  /** How the cluster is started. */
+  enum StartPolicy {
+    /** Always runs {@code minikube start}. */
+    ALWAYS,
+    /**
+     * Chooses from the cluster state: resumes a paused cluster with {@code minikube unpause}, does
+     * nothing if the cluster is running, and runs {@code minikube start} otherwise.
+     */
+    AUTO
+  }
+
+  /** How the cluster's CPUs and memory are chosen. */
+  enum ResourcePolicy {
+    /** Uses the {@code --cpus} and {@code --memory} flags, or minikube's defaults. */
+    STATIC,
+    /**
+     * Plans the CPUs and memory the flags do not set from the host's capacity, shared with the
+     * other running minikube clusters.
+     */
+    AUTO
+  }
+
   @Parameter @Nullable private CommandConfiguration start;
 
+  /** How the cluster is started: {@code ALWAYS} or {@code AUTO}. */
+  @Parameter(defaultValue = "ALWAYS")
+  private StartPolicy startPolicy = StartPolicy.ALWAYS;
+
+  /** How the cluster's CPUs and memory are chosen: {@code STATIC} or {@code AUTO}. */
+  @Parameter(defaultValue = "STATIC")
+  private ResourcePolicy resourcePolicy = ResourcePolicy.STATIC;
+
+  private Supplier<ResourcePlanner.Resources> hostResources = ResourcePlanner::detectHost;
+  private ImmutableList<String> plannedFlags = ImmutableList.of();
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    // Modules sharing the profile are served by the start that ran first in the build.
+    getClusterCoordinator().start(getProfile(), getModule(), getLog(), this::startCluster);
+  }
+
+  private void startCluster() throws MojoExecutionException {
+    if (startPolicy == StartPolicy.AUTO && supportsPause()) {
+      List<String> profileFlags = MinikubeStatus.getProfileFlags(buildMinikubeCommand());
+      switch (queryState(profileFlags)) {
+        case RUNNING:
+          getLog().info("minikube is already running");
+          return;
+        case PAUSED:
+          getLog().info("minikube is paused, resuming it");
+          List<String> unpauseCommand = new ArrayList<>();
+          unpauseCommand.add(getMinikube());
+          unpauseCommand.add("unpause");
+          unpauseCommand.addAll(profileFlags);
+          runMinikube("unpause", unpauseCommand);
+          return;
+        default:
+          break;
+      }
+    }
+    if (resourcePolicy == ResourcePolicy.AUTO) {
+      plannedFlags = planResources();
+    }
+    super.execute();
+  }
+
+  /** @return the flags for the planned CPUs and memory */
+  private ImmutableList<String> planResources() throws MojoExecutionException {
+    List<String> minikubeCommand = buildMinikubeCommand();
+    String profile = getProfile(minikubeCommand);
+    int clusters = countOtherRunningClusters(profile) + 1;
+
+    ResourcePlanner.Resources host = hostResources.get();
+    ResourcePlanner.Resources plan = ResourcePlanner.plan(host, clusters);
+    List<String> planFlags = ResourcePlanner.getFlags(plan, minikubeCommand);
+    getLog()
+        .info(
+            "Planned "
+                + plan
+                + " for minikube profile "
+                + profile
+                + ", one of "
+                + clusters
+                + " clusters on a host with "
+                + host
+                + (planFlags.isEmpty() ? ", the flags set both" : ": " + planFlags));
+    if (ResourcePlanner.isOvercommitted(host, plan, clusters)) {
+      getLog().warn("The host cannot give each of " + clusters + " clusters the minimum resources");
+    }
+    return ImmutableList.copyOf(planFlags);
+  }
+
+  private int countOtherRunningClusters(String profile) throws MojoExecutionException {
+    MinikubeCapabilities capabilities = getCapabilities();
+    if (!capabilities.supports(MinikubeCapabilities.Capability.JSON_OUTPUT)) {
+      getLog().info(capabilities + " cannot list profiles, planning for one cluster");
+      return 0;
+    }
+    try {
+      // minikube profile list fails when there are no profiles yet.
+      return ResourcePlanner.countRunningProfiles(
+          getCommandExecutorSupplier()
+              .get()
+              .setFailOnNonZeroExitCode(false)
+              .run(Arrays.asList(getMinikube(), "profile", "list", "--output=json")),
+          profile);
+
+    } catch (IOException ex) {
+      getLog().warn("Could not list minikube profiles: " + ex.getMessage());
+      return 0;
+
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return 0;
+    }
+  }
+
+  private boolean supportsPause() throws MojoExecutionException {
+    MinikubeCapabilities capabilities = getCapabilities();
+    if (capabilities.supports(MinikubeCapabilities.Capability.PAUSE)) {
+      return true;
+    }
+    // The cluster state cannot be queried reliably, starting is always correct.
+    getLog().info(capabilities + " cannot report a paused cluster, starting it");
+    return false;
+  }
+
+  @VisibleForTesting
+  void setResourcePolicy(ResourcePolicy resourcePolicy) {
+    this.resourcePolicy = resourcePolicy;
+  }
+
+  @VisibleForTesting
+  void setHostResources(Supplier<ResourcePlanner.Resources> hostResources) {
+    this.hostResources = hostResources;
+  }
+
+  @VisibleForTesting
+  void setStartPolicy(StartPolicy startPolicy) {
+    this.startPolicy = startPolicy;
+  }
+
+  @Override
+  MinikubeStatus.State getResultingState() {
+    return MinikubeStatus.State.RUNNING;
+  }
+
   @Override
   String getDescription() {
     return "Starting minikube cluster";
@@ -39,8 +194,8 @@ class StartMojo extends AbstractMinikubeMojo {
   @Override
   ImmutableList<String> getMoreFlags() {
     if (start == null) {
-      return ImmutableList.of();
+      return plannedFlags;
     }
-    return start.getFlags();
+    return ImmutableList.<String>builder().addAll(start.getFlags()).addAll(plannedFlags).build();
   }
 }
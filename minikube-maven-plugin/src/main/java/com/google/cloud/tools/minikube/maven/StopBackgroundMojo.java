@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Stops the commands the {@code mount} and {@code tunnel} goals started in the background, together
+ * with the processes they started.
+ */
+@Mojo(name = "stop-background", threadSafe = true)
+class StopBackgroundMojo extends AbstractMojo {
+
+  /** The name of the command to stop. Defaults to all commands. */
+  @Parameter @Nullable private String name;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    List<String> stopped;
+    try {
+      stopped = BackgroundProcesses.stop(name);
+
+    } catch (InterruptedException ex) {
+      throw new MojoExecutionException("Stopping background commands was interrupted", ex);
+    }
+    if (stopped.isEmpty()) {
+      getLog().info("No background commands to stop");
+    } else {
+      getLog().info("Stopped " + String.join(", ", stopped));
+    }
+  }
+
+  @VisibleForTesting
+  void setName(String name) {
+    this.name = name;
+  }
+}
@@ -16,15 +16,131 @@
 
 package com.google.cloud.tools.minikube.maven;
 
+import com.google.cloud.tools.minikube.command.DiagnosticsCollector;
+import com.google.cloud.tools.minikube.command.MinikubeStatus;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 
-@Mojo(name = "stop")
+@Mojo(name = "stop", threadSafe = true)
 class StopMojo extends AbstractMinikubeMojo {
 
+  private static final Pattern FAILSAFE_FAILURE_COUNT =
+      Pattern.compile("<(errors|failures)>\\s*([0-9]+)\\s*</\\1>");
+
   @Parameter private CommandConfiguration stop;
 
+  /**
+   * Whether to collect diagnostics (see the {@code diagnostics} goal) before stopping, when the
+   * build or its integration tests failed.
+   */
+  @Parameter(defaultValue = "true")
+  private boolean diagnosticsOnFailure = true;
+
+  /** Path to kubectl executable, used for collecting diagnostics. */
+  @Parameter(defaultValue = "kubectl", required = true)
+  private String kubectl = "kubectl";
+
+  /** Directory to write the diagnostics collected on failure to. */
+  @Parameter(defaultValue = "${project.build.directory}/minikube/diagnostics")
+  @Nullable
+  private File diagnosticsDirectory;
+
+  /** The summary the integration tests' results are read from. */
+  @Parameter(defaultValue = "${project.build.directory}/failsafe-reports/failsafe-summary.xml")
+  @Nullable
+  private File failsafeSummaryFile;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    if (diagnosticsOnFailure && diagnosticsDirectory != null && isBuildFailed()) {
+      collectDiagnostics(diagnosticsDirectory.toPath());
+    }
+    releaseCluster(super::execute);
+  }
+
+  private boolean isBuildFailed() {
+    MavenSession session = getSession();
+    if (session != null && session.getResult().hasExceptions()) {
+      return true;
+    }
+    try {
+      return failsafeSummaryFile != null && hasTestFailures(failsafeSummaryFile.toPath());
+
+    } catch (IOException ex) {
+      getLog().warn("Could not read " + failsafeSummaryFile + ": " + ex.getMessage());
+      return false;
+    }
+  }
+
+  /** Collecting diagnostics is best-effort and must not keep the cluster from stopping. */
+  private void collectDiagnostics(Path outputDirectory) {
+    getLog().info("Build failed, collecting minikube diagnostics before stopping");
+    String profile = getProfile();
+    try {
+      new DiagnosticsCollector(
+              getCommandExecutorSupplier(),
+              getMinikube(),
+              kubectl,
+              profile,
+              profile,
+              getMavenBuildLogger())
+          .collect(outputDirectory);
+
+    } catch (IOException ex) {
+      getLog().warn("Could not collect minikube diagnostics: " + ex.getMessage());
+
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * @param failsafeSummaryFile the {@code failsafe-summary.xml} written by the failsafe plugin
+   * @return whether any integration test failed or errored
+   */
+  @VisibleForTesting
+  static boolean hasTestFailures(Path failsafeSummaryFile) throws IOException {
+    if (!Files.exists(failsafeSummaryFile)) {
+      return false;
+    }
+    Matcher matcher =
+        FAILSAFE_FAILURE_COUNT.matcher(
+            new String(Files.readAllBytes(failsafeSummaryFile), StandardCharsets.UTF_8));
+    while (matcher.find()) {
+      if (Integer.parseInt(matcher.group(2)) > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @VisibleForTesting
+  void setFailsafeSummaryFile(File failsafeSummaryFile) {
+    this.failsafeSummaryFile = failsafeSummaryFile;
+  }
+
+  @VisibleForTesting
+  void setDiagnosticsDirectory(File diagnosticsDirectory) {
+    this.diagnosticsDirectory = diagnosticsDirectory;
+  }
+
+  @Override
+  MinikubeStatus.State getResultingState() {
+    return MinikubeStatus.State.STOPPED;
+  }
+
   @Override
   String getDescription() {
     return "Stopping minikube cluster";
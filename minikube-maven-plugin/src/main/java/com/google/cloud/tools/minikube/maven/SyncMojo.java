@@ -0,0 +1,179 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.cloud.tools.minikube.command.FileSyncer;
+import com.google.cloud.tools.minikube.command.ParallelCommandRunner;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Copies the changed files of a directory into running pods or the minikube node, so that
+ * recompiled classes or resources reach the cluster without rebuilding and redeploying the image.
+ * In continuous mode, the directory is synced again whenever it changes until the build is
+ * interrupted.
+ */
+@Mojo(name = "sync", threadSafe = true)
+class SyncMojo extends AbstractMojo {
+
+  /** Path to minikube executable. */
+  @Parameter(defaultValue = "minikube", required = true)
+  private String minikube = "minikube";
+
+  /** Path to kubectl executable. */
+  @Parameter(defaultValue = "kubectl", required = true)
+  private String kubectl = "kubectl";
+
+  /** The kubectl context, which minikube names after the profile. */
+  @Parameter(defaultValue = "minikube", required = true)
+  private String context = "minikube";
+
+  /** The namespace of the pods. */
+  @Parameter(defaultValue = "default", required = true)
+  private String namespace = "default";
+
+  /** The container of the pods. Defaults to their default container. */
+  @Parameter @Nullable private String container;
+
+  /** The minikube profile of the node target. */
+  @Parameter(defaultValue = "minikube", required = true)
+  private String profile = "minikube";
+
+  /** The directory to sync. */
+  @Parameter(defaultValue = "${project.build.outputDirectory}", required = true)
+  private File sourceDirectory;
+
+  /** The directory in the targets. Defaults to the classes directory of Jib images. */
+  @Parameter(defaultValue = "/app/classes", required = true)
+  private String destination = "/app/classes";
+
+  /** The pods (such as {@code pod/my-app} or {@code deployment/my-app}) or {@code node}. */
+  @Parameter @Nullable private List<String> targets;
+
+  /** Maximum number of targets synced at the same time. */
+  @Parameter(defaultValue = "4")
+  private int parallelism = 4;
+
+  /** Whether to keep syncing changes until the build is interrupted. */
+  @Parameter(property = "minikube.sync.continuous", defaultValue = "false")
+  private boolean continuous = false;
+
+  /** How often the directory is checked for changes in continuous mode. */
+  @Parameter(defaultValue = "1000")
+  private long pollIntervalMillis = 1000;
+
+  @Parameter(defaultValue = "${project.build.directory}", required = true, readonly = true)
+  private File buildDirectory;
+
+  @Parameter(defaultValue = "${mojoExecution}", readonly = true)
+  @Nullable
+  private MojoExecution mojoExecution;
+
+  private Supplier<CommandExecutor> commandExecutorSupplier = CommandExecutor::new;
+  @Nullable private MavenBuildLogger mavenBuildLogger;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    if (targets == null || targets.isEmpty()) {
+      throw new MojoExecutionException("No sync targets configured");
+    }
+    FileSyncer fileSyncer =
+        new FileSyncer(commandExecutorSupplier, kubectl, minikube, getMavenBuildLogger())
+            .setContext(context)
+            .setNamespace(namespace)
+            .setContainer(container)
+            .setProfile(profile)
+            .setParallelism(parallelism);
+
+    try {
+      if (!continuous) {
+        String failures = ParallelCommandRunner.describeFailures(syncOnce(fileSyncer));
+        if (!failures.isEmpty()) {
+          throw new MojoExecutionException("Failed to sync files: " + failures);
+        }
+        return;
+      }
+
+      getLog().info("Syncing " + sourceDirectory + " to " + targets + ", interrupt to stop");
+      while (true) {
+        String failures = ParallelCommandRunner.describeFailures(syncOnce(fileSyncer));
+        if (!failures.isEmpty()) {
+          // The failed targets are retried with the next poll, for example once a pod restarted.
+          getLog().warn("Failed to sync files: " + failures);
+        }
+        Thread.sleep(pollIntervalMillis);
+      }
+
+    } catch (InterruptedException | IOException ex) {
+      throw new MojoExecutionException("Syncing files failed", ex);
+    }
+  }
+
+  private List<ParallelCommandRunner.Result> syncOnce(FileSyncer fileSyncer)
+      throws IOException, InterruptedException {
+    return fileSyncer.sync(
+        sourceDirectory.toPath(),
+        destination,
+        targets,
+        // Each execution keeps its own indexes, also when syncing to the same targets.
+        buildDirectory
+            .toPath()
+            .resolve("minikube")
+            .resolve("sync")
+            .resolve(mojoExecution == null ? "default" : mojoExecution.getExecutionId()));
+  }
+
+  @VisibleForTesting
+  void setSourceDirectory(File sourceDirectory) {
+    this.sourceDirectory = sourceDirectory;
+  }
+
+  @VisibleForTesting
+  void setBuildDirectory(File buildDirectory) {
+    this.buildDirectory = buildDirectory;
+  }
+
+  @VisibleForTesting
+  void setTargets(List<String> targets) {
+    this.targets = targets;
+  }
+
+  @VisibleForTesting
+  void setCommandExecutorSupplier(Supplier<CommandExecutor> commandExecutorSupplier) {
+    this.commandExecutorSupplier = commandExecutorSupplier;
+  }
+
+  /** @return the logger, bound to the log Maven injects before running the goal */
+  private MavenBuildLogger getMavenBuildLogger() {
+    return mavenBuildLogger == null ? new MavenBuildLogger(getLog()) : mavenBuildLogger;
+  }
+
+  @VisibleForTesting
+  void setMavenBuildLogger(MavenBuildLogger mavenBuildLogger) {
+    this.mavenBuildLogger = mavenBuildLogger;
+  }
+}
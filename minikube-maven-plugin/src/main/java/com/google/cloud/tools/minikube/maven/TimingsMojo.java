@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.MinikubeHome;
+import com.google.cloud.tools.minikube.command.TimingHistory;
+import com.google.cloud.tools.minikube.command.TimingRegressionDetector;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/** Reports recorded minikube timings against their rolling baselines and flags regressions. */
+@Mojo(name = "timings", requiresProject = false, threadSafe = true)
+class TimingsMojo extends AbstractMojo {
+
+  /** File command timings are recorded to. Defaults to {@code ~/.minikube/build-timings.tsv}. */
+  @Parameter @Nullable private File timingsFile;
+
+  /** Number of samples in the rolling baseline. */
+  @Parameter(defaultValue = "20")
+  private int baselineSize = 20;
+
+  /** Number of latest samples compared with the baseline. */
+  @Parameter(defaultValue = "3")
+  private int recentSize = 3;
+
+  /** z-score above which a slowdown is significant. */
+  @Parameter(defaultValue = "3.0")
+  private double significanceThreshold = 3.0;
+
+  /** Minimum relative slowdown (0.1 for 10%) reported as a regression. */
+  @Parameter(defaultValue = "0.1")
+  private double minIncrease = 0.1;
+
+  /** Whether to fail the build when a regression is found. */
+  @Parameter(defaultValue = "false")
+  private boolean failOnRegression;
+
+  @Override
+  public void execute() throws MojoExecutionException, MojoFailureException {
+    Path file =
+        timingsFile == null
+            ? MinikubeHome.get().resolve("build-timings.tsv")
+            : timingsFile.toPath();
+
+    List<TimingHistory.Sample> samples;
+    try {
+      samples = new TimingHistory(file).read();
+
+    } catch (IOException ex) {
+      throw new MojoExecutionException("Reading minikube timings failed", ex);
+    }
+
+    List<TimingRegressionDetector.Result> results =
+        new TimingRegressionDetector()
+            .setBaselineSize(baselineSize)
+            .setRecentSize(recentSize)
+            .setSignificanceThreshold(significanceThreshold)
+            .setMinIncrease(minIncrease)
+            .analyze(samples);
+
+    if (results.isEmpty()) {
+      getLog().info("Not enough minikube timings recorded in " + file);
+      return;
+    }
+
+    int regressions = 0;
+    for (TimingRegressionDetector.Result result : results) {
+      if (result.isRegression()) {
+        regressions++;
+        getLog().warn(result.format());
+      } else {
+        getLog().info(result.format());
+      }
+    }
+
+    if (regressions > 0 && failOnRegression) {
+      throw new MojoFailureException(regressions + " minikube timing regression(s) detected");
+    }
+  }
+
+  @VisibleForTesting
+  void setTimingsFile(File timingsFile) {
+    this.timingsFile = timingsFile;
+  }
+
+  @VisibleForTesting
+  void setFailOnRegression(boolean failOnRegression) {
+    this.failOnRegression = failOnRegression;
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import org.apache.maven.plugins.annotations.Mojo;
+
+/** Routes the {@code LoadBalancer} services of minikube to the host in the background. */
+@Mojo(name = "tunnel", threadSafe = true)
+class TunnelMojo extends AbstractBackgroundMojo {
+
+  @Override
+  String getCommand() {
+    return "tunnel";
+  }
+
+  @Override
+  String getDefaultReadyPattern() {
+    // Older versions only print the tunnel status once the routes are set up.
+    return "Tunnel successfully started|^\\s*Status:";
+  }
+}
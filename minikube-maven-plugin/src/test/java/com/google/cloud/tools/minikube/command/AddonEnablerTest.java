@@ -0,0 +1,190 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/** Tests for {@link AddonEnabler}. */
+public class AddonEnablerTest {
+
+  private static final List<String> LIST_COMMAND =
+      Arrays.asList("minikube", "addons", "list", "--profile=dev", "-o", "json");
+  private static final List<String> ADDONS_LIST =
+      Collections.singletonList(
+          "{\"ingress\":{\"Profile\":\"dev\",\"Status\":\"disabled\"},"
+              + "\"metrics-server\":{\"Profile\":\"dev\",\"Status\":\"disabled\"},"
+              + "\"registry\":{\"Profile\":\"dev\",\"Status\":\"disabled\"},"
+              + "\"storage-provisioner\":{\"Profile\":\"dev\",\"Status\":\"enabled\"}}");
+
+  private CommandExecutor mockCommandExecutor;
+  private ReadinessWaiter mockReadinessWaiter;
+  private AddonEnabler testAddonEnabler;
+
+  @Before
+  public void setUp() throws IOException, InterruptedException {
+    mockCommandExecutor = Mockito.mock(CommandExecutor.class);
+    mockReadinessWaiter = Mockito.mock(ReadinessWaiter.class);
+    Mockito.when(mockCommandExecutor.setLogger(Mockito.any())).thenReturn(mockCommandExecutor);
+    Mockito.when(mockCommandExecutor.run(LIST_COMMAND)).thenReturn(ADDONS_LIST);
+
+    testAddonEnabler =
+        new AddonEnabler(
+                () -> mockCommandExecutor, "minikube", "dev", Mockito.mock(BuildLogger.class))
+            .setReadinessWaiterFactory(namespace -> mockReadinessWaiter);
+  }
+
+  @Test
+  public void testParseStates() throws IOException {
+    Map<String, Boolean> states =
+        AddonEnabler.parseStates(Arrays.asList("! a warning", ADDONS_LIST.get(0)));
+
+    Assert.assertEquals(
+        Arrays.asList("ingress", "metrics-server", "registry", "storage-provisioner"),
+        Arrays.asList(states.keySet().toArray()));
+    Assert.assertFalse(states.get("ingress"));
+    Assert.assertTrue(states.get("storage-provisioner"));
+  }
+
+  @Test
+  public void testParseStates_unexpectedOutput() {
+    try {
+      AddonEnabler.parseStates(Collections.singletonList("Exiting due to GUEST_STATUS"));
+      Assert.fail("IOException expected");
+    } catch (IOException ex) {
+      Assert.assertEquals(
+          "Unexpected output of minikube addons list: Exiting due to GUEST_STATUS",
+          ex.getMessage());
+    }
+  }
+
+  @Test
+  public void testEnable_skipsEnabledAddons() throws IOException, InterruptedException {
+    List<ParallelCommandRunner.Result> results =
+        testAddonEnabler.enable(
+            Arrays.asList("storage-provisioner", "ingress"), Collections.emptyMap(), 0);
+
+    Assert.assertEquals(1, results.size());
+    Assert.assertEquals("ingress", results.get(0).getName());
+    Assert.assertTrue(results.get(0).isSucceeded());
+    Mockito.verify(mockCommandExecutor)
+        .run(Arrays.asList("minikube", "addons", "enable", "ingress", "--profile=dev"));
+    Mockito.verify(mockCommandExecutor, Mockito.never())
+        .run(Arrays.asList("minikube", "addons", "enable", "storage-provisioner", "--profile=dev"));
+  }
+
+  @Test
+  public void testEnable_unknownAddon() throws IOException, InterruptedException {
+    try {
+      testAddonEnabler.enable(Arrays.asList("ingress", "nope"), Collections.emptyMap(), 0);
+      Assert.fail("IOException expected");
+    } catch (IOException ex) {
+      Assert.assertEquals("Unknown minikube addon(s): nope", ex.getMessage());
+    }
+    Mockito.verify(mockCommandExecutor, Mockito.never())
+        .run(Arrays.asList("minikube", "addons", "enable", "ingress", "--profile=dev"));
+  }
+
+  @Test
+  public void testEnable_limitsParallelism() throws IOException, InterruptedException {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    Mockito.doAnswer(
+            invocation -> {
+              if (LIST_COMMAND.equals(invocation.getArgument(0))) {
+                return ADDONS_LIST;
+              }
+              maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+              Thread.sleep(100);
+              running.decrementAndGet();
+              return Collections.emptyList();
+            })
+        .when(mockCommandExecutor)
+        .run(Mockito.anyList());
+
+    List<ParallelCommandRunner.Result> results =
+        testAddonEnabler
+            .setParallelism(2)
+            .enable(
+                Arrays.asList("ingress", "metrics-server", "registry"), Collections.emptyMap(), 0);
+
+    Assert.assertEquals(3, results.size());
+    Assert.assertEquals(2, maxRunning.get());
+  }
+
+  @Test
+  public void testEnable_readinessWaitDoesNotHoldSlot() throws IOException, InterruptedException {
+    CountDownLatch registryEnabled = new CountDownLatch(1);
+    Mockito.doAnswer(
+            invocation -> {
+              registryEnabled.countDown();
+              return Collections.emptyList();
+            })
+        .when(mockCommandExecutor)
+        .run(Arrays.asList("minikube", "addons", "enable", "registry", "--profile=dev"));
+    // The ingress controller only becomes ready once the next addon was enabled.
+    Mockito.doAnswer(
+            invocation -> {
+              if (!registryEnabled.await(10, TimeUnit.SECONDS)) {
+                throw new IOException("Timed out waiting for ingress to be ready");
+              }
+              return null;
+            })
+        .when(mockReadinessWaiter)
+        .await(Mockito.eq("deployment/ingress-nginx-controller"), Mockito.anyLong());
+
+    List<ParallelCommandRunner.Result> results =
+        testAddonEnabler
+            .setParallelism(1)
+            .enable(
+                Arrays.asList("ingress", "registry"),
+                Collections.singletonMap(
+                    "ingress",
+                    Collections.singletonList("ingress-nginx/deployment/ingress-nginx-controller")),
+                System.nanoTime() + TimeUnit.SECONDS.toNanos(30));
+
+    Assert.assertTrue(results.get(0).isSucceeded());
+    Assert.assertTrue(results.get(1).isSucceeded());
+  }
+
+  @Test
+  public void testEnable_failureSkipsRemainingAddons() throws IOException, InterruptedException {
+    Mockito.when(
+            mockCommandExecutor.run(
+                Arrays.asList("minikube", "addons", "enable", "ingress", "--profile=dev")))
+        .thenThrow(new IOException("enable failed"));
+
+    List<ParallelCommandRunner.Result> results =
+        testAddonEnabler
+            .setParallelism(1)
+            .enable(Arrays.asList("ingress", "registry"), Collections.emptyMap(), 0);
+
+    Assert.assertEquals(ParallelCommandRunner.Result.Status.FAILED, results.get(0).getStatus());
+    Assert.assertEquals(ParallelCommandRunner.Result.Status.SKIPPED, results.get(1).getStatus());
+    Assert.assertEquals("ingress (enable failed)", ParallelCommandRunner.describeFailures(results));
+  }
+}
@@ -21,15 +21,23 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.InOrder;
 import org.mockito.Mock;
@@ -40,6 +48,8 @@ import org.mockito.junit.MockitoJUnitRunner;
 @RunWith(MockitoJUnitRunner.class)
 public class CommandExecutorTest {
 
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private final List<String> command = Arrays.asList("someCommand", "someOption");
   private final List<String> expectedOutput =
       Arrays.asList("some output line 1", "some output line 2");
@@ -107,6 +117,31 @@ public class CommandExecutorTest {
     loggerInOrder.verify(mockBuildLogger).lifecycle("some output line 2");
   }
 
+  @Test
+  public void testRun_withLogging_collapsesProgressOutput()
+      throws IOException, InterruptedException {
+    Mockito.when(mockProcess.getInputStream())
+        .thenReturn(
+            new ByteArrayInputStream(
+                "some output line 1\n 10%\r 20%\r100%\nlast line"
+                    .getBytes(StandardCharsets.UTF_8)));
+
+    List<String> output =
+        testCommandExecutor
+            .setLogger(mockBuildLogger)
+            .setProgressIntervalMillis(Long.MAX_VALUE)
+            .run(command);
+
+    Assert.assertEquals(Arrays.asList("some output line 1", "100%", "last line"), output);
+
+    loggerInOrder.verify(mockBuildLogger).debug("Running command : someCommand someOption");
+    loggerInOrder.verify(mockBuildLogger).lifecycle("some output line 1");
+    loggerInOrder.verify(mockBuildLogger).lifecycle(" 10%");
+    loggerInOrder.verify(mockBuildLogger).lifecycle("100%");
+    loggerInOrder.verify(mockBuildLogger).lifecycle("last line");
+    Mockito.verify(mockBuildLogger, Mockito.never()).lifecycle(" 20%");
+  }
+
   @Test
   public void testRun_withLogging_badProcessOutput() throws IOException, InterruptedException {
     InputStream errorInputStream =
@@ -162,7 +197,85 @@ public class CommandExecutorTest {
     }
   }
 
+  @Test
+  public void testRun_commandErrorIgnored() throws InterruptedException, IOException {
+    setMockProcessOutput(expectedOutput);
+
+    Mockito.when(mockProcess.waitFor()).thenReturn(7);
+
+    List<String> output = testCommandExecutor.setFailOnNonZeroExitCode(false).run(command);
+
+    verifyProcessBuilding(command);
+    Assert.assertEquals(expectedOutput, output);
+  }
+
+  @Test
+  public void testRun_outputNotRetained() throws InterruptedException, IOException {
+    setMockProcessOutput(expectedOutput);
+
+    List<String> lines = new ArrayList<>();
+    List<String> output =
+        testCommandExecutor.setRetainOutput(false).setOutputListener(lines::add).run(command);
+
+    verifyProcessBuilding(command);
+    Assert.assertEquals(Collections.emptyList(), output);
+    Assert.assertEquals(expectedOutput, lines);
+  }
+
   /** Has the mocked process output the expected output. */
+  @Test
+  public void testStart() throws IOException {
+    setMockProcessOutput(expectedOutput);
+    Mockito.when(mockProcess.isAlive()).thenReturn(true);
+
+    // Reads the output synchronously.
+    ExecutorService mockExecutorService = Mockito.mock(ExecutorService.class);
+    Mockito.doAnswer(
+            invocation -> {
+              ((Runnable) invocation.getArgument(0)).run();
+              return null;
+            })
+        .when(mockExecutorService)
+        .execute(Mockito.any());
+
+    List<String> lines = new ArrayList<>();
+    CommandExecutor.RunningCommand runningCommand =
+        testCommandExecutor
+            .setExecutorServiceSupplier(() -> mockExecutorService)
+            .setOutputListener(lines::add)
+            .start(command);
+
+    verifyProcessBuilding(command);
+    Assert.assertEquals(expectedOutput, lines);
+    Assert.assertTrue(runningCommand.isRunning());
+    runningCommand.destroy();
+    Mockito.verify(mockProcess).destroy();
+  }
+
+  @Test
+  public void testRun_readOnlyInShellCoprocess() throws IOException, InterruptedException {
+    Assume.assumeTrue(Files.isExecutable(Paths.get("/bin/sh")));
+    Path kubectl = temporaryFolder.getRoot().toPath().resolve("kubectl");
+    Files.write(kubectl, "#!/bin/sh\necho \"$@\"\n".getBytes(StandardCharsets.UTF_8));
+    Assume.assumeTrue(kubectl.toFile().setExecutable(true));
+
+    System.setProperty(ShellCoprocess.ENABLED_PROPERTY, "true");
+    try {
+      List<String> output =
+          new CommandExecutor()
+              .setProcessBuilderSupplier(
+                  () -> {
+                    throw new AssertionError("The command must not start a process");
+                  })
+              .run(kubectl.toString(), "get", "pods");
+
+      Assert.assertEquals(Collections.singletonList("get pods"), output);
+
+    } finally {
+      System.clearProperty(ShellCoprocess.ENABLED_PROPERTY);
+    }
+  }
+
   private void setMockProcessOutput(List<String> expectedOutput) {
     Mockito.when(mockProcess.getInputStream())
         .thenReturn(
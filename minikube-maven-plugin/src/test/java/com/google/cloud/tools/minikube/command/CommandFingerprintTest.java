@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@link CommandFingerprint}. */
+public class CommandFingerprintTest {
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final List<String> commandLine = Arrays.asList("minikube", "start", "--memory=4096");
+
+  private Path file;
+  private CommandFingerprint fingerprint;
+
+  @Before
+  public void setUp() {
+    file = temporaryFolder.getRoot().toPath().resolve("minikube").resolve("start.fingerprint");
+    fingerprint = new CommandFingerprint(file);
+  }
+
+  @Test
+  public void testMatches_noFingerprint() throws IOException {
+    Assert.assertFalse(fingerprint.matches(commandLine, MinikubeStatus.State.RUNNING));
+  }
+
+  @Test
+  public void testMatches() throws IOException {
+    fingerprint.write(commandLine, MinikubeStatus.State.RUNNING);
+
+    Assert.assertTrue(fingerprint.matches(commandLine, MinikubeStatus.State.RUNNING));
+    Assert.assertFalse(fingerprint.matches(commandLine, MinikubeStatus.State.PAUSED));
+    Assert.assertFalse(
+        fingerprint.matches(
+            Arrays.asList("minikube", "start", "--memory=8192"), MinikubeStatus.State.RUNNING));
+  }
+
+  @Test
+  public void testMatches_argumentBoundaries() throws IOException {
+    fingerprint.write(
+        Arrays.asList("minikube", "start --memory=4096"), MinikubeStatus.State.RUNNING);
+
+    Assert.assertFalse(
+        fingerprint.matches(
+            Arrays.asList("minikube", "start", "--memory=4096"), MinikubeStatus.State.RUNNING));
+  }
+
+  @Test
+  public void testDelete() throws IOException {
+    fingerprint.write(commandLine, MinikubeStatus.State.STOPPED);
+    fingerprint.delete();
+
+    Assert.assertFalse(Files.exists(file));
+    Assert.assertFalse(fingerprint.matches(commandLine, MinikubeStatus.State.STOPPED));
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import com.google.cloud.tools.minikube.command.CommandScheduler.Kind;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests for {@link CommandScheduler}. */
+public class CommandSchedulerTest {
+
+  private final AtomicLong clock = new AtomicLong();
+  private final CommandScheduler testScheduler = new CommandScheduler(clock::get);
+
+  @After
+  public void tearDown() {
+    System.clearProperty(CommandScheduler.MAX_MUTATING_COMMANDS_PROPERTY);
+  }
+
+  @Test
+  public void testClassify() {
+    Assert.assertEquals(Kind.MUTATING, classify("minikube", "start", "-p", "dev"));
+    Assert.assertEquals(Kind.MUTATING, classify("/usr/bin/minikube", "image", "load", "app"));
+    Assert.assertEquals(Kind.READ_ONLY, classify("minikube", "-p", "dev", "status"));
+    Assert.assertEquals(Kind.READ_ONLY, classify("minikube", "image", "ls", "--format=json"));
+    Assert.assertEquals(Kind.READ_ONLY, classify("minikube", "version", "--output=json"));
+    Assert.assertEquals(
+        Kind.MUTATING, classify("kubectl", "--context", "dev", "apply", "-f", "app.yaml"));
+    Assert.assertEquals(Kind.READ_ONLY, classify("kubectl", "--context", "dev", "get", "pods"));
+    Assert.assertEquals(Kind.READ_ONLY, classify("C:\\bin\\kubectl.exe", "describe", "pod"));
+    Assert.assertEquals(Kind.UNSCHEDULED, classify("docker", "image", "inspect", "app"));
+    Assert.assertEquals(Kind.UNSCHEDULED, CommandScheduler.classify(Collections.emptyList()));
+  }
+
+  @Test
+  public void testIsShortQuery() {
+    Assert.assertTrue(isShortQuery("minikube", "-p", "dev", "status"));
+    Assert.assertTrue(isShortQuery("minikube", "version", "--output=json"));
+    Assert.assertTrue(isShortQuery("minikube", "profile", "list", "-o", "json"));
+    Assert.assertTrue(isShortQuery("kubectl", "--context", "dev", "get", "pods"));
+    Assert.assertFalse(isShortQuery("kubectl", "get", "pods", "--watch"));
+    Assert.assertFalse(isShortQuery("kubectl", "wait", "--for=condition=Ready", "pod/app"));
+    Assert.assertFalse(isShortQuery("kubectl", "logs", "app"));
+    Assert.assertFalse(isShortQuery("minikube", "logs"));
+    Assert.assertFalse(isShortQuery("minikube", "start"));
+    Assert.assertFalse(isShortQuery("docker", "version"));
+  }
+
+  @Test
+  public void testAcquire_waitsForFreeSlot() throws InterruptedException {
+    System.setProperty(CommandScheduler.MAX_MUTATING_COMMANDS_PROPERTY, "1");
+    List<String> command = Arrays.asList("minikube", "start");
+    CommandScheduler.Permit first = testScheduler.acquire(command);
+
+    CountDownLatch acquired = new CountDownLatch(1);
+    Thread waiting =
+        new Thread(
+            () -> {
+              try (CommandScheduler.Permit second = testScheduler.acquire(command)) {
+                Assert.assertEquals(500, second.getQueueMillis());
+                acquired.countDown();
+              } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+              }
+            });
+    waiting.start();
+
+    Assert.assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+    // Read-only commands have their own limit.
+    testScheduler.acquire(Arrays.asList("kubectl", "get", "pods")).close();
+
+    clock.addAndGet(500);
+    first.close();
+    Assert.assertTrue(acquired.await(5, TimeUnit.SECONDS));
+    waiting.join();
+
+    CommandScheduler.Statistics statistics = testScheduler.getStatistics().get(Kind.MUTATING);
+    Assert.assertEquals(2, statistics.getCommands());
+    Assert.assertEquals(1, statistics.getQueuedCommands());
+    Assert.assertEquals(500, statistics.getMaxQueueMillis());
+    Assert.assertEquals(
+        Collections.singletonList(
+            "1 of 2 mutating minikube/kubectl command(s) waited for a free slot, "
+                + "0.5s in total, at most 0.5s"),
+        testScheduler.formatStatistics());
+  }
+
+  @Test
+  public void testAcquire_unscheduled() throws InterruptedException {
+    System.setProperty(CommandScheduler.MAX_MUTATING_COMMANDS_PROPERTY, "1");
+    testScheduler.acquire(Arrays.asList("minikube", "start"));
+
+    // Does not block.
+    testScheduler.acquire(Arrays.asList("docker", "build", ".")).close();
+
+    testScheduler.resetStatistics();
+    Assert.assertEquals(0, testScheduler.getStatistics().get(Kind.MUTATING).getCommands());
+  }
+
+  @Test
+  public void testGetLimit() {
+    System.setProperty(CommandScheduler.MAX_MUTATING_COMMANDS_PROPERTY, "3");
+    Assert.assertEquals(3, CommandScheduler.getLimit(Kind.MUTATING));
+
+    System.setProperty(CommandScheduler.MAX_MUTATING_COMMANDS_PROPERTY, "0");
+    Assert.assertEquals(1, CommandScheduler.getLimit(Kind.MUTATING));
+  }
+
+  private static boolean isShortQuery(String... command) {
+    return CommandScheduler.isShortQuery(Arrays.asList(command));
+  }
+
+  private static Kind classify(String... command) {
+    return CommandScheduler.classify(Arrays.asList(command));
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+/** Tests for {@link DiagnosticsCollector}. */
+public class DiagnosticsCollectorTest {
+
+  /** Passes canned output to the output listener instead of running the command. */
+  private static class FakeCommandExecutor extends CommandExecutor {
+
+    private final Map<String, List<String>> outputs;
+    private Consumer<String> outputListener;
+
+    private FakeCommandExecutor(Map<String, List<String>> outputs) {
+      this.outputs = outputs;
+    }
+
+    @Override
+    public CommandExecutor setOutputListener(Consumer<String> outputListener) {
+      this.outputListener = outputListener;
+      return this;
+    }
+
+    @Override
+    public List<String> run(List<String> command) throws IOException {
+      List<String> output = outputs.get(String.join(" ", command));
+      if (output == null) {
+        throw new IOException("command exited with non-zero exit code : 1");
+      }
+      if (outputListener != null) {
+        output.forEach(outputListener);
+        return Collections.emptyList();
+      }
+      return output;
+    }
+  }
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private final Map<String, List<String>> outputs = new HashMap<>();
+  private DiagnosticsCollector testCollector;
+
+  @Before
+  public void setUp() {
+    testCollector =
+        new DiagnosticsCollector(
+            () -> new FakeCommandExecutor(outputs),
+            "minikube",
+            "kubectl",
+            "dev",
+            "dev",
+            Mockito.mock(BuildLogger.class));
+
+    outputs.put("minikube logs --profile=dev", Arrays.asList("log line 1", "log line 2"));
+    outputs.put(
+        "kubectl --context dev get pods -o wide --all-namespaces",
+        Collections.singletonList("NAME READY"));
+    outputs.put(
+        "kubectl --context dev get events --sort-by=.lastTimestamp --all-namespaces",
+        Collections.singletonList("LAST SEEN"));
+    outputs.put(
+        "kubectl --context dev get pods --all-namespaces -o "
+            + "jsonpath={range .items[*]}{.metadata.namespace}/{.metadata.name}{\"\\n\"}{end}",
+        Collections.singletonList("apps/web-1"));
+    outputs.put(
+        "kubectl --context dev describe pod web-1 --namespace apps",
+        Collections.singletonList("Name: web-1"));
+    outputs.put(
+        "kubectl --context dev logs web-1 --namespace apps --all-containers=true",
+        Arrays.asList("started", "crashed"));
+  }
+
+  @Test
+  public void testCollect_namespaces() throws IOException, InterruptedException {
+    testCollector.setNamespaces(Arrays.asList("apps", "db"));
+    String listPods =
+        " -o jsonpath={range .items[*]}{.metadata.namespace}/{.metadata.name}{\"\\n\"}{end}";
+    outputs.put(
+        "kubectl --context dev get pods --namespace apps" + listPods,
+        Collections.singletonList("apps/web-1"));
+    outputs.put(
+        "kubectl --context dev get pods --namespace db" + listPods,
+        Collections.singletonList("db/postgres-0"));
+    for (String namespace : Arrays.asList("apps", "db")) {
+      outputs.put(
+          "kubectl --context dev get pods -o wide --namespace " + namespace,
+          Collections.singletonList("NAME READY"));
+      outputs.put(
+          "kubectl --context dev get events --sort-by=.lastTimestamp --namespace " + namespace,
+          Collections.singletonList("LAST SEEN"));
+    }
+    outputs.put(
+        "kubectl --context dev describe pod postgres-0 --namespace db",
+        Collections.singletonList("Name: postgres-0"));
+    outputs.put(
+        "kubectl --context dev logs postgres-0 --namespace db --all-containers=true",
+        Collections.singletonList("ready"));
+
+    List<DiagnosticsCollector.Result> results =
+        testCollector.collect(tmp.getRoot().toPath().resolve("diagnostics"));
+
+    List<String> names = new ArrayList<>();
+    for (DiagnosticsCollector.Result result : results) {
+      Assert.assertNull(result.getName() + " failed", result.getFailure());
+      names.add(result.getName());
+    }
+    Assert.assertEquals(
+        Arrays.asList(
+            "minikube-logs.txt",
+            "pods-apps.txt",
+            "events-apps.txt",
+            "pods-db.txt",
+            "events-db.txt",
+            "pods/apps/web-1-describe.txt",
+            "pods/apps/web-1-logs.txt",
+            "pods/db/postgres-0-describe.txt",
+            "pods/db/postgres-0-logs.txt"),
+        names);
+  }
+
+  @Test
+  public void testCollect_zip() throws IOException, InterruptedException {
+    Path outputDirectory = tmp.getRoot().toPath().resolve("diagnostics");
+
+    List<DiagnosticsCollector.Result> results = testCollector.collect(outputDirectory);
+
+    Assert.assertEquals(5, results.size());
+    Map<String, String> entries = readZip(outputDirectory.resolve("diagnostics.zip"));
+    Assert.assertEquals("log line 1\nlog line 2\n", entries.get("minikube-logs.txt"));
+    Assert.assertEquals("started\ncrashed\n", entries.get("pods/apps/web-1-logs.txt"));
+    Assert.assertEquals(5, entries.size());
+    // Only the archive is left.
+    try (Stream<Path> files = Files.list(outputDirectory)) {
+      Assert.assertEquals(1, files.count());
+    }
+  }
+
+  @Test
+  public void testCollect_gzipWithCap() throws IOException, InterruptedException {
+    Path outputDirectory = tmp.getRoot().toPath().resolve("diagnostics");
+    testCollector.setFormat(DiagnosticsCollector.Format.GZIP).setMaxBytes(12);
+
+    List<DiagnosticsCollector.Result> results = testCollector.collect(outputDirectory);
+
+    Assert.assertEquals("minikube-logs.txt", results.get(0).getName());
+    Assert.assertEquals(11, results.get(0).getBytes());
+    Assert.assertTrue(results.get(0).isTruncated());
+    Assert.assertEquals(
+        "log line 1\n[truncated after 11 bytes]\n",
+        readGzip(outputDirectory.resolve("minikube-logs.txt.gz")));
+    Assert.assertEquals(
+        "Name: web-1\n", readGzip(outputDirectory.resolve("pods/apps/web-1-describe.txt.gz")));
+  }
+
+  @Test
+  public void testCollect_failures() throws IOException, InterruptedException {
+    outputs.clear();
+    outputs.put("minikube logs --profile=dev", Collections.singletonList("log line"));
+
+    List<DiagnosticsCollector.Result> results =
+        testCollector.collect(tmp.getRoot().toPath().resolve("diagnostics"));
+
+    // The pods cannot be listed, and only minikube logs succeeds.
+    Assert.assertEquals(3, results.size());
+    Assert.assertNull(results.get(0).getFailure());
+    Assert.assertEquals(
+        "command exited with non-zero exit code : 1", results.get(1).getFailure().getMessage());
+  }
+
+  private static Map<String, String> readZip(Path file) throws IOException {
+    Map<String, String> entries = new LinkedHashMap<>();
+    try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(file))) {
+      ZipEntry entry;
+      while ((entry = zip.getNextEntry()) != null) {
+        entries.put(entry.getName(), read(zip));
+      }
+    }
+    return entries;
+  }
+
+  private static String readGzip(Path file) throws IOException {
+    try (InputStream input = new GZIPInputStream(Files.newInputStream(file))) {
+      return read(input);
+    }
+  }
+
+  private static String read(InputStream input) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = input.read(buffer)) != -1) {
+      bytes.write(buffer, 0, read);
+    }
+    return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@link DockerEnvCache}. */
+public class DockerEnvCacheTest {
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final Map<String, String> dockerEnv =
+      ImmutableMap.of("DOCKER_HOST", "tcp://192.168.49.2:2376", "DOCKER_TLS_VERIFY", "1");
+
+  private Path minikubeHome;
+  private DockerEnvCache dockerEnvCache;
+
+  @Before
+  public void setUp() {
+    minikubeHome = temporaryFolder.getRoot().toPath().resolve(".minikube");
+    dockerEnvCache =
+        new DockerEnvCache(temporaryFolder.getRoot().toPath().resolve("cache"), minikubeHome);
+  }
+
+  @Test
+  public void testRead_noEntry() throws IOException {
+    writeConfig("dev", 1000);
+
+    Assert.assertEquals(Collections.emptyMap(), dockerEnvCache.read("dev"));
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    writeConfig("dev", 1000);
+    dockerEnvCache.write("dev", dockerEnv);
+
+    Assert.assertEquals(dockerEnv, dockerEnvCache.read("dev"));
+    Assert.assertEquals(Collections.emptyMap(), dockerEnvCache.read("other"));
+  }
+
+  @Test
+  public void testRead_profileRestarted() throws IOException {
+    writeConfig("dev", 1000);
+    dockerEnvCache.write("dev", dockerEnv);
+    writeConfig("dev", 2000);
+
+    Assert.assertEquals(Collections.emptyMap(), dockerEnvCache.read("dev"));
+  }
+
+  @Test
+  public void testWrite_noProfile() throws IOException {
+    dockerEnvCache.write("dev", dockerEnv);
+
+    Assert.assertFalse(Files.exists(temporaryFolder.getRoot().toPath().resolve("cache")));
+  }
+
+  private void writeConfig(String profile, long modifiedMillis) throws IOException {
+    Path config = minikubeHome.resolve("profiles").resolve(profile).resolve("config.json");
+    Files.createDirectories(config.getParent());
+    Files.write(config, new byte[0]);
+    Files.setLastModifiedTime(config, FileTime.fromMillis(modifiedMillis));
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@link ExecutableResolver}. */
+public class ExecutableResolverTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void testFind() throws IOException {
+    Path first = tmp.newFolder("first").toPath();
+    Path second = tmp.newFolder("second").toPath();
+    Files.createFile(first.resolve("minikube"));
+    Path executable = createExecutable(second.resolve("minikube"));
+    String path = first + File.pathSeparator + File.pathSeparator + second;
+
+    // The non-executable file in the first directory is skipped.
+    Assert.assertEquals(executable, ExecutableResolver.find("minikube", path, null));
+    Assert.assertNull(ExecutableResolver.find("kubectl", path, null));
+  }
+
+  @Test
+  public void testFind_pathExt() throws IOException {
+    Path directory = tmp.newFolder("bin").toPath();
+    Path executable = createExecutable(directory.resolve("minikube.exe"));
+
+    Assert.assertEquals(
+        executable,
+        ExecutableResolver.find(
+            "minikube", directory.toString(), ".COM" + File.pathSeparator + ".EXE"));
+  }
+
+  @Test
+  public void testFind_pathsAreNotSearched() throws IOException {
+    Path directory = tmp.newFolder("bin").toPath();
+    createExecutable(directory.resolve("minikube"));
+
+    Assert.assertNull(ExecutableResolver.find("./minikube", directory.toString(), null));
+    Assert.assertEquals("/opt/minikube", ExecutableResolver.resolve("/opt/minikube"));
+  }
+
+  @Test
+  public void testResolve_environmentPath() throws IOException {
+    Path directory = tmp.newFolder("bin").toPath();
+    Path executable = createExecutable(directory.resolve("minikube-resolver-test"));
+
+    Assert.assertEquals(
+        executable.toString(),
+        ExecutableResolver.resolve(
+            "minikube-resolver-test", Collections.singletonMap("PATH", directory.toString())));
+    // The environment of one command is not cached for the others.
+    Assert.assertEquals(
+        "minikube-resolver-test", ExecutableResolver.resolve("minikube-resolver-test"));
+    Assert.assertEquals(
+        "minikube-resolver-test",
+        ExecutableResolver.resolve(
+            "minikube-resolver-test", Collections.singletonMap("DOCKER_HOST", "tcp://")));
+  }
+
+  private static Path createExecutable(Path file) throws IOException {
+    Files.createFile(file);
+    Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rwxr-xr-x"));
+    return file;
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+/** Tests for {@link FileSyncer}. */
+public class FileSyncerTest {
+
+  private static final String SCRIPT =
+      "mkdir -p \"$0\" && tar -xf - -C \"$0\" && cd \"$0\""
+          + " && { [ $# -eq 0 ] || rm -f -- \"$@\"; }";
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private CommandExecutor mockCommandExecutor;
+  private FileSyncer testSyncer;
+  private Path sourceDirectory;
+  private Path workDirectory;
+
+  @Before
+  public void setUp() throws IOException {
+    mockCommandExecutor = Mockito.mock(CommandExecutor.class);
+    Mockito.when(mockCommandExecutor.setFailOnNonZeroExitCode(false))
+        .thenReturn(mockCommandExecutor);
+    Mockito.when(mockCommandExecutor.setInputFile(Mockito.any(File.class)))
+        .thenReturn(mockCommandExecutor);
+
+    testSyncer =
+        new FileSyncer(
+                () -> mockCommandExecutor, "kubectl", "minikube", Mockito.mock(BuildLogger.class))
+            .setContext("dev")
+            .setNamespace("test")
+            .setProfile("dev");
+
+    sourceDirectory = tmp.newFolder("classes").toPath();
+    workDirectory = tmp.getRoot().toPath().resolve("sync");
+    write("com/example/App.class", "app");
+    write("application.properties", "port=8080");
+  }
+
+  @Test
+  public void testHash() throws IOException {
+    Map<String, String> files = testSyncer.hash(sourceDirectory);
+
+    Assert.assertEquals(
+        Arrays.asList("application.properties", "com/example/App.class"),
+        new ArrayList<>(files.keySet()));
+    Assert.assertEquals(
+        "a172cedcae47474b615c54d510a5d84a8dea3032e958587430b413538be3f333",
+        files.get("com/example/App.class"));
+    Assert.assertTrue(testSyncer.hash(tmp.getRoot().toPath().resolve("missing")).isEmpty());
+  }
+
+  @Test
+  public void testSync_pod() throws IOException, InterruptedException {
+    List<ParallelCommandRunner.Result> results = sync("pod/app");
+
+    Assert.assertEquals(1, results.size());
+    Assert.assertTrue(results.get(0).isSucceeded());
+    // Without an index, the marker is not read.
+    Mockito.verify(mockCommandExecutor, Mockito.never()).setFailOnNonZeroExitCode(false);
+    Mockito.verify(mockCommandExecutor)
+        .setInputFile(workDirectory.resolve(indexName("pod/app") + ".tar").toFile());
+    Mockito.verify(mockCommandExecutor).run(copyCommand());
+    // The archive is only kept during the copy.
+    Assert.assertFalse(Files.exists(workDirectory.resolve(indexName("pod/app") + ".tar")));
+    Assert.assertNotNull(readSyncId("pod/app"));
+  }
+
+  @Test
+  public void testSync_skipsUpToDateTargets() throws IOException, InterruptedException {
+    sync("pod/app");
+
+    Mockito.when(mockCommandExecutor.run(markerCommand()))
+        .thenReturn(Collections.singletonList(readSyncId("pod/app")));
+
+    Assert.assertEquals(Collections.emptyList(), sync("pod/app"));
+    Mockito.verify(mockCommandExecutor, Mockito.times(1)).run(copyCommand());
+  }
+
+  @Test
+  public void testSync_copiesChangesAndRemovals() throws IOException, InterruptedException {
+    sync("pod/app");
+    Mockito.when(mockCommandExecutor.run(markerCommand()))
+        .thenReturn(Collections.singletonList(readSyncId("pod/app")));
+    write("com/example/App.class", "changed app");
+    Files.delete(sourceDirectory.resolve("application.properties"));
+
+    List<ParallelCommandRunner.Result> results = sync("pod/app");
+
+    Assert.assertTrue(results.get(0).isSucceeded());
+    Mockito.verify(mockCommandExecutor).run(copyCommand("application.properties"));
+  }
+
+  @Test
+  public void testSync_fullSyncWhenTargetWasReplaced() throws IOException, InterruptedException {
+    sync("pod/app");
+    String syncId = readSyncId("pod/app");
+    write("com/example/App.class", "changed app");
+
+    // The marker does not match, for example because the pod was recreated.
+    sync("pod/app");
+
+    Mockito.verify(mockCommandExecutor, Mockito.times(2)).run(copyCommand());
+    Assert.assertNotEquals(syncId, readSyncId("pod/app"));
+  }
+
+  @Test
+  public void testSync_fullSyncOfUnchangedFilesWhenTargetWasReplaced()
+      throws IOException, InterruptedException {
+    sync("pod/app");
+    String syncId = readSyncId("pod/app");
+
+    // Nothing changed, but the recreated pod does not have the marker.
+    List<ParallelCommandRunner.Result> results = sync("pod/app");
+
+    Assert.assertTrue(results.get(0).isSucceeded());
+    Mockito.verify(mockCommandExecutor, Mockito.times(2)).run(copyCommand());
+    Assert.assertNotEquals(syncId, readSyncId("pod/app"));
+  }
+
+  @Test
+  public void testSync_destinationsKeepOwnIndexes() throws IOException, InterruptedException {
+    sync("pod/app");
+    testSyncer.sync(
+        sourceDirectory, "/app/other", Collections.singletonList("pod/app"), workDirectory);
+    Mockito.when(mockCommandExecutor.run(markerCommand()))
+        .thenReturn(Collections.singletonList(readSyncId("pod/app")));
+
+    // Syncing to the other destination did not replace the index of /app/classes.
+    Assert.assertEquals(Collections.emptyList(), sync("pod/app"));
+    Assert.assertNotEquals(
+        indexName("pod/app"), FileSyncer.getIndexName(sourceDirectory, "/app/other", "pod/app"));
+  }
+
+  @Test
+  public void testSync_node() throws IOException, InterruptedException {
+    List<ParallelCommandRunner.Result> results = sync(FileSyncer.NODE_TARGET);
+
+    Assert.assertTrue(results.get(0).isSucceeded());
+    String syncId = readSyncId(FileSyncer.NODE_TARGET);
+    Mockito.verify(mockCommandExecutor)
+        .run(
+            Arrays.asList(
+                "minikube",
+                "cp",
+                "--profile=dev",
+                workDirectory.resolve(indexName(FileSyncer.NODE_TARGET) + ".tar").toString(),
+                "/tmp/minikube-sync-" + syncId + ".tar"));
+    Mockito.verify(mockCommandExecutor)
+        .run(
+            Arrays.asList(
+                "minikube",
+                "ssh",
+                "--profile=dev",
+                "--",
+                "mkdir -p '/app/classes' && tar -xf '/tmp/minikube-sync-"
+                    + syncId
+                    + ".tar' -C '/app/classes' && rm -f '/tmp/minikube-sync-"
+                    + syncId
+                    + ".tar'"));
+  }
+
+  @Test
+  public void testSync_failure() throws IOException, InterruptedException {
+    Mockito.when(mockCommandExecutor.run(copyCommand()))
+        .thenThrow(new IOException("pod not found"));
+
+    List<ParallelCommandRunner.Result> results = sync("pod/app");
+
+    Assert.assertEquals(ParallelCommandRunner.Result.Status.FAILED, results.get(0).getStatus());
+    Assert.assertEquals("pod/app (pod not found)", ParallelCommandRunner.describeFailures(results));
+    // The files are copied again with the next sync.
+    Assert.assertNull(readSyncId("pod/app"));
+  }
+
+  private List<ParallelCommandRunner.Result> sync(String target)
+      throws IOException, InterruptedException {
+    return testSyncer.sync(
+        sourceDirectory, "/app/classes", Collections.singletonList(target), workDirectory);
+  }
+
+  private static List<String> markerCommand() {
+    return Arrays.asList(
+        "kubectl",
+        "--context",
+        "dev",
+        "--namespace",
+        "test",
+        "exec",
+        "pod/app",
+        "--",
+        "cat",
+        "/app/classes/.minikube-sync-id");
+  }
+
+  private static List<String> copyCommand(String... removed) {
+    List<String> command =
+        new ArrayList<>(
+            Arrays.asList(
+                "kubectl",
+                "--context",
+                "dev",
+                "--namespace",
+                "test",
+                "exec",
+                "-i",
+                "pod/app",
+                "--",
+                "sh",
+                "-c",
+                SCRIPT,
+                "/app/classes"));
+    command.addAll(Arrays.asList(removed));
+    return command;
+  }
+
+  private String readSyncId(String target) throws IOException {
+    return new DeployIndex(workDirectory.resolve(indexName(target) + ".tsv")).readClusterId();
+  }
+
+  private String indexName(String target) {
+    return FileSyncer.getIndexName(sourceDirectory, "/app/classes", target);
+  }
+
+  private void write(String path, String content) throws IOException {
+    Path file = sourceDirectory.resolve(path);
+    Files.createDirectories(file.getParent());
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@link ImageCache}. */
+public class ImageCacheTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private Path directory;
+  private ImageCache imageCache;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = tmp.getRoot().toPath();
+    imageCache = new ImageCache(directory, "amd64");
+
+    Files.createDirectories(directory.resolve("amd64/docker.io/library"));
+    Files.createFile(directory.resolve("amd64/docker.io/library/busybox_latest"));
+    Files.createDirectories(directory.resolve("gcr.io/k8s-minikube"));
+    Files.createFile(directory.resolve("gcr.io/k8s-minikube/storage-provisioner_v5"));
+  }
+
+  @Test
+  public void testContains() {
+    Assert.assertTrue(imageCache.contains("busybox"));
+    Assert.assertTrue(imageCache.contains("docker.io/library/busybox:latest"));
+    Assert.assertTrue(imageCache.contains("gcr.io/k8s-minikube/storage-provisioner:v5"));
+    Assert.assertFalse(imageCache.contains("busybox:1.28"));
+    Assert.assertFalse(imageCache.contains("nginx"));
+  }
+
+  @Test
+  public void testGetMissing() {
+    Assert.assertEquals(
+        Collections.singletonList("nginx"),
+        imageCache.getMissing(Arrays.asList("busybox", "nginx")));
+  }
+
+  @Test
+  public void testGetArchitecture() {
+    Assert.assertEquals("amd64", ImageCache.getArchitecture("x86_64"));
+    Assert.assertEquals("arm64", ImageCache.getArchitecture("aarch64"));
+    Assert.assertEquals("s390x", ImageCache.getArchitecture("s390x"));
+  }
+}
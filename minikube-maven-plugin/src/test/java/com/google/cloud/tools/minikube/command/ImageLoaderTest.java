@@ -0,0 +1,197 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+/** Tests for {@link ImageLoader}. */
+public class ImageLoaderTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private final List<List<String>> commands = new CopyOnWriteArrayList<>();
+  private final Map<String, String> localImageIds = new HashMap<>();
+  private String clusterImages = "[]";
+  private boolean failLoads;
+
+  private Path indexFile;
+  private ImageLoader imageLoader;
+
+  @Before
+  public void setUp() throws IOException, InterruptedException {
+    CommandExecutor mockCommandExecutor = Mockito.mock(CommandExecutor.class);
+    Mockito.when(mockCommandExecutor.setLogger(Mockito.any())).thenReturn(mockCommandExecutor);
+    Mockito.when(mockCommandExecutor.run(Mockito.anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<String> command = invocation.getArgument(0);
+              commands.add(command);
+              if (command.get(0).equals("docker")) {
+                String[] ids = new String[command.size() - 4];
+                for (int i = 4; i < command.size(); i++) {
+                  ids[i - 4] = localImageIds.get(command.get(i));
+                }
+                return Arrays.asList(ids);
+              }
+              if (command.get(2).equals("ls")) {
+                return Collections.singletonList(clusterImages);
+              }
+              if (failLoads) {
+                throw new IOException("command exited with non-zero exit code : 1");
+              }
+              return Collections.emptyList();
+            });
+
+    indexFile = tmp.getRoot().toPath().resolve("index/minikube.tsv");
+    imageLoader =
+        new ImageLoader(
+                () -> mockCommandExecutor,
+                "minikube",
+                "docker",
+                "minikube",
+                Mockito.mock(BuildLogger.class))
+            .setIndexFile(indexFile);
+
+    localImageIds.put("app", "sha256:aaa");
+    localImageIds.put("gcr.io/project/worker:1.0", "sha256:bbb");
+  }
+
+  @Test
+  public void testLoad_loadsMissingImagesAndIndexesThem() throws IOException, InterruptedException {
+    ImageLoader.Result result = imageLoader.load(Arrays.asList("app", "gcr.io/project/worker:1.0"));
+
+    Assert.assertEquals(Arrays.asList("app", "gcr.io/project/worker:1.0"), result.getLoaded());
+    Assert.assertEquals(Collections.emptyList(), result.getSkipped());
+    Assert.assertEquals(
+        Arrays.asList(
+            "docker", "image", "inspect", "--format={{.Id}}", "app", "gcr.io/project/worker:1.0"),
+        commands.get(0));
+    Assert.assertTrue(
+        commands.contains(Arrays.asList("minikube", "image", "load", "app", "--profile=minikube")));
+
+    Map<String, String> index = new ImageIndex(indexFile).read();
+    Assert.assertEquals("aaa", index.get("app"));
+    Assert.assertEquals("bbb", index.get("gcr.io/project/worker:1.0"));
+  }
+
+  @Test
+  public void testLoad_skipsImagesPresentInCluster() throws IOException, InterruptedException {
+    clusterImages =
+        "[{\"id\":\"aaa\",\"repoTags\":[\"docker.io/library/app:latest\"]},"
+            + "{\"id\":\"ccc\",\"repoTags\":[\"gcr.io/project/worker:1.0\"]}]";
+
+    ImageLoader.Result result = imageLoader.load(Arrays.asList("app", "gcr.io/project/worker:1.0"));
+
+    Assert.assertEquals(Collections.singletonList("gcr.io/project/worker:1.0"), result.getLoaded());
+    Assert.assertEquals(Collections.singletonList("app"), result.getSkipped());
+    Assert.assertFalse(
+        commands.contains(Arrays.asList("minikube", "image", "load", "app", "--profile=minikube")));
+  }
+
+  @Test
+  public void testLoad_reloadsImagesMissingFromClusterDespiteIndex()
+      throws IOException, InterruptedException {
+    // The cluster was recreated since the image was indexed.
+    new ImageIndex(indexFile).write(Collections.singletonMap("app", "aaa"));
+
+    ImageLoader.Result result = imageLoader.load(Collections.singletonList("app"));
+
+    Assert.assertEquals(Collections.singletonList("app"), result.getLoaded());
+  }
+
+  @Test
+  public void testLoad_loadsAllWhenClusterCannotBeListed()
+      throws IOException, InterruptedException {
+    // The index may stem from a cluster that was deleted since.
+    clusterImages = "not json";
+    new ImageIndex(indexFile).write(Collections.singletonMap("app", "aaa"));
+
+    ImageLoader.Result result = imageLoader.load(Arrays.asList("app", "gcr.io/project/worker:1.0"));
+
+    Assert.assertEquals(Arrays.asList("app", "gcr.io/project/worker:1.0"), result.getLoaded());
+    Assert.assertEquals(Collections.emptyList(), result.getSkipped());
+  }
+
+  @Test
+  public void testLoad_olderMinikube() throws IOException, InterruptedException {
+    imageLoader.setCapabilities(new MinikubeCapabilities("v1.16.0"));
+    new ImageIndex(indexFile).write(Collections.singletonMap("app", "aaa"));
+
+    ImageLoader.Result result = imageLoader.load(Arrays.asList("app", "gcr.io/project/worker:1.0"));
+
+    Assert.assertEquals(Arrays.asList("app", "gcr.io/project/worker:1.0"), result.getLoaded());
+    Assert.assertEquals(Collections.emptyList(), result.getSkipped());
+    // Neither lists the cluster images nor uses minikube image load.
+    Assert.assertTrue(
+        commands.contains(
+            Arrays.asList(
+                "minikube", "cache", "add", "gcr.io/project/worker:1.0", "--profile=minikube")));
+    Assert.assertTrue(
+        commands.contains(Arrays.asList("minikube", "cache", "add", "app", "--profile=minikube")));
+    Assert.assertEquals(3, commands.size());
+  }
+
+  @Test
+  public void testLoad_fails() throws IOException, InterruptedException {
+    failLoads = true;
+    imageLoader.setParallelism(1);
+
+    try {
+      imageLoader.load(Arrays.asList("app", "gcr.io/project/worker:1.0"));
+      Assert.fail("load() should have failed");
+    } catch (IOException ex) {
+      Assert.assertTrue(ex.getMessage().startsWith("Failed to load images into minikube: app"));
+    }
+    // No further load is started after the first failure.
+    Assert.assertEquals(3, commands.size());
+    Assert.assertEquals(Collections.emptyMap(), new ImageIndex(indexFile).read());
+  }
+
+  @Test
+  public void testIsPresent_otherReferenceOnly() {
+    Map<String, Set<String>> clusterImages =
+        ImageLoader.parseClusterImages(
+            "[{\"id\":\"aaa\",\"repoTags\":[\"docker.io/library/other:latest\"]}]");
+
+    Assert.assertFalse(ImageLoader.isPresent("app", "aaa", null, clusterImages));
+    Assert.assertTrue(ImageLoader.isPresent("app", "aaa", "aaa", clusterImages));
+    Assert.assertTrue(ImageLoader.isPresent("other", "aaa", null, clusterImages));
+  }
+
+  @Test
+  public void testNormalizeReference() {
+    Assert.assertEquals("docker.io/library/app:latest", ImageLoader.normalizeReference("app"));
+    Assert.assertEquals("docker.io/user/app:1.0", ImageLoader.normalizeReference("user/app:1.0"));
+    Assert.assertEquals(
+        "localhost:5000/app:latest", ImageLoader.normalizeReference("localhost:5000/app"));
+    Assert.assertEquals("gcr.io/p/app:2", ImageLoader.normalizeReference("gcr.io/p/app:2"));
+  }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+/** Tests for {@link ManifestDeployer}. */
+public class ManifestDeployerTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private CommandExecutor mockCommandExecutor;
+  private ManifestDeployer testDeployer;
+  private Path directory;
+
+  @Before
+  public void setUp() throws IOException {
+    mockCommandExecutor = Mockito.mock(CommandExecutor.class);
+    Mockito.when(mockCommandExecutor.setLogger(Mockito.any())).thenReturn(mockCommandExecutor);
+
+    testDeployer =
+        new ManifestDeployer(
+                () -> mockCommandExecutor, "kubectl", "dev", Mockito.mock(BuildLogger.class))
+            .setParallelism(2);
+
+    directory = tmp.getRoot().toPath();
+    write("app/deployment.yaml", "apiVersion: apps/v1\nkind: Deployment\n");
+    write("app/config.yml", "kind: ConfigMap\n---\nkind: Secret\n");
+    write("namespace.json", "{\"apiVersion\": \"v1\", \"kind\": \"Namespace\"}");
+    write("crd.yaml", "kind: CustomResourceDefinition\nspec:\n  names:\n    kind: Widget\n");
+    write("README.md", "kind: Namespace\n");
+  }
+
+  @Test
+  public void testPlanWaves() throws IOException {
+    Map<ManifestDeployer.Wave, List<Path>> waves =
+        ManifestDeployer.planWaves(ManifestDeployer.findManifests(directory));
+
+    Assert.assertEquals(
+        Arrays.asList(
+            ManifestDeployer.Wave.DEFINITIONS,
+            ManifestDeployer.Wave.CONFIGURATION,
+            ManifestDeployer.Wave.WORKLOADS),
+        new ArrayList<>(waves.keySet()));
+    Assert.assertEquals(
+        Arrays.asList(directory.resolve("crd.yaml"), directory.resolve("namespace.json")),
+        waves.get(ManifestDeployer.Wave.DEFINITIONS));
+    Assert.assertEquals(
+        Collections.singletonList(directory.resolve("app/config.yml")),
+        waves.get(ManifestDeployer.Wave.CONFIGURATION));
+    Assert.assertEquals(
+        Collections.singletonList(directory.resolve("app/deployment.yaml")),
+        waves.get(ManifestDeployer.Wave.WORKLOADS));
+  }
+
+  @Test
+  public void testReadKinds() {
+    Assert.assertEquals(
+        new HashSet<>(Arrays.asList("Namespace", "Deployment")),
+        ManifestDeployer.readKinds(
+            "apiVersion: v1\nkind: Namespace\n---\nkind: \"Deployment\"\nspec:\n  kind: Nested\n"));
+    Assert.assertEquals(
+        Collections.singleton("Widget"), ManifestDeployer.readKinds("{\"kind\":\"Widget\"}"));
+  }
+
+  @Test
+  public void testGetWave() {
+    Assert.assertEquals(
+        ManifestDeployer.Wave.DEFINITIONS,
+        ManifestDeployer.getWave(new HashSet<>(Arrays.asList("Deployment", "Namespace"))));
+    Assert.assertEquals(
+        ManifestDeployer.Wave.CONFIGURATION,
+        ManifestDeployer.getWave(Collections.singleton("ClusterRoleBinding")));
+    Assert.assertEquals(
+        ManifestDeployer.Wave.WORKLOADS, ManifestDeployer.getWave(Collections.singleton("Widget")));
+    Assert.assertEquals(
+        ManifestDeployer.Wave.WORKLOADS, ManifestDeployer.getWave(Collections.emptySet()));
+  }
+
+  @Test
+  public void testDeploy() throws IOException, InterruptedException {
+    List<ParallelCommandRunner.Result> results = testDeployer.deploy(directory).getApplied();
+
+    Assert.assertEquals(4, results.size());
+    Assert.assertEquals("crd.yaml", results.get(0).getName());
+    Assert.assertEquals("namespace.json", results.get(1).getName());
+    Assert.assertEquals("app/config.yml", results.get(2).getName());
+    Assert.assertEquals("app/deployment.yaml", results.get(3).getName());
+    Assert.assertEquals("", ParallelCommandRunner.describeFailures(results));
+    Mockito.verify(mockCommandExecutor)
+        .run(
+            Arrays.asList(
+                "kubectl",
+                "--context",
+                "dev",
+                "apply",
+                "-f",
+                directory.resolve("app/deployment.yaml").toString()));
+  }
+
+  @Test
+  public void testDeploy_stopsAfterFailedWave() throws IOException, InterruptedException {
+    Mockito.when(
+            mockCommandExecutor.run(testDeployer.buildApplyCommand(directory.resolve("crd.yaml"))))
+        .thenThrow(new IOException("command exited with non-zero exit code : 1"));
+
+    List<ParallelCommandRunner.Result> results = testDeployer.deploy(directory).getApplied();
+
+    Assert.assertEquals(2, results.size());
+    Assert.assertEquals(
+        "crd.yaml (command exited with non-zero exit code : 1)",
+        ParallelCommandRunner.describeFailures(results));
+    Mockito.verify(mockCommandExecutor, Mockito.never())
+        .run(testDeployer.buildApplyCommand(directory.resolve("app/config.yml")));
+    Mockito.verify(mockCommandExecutor, Mockito.never())
+        .run(testDeployer.buildApplyCommand(directory.resolve("app/deployment.yaml")));
+  }
+
+  @Test
+  public void testDeploy_incremental() throws IOException, InterruptedException {
+    setClusterId("uid-1");
+    testDeployer.setIndexFile(tmp.getRoot().toPath().resolve("index/dev.tsv"));
+    Assert.assertEquals(4, testDeployer.deploy(directory).getApplied().size());
+
+    write("app/deployment.yaml", "apiVersion: apps/v1\nkind: Deployment\nspec: {}\n");
+    ManifestDeployer.Result result = testDeployer.deploy(directory);
+
+    Assert.assertEquals(1, result.getApplied().size());
+    Assert.assertEquals("app/deployment.yaml", result.getApplied().get(0).getName());
+    Assert.assertEquals(
+        Arrays.asList("app/config.yml", "crd.yaml", "namespace.json"), result.getUnchanged());
+    Assert.assertTrue(result.getPruned().isEmpty());
+
+    result = testDeployer.deploy(directory);
+    Assert.assertTrue(result.getApplied().isEmpty());
+    Assert.assertEquals(4, result.getUnchanged().size());
+  }
+
+  @Test
+  public void testDeploy_recreatedCluster() throws IOException, InterruptedException {
+    setClusterId("uid-1");
+    testDeployer.setIndexFile(tmp.getRoot().toPath().resolve("index/dev.tsv"));
+    testDeployer.deploy(directory);
+
+    setClusterId("uid-2");
+    ManifestDeployer.Result result = testDeployer.deploy(directory);
+
+    Assert.assertEquals(4, result.getApplied().size());
+    Assert.assertTrue(result.getUnchanged().isEmpty());
+  }
+
+  @Test
+  public void testDeploy_prunesRemovedResources() throws IOException, InterruptedException {
+    setClusterId("uid-1");
+    testDeployer.setIndexFile(tmp.getRoot().toPath().resolve("index/dev.tsv"));
+    write(
+        "app/web.yaml",
+        "kind: Service\nmetadata:\n  name: web\n  namespace: apps\n---\n"
+            + "kind: Deployment\nmetadata:\n  name: web\n  namespace: apps\n");
+    testDeployer.deploy(directory);
+
+    write("app/web.yaml", "kind: Deployment\nmetadata:\n  name: web\n  namespace: apps\n");
+    ManifestDeployer.Result result = testDeployer.deploy(directory);
+
+    Assert.assertEquals(1, result.getPruned().size());
+    Assert.assertEquals("Service/web@apps", result.getPruned().get(0).getName());
+    Mockito.verify(mockCommandExecutor)
+        .run(
+            Arrays.asList(
+                "kubectl",
+                "--context",
+                "dev",
+                "delete",
+                "Service/web",
+                "--namespace",
+                "apps",
+                "--ignore-not-found",
+                "--wait=false"));
+
+    Files.delete(directory.resolve("app/web.yaml"));
+    result = testDeployer.deploy(directory);
+
+    Assert.assertEquals(1, result.getPruned().size());
+    Assert.assertEquals("Deployment/web@apps", result.getPruned().get(0).getName());
+    Assert.assertFalse(
+        new DeployIndex(tmp.getRoot().toPath().resolve("index/dev.tsv"))
+            .read()
+            .containsKey("app/web.yaml"));
+  }
+
+  @Test
+  public void testReadResources() {
+    Assert.assertEquals(
+        Arrays.asList("Namespace/apps", "Deployment/web@apps"),
+        ManifestDeployer.readResources(
+            "# comment\nkind: Namespace\nmetadata:\n  name: apps\n  labels:\n    name: x\n"
+                + "---\nkind: Deployment\nmetadata:\n  namespace: \"apps\"\n  name: web\n"
+                + "spec:\n  template:\n    metadata:\n      name: pod\n"
+                + "---\nkind: Pod\nmetadata:\n  generateName: job-\n"));
+    Assert.assertEquals(
+        Arrays.asList("ConfigMap/a@apps", "Secret/b"),
+        ManifestDeployer.readResources(
+            "{\"kind\": \"List\", \"items\": ["
+                + "{\"kind\": \"ConfigMap\", \"metadata\": {\"name\": \"a\", \"namespace\": \"apps\"}},"
+                + "{\"kind\": \"Secret\", \"metadata\": {\"name\": \"b\"}}]}"));
+  }
+
+  private void setClusterId(String clusterId) throws IOException, InterruptedException {
+    Mockito.when(
+            mockCommandExecutor.run(
+                Arrays.asList(
+                    "kubectl",
+                    "--context",
+                    "dev",
+                    "get",
+                    "namespace",
+                    "kube-system",
+                    "-o",
+                    "jsonpath={.metadata.uid}")))
+        .thenReturn(Collections.singletonList(clusterId));
+  }
+
+  private void write(String path, String content) throws IOException {
+    Path file = directory.resolve(path);
+    Files.createDirectories(file.getParent());
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+/** Tests for {@link MinikubeEventParser}. */
+@RunWith(MockitoJUnitRunner.class)
+public class MinikubeEventParserTest {
+
+  @Mock private MinikubeEventListener mockMinikubeEventListener;
+
+  private MinikubeEventParser testMinikubeEventParser;
+
+  @Before
+  public void setUp() {
+    testMinikubeEventParser = new MinikubeEventParser(mockMinikubeEventListener);
+  }
+
+  @Test
+  public void testAccept_step() {
+    testMinikubeEventParser.accept(
+        "{\"specversion\":\"1.0\",\"id\":\"1\",\"source\":\"https://minikube.sigs.k8s.io/\","
+            + "\"type\":\"io.k8s.sigs.minikube.step\",\"datacontenttype\":\"application/json\","
+            + "\"data\":{\"currentstep\":\"3\",\"message\":\"Creating virtualbox VM ...\","
+            + "\"name\":\"Creating VM\",\"totalsteps\":\"19\"}}");
+
+    Mockito.verify(mockMinikubeEventListener)
+        .onStep(3, 19, "Creating VM", "Creating virtualbox VM ...");
+    Mockito.verifyNoMoreInteractions(mockMinikubeEventListener);
+  }
+
+  @Test
+  public void testAccept_downloadProgress() {
+    testMinikubeEventParser.accept(
+        "{\"type\":\"io.k8s.sigs.minikube.download.progress\","
+            + "\"data\":{\"artifact\":\"preloaded-images\",\"progress\":\"0.25\"}}");
+
+    Mockito.verify(mockMinikubeEventListener).onDownloadProgress("preloaded-images", 0.25);
+  }
+
+  @Test
+  public void testAccept_messages() {
+    testMinikubeEventParser.accept(
+        "{\"type\":\"io.k8s.sigs.minikube.info\",\"data\":{\"message\":\"info\"}}");
+    testMinikubeEventParser.accept(
+        "{\"type\":\"io.k8s.sigs.minikube.warning\",\"data\":{\"message\":\"warning\"}}");
+    testMinikubeEventParser.accept(
+        "{\"type\":\"io.k8s.sigs.minikube.error\",\"data\":{\"message\":\"error\"}}");
+
+    Mockito.verify(mockMinikubeEventListener).onInfo("info");
+    Mockito.verify(mockMinikubeEventListener).onWarning("warning");
+    Mockito.verify(mockMinikubeEventListener).onError("error");
+  }
+
+  @Test
+  public void testAccept_ignoresOtherOutput() {
+    testMinikubeEventParser.accept("Starting local Kubernetes cluster...");
+    testMinikubeEventParser.accept("{not json");
+    testMinikubeEventParser.accept("{\"type\":\"some.other.event\"}");
+    testMinikubeEventParser.accept("[]");
+
+    Mockito.verifyZeroInteractions(mockMinikubeEventListener);
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests for {@link MinikubeStatus}. */
+public class MinikubeStatusTest {
+
+  @Test
+  public void testParse() {
+    Assert.assertEquals(
+        MinikubeStatus.State.RUNNING,
+        MinikubeStatus.parse(
+            Collections.singletonList(
+                "{\"Name\":\"minikube\",\"Host\":\"Running\",\"Kubelet\":\"Running\","
+                    + "\"APIServer\":\"Running\",\"Kubeconfig\":\"Configured\"}")));
+    Assert.assertEquals(
+        MinikubeStatus.State.PAUSED,
+        MinikubeStatus.parse(
+            Collections.singletonList(
+                "{\"Name\":\"minikube\",\"Host\":\"Running\",\"Kubelet\":\"Stopped\","
+                    + "\"APIServer\":\"Paused\",\"Kubeconfig\":\"Configured\"}")));
+    Assert.assertEquals(
+        MinikubeStatus.State.STOPPED,
+        MinikubeStatus.parse(
+            Collections.singletonList(
+                "{\"Name\":\"minikube\",\"Host\":\"Stopped\",\"Kubelet\":\"Stopped\","
+                    + "\"APIServer\":\"Stopped\",\"Kubeconfig\":\"Stopped\"}")));
+  }
+
+  @Test
+  public void testParse_multiNode() {
+    Assert.assertEquals(
+        MinikubeStatus.State.PAUSED,
+        MinikubeStatus.parse(
+            Arrays.asList(
+                "[{\"Name\":\"minikube\",\"Host\":\"Running\",\"Kubelet\":\"Stopped\",",
+                "\"APIServer\":\"Paused\"},",
+                "{\"Name\":\"minikube-m02\",\"Host\":\"Running\",\"Kubelet\":\"Stopped\"}]")));
+  }
+
+  @Test
+  public void testParse_notJson() {
+    Assert.assertEquals(
+        MinikubeStatus.State.STOPPED,
+        MinikubeStatus.parse(
+            Arrays.asList("* Profile \"minikube\" not found.", "  To start a cluster, run:")));
+  }
+
+  @Test
+  public void testGetProfileFlags() {
+    Assert.assertEquals(
+        Collections.singletonList("--profile=dev"),
+        MinikubeStatus.getProfileFlags(Arrays.asList("--memory=4096", "-p", "dev")));
+    Assert.assertEquals(
+        Collections.singletonList("--profile=dev"),
+        MinikubeStatus.getProfileFlags(Collections.singletonList("--profile=dev")));
+    Assert.assertEquals(
+        Collections.emptyList(),
+        MinikubeStatus.getProfileFlags(Collections.singletonList("--memory=4096")));
+  }
+}
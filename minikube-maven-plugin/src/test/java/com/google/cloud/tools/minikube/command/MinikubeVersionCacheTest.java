@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+/** Tests for {@link MinikubeVersionCache}. */
+public class MinikubeVersionCacheTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private CommandExecutor mockCommandExecutor;
+  private Path binary;
+  private Path cacheFile;
+  private List<String> jsonCommand;
+
+  @Before
+  public void setUp() throws IOException {
+    mockCommandExecutor = Mockito.mock(CommandExecutor.class);
+    Mockito.when(mockCommandExecutor.setFailOnNonZeroExitCode(false))
+        .thenReturn(mockCommandExecutor);
+
+    binary = tmp.newFile("minikube").toPath();
+    cacheFile = tmp.getRoot().toPath().resolve("cache/version-cache.tsv");
+    jsonCommand = Arrays.asList(binary.toString(), "version", "--output=json");
+  }
+
+  @Test
+  public void testGetCapabilities_queriesOncePerBinary() throws IOException, InterruptedException {
+    Mockito.when(mockCommandExecutor.run(jsonCommand))
+        .thenReturn(
+            Collections.singletonList("{\"commit\":\"abc\",\"minikubeVersion\":\"v1.16.0\"}"));
+
+    Assert.assertEquals("v1.16.0", newCache().getCapabilities(binary.toString()).getVersion());
+    Assert.assertEquals("v1.16.0", newCache().getCapabilities(binary.toString()).getVersion());
+    Mockito.verify(mockCommandExecutor, Mockito.times(1)).run(jsonCommand);
+
+    List<String> lines = Files.readAllLines(cacheFile, StandardCharsets.UTF_8);
+    Assert.assertEquals(1, lines.size());
+    Assert.assertTrue(lines.get(0).startsWith(binary.toAbsolutePath() + "\t"));
+    Assert.assertTrue(lines.get(0).endsWith("\tv1.16.0"));
+  }
+
+  @Test
+  public void testGetCapabilities_readsCacheFile() throws IOException, InterruptedException {
+    Files.write(binary, "binary".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(binary, FileTime.fromMillis(1000));
+    Files.createDirectories(cacheFile.getParent());
+    Files.write(
+        cacheFile,
+        Collections.singletonList(binary.toAbsolutePath() + "\t6\t1000\tv1.4.0"),
+        StandardCharsets.UTF_8);
+
+    Assert.assertEquals("v1.4.0", newCache().getCapabilities(binary.toString()).getVersion());
+    Mockito.verify(mockCommandExecutor, Mockito.never()).run(Mockito.anyList());
+  }
+
+  @Test
+  public void testGetCapabilities_upgradedBinary() throws IOException, InterruptedException {
+    Files.createDirectories(cacheFile.getParent());
+    Files.write(
+        cacheFile,
+        Collections.singletonList(binary.toAbsolutePath() + "\t6\t1000\tv1.4.0"),
+        StandardCharsets.UTF_8);
+    Mockito.when(mockCommandExecutor.run(jsonCommand))
+        .thenReturn(Collections.singletonList("{\"minikubeVersion\":\"v1.30.1\"}"));
+
+    Assert.assertEquals("v1.30.1", newCache().getCapabilities(binary.toString()).getVersion());
+    // The entry of the replaced binary is dropped.
+    Assert.assertEquals(1, Files.readAllLines(cacheFile, StandardCharsets.UTF_8).size());
+  }
+
+  @Test
+  public void testGetCapabilities_unknownVersion() throws IOException, InterruptedException {
+    Mockito.when(mockCommandExecutor.run(Mockito.anyList()))
+        .thenThrow(new IOException("command exited with non-zero exit code : 1"));
+
+    Assert.assertSame(MinikubeCapabilities.UNKNOWN, newCache().getCapabilities(binary.toString()));
+    Assert.assertFalse(Files.exists(cacheFile));
+  }
+
+  @Test
+  public void testParseVersion() {
+    Assert.assertEquals(
+        "v1.30.1",
+        MinikubeVersionCache.parseVersion(
+            Arrays.asList("{", "\"minikubeVersion\": \"v1.30.1\"", "}")));
+    Assert.assertEquals(
+        "v1.9.2",
+        MinikubeVersionCache.parseVersion(
+            Arrays.asList("minikube version: v1.9.2", "commit: 1b78a7b")));
+    Assert.assertNull(
+        MinikubeVersionCache.parseVersion(
+            Collections.singletonList("Error: unknown flag: --output")));
+  }
+
+  private MinikubeVersionCache newCache() {
+    return new MinikubeVersionCache(() -> mockCommandExecutor, cacheFile);
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/** Tests for {@link NamespaceIsolation}. */
+public class NamespaceIsolationTest {
+
+  private CommandExecutor mockCommandExecutor;
+  private BuildLogger mockBuildLogger;
+  private NamespaceIsolation testNamespaceIsolation;
+
+  @Before
+  public void setUp() {
+    mockCommandExecutor = Mockito.mock(CommandExecutor.class);
+    mockBuildLogger = Mockito.mock(BuildLogger.class);
+
+    testNamespaceIsolation =
+        new NamespaceIsolation(() -> mockCommandExecutor, "kubectl", "dev", mockBuildLogger);
+  }
+
+  @Test
+  public void testNewName() {
+    Assert.assertTrue(
+        NamespaceIsolation.newName("com.example.MyIT").matches("com-example-myit-[0-9a-f]{8}"));
+    Assert.assertTrue(NamespaceIsolation.newName("--").matches("test-[0-9a-f]{8}"));
+    Assert.assertNotEquals(NamespaceIsolation.newName("a"), NamespaceIsolation.newName("a"));
+
+    char[] longPrefix = new char[100];
+    Arrays.fill(longPrefix, 'x');
+    Assert.assertEquals(63, NamespaceIsolation.newName(new String(longPrefix)).length());
+  }
+
+  @Test
+  public void testCreate() throws IOException, InterruptedException {
+    testNamespaceIsolation.create("app-1234abcd", "run1");
+
+    Mockito.verify(mockCommandExecutor)
+        .run(Arrays.asList("kubectl", "--context", "dev", "create", "namespace", "app-1234abcd"));
+    Mockito.verify(mockCommandExecutor)
+        .run(
+            Arrays.asList(
+                "kubectl",
+                "--context",
+                "dev",
+                "label",
+                "namespace",
+                "app-1234abcd",
+                "minikube-build-tools/isolated=true",
+                "minikube-build-tools/run=run1"));
+  }
+
+  @Test
+  public void testDeleteRun() throws IOException, InterruptedException {
+    Mockito.when(
+            mockCommandExecutor.run(
+                Arrays.asList(
+                    "kubectl",
+                    "--context",
+                    "dev",
+                    "delete",
+                    "namespace",
+                    "--selector=minikube-build-tools/run=run1",
+                    "--ignore-not-found",
+                    "--wait=false")))
+        .thenReturn(Arrays.asList("namespace \"a-1\" deleted", "namespace \"b-2\" deleted"));
+
+    testNamespaceIsolation.deleteRun("run1");
+
+    Mockito.verify(mockBuildLogger).lifecycle("Deleting 2 namespaces in the background");
+  }
+
+  @Test
+  public void testDeleteAll() throws IOException, InterruptedException {
+    testNamespaceIsolation.deleteAll();
+
+    Mockito.verify(mockCommandExecutor)
+        .run(
+            Arrays.asList(
+                "kubectl",
+                "--context",
+                "dev",
+                "delete",
+                "namespace",
+                "--selector=minikube-build-tools/isolated=true",
+                "--ignore-not-found",
+                "--wait=false"));
+  }
+}
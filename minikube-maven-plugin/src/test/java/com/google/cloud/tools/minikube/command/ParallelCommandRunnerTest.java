@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/** Tests for {@link ParallelCommandRunner}. */
+public class ParallelCommandRunnerTest {
+
+  private CommandExecutor mockCommandExecutor;
+  private final Map<String, List<String>> commands = new LinkedHashMap<>();
+
+  @Before
+  public void setUp() {
+    mockCommandExecutor = Mockito.mock(CommandExecutor.class);
+    Mockito.when(mockCommandExecutor.setLogger(Mockito.any())).thenReturn(mockCommandExecutor);
+
+    for (int i = 0; i < 6; i++) {
+      commands.put("command" + i, Arrays.asList("minikube", "command" + i));
+    }
+  }
+
+  @Test
+  public void testRun_boundsParallelism() throws IOException, InterruptedException {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    CountDownLatch twoRunning = new CountDownLatch(2);
+    Mockito.when(mockCommandExecutor.run(Mockito.anyList()))
+        .thenAnswer(
+            invocation -> {
+              maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+              twoRunning.countDown();
+              twoRunning.await(5, TimeUnit.SECONDS);
+              running.decrementAndGet();
+              return null;
+            });
+
+    List<ParallelCommandRunner.Result> results =
+        new ParallelCommandRunner(() -> mockCommandExecutor, null, 2).run(commands);
+
+    Assert.assertEquals(2, maxRunning.get());
+    Assert.assertEquals(6, results.size());
+    for (int i = 0; i < 6; i++) {
+      Assert.assertEquals("command" + i, results.get(i).getName());
+      Assert.assertTrue(results.get(i).isSucceeded());
+    }
+    Assert.assertEquals("", ParallelCommandRunner.describeFailures(results));
+  }
+
+  @Test
+  public void testRun_stopsStartingCommandsAfterFailure() throws IOException, InterruptedException {
+    Mockito.when(mockCommandExecutor.run(Arrays.asList("minikube", "command1")))
+        .thenThrow(new IOException("command exited with non-zero exit code : 1"));
+
+    List<ParallelCommandRunner.Result> results =
+        new ParallelCommandRunner(() -> mockCommandExecutor, null, 1).run(commands);
+
+    Assert.assertEquals(ParallelCommandRunner.Result.Status.SUCCEEDED, results.get(0).getStatus());
+    Assert.assertEquals(ParallelCommandRunner.Result.Status.FAILED, results.get(1).getStatus());
+    for (int i = 2; i < 6; i++) {
+      Assert.assertEquals(ParallelCommandRunner.Result.Status.SKIPPED, results.get(i).getStatus());
+    }
+    Assert.assertEquals(
+        "command1 (command exited with non-zero exit code : 1)",
+        ParallelCommandRunner.describeFailures(results));
+  }
+}
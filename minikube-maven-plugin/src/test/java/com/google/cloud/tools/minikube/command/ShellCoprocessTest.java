@@ -0,0 +1,166 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@link ShellCoprocess}. */
+public class ShellCoprocessTest {
+
+  private final List<String> lines = new ArrayList<>();
+  private final List<String> progress = new ArrayList<>();
+
+  private ProcessOutputNormalizer.Listener listener;
+
+  @Before
+  public void setUp() {
+    // The coprocess needs a POSIX shell.
+    Assume.assumeTrue(Files.isExecutable(Paths.get("/bin/sh")));
+
+    listener =
+        new ProcessOutputNormalizer.Listener() {
+          @Override
+          public void onLine(String line) {
+            lines.add(line);
+          }
+
+          @Override
+          public void onProgress(String progressLine) {
+            progress.add(progressLine);
+          }
+        };
+  }
+
+  @Test
+  public void testQuote() {
+    Assert.assertEquals("'a b'", ShellCoprocess.quote("a b"));
+    Assert.assertEquals("'it'\\''s'", ShellCoprocess.quote("it's"));
+    Assert.assertEquals("'$HOME'", ShellCoprocess.quote("$HOME"));
+  }
+
+  @Test
+  public void testRun_framesOutputOfConsecutiveCommands() throws IOException {
+    ShellCoprocess shellCoprocess = newShellCoprocess();
+
+    Assert.assertEquals(0, shellCoprocess.run(Arrays.asList("printf", "a\\nb\\n"), null, listener));
+    Assert.assertEquals(Arrays.asList("a", "b"), lines);
+
+    lines.clear();
+    Assert.assertEquals(
+        0, shellCoprocess.run(Arrays.asList("printf", "no line terminator"), null, listener));
+    Assert.assertEquals(Collections.singletonList("no line terminator"), lines);
+
+    lines.clear();
+    Assert.assertEquals(
+        3, shellCoprocess.run(Arrays.asList("sh", "-c", "echo error >&2; exit 3"), null, listener));
+    Assert.assertEquals(Collections.singletonList("error"), lines);
+  }
+
+  @Test
+  public void testRun_quotesArgumentsAndEnvironment() throws IOException {
+    ShellCoprocess shellCoprocess = newShellCoprocess();
+
+    shellCoprocess.run(
+        Arrays.asList("sh", "-c", "echo \"$1 $VALUE\"", "sh", "it's"),
+        Collections.singletonMap("VALUE", "$HOME `x`"),
+        listener);
+
+    Assert.assertEquals(Collections.singletonList("it's $HOME `x`"), lines);
+  }
+
+  @Test
+  public void testRun_collapsesProgress() throws IOException {
+    newShellCoprocess().run(Arrays.asList("printf", "10%%\\r100%%\\n"), null, listener);
+
+    Assert.assertEquals(Collections.singletonList("100%"), lines);
+    Assert.assertEquals(Collections.singletonList("10%"), progress);
+  }
+
+  @Test
+  public void testRun_shellExited() throws IOException, InterruptedException {
+    ShellCoprocess shellCoprocess =
+        new ShellCoprocess(new ProcessBuilder("/bin/sh", "-c", "exit 0"));
+
+    try {
+      shellCoprocess.run(Collections.singletonList("true"), null, listener);
+      Assert.fail();
+    } catch (IOException ex) {
+      // Either the write or the read of the command fails.
+    }
+  }
+
+  @Test
+  public void testExecute_interrupted() throws IOException, InterruptedException {
+    ShellCoprocess.closeIdle();
+    Thread caller = Thread.currentThread();
+    Thread interrupter =
+        new Thread(
+            () -> {
+              try {
+                Thread.sleep(200);
+              } catch (InterruptedException ignored) {
+                // Interrupts at once.
+              }
+              caller.interrupt();
+            });
+    interrupter.start();
+
+    long start = System.nanoTime();
+    try {
+      ShellCoprocess.execute(Arrays.asList("sleep", "5"), null, listener);
+      Assert.fail();
+    } catch (InterruptedException ex) {
+      Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(4));
+    }
+    interrupter.join();
+    Assert.assertEquals(0, ShellCoprocess.getIdleCount());
+
+    Assert.assertEquals(0, ShellCoprocess.execute(Arrays.asList("echo", "ok"), null, listener));
+    Assert.assertEquals(Collections.singletonList("ok"), lines);
+    Assert.assertEquals(1, ShellCoprocess.getIdleCount());
+    ShellCoprocess.closeIdle();
+  }
+
+  @Test
+  public void testCanRun() {
+    System.setProperty(ShellCoprocess.ENABLED_PROPERTY, "true");
+    try {
+      Assert.assertTrue(ShellCoprocess.canRun(null));
+      Assert.assertTrue(ShellCoprocess.canRun(Collections.singletonMap("DOCKER_HOST", "tcp://")));
+      Assert.assertFalse(ShellCoprocess.canRun(Collections.singletonMap("A-B", "value")));
+
+    } finally {
+      System.clearProperty(ShellCoprocess.ENABLED_PROPERTY);
+    }
+    Assert.assertFalse(ShellCoprocess.canRun(null));
+  }
+
+  private static ShellCoprocess newShellCoprocess() throws IOException {
+    return new ShellCoprocess(new ProcessBuilder("/bin/sh").redirectErrorStream(true));
+  }
+}
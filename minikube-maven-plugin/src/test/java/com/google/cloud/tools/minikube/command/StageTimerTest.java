@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@link StageTimer}. */
+public class StageTimerTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private final AtomicLong clock = new AtomicLong();
+  private StageTimer stageTimer;
+
+  @Before
+  public void setUp() {
+    stageTimer = new StageTimer(clock::get);
+
+    clock.set(1000);
+    stageTimer.onStep(0, 3, "Initial Minikube Setup", "minikube v1.0.0");
+    clock.set(3000);
+    stageTimer.onStep(1, 3, "Creating VM", "Creating VM ...");
+    // Repeated steps do not start a new stage.
+    clock.set(5000);
+    stageTimer.onStep(1, 3, "Creating VM", "Creating VM ...");
+    clock.set(33000);
+    stageTimer.onStep(2, 3, "Preparing Kubernetes", "Preparing Kubernetes ...");
+    clock.set(40000);
+    stageTimer.finish();
+  }
+
+  @Test
+  public void testGetStages() {
+    List<StageTimer.Stage> stages = stageTimer.getStages();
+
+    Assert.assertEquals(3, stages.size());
+    assertStage(stages.get(0), 0, "Initial Minikube Setup", 2000);
+    assertStage(stages.get(1), 1, "Creating VM", 30000);
+    assertStage(stages.get(2), 2, "Preparing Kubernetes", 7000);
+    Assert.assertEquals(40000, stageTimer.getTotalMillis());
+  }
+
+  @Test
+  public void testFormatReport() {
+    Assert.assertEquals(
+        Arrays.asList(
+            "minikube start stage timings (total 40.0s):",
+            "      2.0s   5%  Initial Minikube Setup",
+            "     30.0s  75%  Creating VM",
+            "      7.0s  17%  Preparing Kubernetes"),
+        stageTimer.formatReport("start"));
+  }
+
+  @Test
+  public void testWriteJson() throws IOException {
+    Path file = tmp.getRoot().toPath().resolve("minikube").resolve("timings.json");
+
+    stageTimer.writeJson(file, "start");
+
+    JsonObject json =
+        new JsonParser()
+            .parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8))
+            .getAsJsonObject();
+    Assert.assertEquals("start", json.get("command").getAsString());
+    Assert.assertEquals(40000, json.get("totalMillis").getAsLong());
+    Assert.assertEquals(3, json.getAsJsonArray("stages").size());
+    JsonObject stage = json.getAsJsonArray("stages").get(1).getAsJsonObject();
+    Assert.assertEquals(1, stage.get("step").getAsInt());
+    Assert.assertEquals("Creating VM", stage.get("name").getAsString());
+    Assert.assertEquals(30000, stage.get("durationMillis").getAsLong());
+  }
+
+  private static void assertStage(
+      StageTimer.Stage stage, int step, String name, long durationMillis) {
+    Assert.assertEquals(step, stage.getStep());
+    Assert.assertEquals(name, stage.getName());
+    Assert.assertEquals(durationMillis, stage.getDurationMillis());
+  }
+}
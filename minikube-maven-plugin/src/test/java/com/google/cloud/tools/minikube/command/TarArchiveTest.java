@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.command;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@link TarArchive}. */
+public class TarArchiveTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void testAddFile() throws IOException {
+    Path file = tmp.newFile("App.class").toPath();
+    Files.write(file, "app".getBytes(StandardCharsets.UTF_8));
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (TarArchive tarArchive = new TarArchive(output)) {
+      tarArchive.addFile("com/example/App.class", file);
+      tarArchive.addFile("marker", "id".getBytes(StandardCharsets.UTF_8), 1_000_000);
+    }
+    byte[] archive = output.toByteArray();
+
+    // Two headers, two padded contents and the two end blocks.
+    Assert.assertEquals(6 * 512, archive.length);
+    Assert.assertEquals("com/example/App.class", readString(archive, 0, 100));
+    Assert.assertEquals("00000000003", readString(archive, 124, 12));
+    Assert.assertEquals("ustar", readString(archive, 257, 6));
+    Assert.assertEquals("app", readString(archive, 512, 3));
+    Assert.assertEquals("marker", readString(archive, 1024, 100));
+    Assert.assertEquals("0000644", readString(archive, 1024 + 100, 8));
+    Assert.assertEquals("00000001750", readString(archive, 1024 + 136, 12));
+    Assert.assertEquals("id", readString(archive, 1536, 2));
+    Assert.assertTrue(isChecksumValid(archive, 0));
+    Assert.assertTrue(isChecksumValid(archive, 1024));
+    Assert.assertArrayEquals(
+        new byte[1024], Arrays.copyOfRange(archive, archive.length - 1024, archive.length));
+  }
+
+  @Test
+  public void testAddFile_longName() throws IOException {
+    String directory = String.join("/", new String[] {repeat('a', 60), repeat('b', 60)});
+    String name = directory + "/" + repeat('c', 90);
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (TarArchive tarArchive = new TarArchive(output)) {
+      tarArchive.addFile(name, new byte[0], 0);
+    }
+    byte[] archive = output.toByteArray();
+
+    Assert.assertEquals(repeat('c', 90), readString(archive, 0, 100));
+    Assert.assertEquals(directory, readString(archive, 345, 155));
+    Assert.assertTrue(isChecksumValid(archive, 0));
+  }
+
+  @Test
+  public void testAddFile_nameTooLong() throws IOException {
+    try (TarArchive tarArchive = new TarArchive(new ByteArrayOutputStream())) {
+      tarArchive.addFile(repeat('a', 101), new byte[0], 0);
+      Assert.fail();
+    } catch (IOException ex) {
+      Assert.assertEquals(repeat('a', 101) + " is too long for a tar archive", ex.getMessage());
+    }
+  }
+
+  private static boolean isChecksumValid(byte[] archive, int offset) {
+    long checksum = 0;
+    for (int i = 0; i < 512; i++) {
+      checksum += (i >= 148 && i < 156) ? ' ' : archive[offset + i] & 0xff;
+    }
+    return Long.parseLong(readString(archive, offset + 148, 6), 8) == checksum;
+  }
+
+  private static String readString(byte[] archive, int offset, int length) {
+    int end = offset;
+    while (end < offset + length && archive[end] != 0) {
+      end++;
+    }
+    return new String(archive, offset, end - offset, StandardCharsets.US_ASCII);
+  }
+
+  private static String repeat(char c, int count) {
+    char[] chars = new char[count];
+    Arrays.fill(chars, c);
+    return new String(chars);
+  }
+}
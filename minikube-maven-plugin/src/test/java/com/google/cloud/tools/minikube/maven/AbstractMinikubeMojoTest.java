@@ -17,14 +17,24 @@
 package com.google.cloud.tools.minikube.maven;
 
 import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.cloud.tools.minikube.command.MinikubeCapabilities;
+import com.google.cloud.tools.minikube.command.MinikubeStatus;
+import com.google.cloud.tools.minikube.command.TimingHistory;
 import com.google.common.collect.ImmutableList;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -35,6 +45,8 @@ import org.mockito.junit.MockitoJUnitRunner;
 @RunWith(MockitoJUnitRunner.class)
 public class AbstractMinikubeMojoTest {
 
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @Spy private AbstractMinikubeMojo spyAbstractMinikubeMojo;
 
   @Mock private CommandExecutor mockCommandExecutor;
@@ -44,6 +56,11 @@ public class AbstractMinikubeMojoTest {
   public void setUp() {
     Mockito.when(mockCommandExecutor.setLogger(Mockito.any(MavenBuildLogger.class)))
         .thenReturn(mockCommandExecutor);
+    Mockito.when(mockCommandExecutor.setOutputListener(Mockito.any()))
+        .thenReturn(mockCommandExecutor);
+
+    spyAbstractMinikubeMojo.setTimingsFile(
+        temporaryFolder.getRoot().toPath().resolve("timings.tsv").toFile());
   }
 
   @Test
@@ -65,6 +82,7 @@ public class AbstractMinikubeMojoTest {
   public void testExecute() throws IOException, MojoExecutionException, InterruptedException {
     List<String> minikubeCommand = Arrays.asList("some", "command");
     Mockito.doReturn(minikubeCommand).when(spyAbstractMinikubeMojo).buildMinikubeCommand();
+    Mockito.when(spyAbstractMinikubeMojo.getCommand()).thenReturn("command");
 
     spyAbstractMinikubeMojo.setCommandExecutorSupplier(() -> mockCommandExecutor);
     spyAbstractMinikubeMojo.setMavenBuildLogger(mockMavenBuildLogger);
@@ -75,6 +93,91 @@ public class AbstractMinikubeMojoTest {
     Mockito.verify(mockCommandExecutor).run(minikubeCommand);
   }
 
+  @Test
+  public void testExecute_dropsUnsupportedJsonOutput()
+      throws IOException, MojoExecutionException, InterruptedException {
+    Mockito.doReturn(Arrays.asList("minikube", "start", "--output=json"))
+        .when(spyAbstractMinikubeMojo)
+        .buildMinikubeCommand();
+    Mockito.when(spyAbstractMinikubeMojo.getCommand()).thenReturn("start");
+
+    spyAbstractMinikubeMojo.setCommandExecutorSupplier(() -> mockCommandExecutor);
+    spyAbstractMinikubeMojo.setMavenBuildLogger(mockMavenBuildLogger);
+    spyAbstractMinikubeMojo.setCapabilities(new MinikubeCapabilities("v1.9.2"));
+
+    spyAbstractMinikubeMojo.execute();
+
+    Mockito.verify(mockCommandExecutor).run(Arrays.asList("minikube", "start"));
+  }
+
+  @Test
+  public void testExecute_writesAndRecordsTimings()
+      throws IOException, MojoExecutionException, InterruptedException {
+    List<String> minikubeCommand = Arrays.asList("minikube", "start", "--output=json");
+    Mockito.doReturn(minikubeCommand).when(spyAbstractMinikubeMojo).buildMinikubeCommand();
+    Mockito.when(spyAbstractMinikubeMojo.getCommand()).thenReturn("start");
+
+    Mockito.when(mockCommandExecutor.setOutputListener(Mockito.any()))
+        .thenAnswer(
+            invocation -> {
+              Consumer<String> outputListener = invocation.getArgument(0);
+              outputListener.accept(
+                  "{\"type\":\"io.k8s.sigs.minikube.step\",\"data\":{\"currentstep\":\"0\","
+                      + "\"name\":\"Creating VM\",\"totalsteps\":\"1\"}}");
+              return mockCommandExecutor;
+            });
+    Mockito.when(mockCommandExecutor.run(minikubeCommand)).thenReturn(Collections.emptyList());
+
+    spyAbstractMinikubeMojo.setCommandExecutorSupplier(() -> mockCommandExecutor);
+    spyAbstractMinikubeMojo.setMavenBuildLogger(mockMavenBuildLogger);
+    spyAbstractMinikubeMojo.setBuildDirectory(temporaryFolder.getRoot());
+    spyAbstractMinikubeMojo.setCapabilities(new MinikubeCapabilities("v1.30.1"));
+
+    spyAbstractMinikubeMojo.execute();
+
+    Mockito.verify(mockMavenBuildLogger).lifecycle("minikube start stage timings (total 0.0s):");
+    Path timingsFile = temporaryFolder.getRoot().toPath().resolve("minikube/start-stages.json");
+    Assert.assertTrue(
+        new String(Files.readAllBytes(timingsFile), StandardCharsets.UTF_8)
+            .contains("\"name\": \"Creating VM\""));
+
+    List<TimingHistory.Sample> samples =
+        new TimingHistory(temporaryFolder.getRoot().toPath().resolve("timings.tsv")).read();
+    Assert.assertEquals(2, samples.size());
+    Assert.assertEquals("start (minikube)", samples.get(0).getKey());
+    Assert.assertEquals("start/Creating VM (minikube)", samples.get(1).getKey());
+  }
+
+  @Test
+  public void testExecute_skipsUnchanged()
+      throws IOException, MojoExecutionException, InterruptedException {
+    List<String> minikubeCommand = Arrays.asList("minikube", "start");
+    Mockito.doReturn(minikubeCommand).when(spyAbstractMinikubeMojo).buildMinikubeCommand();
+    Mockito.when(spyAbstractMinikubeMojo.getCommand()).thenReturn("start");
+    Mockito.when(spyAbstractMinikubeMojo.getResultingState())
+        .thenReturn(MinikubeStatus.State.RUNNING);
+
+    Mockito.when(mockCommandExecutor.setFailOnNonZeroExitCode(false))
+        .thenReturn(mockCommandExecutor);
+    Mockito.when(mockCommandExecutor.run(Mockito.anyList()))
+        .thenReturn(
+            Collections.singletonList(
+                "{\"Host\":\"Running\",\"Kubelet\":\"Running\",\"APIServer\":\"Running\"}"));
+
+    spyAbstractMinikubeMojo.setCommandExecutorSupplier(() -> mockCommandExecutor);
+    spyAbstractMinikubeMojo.setMavenBuildLogger(mockMavenBuildLogger);
+    spyAbstractMinikubeMojo.setBuildDirectory(temporaryFolder.getRoot());
+    spyAbstractMinikubeMojo.setCapabilities(new MinikubeCapabilities("v1.30.1"));
+
+    spyAbstractMinikubeMojo.execute();
+    Assert.assertTrue(
+        Files.exists(temporaryFolder.getRoot().toPath().resolve("minikube/start.fingerprint")));
+    spyAbstractMinikubeMojo.execute();
+
+    Mockito.verify(mockCommandExecutor).run(minikubeCommand);
+    Mockito.verify(mockCommandExecutor).run(Arrays.asList(null, "status", "--output=json"));
+  }
+
   @Test
   public void testExecute_fail() throws IOException, InterruptedException {
     List<String> minikubeCommand = Arrays.asList("some", "command");
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+/** Tests for {@link AddonsMojo}. */
+@RunWith(MockitoJUnitRunner.class)
+public class AddonsMojoTest {
+
+  private static final List<String> ADDONS_LIST =
+      Collections.singletonList(
+          "{\"ingress\":{\"Profile\":\"minikube\",\"Status\":\"disabled\"},"
+              + "\"registry\":{\"Profile\":\"minikube\",\"Status\":\"enabled\"}}");
+
+  @Mock private CommandExecutor mockCommandExecutor;
+  @Mock private MavenBuildLogger mockMavenBuildLogger;
+  @Mock private Log mockLog;
+
+  private AddonsMojo testAddonsMojo;
+
+  @Before
+  public void setUp() {
+    testAddonsMojo = new AddonsMojo();
+    testAddonsMojo.setLog(mockLog);
+    testAddonsMojo.setCommandExecutorSupplier(() -> mockCommandExecutor);
+    testAddonsMojo.setMavenBuildLogger(mockMavenBuildLogger);
+    testAddonsMojo.setAddons(ImmutableList.of("registry", "ingress"));
+  }
+
+  @Test
+  public void testExecute() throws MojoExecutionException, IOException, InterruptedException {
+    Mockito.when(mockCommandExecutor.setLogger(mockMavenBuildLogger))
+        .thenReturn(mockCommandExecutor);
+    Mockito.when(
+            mockCommandExecutor.run(
+                Arrays.asList("minikube", "addons", "list", "--profile=minikube", "-o", "json")))
+        .thenReturn(ADDONS_LIST);
+
+    testAddonsMojo.execute();
+
+    Mockito.verify(mockMavenBuildLogger).lifecycle("1 of 2 addon(s) already enabled");
+    Mockito.verify(mockCommandExecutor)
+        .run(Arrays.asList("minikube", "addons", "enable", "ingress", "--profile=minikube"));
+    Mockito.verify(mockCommandExecutor, Mockito.never())
+        .run(Arrays.asList("minikube", "addons", "enable", "registry", "--profile=minikube"));
+  }
+
+  @Test
+  public void testExecute_noAddons() throws MojoExecutionException {
+    testAddonsMojo.setAddons(ImmutableList.of());
+
+    testAddonsMojo.execute();
+
+    Mockito.verify(mockLog).info("No minikube addons to enable");
+    Mockito.verifyZeroInteractions(mockCommandExecutor);
+  }
+
+  @Test
+  public void testExecute_fail() throws IOException, InterruptedException {
+    Mockito.when(mockCommandExecutor.setLogger(mockMavenBuildLogger))
+        .thenReturn(mockCommandExecutor);
+    Mockito.when(
+            mockCommandExecutor.run(
+                Arrays.asList("minikube", "addons", "list", "--profile=minikube", "-o", "json")))
+        .thenReturn(ADDONS_LIST);
+    Mockito.when(
+            mockCommandExecutor.run(
+                Arrays.asList("minikube", "addons", "enable", "ingress", "--profile=minikube")))
+        .thenThrow(new IOException("command exited with non-zero exit code : 1"));
+
+    try {
+      testAddonsMojo.execute();
+      Assert.fail("execute() should have failed");
+
+    } catch (MojoExecutionException ex) {
+      Assert.assertEquals(
+          "Failed to enable minikube addons: ingress (command exited with non-zero exit code : 1)",
+          ex.getMessage());
+    }
+  }
+}
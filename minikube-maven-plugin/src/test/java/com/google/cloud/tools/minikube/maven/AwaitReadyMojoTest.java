@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.cloud.tools.minikube.command.TimingHistory;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+/** Tests for {@link AwaitReadyMojo}. */
+@RunWith(MockitoJUnitRunner.class)
+public class AwaitReadyMojoTest {
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Mock private CommandExecutor mockCommandExecutor;
+  @Mock private CommandExecutor.RunningCommand mockRunningCommand;
+  @Mock private Log mockLog;
+
+  private Path timingsFile;
+  private AwaitReadyMojo testAwaitReadyMojo;
+
+  @Before
+  public void setUp() {
+    timingsFile = temporaryFolder.getRoot().toPath().resolve("timings.tsv");
+
+    testAwaitReadyMojo = new AwaitReadyMojo();
+    testAwaitReadyMojo.setLog(mockLog);
+    testAwaitReadyMojo.setCommandExecutorSupplier(() -> mockCommandExecutor);
+    testAwaitReadyMojo.setTimingsFile(timingsFile.toFile());
+  }
+
+  @Test
+  public void testExecute_noTargets() throws MojoExecutionException {
+    testAwaitReadyMojo.execute();
+
+    Mockito.verify(mockLog).info("No resources to wait for");
+    Mockito.verifyZeroInteractions(mockCommandExecutor);
+  }
+
+  @Test
+  public void testExecute() throws MojoExecutionException, IOException, InterruptedException {
+    testAwaitReadyMojo.setTargets(ImmutableList.of("node/minikube"));
+    Mockito.when(mockCommandExecutor.setOutputListener(Mockito.any()))
+        .thenReturn(mockCommandExecutor);
+    Mockito.when(mockCommandExecutor.start(Mockito.anyList())).thenReturn(mockRunningCommand);
+    Mockito.when(mockRunningCommand.isRunning()).thenReturn(false);
+    Mockito.when(mockCommandExecutor.run(Mockito.anyList()))
+        .thenReturn(
+            Collections.singletonList(
+                "{\"kind\":\"Node\",\"status\":{\"conditions\":"
+                    + "[{\"type\":\"Ready\",\"status\":\"True\"}]}}"));
+
+    testAwaitReadyMojo.execute();
+
+    List<TimingHistory.Sample> samples = new TimingHistory(timingsFile).read();
+    Assert.assertEquals(2, samples.size());
+    Assert.assertEquals("await-ready (minikube)", samples.get(0).getKey());
+    Assert.assertEquals("await-ready/node/minikube (minikube)", samples.get(1).getKey());
+  }
+
+  @Test
+  public void testExecute_timeout() throws IOException {
+    testAwaitReadyMojo.setTargets(ImmutableList.of("node/minikube"));
+    testAwaitReadyMojo.setTimeoutSeconds(0);
+    Mockito.when(mockCommandExecutor.setOutputListener(Mockito.any()))
+        .thenReturn(mockCommandExecutor);
+    Mockito.when(mockCommandExecutor.start(Mockito.anyList())).thenReturn(mockRunningCommand);
+    Mockito.when(mockRunningCommand.isRunning()).thenReturn(true);
+
+    try {
+      testAwaitReadyMojo.execute();
+      Assert.fail("execute() should have failed");
+
+    } catch (MojoExecutionException ex) {
+      Assert.assertEquals("Waiting for minikube resources failed", ex.getMessage());
+      Assert.assertEquals(
+          "Timed out waiting for node/minikube to be ready", ex.getCause().getMessage());
+    }
+  }
+}
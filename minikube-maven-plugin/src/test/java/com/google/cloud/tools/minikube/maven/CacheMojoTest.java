@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+/** Tests for {@link CacheMojo}. */
+@RunWith(MockitoJUnitRunner.class)
+public class CacheMojoTest {
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Mock private CommandExecutor mockCommandExecutor;
+  @Mock private MavenBuildLogger mockMavenBuildLogger;
+  @Mock private Log mockLog;
+
+  private CacheMojo testCacheMojo;
+
+  @Before
+  public void setUp() throws IOException {
+    Path cacheDirectory = temporaryFolder.getRoot().toPath();
+    Files.createDirectories(cacheDirectory.resolve("docker.io/library"));
+    Files.createFile(cacheDirectory.resolve("docker.io/library/busybox_latest"));
+
+    testCacheMojo = new CacheMojo();
+    testCacheMojo.setLog(mockLog);
+    testCacheMojo.setCommandExecutorSupplier(() -> mockCommandExecutor);
+    testCacheMojo.setMavenBuildLogger(mockMavenBuildLogger);
+    testCacheMojo.setCacheDirectory(cacheDirectory.toFile());
+    testCacheMojo.setImages(ImmutableList.of("busybox", "nginx"));
+  }
+
+  @Test
+  public void testExecute() throws MojoExecutionException, IOException, InterruptedException {
+    Mockito.when(mockCommandExecutor.setLogger(mockMavenBuildLogger))
+        .thenReturn(mockCommandExecutor);
+
+    testCacheMojo.execute();
+
+    Mockito.verify(mockLog).info("1 of 2 image(s) already in the minikube cache");
+    Mockito.verify(mockCommandExecutor).run(Arrays.asList("minikube", "cache", "add", "nginx"));
+    Mockito.verify(mockCommandExecutor, Mockito.never())
+        .run(Arrays.asList("minikube", "cache", "add", "busybox"));
+  }
+
+  @Test
+  public void testExecute_fail() throws IOException, InterruptedException {
+    Mockito.when(mockCommandExecutor.setLogger(mockMavenBuildLogger))
+        .thenReturn(mockCommandExecutor);
+    Mockito.when(mockCommandExecutor.run(Arrays.asList("minikube", "cache", "add", "nginx")))
+        .thenThrow(new IOException("command exited with non-zero exit code : 1"));
+
+    try {
+      testCacheMojo.execute();
+      Assert.fail("execute() should have failed");
+
+    } catch (MojoExecutionException ex) {
+      Assert.assertEquals(
+          "Failed to add images to the minikube cache: "
+              + "nginx (command exited with non-zero exit code : 1)",
+          ex.getMessage());
+    }
+  }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/** Tests for {@link ClusterCoordinator}. */
+public class ClusterCoordinatorTest {
+
+  private final Log log = Mockito.mock(Log.class);
+  private final ClusterCoordinator clusterCoordinator = new ClusterCoordinator();
+  private final List<String> actions = Collections.synchronizedList(new ArrayList<>());
+
+  @Test
+  public void testGet_sharedBySession() {
+    MavenSession session = Mockito.mock(MavenSession.class);
+    Mockito.when(session.getRepositorySession()).thenReturn(new DefaultRepositorySystemSession());
+
+    Assert.assertSame(ClusterCoordinator.get(session), ClusterCoordinator.get(session));
+    Assert.assertNotSame(ClusterCoordinator.get(session), ClusterCoordinator.get(null));
+  }
+
+  @Test
+  public void testStart_onceForAllModules() throws Exception {
+    Assert.assertTrue(clusterCoordinator.start("minikube", "a", log, () -> actions.add("start")));
+    Assert.assertFalse(clusterCoordinator.start("minikube", "b", log, () -> actions.add("start")));
+    Assert.assertTrue(clusterCoordinator.start("other", "b", log, () -> actions.add("start")));
+
+    Assert.assertEquals(Arrays.asList("start", "start"), actions);
+    Mockito.verify(log).info("minikube profile minikube was already started for [a]");
+  }
+
+  @Test
+  public void testRelease_byLastModule() throws Exception {
+    clusterCoordinator.start("minikube", "a", log, () -> actions.add("start"));
+    clusterCoordinator.start("minikube", "b", log, () -> actions.add("start"));
+
+    Assert.assertFalse(
+        clusterCoordinator.release(
+            "minikube",
+            "a",
+            "stop",
+            ClusterCoordinator.Scope.MODULE,
+            log,
+            () -> actions.add("stop")));
+    Assert.assertTrue(
+        clusterCoordinator.release(
+            "minikube",
+            "b",
+            "stop",
+            ClusterCoordinator.Scope.MODULE,
+            log,
+            () -> actions.add("stop")));
+    // Deleting after stopping is not held back by the released modules.
+    Assert.assertTrue(
+        clusterCoordinator.release(
+            "minikube",
+            "b",
+            "delete",
+            ClusterCoordinator.Scope.MODULE,
+            log,
+            () -> actions.add("delete")));
+
+    Assert.assertEquals(Arrays.asList("start", "stop", "delete"), actions);
+    Mockito.verify(log).info("minikube profile minikube is still used by [b]");
+  }
+
+  @Test
+  public void testRelease_moduleWithoutReleaseGoalsIsNoUser() throws Exception {
+    Map<String, Set<String>> releaseGoals = new LinkedHashMap<>();
+    releaseGoals.put("a", Collections.emptySet());
+    releaseGoals.put("b", Collections.singleton("stop"));
+    clusterCoordinator.initReleaseGoals(releaseGoals);
+
+    // a only starts the cluster: it must not keep b from stopping it.
+    clusterCoordinator.start("minikube", "a", log, () -> actions.add("start"));
+    clusterCoordinator.start("minikube", "b", log, () -> actions.add("start"));
+
+    Assert.assertTrue(
+        clusterCoordinator.release(
+            "minikube",
+            "b",
+            "stop",
+            ClusterCoordinator.Scope.MODULE,
+            log,
+            () -> actions.add("stop")));
+    Assert.assertEquals(Arrays.asList("start", "stop"), actions);
+  }
+
+  @Test
+  public void testStart_afterRelease() throws Exception {
+    clusterCoordinator.start("minikube", "a", log, () -> actions.add("start"));
+    clusterCoordinator.release(
+        "minikube", "a", "stop", ClusterCoordinator.Scope.MODULE, log, () -> actions.add("stop"));
+
+    Assert.assertTrue(clusterCoordinator.start("minikube", "b", log, () -> actions.add("start")));
+    Assert.assertEquals(Arrays.asList("start", "stop", "start"), actions);
+  }
+
+  @Test
+  public void testStart_failedStartIsRetried() throws Exception {
+    try {
+      clusterCoordinator.start(
+          "minikube",
+          "a",
+          log,
+          () -> {
+            throw new MojoExecutionException("failed");
+          });
+      Assert.fail();
+    } catch (MojoExecutionException ex) {
+      Assert.assertEquals("failed", ex.getMessage());
+    }
+
+    Assert.assertTrue(clusterCoordinator.start("minikube", "b", log, () -> actions.add("start")));
+  }
+
+  @Test
+  public void testRelease_sessionScope_deferredUntilLastModule() throws Exception {
+    Map<String, Set<String>> releaseGoals = new LinkedHashMap<>();
+    releaseGoals.put("a", new HashSet<>(Arrays.asList("stop", "delete")));
+    releaseGoals.put("b", Collections.singleton("stop"));
+    releaseGoals.put("c", Collections.emptySet());
+    clusterCoordinator.initReleaseGoals(releaseGoals);
+
+    clusterCoordinator.start("minikube", "a", log, () -> actions.add("start a"));
+    Assert.assertFalse(releaseSession("a", "stop"));
+    Assert.assertFalse(releaseSession("a", "delete"));
+    // The cluster is still started when the next module needs it.
+    Assert.assertFalse(
+        clusterCoordinator.start("minikube", "b", log, () -> actions.add("start b")));
+    Assert.assertTrue(releaseSession("b", "stop"));
+
+    Assert.assertEquals(Arrays.asList("start a", "stop b", "delete a"), actions);
+    Mockito.verify(log).info("Deferring minikube stop of profile minikube until [a, b] are done");
+    Mockito.verify(log).info("Deferring minikube delete of profile minikube until [b] are done");
+  }
+
+  @Test
+  public void testReleaseDeferred_moduleNeverReleases() throws Exception {
+    Map<String, Set<String>> releaseGoals = new LinkedHashMap<>();
+    releaseGoals.put("a", Collections.singleton("stop"));
+    releaseGoals.put("b", Collections.singleton("stop"));
+    clusterCoordinator.initReleaseGoals(releaseGoals);
+
+    clusterCoordinator.start("minikube", "a", log, () -> actions.add("start a"));
+    Assert.assertFalse(releaseSession("a", "stop"));
+    // b fails before its stop goal, and the session ends.
+    clusterCoordinator.releaseDeferred();
+    clusterCoordinator.releaseDeferred();
+
+    Assert.assertEquals(Arrays.asList("start a", "stop a"), actions);
+    Mockito.verify(log)
+        .info(
+            "Running the deferred minikube stop of profile minikube at the end of the build, [b]"
+                + " did not run their release goals");
+  }
+
+  @Test
+  public void testGet_releasesDeferredAtSessionEnd() throws Exception {
+    ExecutionListener listener = Mockito.mock(ExecutionListener.class);
+    MavenExecutionRequest request = new DefaultMavenExecutionRequest();
+    request.setExecutionListener(listener);
+    MavenSession session = Mockito.mock(MavenSession.class);
+    Mockito.when(session.getRepositorySession()).thenReturn(new DefaultRepositorySystemSession());
+    Mockito.when(session.getRequest()).thenReturn(request);
+    ClusterCoordinator sessionCoordinator = ClusterCoordinator.get(session);
+    sessionCoordinator.initReleaseGoals(
+        Collections.singletonMap("b", Collections.singleton("stop")));
+    sessionCoordinator.start("minikube", "a", log, () -> actions.add("start a"));
+    sessionCoordinator.release(
+        "minikube",
+        "a",
+        "stop",
+        ClusterCoordinator.Scope.SESSION,
+        log,
+        () -> actions.add("stop a"));
+    ExecutionEvent event = Mockito.mock(ExecutionEvent.class);
+
+    request.getExecutionListener().sessionEnded(event);
+
+    Assert.assertEquals(Arrays.asList("start a", "stop a"), actions);
+    Mockito.verify(listener).sessionEnded(event);
+  }
+
+  @Test
+  public void testRelease_sessionScope_unknownModule() throws Exception {
+    clusterCoordinator.start("minikube", "a", log, () -> actions.add("start"));
+
+    Assert.assertTrue(releaseSession("a", "stop"));
+    Assert.assertEquals(Arrays.asList("start", "stop a"), actions);
+  }
+
+  @Test
+  public void testStart_concurrentModules() throws Exception {
+    int modules = 8;
+    AtomicInteger starts = new AtomicInteger();
+    CountDownLatch ready = new CountDownLatch(modules);
+    ExecutorService executor = Executors.newFixedThreadPool(modules);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < modules; i++) {
+        String module = "module" + i;
+        results.add(
+            executor.submit(
+                () -> {
+                  ready.countDown();
+                  ready.await();
+                  return clusterCoordinator.start(
+                      "minikube",
+                      module,
+                      log,
+                      () -> {
+                        starts.incrementAndGet();
+                        sleep();
+                      });
+                }));
+      }
+
+      int started = 0;
+      for (Future<Boolean> result : results) {
+        started += result.get(10, TimeUnit.SECONDS) ? 1 : 0;
+      }
+      Assert.assertEquals(1, started);
+      Assert.assertEquals(1, starts.get());
+
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private boolean releaseSession(String module, String goal) throws MojoExecutionException {
+    return clusterCoordinator.release(
+        "minikube",
+        module,
+        goal,
+        ClusterCoordinator.Scope.SESSION,
+        log,
+        () -> actions.add(goal + " " + module));
+  }
+
+  private static void sleep() {
+    try {
+      Thread.sleep(50);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
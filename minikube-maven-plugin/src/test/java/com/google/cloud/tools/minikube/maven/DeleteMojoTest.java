@@ -16,20 +16,29 @@
 
 package com.google.cloud.tools.minikube.maven;
 
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.cloud.tools.minikube.command.MinikubeCapabilities;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Collections;
 import org.apache.maven.it.VerificationException;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
 import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
 
-/** Tests for {@link StartMojo}. */
+/** Tests for {@link DeleteMojo}. */
 public class DeleteMojoTest {
 
   @ClassRule public static final TestPlugin testPlugin = new TestPlugin();
 
   @Rule public final TestProject testProject = new TestProject(testPlugin, "/projects/simple");
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
 
   private MinikubeVerifier minikubeVerifier;
 
@@ -49,4 +58,34 @@ public class DeleteMojoTest {
         .setProfile("deleteFlags")
         .verify("delete", "delete someCommonFlag someDeleteFlag1 someDeleteFlag2");
   }
+
+  @Test
+  public void testExecute_stoppedClusterIsDeletedEveryTime()
+      throws MojoExecutionException, IOException, InterruptedException {
+    CommandExecutor mockCommandExecutor = Mockito.mock(CommandExecutor.class);
+    Mockito.when(mockCommandExecutor.setLogger(Mockito.any())).thenReturn(mockCommandExecutor);
+    Mockito.when(mockCommandExecutor.setOutputListener(Mockito.any()))
+        .thenReturn(mockCommandExecutor);
+    Mockito.when(mockCommandExecutor.setFailOnNonZeroExitCode(false))
+        .thenReturn(mockCommandExecutor);
+    // An existing but stopped cluster reports the same state as a deleted one.
+    Mockito.when(mockCommandExecutor.run(Arrays.asList("minikube", "status", "--output=json")))
+        .thenReturn(
+            Collections.singletonList(
+                "{\"Host\":\"Stopped\",\"Kubelet\":\"Stopped\",\"APIServer\":\"Stopped\"}"));
+
+    DeleteMojo testDeleteMojo = new DeleteMojo();
+    testDeleteMojo.setLog(Mockito.mock(Log.class));
+    testDeleteMojo.setMinikube("minikube");
+    testDeleteMojo.setCommandExecutorSupplier(() -> mockCommandExecutor);
+    testDeleteMojo.setMavenBuildLogger(Mockito.mock(MavenBuildLogger.class));
+    testDeleteMojo.setBuildDirectory(temporaryFolder.getRoot());
+    testDeleteMojo.setTimingsFile(temporaryFolder.newFile("timings.tsv"));
+    testDeleteMojo.setCapabilities(new MinikubeCapabilities("v1.30.1"));
+
+    testDeleteMojo.execute();
+    testDeleteMojo.execute();
+
+    Mockito.verify(mockCommandExecutor, Mockito.times(2)).run(Arrays.asList("minikube", "delete"));
+  }
 }
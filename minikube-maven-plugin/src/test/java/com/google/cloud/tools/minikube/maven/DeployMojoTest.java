@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.cloud.tools.minikube.command.TimingHistory;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+/** Tests for {@link DeployMojo}. */
+@RunWith(MockitoJUnitRunner.class)
+public class DeployMojoTest {
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Mock private CommandExecutor mockCommandExecutor;
+  @Mock private MavenBuildLogger mockMavenBuildLogger;
+  @Mock private Log mockLog;
+
+  private DeployMojo testDeployMojo;
+  private Path manifestDirectory;
+  private Path timingsFile;
+
+  @Before
+  public void setUp() throws IOException {
+    manifestDirectory = temporaryFolder.newFolder("k8s").toPath();
+    Files.write(
+        manifestDirectory.resolve("namespace.yaml"),
+        "kind: Namespace\n".getBytes(StandardCharsets.UTF_8));
+    Files.write(
+        manifestDirectory.resolve("app.yaml"),
+        "kind: Deployment\n".getBytes(StandardCharsets.UTF_8));
+    timingsFile = temporaryFolder.getRoot().toPath().resolve("timings.tsv");
+
+    Mockito.when(mockCommandExecutor.setLogger(mockMavenBuildLogger))
+        .thenReturn(mockCommandExecutor);
+
+    testDeployMojo = new DeployMojo();
+    testDeployMojo.setLog(mockLog);
+    testDeployMojo.setCommandExecutorSupplier(() -> mockCommandExecutor);
+    testDeployMojo.setMavenBuildLogger(mockMavenBuildLogger);
+    testDeployMojo.setManifestDirectory(manifestDirectory.toFile());
+    testDeployMojo.setTimingsFile(timingsFile.toFile());
+    testDeployMojo.setIndexFile(temporaryFolder.getRoot().toPath().resolve("index.tsv").toFile());
+  }
+
+  @Test
+  public void testExecute() throws MojoExecutionException, IOException, InterruptedException {
+    setClusterId();
+
+    testDeployMojo.execute();
+
+    Mockito.verify(mockCommandExecutor)
+        .run(
+            Arrays.asList(
+                "kubectl",
+                "--context",
+                "minikube",
+                "apply",
+                "-f",
+                manifestDirectory.resolve("namespace.yaml").toString()));
+    Mockito.verify(mockMavenBuildLogger).lifecycle("Applying 1 definitions manifest(s)");
+    Mockito.verify(mockMavenBuildLogger).lifecycle("Applying 1 workloads manifest(s)");
+
+    List<TimingHistory.Sample> samples = new TimingHistory(timingsFile).read();
+    Assert.assertEquals(3, samples.size());
+    Assert.assertEquals("deploy", samples.get(0).getOperation());
+    Assert.assertEquals("", samples.get(0).getStage());
+    Assert.assertEquals("namespace.yaml", samples.get(1).getStage());
+    Assert.assertEquals("app.yaml", samples.get(2).getStage());
+
+    // Nothing changed.
+    testDeployMojo.execute();
+
+    Mockito.verify(mockCommandExecutor)
+        .run(
+            Arrays.asList(
+                "kubectl",
+                "--context",
+                "minikube",
+                "apply",
+                "-f",
+                manifestDirectory.resolve("app.yaml").toString()));
+    Mockito.verify(mockMavenBuildLogger).lifecycle("2 of 2 manifest(s) unchanged");
+  }
+
+  @Test
+  public void testExecute_fail() throws IOException, InterruptedException {
+    Mockito.when(mockCommandExecutor.run(Mockito.anyList()))
+        .thenThrow(new IOException("command exited with non-zero exit code : 1"));
+    setClusterId();
+
+    try {
+      testDeployMojo.execute();
+      Assert.fail("execute() should have failed");
+
+    } catch (MojoExecutionException ex) {
+      Assert.assertEquals(
+          "Failed to apply manifests: namespace.yaml (command exited with non-zero exit code : 1)",
+          ex.getMessage());
+    }
+  }
+
+  private void setClusterId() throws IOException, InterruptedException {
+    Mockito.doReturn(Collections.singletonList("uid"))
+        .when(mockCommandExecutor)
+        .run(
+            Arrays.asList(
+                "kubectl",
+                "--context",
+                "minikube",
+                "get",
+                "namespace",
+                "kube-system",
+                "-o",
+                "jsonpath={.metadata.uid}"));
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.cloud.tools.minikube.command.DiagnosticsCollector;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+/** Tests for {@link DiagnosticsMojo}. */
+public class DiagnosticsMojoTest {
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private CommandExecutor mockCommandExecutor;
+  private Path outputDirectory;
+  private DiagnosticsMojo testDiagnosticsMojo;
+
+  @Before
+  public void setUp() {
+    // Returns itself from the setters, and no output from run().
+    mockCommandExecutor = Mockito.mock(CommandExecutor.class, Mockito.RETURNS_SELF);
+    outputDirectory = temporaryFolder.getRoot().toPath().resolve("diagnostics");
+
+    testDiagnosticsMojo = new DiagnosticsMojo();
+    testDiagnosticsMojo.setLog(Mockito.mock(Log.class));
+    testDiagnosticsMojo.setCommandExecutorSupplier(() -> mockCommandExecutor);
+    testDiagnosticsMojo.setMavenBuildLogger(Mockito.mock(MavenBuildLogger.class));
+    testDiagnosticsMojo.setOutputDirectory(outputDirectory.toFile());
+    testDiagnosticsMojo.setProfile("dev");
+    testDiagnosticsMojo.setContext("dev");
+  }
+
+  @Test
+  public void testExecute_zip() throws MojoExecutionException, IOException, InterruptedException {
+    testDiagnosticsMojo.execute();
+
+    Assert.assertEquals(
+        Arrays.asList(DiagnosticsCollector.ZIP_FILE_NAME), listFileNames(outputDirectory));
+    Mockito.verify(mockCommandExecutor).run(Arrays.asList("minikube", "logs", "--profile=dev"));
+  }
+
+  @Test
+  public void testExecute_gzip() throws MojoExecutionException, IOException {
+    testDiagnosticsMojo.setFormat(DiagnosticsCollector.Format.GZIP);
+    testDiagnosticsMojo.execute();
+
+    Assert.assertEquals(
+        Arrays.asList("events.txt.gz", "minikube-logs.txt.gz", "pods.txt.gz"),
+        listFileNames(outputDirectory));
+  }
+
+  private static List<String> listFileNames(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+    }
+  }
+}
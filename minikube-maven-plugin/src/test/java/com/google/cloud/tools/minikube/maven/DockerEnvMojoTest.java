@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.cloud.tools.minikube.command.DockerEnvCache;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+/** Tests for {@link DockerEnvMojo}. */
+public class DockerEnvMojoTest {
+
+  private static final List<String> DOCKER_ENV_COMMAND =
+      Arrays.asList("minikube", "docker-env", "--shell=none", "--profile=dev");
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final Properties userProperties = new Properties();
+
+  private CommandExecutor mockCommandExecutor;
+  private MavenSession mockMavenSession;
+  private Path minikubeHome;
+
+  @Before
+  public void setUp() throws IOException, InterruptedException {
+    mockCommandExecutor = Mockito.mock(CommandExecutor.class);
+    Mockito.when(mockCommandExecutor.run(DOCKER_ENV_COMMAND))
+        .thenReturn(Arrays.asList("DOCKER_HOST=tcp://192.168.49.2:2376", "DOCKER_TLS_VERIFY=1"));
+
+    mockMavenSession = Mockito.mock(MavenSession.class);
+    Mockito.when(mockMavenSession.getRepositorySession())
+        .thenReturn(new DefaultRepositorySystemSession());
+    Mockito.when(mockMavenSession.getUserProperties()).thenReturn(userProperties);
+
+    minikubeHome = temporaryFolder.getRoot().toPath().resolve(".minikube");
+    Path config = minikubeHome.resolve("profiles").resolve("dev").resolve("config.json");
+    Files.createDirectories(config.getParent());
+    Files.write(config, new byte[0]);
+  }
+
+  @Test
+  public void testExecute_setsProperties() throws MojoExecutionException {
+    MavenProject project = new MavenProject();
+    newDockerEnvMojo(project, false).execute();
+
+    Assert.assertEquals(
+        "tcp://192.168.49.2:2376", project.getProperties().get("minikube.docker-env.DOCKER_HOST"));
+    Assert.assertEquals("1", userProperties.get("minikube.docker-env.DOCKER_TLS_VERIFY"));
+  }
+
+  @Test
+  public void testExecute_oncePerSession()
+      throws MojoExecutionException, IOException, InterruptedException {
+    newDockerEnvMojo(new MavenProject(), false).execute();
+    MavenProject otherProject = new MavenProject();
+    newDockerEnvMojo(otherProject, false).execute();
+
+    Mockito.verify(mockCommandExecutor).run(DOCKER_ENV_COMMAND);
+    Assert.assertEquals(
+        "tcp://192.168.49.2:2376",
+        otherProject.getProperties().get("minikube.docker-env.DOCKER_HOST"));
+  }
+
+  @Test
+  public void testExecute_cacheAcrossBuilds()
+      throws MojoExecutionException, IOException, InterruptedException {
+    newDockerEnvMojo(new MavenProject(), true).execute();
+    // A new build has a new session.
+    Mockito.when(mockMavenSession.getRepositorySession())
+        .thenReturn(new DefaultRepositorySystemSession());
+    MavenProject project = new MavenProject();
+    newDockerEnvMojo(project, true).execute();
+
+    Mockito.verify(mockCommandExecutor).run(DOCKER_ENV_COMMAND);
+    Assert.assertEquals(
+        "tcp://192.168.49.2:2376", project.getProperties().get("minikube.docker-env.DOCKER_HOST"));
+  }
+
+  @Test
+  public void testExecute_fail() throws IOException, InterruptedException {
+    Mockito.when(mockCommandExecutor.run(DOCKER_ENV_COMMAND)).thenThrow(new IOException("failed"));
+
+    try {
+      newDockerEnvMojo(new MavenProject(), false).execute();
+      Assert.fail();
+    } catch (MojoExecutionException ex) {
+      Assert.assertEquals("Getting the minikube docker environment failed", ex.getMessage());
+    }
+  }
+
+  private DockerEnvMojo newDockerEnvMojo(MavenProject project, boolean cacheAcrossBuilds) {
+    DockerEnvMojo dockerEnvMojo = new DockerEnvMojo();
+    dockerEnvMojo.setLog(Mockito.mock(Log.class));
+    dockerEnvMojo.setCommandExecutorSupplier(() -> mockCommandExecutor);
+    dockerEnvMojo.setDockerEnvCache(
+        new DockerEnvCache(temporaryFolder.getRoot().toPath().resolve("cache"), minikubeHome));
+    dockerEnvMojo.setProfile("dev");
+    dockerEnvMojo.setCacheAcrossBuilds(cacheAcrossBuilds);
+    dockerEnvMojo.setProject(project);
+    dockerEnvMojo.setSession(mockMavenSession);
+    return dockerEnvMojo;
+  }
+}
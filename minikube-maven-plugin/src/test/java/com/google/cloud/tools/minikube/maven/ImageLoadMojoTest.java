@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.cloud.tools.minikube.command.MinikubeCapabilities;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+/** Tests for {@link ImageLoadMojo}. */
+@RunWith(MockitoJUnitRunner.class)
+public class ImageLoadMojoTest {
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Mock private CommandExecutor mockCommandExecutor;
+  @Mock private MavenBuildLogger mockMavenBuildLogger;
+  @Mock private Log mockLog;
+
+  private ImageLoadMojo testImageLoadMojo;
+
+  @Before
+  public void setUp() {
+    testImageLoadMojo = new ImageLoadMojo();
+    testImageLoadMojo.setLog(mockLog);
+    testImageLoadMojo.setCommandExecutorSupplier(() -> mockCommandExecutor);
+    testImageLoadMojo.setMavenBuildLogger(mockMavenBuildLogger);
+    testImageLoadMojo.setCapabilities(MinikubeCapabilities.UNKNOWN);
+    testImageLoadMojo.setIndexFile(
+        temporaryFolder.getRoot().toPath().resolve("index.tsv").toFile());
+  }
+
+  @Test
+  public void testExecute_noImages() throws MojoExecutionException {
+    testImageLoadMojo.execute();
+
+    Mockito.verify(mockLog).info("No images to load into minikube");
+    Mockito.verifyZeroInteractions(mockCommandExecutor);
+  }
+
+  @Test
+  public void testExecute() throws MojoExecutionException, IOException, InterruptedException {
+    testImageLoadMojo.setImages(ImmutableList.of("app"));
+    Mockito.when(mockCommandExecutor.setLogger(mockMavenBuildLogger))
+        .thenReturn(mockCommandExecutor);
+    Mockito.when(
+            mockCommandExecutor.run(
+                Arrays.asList("docker", "image", "inspect", "--format={{.Id}}", "app")))
+        .thenReturn(Collections.singletonList("sha256:aaa"));
+    Mockito.when(
+            mockCommandExecutor.run(
+                Arrays.asList("minikube", "image", "ls", "--format=json", "--profile=minikube")))
+        .thenReturn(Collections.singletonList("[]"));
+
+    testImageLoadMojo.execute();
+
+    Mockito.verify(mockCommandExecutor)
+        .run(Arrays.asList("minikube", "image", "load", "app", "--profile=minikube"));
+    Mockito.verify(mockLog).info("Loaded 1 image(s) into minikube, 0 already up to date");
+  }
+
+  @Test
+  public void testExecute_fail() throws IOException, InterruptedException {
+    testImageLoadMojo.setImages(ImmutableList.of("app"));
+    IOException expectedIOException = new IOException();
+    Mockito.when(
+            mockCommandExecutor.run(
+                Arrays.asList("docker", "image", "inspect", "--format={{.Id}}", "app")))
+        .thenThrow(expectedIOException);
+
+    try {
+      testImageLoadMojo.execute();
+      Assert.fail("execute() should have failed");
+
+    } catch (MojoExecutionException ex) {
+      Assert.assertEquals("Loading images into minikube failed", ex.getMessage());
+      Assert.assertEquals(expectedIOException, ex.getCause());
+    }
+  }
+}
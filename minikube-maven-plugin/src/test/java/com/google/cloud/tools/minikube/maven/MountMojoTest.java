@@ -0,0 +1,123 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Consumer;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+/** Tests for {@link MountMojo}. */
+@RunWith(MockitoJUnitRunner.class)
+public class MountMojoTest {
+
+  @Mock private CommandExecutor mockCommandExecutor;
+  @Mock private CommandExecutor.RunningCommand mockRunningCommand;
+  @Mock private MavenBuildLogger mockMavenBuildLogger;
+  @Mock private Log mockLog;
+
+  private MountMojo testMountMojo;
+  private Consumer<String> outputListener;
+
+  @Before
+  public void setUp() throws IOException {
+    Mockito.when(mockCommandExecutor.setLogger(mockMavenBuildLogger))
+        .thenReturn(mockCommandExecutor);
+    Mockito.when(mockCommandExecutor.setOutputListener(Mockito.any()))
+        .thenAnswer(
+            invocation -> {
+              outputListener = invocation.getArgument(0);
+              return mockCommandExecutor;
+            });
+    Mockito.when(mockCommandExecutor.start(Mockito.anyList()))
+        .thenAnswer(
+            invocation -> {
+              outputListener.accept("Mounting host path /src into VM as /src ...");
+              outputListener.accept("Successfully mounted /src to /src");
+              return mockRunningCommand;
+            });
+    Mockito.when(mockRunningCommand.isRunning()).thenReturn(true);
+
+    testMountMojo = new MountMojo();
+    testMountMojo.setLog(mockLog);
+    testMountMojo.setCommandExecutorSupplier(() -> mockCommandExecutor);
+    testMountMojo.setMavenBuildLogger(mockMavenBuildLogger);
+    testMountMojo.setFlags(Collections.singletonList("/src:/src"));
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    BackgroundProcesses.stop(null);
+  }
+
+  @Test
+  public void testExecute() throws MojoExecutionException, IOException, InterruptedException {
+    testMountMojo.execute();
+
+    Mockito.verify(mockCommandExecutor).start(Arrays.asList("minikube", "mount", "/src:/src"));
+    Mockito.verify(mockLog).info("minikube mount is running in the background as mount");
+    Assert.assertTrue(BackgroundProcesses.isRunning("mount"));
+
+    Assert.assertEquals(Collections.singletonList("mount"), BackgroundProcesses.stop(null));
+    Mockito.verify(mockRunningCommand).destroyTree(10_000);
+  }
+
+  @Test
+  public void testExecute_alreadyRunning()
+      throws MojoExecutionException, IOException, InterruptedException {
+    testMountMojo.setName("sources");
+    testMountMojo.execute();
+
+    testMountMojo.execute();
+
+    Mockito.verify(mockCommandExecutor).start(Mockito.anyList());
+    Mockito.verify(mockLog).info("minikube mount is already running as sources");
+  }
+
+  @Test
+  public void testExecute_exitsBeforeReady() throws IOException {
+    Mockito.doAnswer(
+            invocation -> {
+              outputListener.accept("Exiting due to GUEST_MOUNT: mount failed");
+              return mockRunningCommand;
+            })
+        .when(mockCommandExecutor)
+        .start(Mockito.anyList());
+    Mockito.when(mockRunningCommand.isRunning()).thenReturn(false);
+
+    try {
+      testMountMojo.execute();
+      Assert.fail();
+    } catch (MojoExecutionException ex) {
+      Assert.assertEquals(
+          "minikube mount exited before it was ready: Exiting due to GUEST_MOUNT: mount failed",
+          ex.getMessage());
+    }
+    Assert.assertFalse(BackgroundProcesses.isRunning("mount"));
+  }
+}
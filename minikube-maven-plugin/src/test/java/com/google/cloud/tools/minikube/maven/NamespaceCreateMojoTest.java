@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import java.io.IOException;
+import java.util.Arrays;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/** Tests for {@link NamespaceCreateMojo}. */
+public class NamespaceCreateMojoTest {
+
+  private CommandExecutor mockCommandExecutor;
+  private MavenProject project;
+  private NamespaceCreateMojo testNamespaceCreateMojo;
+
+  @Before
+  public void setUp() {
+    mockCommandExecutor = Mockito.mock(CommandExecutor.class);
+    project = new MavenProject();
+
+    testNamespaceCreateMojo = new NamespaceCreateMojo();
+    testNamespaceCreateMojo.setProject(project);
+    testNamespaceCreateMojo.setCommandExecutorSupplier(() -> mockCommandExecutor);
+  }
+
+  @Test
+  public void testExecute() throws MojoExecutionException, IOException, InterruptedException {
+    testNamespaceCreateMojo.execute();
+
+    String namespace = project.getProperties().getProperty("minikube.namespace");
+    Assert.assertTrue(namespace.matches("test-[0-9a-f]{8}"));
+    String runId = project.getProperties().getProperty("minikube.namespace.run");
+    Mockito.verify(mockCommandExecutor)
+        .run(Arrays.asList("kubectl", "--context", "minikube", "create", "namespace", namespace));
+    Mockito.verify(mockCommandExecutor)
+        .run(
+            Arrays.asList(
+                "kubectl",
+                "--context",
+                "minikube",
+                "label",
+                "namespace",
+                namespace,
+                "minikube-build-tools/isolated=true",
+                "minikube-build-tools/run=" + runId));
+  }
+
+  @Test
+  public void testExecute_sharesRun() throws MojoExecutionException {
+    testNamespaceCreateMojo.setNamespace("first");
+    testNamespaceCreateMojo.execute();
+    String runId = project.getProperties().getProperty("minikube.namespace.run");
+    testNamespaceCreateMojo.setNamespace("second");
+    testNamespaceCreateMojo.execute();
+
+    Assert.assertEquals("second", project.getProperties().getProperty("minikube.namespace"));
+    Assert.assertEquals(runId, project.getProperties().getProperty("minikube.namespace.run"));
+  }
+}
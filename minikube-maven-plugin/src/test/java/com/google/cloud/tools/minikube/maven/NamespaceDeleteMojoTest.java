@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import java.io.IOException;
+import java.util.Arrays;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/** Tests for {@link NamespaceDeleteMojo}. */
+public class NamespaceDeleteMojoTest {
+
+  private CommandExecutor mockCommandExecutor;
+  private MavenProject project;
+  private NamespaceDeleteMojo testNamespaceDeleteMojo;
+
+  @Before
+  public void setUp() {
+    mockCommandExecutor = Mockito.mock(CommandExecutor.class);
+    project = new MavenProject();
+
+    testNamespaceDeleteMojo = new NamespaceDeleteMojo();
+    testNamespaceDeleteMojo.setProject(project);
+    testNamespaceDeleteMojo.setCommandExecutorSupplier(() -> mockCommandExecutor);
+  }
+
+  @Test
+  public void testExecute_deletesRun()
+      throws MojoExecutionException, IOException, InterruptedException {
+    project.getProperties().setProperty("minikube.namespace.run", "1234abcd");
+
+    testNamespaceDeleteMojo.execute();
+
+    Mockito.verify(mockCommandExecutor)
+        .run(
+            Arrays.asList(
+                "kubectl",
+                "--context",
+                "minikube",
+                "delete",
+                "namespace",
+                "--selector=minikube-build-tools/run=1234abcd",
+                "--ignore-not-found",
+                "--wait=false"));
+  }
+
+  @Test
+  public void testExecute_deletesAll()
+      throws MojoExecutionException, IOException, InterruptedException {
+    testNamespaceDeleteMojo.setAll(true);
+
+    testNamespaceDeleteMojo.execute();
+
+    Mockito.verify(mockCommandExecutor)
+        .run(
+            Arrays.asList(
+                "kubectl",
+                "--context",
+                "minikube",
+                "delete",
+                "namespace",
+                "--selector=minikube-build-tools/isolated=true",
+                "--ignore-not-found",
+                "--wait=false"));
+  }
+
+  @Test
+  public void testExecute_nothingCreated() throws MojoExecutionException {
+    testNamespaceDeleteMojo.execute();
+
+    Mockito.verifyZeroInteractions(mockCommandExecutor);
+  }
+}
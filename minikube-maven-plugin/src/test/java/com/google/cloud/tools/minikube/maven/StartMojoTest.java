@@ -16,13 +16,23 @@
 
 package com.google.cloud.tools.minikube.maven;
 
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.cloud.tools.minikube.command.MinikubeCapabilities;
+import com.google.cloud.tools.minikube.command.ResourcePlanner;
+import com.google.common.collect.ImmutableList;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Collections;
 import org.apache.maven.it.VerificationException;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
 import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
 
 /** Tests for {@link StartMojo}. */
 public class StartMojoTest {
@@ -31,6 +41,8 @@ public class StartMojoTest {
 
   @Rule public final TestProject testProject = new TestProject(testPlugin, "/projects/simple");
 
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private MinikubeVerifier minikubeVerifier;
 
   @Before
@@ -49,4 +61,38 @@ public class StartMojoTest {
         .setProfile("startFlags")
         .verify("start", "start someCommonFlag someStartFlag1 someStartFlag2");
   }
+
+  @Test
+  public void testExecute_withProject_startPolicyAuto() throws VerificationException, IOException {
+    // fakeminikube prints no version, which is assumed to support pause, and no status, which is a
+    // stopped cluster.
+    minikubeVerifier
+        .setProfile("startPolicyAuto")
+        .verify("start", "version --output=jsonversionstatus --output=jsonstart");
+  }
+
+  @Test
+  public void testExecute_autoResources()
+      throws MojoExecutionException, IOException, InterruptedException {
+    CommandExecutor mockCommandExecutor = Mockito.mock(CommandExecutor.class, Mockito.RETURNS_SELF);
+    Mockito.when(
+            mockCommandExecutor.run(Arrays.asList("minikube", "profile", "list", "--output=json")))
+        .thenReturn(
+            Collections.singletonList("{\"valid\":[{\"Name\":\"other\",\"Status\":\"Running\"}]}"));
+
+    StartMojo startMojo = new StartMojo();
+    startMojo.setLog(Mockito.mock(Log.class));
+    startMojo.setCommandExecutorSupplier(() -> mockCommandExecutor);
+    startMojo.setMavenBuildLogger(Mockito.mock(MavenBuildLogger.class));
+    startMojo.setCapabilities(new MinikubeCapabilities("v1.30.1"));
+    startMojo.setMinikube("minikube");
+    startMojo.setFlags(ImmutableList.of("--profile", "dev", "--memory=4g"));
+    startMojo.setTimingsFile(temporaryFolder.getRoot().toPath().resolve("timings.tsv").toFile());
+    startMojo.setResourcePolicy(StartMojo.ResourcePolicy.AUTO);
+    startMojo.setHostResources(() -> new ResourcePlanner.Resources(17, 32768));
+    startMojo.execute();
+
+    Mockito.verify(mockCommandExecutor)
+        .run(Arrays.asList("minikube", "start", "--profile", "dev", "--memory=4g", "--cpus=8"));
+  }
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.BackgroundProcess;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+/** Tests for {@link StopBackgroundMojo}. */
+@RunWith(MockitoJUnitRunner.class)
+public class StopBackgroundMojoTest {
+
+  @Mock private Log mockLog;
+
+  private StopBackgroundMojo testStopBackgroundMojo;
+
+  @Before
+  public void setUp() {
+    testStopBackgroundMojo = new StopBackgroundMojo();
+    testStopBackgroundMojo.setLog(mockLog);
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    BackgroundProcesses.stop(null);
+  }
+
+  @Test
+  public void testExecute() throws MojoExecutionException {
+    BackgroundProcesses.add("mount", newProcess(), 0);
+    BackgroundProcesses.add("tunnel", newProcess(), 0);
+
+    testStopBackgroundMojo.setName("tunnel");
+    testStopBackgroundMojo.execute();
+    Mockito.verify(mockLog).info("Stopped tunnel");
+
+    testStopBackgroundMojo.setName(null);
+    testStopBackgroundMojo.execute();
+    Mockito.verify(mockLog).info("Stopped mount");
+  }
+
+  @Test
+  public void testExecute_nothingToStop() throws MojoExecutionException {
+    testStopBackgroundMojo.execute();
+
+    Mockito.verify(mockLog).info("No background commands to stop");
+    Assert.assertFalse(BackgroundProcesses.isRunning("mount"));
+  }
+
+  private static BackgroundProcess newProcess() {
+    return new BackgroundProcess(
+        "minikube mount", Arrays.asList("minikube", "mount"), Pattern.compile("mounted"));
+  }
+}
@@ -16,21 +16,43 @@
 
 package com.google.cloud.tools.minikube.maven;
 
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import com.google.cloud.tools.minikube.command.DiagnosticsCollector;
+import com.google.common.collect.ImmutableList;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import org.apache.maven.it.VerificationException;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
 
-/** Tests for {@link StartMojo}. */
+/** Tests for {@link StopMojo}. */
 public class StopMojoTest {
 
   @ClassRule public static final TestPlugin testPlugin = new TestPlugin();
 
   @Rule public final TestProject testProject = new TestProject(testPlugin, "/projects/simple");
 
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private MinikubeVerifier minikubeVerifier;
 
   @Before
@@ -49,4 +71,92 @@ public class StopMojoTest {
         .setProfile("stopFlags")
         .verify("stop", "stop someCommonFlag someStopFlag1 someStopFlag2");
   }
+
+  @Test
+  public void testExecute_collectsDiagnosticsOnTestFailures()
+      throws MojoExecutionException, IOException, InterruptedException {
+    Path summaryFile = writeSummary(0, 1);
+    Path diagnosticsDirectory = temporaryFolder.newFolder("diagnostics").toPath();
+    CommandExecutor mockCommandExecutor = Mockito.mock(CommandExecutor.class, Mockito.RETURNS_SELF);
+
+    StopMojo stopMojo = new StopMojo();
+    stopMojo.setLog(Mockito.mock(Log.class));
+    stopMojo.setCommandExecutorSupplier(() -> mockCommandExecutor);
+    stopMojo.setMavenBuildLogger(Mockito.mock(MavenBuildLogger.class));
+    stopMojo.setMinikube("minikube");
+    stopMojo.setFlags(ImmutableList.of("--profile", "dev"));
+    stopMojo.setTimingsFile(temporaryFolder.getRoot().toPath().resolve("timings.tsv").toFile());
+    stopMojo.setFailsafeSummaryFile(summaryFile.toFile());
+    stopMojo.setDiagnosticsDirectory(diagnosticsDirectory.toFile());
+    stopMojo.execute();
+
+    Assert.assertTrue(
+        Files.exists(diagnosticsDirectory.resolve(DiagnosticsCollector.ZIP_FILE_NAME)));
+    Mockito.verify(mockCommandExecutor).run(Arrays.asList("minikube", "logs", "--profile=dev"));
+    Mockito.verify(mockCommandExecutor).run(Arrays.asList("minikube", "stop", "--profile", "dev"));
+  }
+
+  @Test
+  public void testHasTestFailures() throws IOException {
+    Assert.assertFalse(StopMojo.hasTestFailures(writeSummary(0, 0)));
+    Assert.assertTrue(StopMojo.hasTestFailures(writeSummary(2, 0)));
+    Assert.assertTrue(StopMojo.hasTestFailures(writeSummary(0, 1)));
+    Assert.assertFalse(
+        StopMojo.hasTestFailures(temporaryFolder.getRoot().toPath().resolve("missing.xml")));
+  }
+
+  @Test
+  public void testGetProfile() {
+    Assert.assertEquals("minikube", StopMojo.getProfile(Arrays.asList("minikube", "stop")));
+    Assert.assertEquals(
+        "dev", StopMojo.getProfile(Arrays.asList("minikube", "stop", "--profile=dev")));
+    Assert.assertEquals("dev", StopMojo.getProfile(Arrays.asList("minikube", "stop", "-p", "dev")));
+  }
+
+  @Test
+  public void testGetReleaseGoals() {
+    MavenProject app = newProject("app", "start", "stop", "delete");
+    MavenProject lib = newProject("lib");
+
+    Map<String, Set<String>> releaseGoals =
+        StopMojo.getReleaseGoals(
+            Arrays.asList(app, lib), "com.google.cloud.tools:minikube-maven-plugin");
+
+    Assert.assertEquals(
+        new HashSet<>(Arrays.asList("stop", "delete")), releaseGoals.get("com.example:app"));
+    Assert.assertEquals(Collections.emptySet(), releaseGoals.get("com.example:lib"));
+  }
+
+  private static MavenProject newProject(String artifactId, String... minikubeGoals) {
+    MavenProject project = new MavenProject();
+    project.setGroupId("com.example");
+    project.setArtifactId(artifactId);
+    project.getModel().setBuild(new Build());
+
+    Plugin plugin = new Plugin();
+    plugin.setGroupId("com.google.cloud.tools");
+    plugin.setArtifactId(minikubeGoals.length == 0 ? "other-plugin" : "minikube-maven-plugin");
+    PluginExecution execution = new PluginExecution();
+    execution.setGoals(Arrays.asList(minikubeGoals));
+    plugin.addExecution(execution);
+    project.getBuild().addPlugin(plugin);
+    return project;
+  }
+
+  private Path writeSummary(int errors, int failures) throws IOException {
+    Path summaryFile = temporaryFolder.newFile().toPath();
+    String summary =
+        "<failsafe-summary result=\"255\">\n"
+            + "  <completed>3</completed>\n"
+            + "  <errors>"
+            + errors
+            + "</errors>\n"
+            + "  <failures>"
+            + failures
+            + "</failures>\n"
+            + "  <skipped>0</skipped>\n"
+            + "</failsafe-summary>\n";
+    Files.write(summaryFile, summary.getBytes(StandardCharsets.UTF_8));
+    return summaryFile;
+  }
 }
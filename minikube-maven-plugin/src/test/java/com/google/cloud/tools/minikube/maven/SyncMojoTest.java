@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+/** Tests for {@link SyncMojo}. */
+@RunWith(MockitoJUnitRunner.class)
+public class SyncMojoTest {
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Mock private CommandExecutor mockCommandExecutor;
+  @Mock private MavenBuildLogger mockMavenBuildLogger;
+  @Mock private Log mockLog;
+
+  private SyncMojo testSyncMojo;
+
+  @Before
+  public void setUp() throws IOException {
+    Path sourceDirectory = temporaryFolder.newFolder("classes").toPath();
+    Files.write(sourceDirectory.resolve("App.class"), "app".getBytes(StandardCharsets.UTF_8));
+
+    testSyncMojo = new SyncMojo();
+    testSyncMojo.setLog(mockLog);
+    testSyncMojo.setCommandExecutorSupplier(() -> mockCommandExecutor);
+    testSyncMojo.setMavenBuildLogger(mockMavenBuildLogger);
+    testSyncMojo.setSourceDirectory(sourceDirectory.toFile());
+    testSyncMojo.setBuildDirectory(temporaryFolder.newFolder("target"));
+  }
+
+  @Test
+  public void testExecute() throws MojoExecutionException, IOException, InterruptedException {
+    Mockito.when(mockCommandExecutor.setInputFile(Mockito.any(File.class)))
+        .thenReturn(mockCommandExecutor);
+    testSyncMojo.setTargets(Collections.singletonList("deployment/app"));
+
+    testSyncMojo.execute();
+
+    Mockito.verify(mockCommandExecutor)
+        .run(
+            Arrays.asList(
+                "kubectl",
+                "--context",
+                "minikube",
+                "--namespace",
+                "default",
+                "exec",
+                "-i",
+                "deployment/app",
+                "--",
+                "sh",
+                "-c",
+                "mkdir -p \"$0\" && tar -xf - -C \"$0\" && cd \"$0\""
+                    + " && { [ $# -eq 0 ] || rm -f -- \"$@\"; }",
+                "/app/classes"));
+  }
+
+  @Test
+  public void testExecute_failure() throws IOException, InterruptedException {
+    Mockito.when(mockCommandExecutor.setInputFile(Mockito.any(File.class)))
+        .thenReturn(mockCommandExecutor);
+    Mockito.when(mockCommandExecutor.run(Mockito.anyList()))
+        .thenThrow(new IOException("pod not found"));
+    testSyncMojo.setTargets(Collections.singletonList("deployment/app"));
+
+    try {
+      testSyncMojo.execute();
+      Assert.fail();
+    } catch (MojoExecutionException ex) {
+      Assert.assertEquals("Failed to sync files: deployment/app (pod not found)", ex.getMessage());
+    }
+  }
+
+  @Test
+  public void testExecute_noTargets() {
+    try {
+      testSyncMojo.execute();
+      Assert.fail();
+    } catch (MojoExecutionException ex) {
+      Assert.assertEquals("No sync targets configured", ex.getMessage());
+    }
+    Mockito.verifyZeroInteractions(mockCommandExecutor);
+  }
+}
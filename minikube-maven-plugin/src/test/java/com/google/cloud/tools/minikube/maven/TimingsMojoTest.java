@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.TimingHistory;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+/** Tests for {@link TimingsMojo}. */
+@RunWith(MockitoJUnitRunner.class)
+public class TimingsMojoTest {
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Mock private Log mockLog;
+
+  private File timingsFile;
+  private TimingsMojo testTimingsMojo;
+
+  @Before
+  public void setUp() throws IOException {
+    timingsFile = temporaryFolder.newFile("timings.tsv");
+
+    List<TimingHistory.Sample> samples = new ArrayList<>();
+    long[] durations = {60000, 61000, 59000, 60500, 59500, 60000, 80000, 79000, 81000};
+    for (long duration : durations) {
+      samples.add(new TimingHistory.Sample(samples.size(), "minikube", "start", "", duration));
+      samples.add(new TimingHistory.Sample(samples.size(), "minikube", "stop", "", 1000));
+    }
+    new TimingHistory(timingsFile.toPath()).append(samples);
+
+    testTimingsMojo = new TimingsMojo();
+    testTimingsMojo.setLog(mockLog);
+    testTimingsMojo.setTimingsFile(timingsFile);
+  }
+
+  @Test
+  public void testExecute() throws MojoExecutionException, MojoFailureException {
+    testTimingsMojo.execute();
+
+    Mockito.verify(mockLog)
+        .warn("start (minikube): baseline 60.0s (n=6), recent 80.0s (n=3), +33% REGRESSION");
+    Mockito.verify(mockLog).info("stop (minikube): baseline 1.0s (n=6), recent 1.0s (n=3), +0%");
+  }
+
+  @Test
+  public void testExecute_failOnRegression() throws MojoExecutionException {
+    testTimingsMojo.setFailOnRegression(true);
+
+    try {
+      testTimingsMojo.execute();
+      Assert.fail("execute() should have failed");
+
+    } catch (MojoFailureException ex) {
+      Assert.assertEquals("1 minikube timing regression(s) detected", ex.getMessage());
+    }
+  }
+
+  @Test
+  public void testExecute_noHistory() throws MojoExecutionException, MojoFailureException {
+    File missingFile = new File(temporaryFolder.getRoot(), "missing.tsv");
+    testTimingsMojo.setTimingsFile(missingFile);
+
+    testTimingsMojo.execute();
+
+    Mockito.verify(mockLog).info("Not enough minikube timings recorded in " + missingFile);
+  }
+}
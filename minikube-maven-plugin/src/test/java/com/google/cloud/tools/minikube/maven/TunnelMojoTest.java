@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.maven;
+
+import com.google.cloud.tools.minikube.command.CommandExecutor;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+/** Tests for {@link TunnelMojo}. */
+@RunWith(MockitoJUnitRunner.class)
+public class TunnelMojoTest {
+
+  @Mock private CommandExecutor mockCommandExecutor;
+  @Mock private CommandExecutor.RunningCommand mockRunningCommand;
+  @Mock private MavenBuildLogger mockMavenBuildLogger;
+  @Mock private Log mockLog;
+
+  private TunnelMojo testTunnelMojo;
+  private Consumer<String> outputListener;
+
+  @Before
+  public void setUp() {
+    Mockito.when(mockCommandExecutor.setLogger(mockMavenBuildLogger))
+        .thenReturn(mockCommandExecutor);
+    Mockito.when(mockCommandExecutor.setOutputListener(Mockito.any()))
+        .thenAnswer(
+            invocation -> {
+              outputListener = invocation.getArgument(0);
+              return mockCommandExecutor;
+            });
+
+    testTunnelMojo = new TunnelMojo();
+    testTunnelMojo.setLog(mockLog);
+    testTunnelMojo.setCommandExecutorSupplier(() -> mockCommandExecutor);
+    testTunnelMojo.setMavenBuildLogger(mockMavenBuildLogger);
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    BackgroundProcesses.stop(null);
+  }
+
+  @Test
+  public void testExecute_status() throws MojoExecutionException, IOException {
+    Mockito.when(mockCommandExecutor.start(Mockito.anyList()))
+        .thenAnswer(
+            invocation -> {
+              outputListener.accept("Status:\t");
+              return mockRunningCommand;
+            });
+    Mockito.when(mockRunningCommand.isRunning()).thenReturn(true);
+
+    testTunnelMojo.execute();
+
+    Mockito.verify(mockCommandExecutor).start(Arrays.asList("minikube", "tunnel"));
+    Assert.assertTrue(BackgroundProcesses.isRunning("tunnel"));
+  }
+
+  @Test
+  public void testExecute_tunnelStarted() throws MojoExecutionException, IOException {
+    Mockito.when(mockCommandExecutor.start(Mockito.anyList()))
+        .thenAnswer(
+            invocation -> {
+              outputListener.accept("* Tunnel successfully started");
+              return mockRunningCommand;
+            });
+    Mockito.when(mockRunningCommand.isRunning()).thenReturn(true);
+
+    testTunnelMojo.execute();
+
+    Assert.assertTrue(BackgroundProcesses.isRunning("tunnel"));
+  }
+}
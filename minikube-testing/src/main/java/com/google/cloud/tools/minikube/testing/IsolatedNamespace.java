@@ -0,0 +1,249 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.testing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.rules.ExternalResource;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+/**
+ * A JUnit 4 rule that isolates a test class in a uniquely named namespace of the minikube cluster,
+ * so that the cluster can be reused instead of being recreated for a clean state.
+ *
+ * <pre>{@code
+ * @ClassRule public static final IsolatedNamespace namespace = new IsolatedNamespace();
+ *
+ * @Test
+ * public void testDeploy() {
+ *   // Deploy to namespace.getName() ...
+ * }
+ * }</pre>
+ *
+ * <p>The namespace is named after the test class and labeled like the namespaces of the {@code
+ * namespace-create} goal and {@code minikubeCreateNamespace} task, with the run from the {@code
+ * minikube.namespace.run} system property if set, so that leftovers are deleted with the build's
+ * namespaces. After the tests, the namespace is deleted in the background: the next test class
+ * starts while the cluster still removes the resources of the previous one.
+ */
+public class IsolatedNamespace extends ExternalResource {
+
+  /** Runs kubectl commands. */
+  interface CommandRunner {
+
+    void run(List<String> command) throws IOException, InterruptedException;
+  }
+
+  // Same labels and naming as NamespaceIsolation in the plugins.
+  private static final String ISOLATED_LABEL = "minikube-build-tools/isolated";
+  private static final String RUN_LABEL = "minikube-build-tools/run";
+  private static final String RUN_PROPERTY = "minikube.namespace.run";
+  private static final int MAX_NAME_LENGTH = 63;
+  private static final int SUFFIX_LENGTH = 8;
+
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+  private static final Logger LOGGER = Logger.getLogger(IsolatedNamespace.class.getName());
+
+  private static final Random RANDOM = new SecureRandom();
+
+  /** The run of the namespaces created in this JVM when the build does not provide one. */
+  private static final String DEFAULT_RUN_ID = newId();
+
+  /** Deletes the namespaces of all test classes in parallel, without blocking the tests. */
+  private static final ExecutorService DELETE_EXECUTOR =
+      Executors.newCachedThreadPool(
+          runnable -> {
+            Thread thread = new Thread(runnable, "minikube-namespace-delete");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  static {
+    // The deletions are only started, so waiting for them before the JVM exits is short.
+    Runtime.getRuntime()
+        .addShutdownHook(
+            new Thread(
+                () -> {
+                  DELETE_EXECUTOR.shutdown();
+                  try {
+                    DELETE_EXECUTOR.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                  } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                  }
+                }));
+  }
+
+  /**
+   * Generates a namespace name from a prefix and a random suffix.
+   *
+   * @param prefix the prefix, for example the name of the test class
+   * @return a valid, unique namespace name
+   */
+  static String newName(String prefix) {
+    String sanitizedPrefix =
+        prefix.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9-]+", "-").replaceAll("^-+|-+$", "");
+    if (sanitizedPrefix.isEmpty()) {
+      sanitizedPrefix = "test";
+    }
+    int maxPrefixLength = MAX_NAME_LENGTH - SUFFIX_LENGTH - 1;
+    if (sanitizedPrefix.length() > maxPrefixLength) {
+      sanitizedPrefix = sanitizedPrefix.substring(0, maxPrefixLength).replaceAll("-+$", "");
+    }
+    return sanitizedPrefix + "-" + newId();
+  }
+
+  private static String newId() {
+    return String.format(Locale.ROOT, "%08x", RANDOM.nextInt());
+  }
+
+  private final String kubectl;
+  private final String context;
+  private final CommandRunner commandRunner;
+  private final ExecutorService deleteExecutor;
+
+  private String prefix;
+  private String name;
+  private Future<?> deletion;
+
+  /** Creates a rule for the {@code minikube} kubectl context. */
+  public IsolatedNamespace() {
+    this("kubectl", "minikube");
+  }
+
+  /**
+   * Creates a rule.
+   *
+   * @param kubectl the kubectl executable
+   * @param context the kubectl context, which minikube names after the profile
+   */
+  public IsolatedNamespace(String kubectl, String context) {
+    this(kubectl, context, IsolatedNamespace::runProcess, DELETE_EXECUTOR);
+  }
+
+  // @VisibleForTesting
+  IsolatedNamespace(
+      String kubectl, String context, CommandRunner commandRunner, ExecutorService deleteExecutor) {
+    this.kubectl = kubectl;
+    this.context = context;
+    this.commandRunner = commandRunner;
+    this.deleteExecutor = deleteExecutor;
+  }
+
+  /** Sets the prefix of the namespace name. Defaults to the simple name of the test class. */
+  public IsolatedNamespace setPrefix(String prefix) {
+    this.prefix = prefix;
+    return this;
+  }
+
+  /** @return the name of the namespace of the running test */
+  public String getName() {
+    if (name == null) {
+      throw new IllegalStateException("The namespace is only available while the tests run");
+    }
+    return name;
+  }
+
+  @Override
+  public Statement apply(Statement base, Description description) {
+    if (prefix == null && description.getTestClass() != null) {
+      prefix = description.getTestClass().getSimpleName();
+    }
+    return super.apply(base, description);
+  }
+
+  @Override
+  protected void before() throws Throwable {
+    String namespace = newName(prefix == null ? "test" : prefix);
+    String runId = System.getProperty(RUN_PROPERTY, DEFAULT_RUN_ID);
+    commandRunner.run(kubectl("create", "namespace", namespace));
+    name = namespace;
+    commandRunner.run(
+        kubectl(
+            "label", "namespace", namespace, ISOLATED_LABEL + "=true", RUN_LABEL + "=" + runId));
+  }
+
+  @Override
+  protected void after() {
+    if (name == null) {
+      return;
+    }
+    String namespace = name;
+    List<String> deleteCommand =
+        kubectl("delete", "namespace", namespace, "--ignore-not-found", "--wait=false");
+    name = null;
+    deletion =
+        deleteExecutor.submit(
+            () -> {
+              try {
+                commandRunner.run(deleteCommand);
+              } catch (IOException ex) {
+                // Leftovers are deleted with the build's namespaces.
+                LOGGER.log(Level.WARNING, "Failed to delete namespace " + namespace, ex);
+              } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+              }
+            });
+  }
+
+  /** @return the deletion of the last namespace, for tests */
+  Future<?> getDeletion() {
+    return deletion;
+  }
+
+  private List<String> kubectl(String... arguments) {
+    List<String> command = new ArrayList<>();
+    command.addAll(Arrays.asList(kubectl, "--context", context));
+    command.addAll(Arrays.asList(arguments));
+    return command;
+  }
+
+  private static void runProcess(List<String> command) throws IOException, InterruptedException {
+    Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+    String output = readAll(process.getInputStream());
+    int exitCode = process.waitFor();
+    if (exitCode != 0) {
+      throw new IOException(
+          "command exited with non-zero exit code : " + exitCode + ": " + output.trim());
+    }
+  }
+
+  private static String readAll(InputStream inputStream) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = inputStream.read(buffer)) != -1) {
+      output.write(buffer, 0, read);
+    }
+    return new String(output.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.cloud.tools.minikube.testing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+/** Tests for {@link IsolatedNamespace}. */
+public class IsolatedNamespaceTest {
+
+  private final List<List<String>> commands = Collections.synchronizedList(new ArrayList<>());
+  private final ExecutorService deleteExecutor = Executors.newSingleThreadExecutor();
+
+  @After
+  public void tearDown() {
+    deleteExecutor.shutdownNow();
+  }
+
+  @Test
+  public void testNewName() {
+    Assert.assertTrue(
+        IsolatedNamespace.newName("com.example.MyIT").matches("com-example-myit-[0-9a-f]{8}"));
+    Assert.assertTrue(IsolatedNamespace.newName("--").matches("test-[0-9a-f]{8}"));
+
+    char[] longPrefix = new char[100];
+    Arrays.fill(longPrefix, 'x');
+    Assert.assertEquals(63, IsolatedNamespace.newName(new String(longPrefix)).length());
+  }
+
+  @Test
+  public void testApply() throws Throwable {
+    IsolatedNamespace isolatedNamespace =
+        new IsolatedNamespace("kubectl", "dev", commands::add, deleteExecutor);
+    List<String> namesInTest = new ArrayList<>();
+
+    isolatedNamespace
+        .apply(
+            new Statement() {
+              @Override
+              public void evaluate() {
+                namesInTest.add(isolatedNamespace.getName());
+              }
+            },
+            Description.createSuiteDescription(IsolatedNamespaceTest.class))
+        .evaluate();
+    isolatedNamespace.getDeletion().get();
+
+    String name = namesInTest.get(0);
+    Assert.assertTrue(name.matches("isolatednamespacetest-[0-9a-f]{8}"));
+    Assert.assertEquals(3, commands.size());
+    Assert.assertEquals(
+        Arrays.asList("kubectl", "--context", "dev", "create", "namespace", name), commands.get(0));
+    Assert.assertEquals(
+        Arrays.asList("kubectl", "--context", "dev", "label", "namespace", name),
+        commands.get(1).subList(0, 6));
+    Assert.assertEquals("minikube-build-tools/isolated=true", commands.get(1).get(6));
+    Assert.assertTrue(commands.get(1).get(7).startsWith("minikube-build-tools/run="));
+    Assert.assertEquals(
+        Arrays.asList(
+            "kubectl",
+            "--context",
+            "dev",
+            "delete",
+            "namespace",
+            name,
+            "--ignore-not-found",
+            "--wait=false"),
+        commands.get(2));
+  }
+
+  @Test
+  public void testApply_runFromBuild() throws Throwable {
+    System.setProperty("minikube.namespace.run", "1234abcd");
+    try {
+      IsolatedNamespace isolatedNamespace =
+          new IsolatedNamespace("kubectl", "dev", commands::add, deleteExecutor)
+              .setPrefix("custom");
+      isolatedNamespace
+          .apply(
+              new Statement() {
+                @Override
+                public void evaluate() {}
+              },
+              Description.EMPTY)
+          .evaluate();
+
+      Assert.assertTrue(commands.get(0).get(5).startsWith("custom-"));
+      Assert.assertEquals("minikube-build-tools/run=1234abcd", commands.get(1).get(7));
+
+    } finally {
+      System.clearProperty("minikube.namespace.run");
+    }
+  }
+
+  @Test
+  public void testGetName_outsideTests() {
+    try {
+      new IsolatedNamespace().getName();
+      Assert.fail();
+    } catch (IllegalStateException ex) {
+      Assert.assertEquals("The namespace is only available while the tests run", ex.getMessage());
+    }
+  }
+}